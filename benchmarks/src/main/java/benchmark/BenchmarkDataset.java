@@ -0,0 +1,97 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+import repository.AppointmentOutcomeRecordRepository;
+import repository.DiagnosisRepository;
+import repository.LocationRepository;
+import repository.MedicineRepository;
+import repository.PrescribedMedicationRepository;
+import repository.PrescriptionRepository;
+import repository.RecordsRepository;
+import repository.Repository;
+import repository.TreatmentRepository;
+import repository.UserRepository;
+
+/**
+ * Shared setup of the JMH benchmarks: puts a {@link WorkloadGenerator} dataset in
+ * ./src/repository/data, where the repositories read it, and loads it.
+ * The dataset is only generated again if its settings change.
+ */
+final class BenchmarkDataset {
+    static final long SEED = 42;
+    static final LocalDate ANCHOR = LocalDate.of(2025, 1, 1);
+    static final String PASSWORD = "Password123!";
+
+    private static final Path DATA = Paths.get("src", "repository", "data");
+
+    private BenchmarkDataset() {
+    }
+
+    /**
+     * Generates the dataset for a number of patients into ./src/repository/data,
+     * skipping it if the files there were generated with the same settings.
+     *
+     * @param patients the number of patients
+     * @throws IOException if the dataset cannot be written
+     */
+    static void prepare(int patients) throws IOException {
+        prepare(patients, ANCHOR);
+    }
+
+    /**
+     * Generates the dataset for a number of patients around an anchor date.
+     *
+     * @param patients the number of patients
+     * @param anchor   the "today" of the dataset
+     * @throws IOException if the dataset cannot be written
+     */
+    static void prepare(int patients, LocalDate anchor) throws IOException {
+        if (Files.exists(Paths.get("src", "repository", "Repository.java"))) {
+            throw new IllegalStateException("Refusing to overwrite the application data in "
+                    + DATA.toAbsolutePath().normalize() + "; run the benchmarks from an empty directory");
+        }
+        Path marker = DATA.resolve(".workload");
+        String settings = patients + "," + SEED + "," + anchor;
+        if (Files.exists(marker) && Files.readString(marker, StandardCharsets.UTF_8).equals(settings)) {
+            return;
+        }
+        Files.deleteIfExists(marker);
+        WorkloadGenerator.generate(DATA, WorkloadGenerator.Config.forPatients(patients, SEED, anchor));
+        Files.writeString(marker, settings, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads every repository the way the system does at startup.
+     */
+    static void loadAll() {
+        Repository.loadRepositories(
+                new UserRepository(),
+                new PrescribedMedicationRepository(),
+                new TreatmentRepository(),
+                new PrescriptionRepository(),
+                new DiagnosisRepository(),
+                new AppointmentOutcomeRecordRepository(),
+                new LocationRepository(),
+                new RecordsRepository(),
+                new MedicineRepository());
+    }
+
+    /**
+     * Discards console output, for code paths that print on every call.
+     *
+     * @return the previous System.out, to restore afterwards
+     */
+    static PrintStream muteConsole() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return console;
+    }
+}
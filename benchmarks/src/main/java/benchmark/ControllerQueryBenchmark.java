@@ -0,0 +1,137 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.AppointmentController;
+import controller.MedicineController;
+import controller.PrescribedMedicineController;
+import controller.RecordsController;
+import controller.RegisterController;
+import controller.UserController;
+import enums.Record;
+import enums.User;
+import model.Appointment;
+import model.Diagnosis;
+import model.MedicalRecord;
+import model.Medicine;
+import repository.DiagnosisRepository;
+import repository.MedicineRepository;
+
+/**
+ * JMH benchmark for the read paths the menus use most, on {@link WorkloadGenerator}
+ * datasets of increasing size. Each call looks up a different patient, username
+ * or medicine, cycling through all of them, so a lookup that scans a whole map
+ * shows up as time growing with the number of patients.
+ * Console output of the controllers is discarded while measuring.
+ *
+ * The repositories read ./src/repository/data, so this must run in a directory
+ * of its own; it refuses to run in the project. See benchmarks/pom.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms4g", "-Xmx4g"})
+public class ControllerQueryBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int patients;
+
+    private String[] patientIDs;
+    private String[] usernames;
+    private String[] medicineNames;
+    private int next;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void loadDataset() throws IOException {
+        BenchmarkDataset.prepare(patients);
+        BenchmarkDataset.loadAll();
+        patientIDs = new String[patients];
+        usernames = new String[patients];
+        for (int i = 0; i < patients; i++) {
+            patientIDs[i] = String.format("P%03d", i);
+            usernames[i] = "patient" + i;
+        }
+        medicineNames = MedicineRepository.MEDICINES.values().stream().map(Medicine::getName).toArray(String[]::new);
+        console = BenchmarkDataset.muteConsole();
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreConsole() {
+        System.setOut(console);
+    }
+
+    private int nextIndex(int length) {
+        next = next + 1 < length ? next + 1 : 0;
+        return next;
+    }
+
+    @Benchmark
+    public model.User login() {
+        return RegisterController.login(usernames[nextIndex(usernames.length)], BenchmarkDataset.PASSWORD,
+                User.PATIENTS);
+    }
+
+    @Benchmark
+    public List<Appointment> availableSlotsFromAllDoctors() {
+        return AppointmentController.getAvailableAppointmentSlotsFromAllDoctor();
+    }
+
+    @Benchmark
+    public List<Appointment> confirmedAppointments() {
+        return AppointmentController.getConfirmedAppointments(patientIDs[nextIndex(patientIDs.length)]);
+    }
+
+    @Benchmark
+    public MedicalRecord medicalRecordByPatient() {
+        return RecordsController.getMedicalRecordsByPatientID(patientIDs[nextIndex(patientIDs.length)]);
+    }
+
+    @Benchmark
+    public List<Diagnosis> diagnosesByPatient() {
+        return DiagnosisRepository.getDiagnosesByPatientID(patientIDs[nextIndex(patientIDs.length)]);
+    }
+
+    @Benchmark
+    public Medicine medicineByName() {
+        return MedicineController.getMedicineByName(medicineNames[nextIndex(medicineNames.length)]);
+    }
+
+    @Benchmark
+    public String generatePatientID() {
+        return UserController.generateUID(User.PATIENTS);
+    }
+
+    @Benchmark
+    public String generateAppointmentID() {
+        return RecordsController.generateRecordID(Record.APPOINTMENT_RECORDS);
+    }
+
+    @Benchmark
+    public String generateDiagnosisID() {
+        return AppointmentController.generateRecordID(Record.DIAGNOSIS_RECORDS);
+    }
+
+    @Benchmark
+    public String generatePrescribedMedicationID() {
+        return PrescribedMedicineController.generateRecordID(Record.PRESCRIBED_RECORDS);
+    }
+}
@@ -0,0 +1,130 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import controller.DoctorCalendar;
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import enums.SlotTransitionResult;
+import model.Appointment;
+import repository.RecordsRepository;
+
+/**
+ * Scaling benchmark for per-doctor calendars.
+ * Fills the appointment records with PENDING requests for many doctors, then
+ * confirms every request through each doctor's calendar mailbox and measures how
+ * long it takes for all calendars to drain. A second phase measures lock-free
+ * snapshot reads from several threads at once.
+ *
+ * Usage: DoctorCalendarScalingBenchmark [doctors] [slotsPerDoctor] [readerThreads] [rounds]
+ */
+public class DoctorCalendarScalingBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int doctors = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int slotsPerDoctor = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int readerThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        System.out.printf("doctors=%d slotsPerDoctor=%d readerThreads=%d rounds=%d cores=%d%n",
+                doctors, slotsPerDoctor, readerThreads, rounds, Runtime.getRuntime().availableProcessors());
+
+        for (int round = 1; round <= rounds; round++) {
+            List<List<String>> appointmentIDs = createPendingRequests(round, doctors, slotsPerDoctor);
+            runConfirmPhase(round, doctors, appointmentIDs);
+            runReadPhase(round, doctors, readerThreads);
+        }
+    }
+
+    /**
+     * Replaces the appointment records with PENDING requests for every doctor.
+     */
+    private static List<List<String>> createPendingRequests(int round, int doctors, int slotsPerDoctor) {
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 9, 0);
+        List<List<String>> appointmentIDs = new ArrayList<>(doctors);
+        for (int d = 0; d < doctors; d++) {
+            List<String> ids = new ArrayList<>(slotsPerDoctor);
+            for (int s = 0; s < slotsPerDoctor; s++) {
+                String id = String.format("A-%d-%d-%d", round, d, s);
+                RecordsRepository.APPOINTMENT_RECORDS.put(id, new Appointment(id, base, base, RecordStatus.ACTIVE,
+                        null, String.format("P%05d", s), doctorID(round, d), base.plusMinutes(30L * s),
+                        "Level 1 - Clinic", AppointmentStatus.PENDING, null));
+                ids.add(id);
+            }
+            appointmentIDs.add(ids);
+        }
+        RecordsRepository.markRecordsReloaded();
+        return appointmentIDs;
+    }
+
+    /**
+     * Sends a confirm message for every request and waits until all calendars have drained.
+     */
+    private static void runConfirmPhase(int round, int doctors, List<List<String>> appointmentIDs) {
+        long begin = System.nanoTime();
+        List<CompletableFuture<SlotTransitionResult>> results = new ArrayList<>();
+        for (int d = 0; d < doctors; d++) {
+            DoctorCalendar calendar = DoctorCalendar.of(doctorID(round, d));
+            for (String id : appointmentIDs.get(d)) {
+                results.add(calendar.confirm(id));
+            }
+        }
+        long failures = 0;
+        for (CompletableFuture<SlotTransitionResult> result : results) {
+            if (result.join() != SlotTransitionResult.SUCCESS) {
+                failures++;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        boolean consistent = true;
+        for (int d = 0; d < doctors; d++) {
+            DoctorCalendar.Snapshot snapshot = DoctorCalendar.of(doctorID(round, d)).snapshot();
+            consistent &= snapshot.getEntries(AppointmentStatus.CONFIRMED).size() == appointmentIDs.get(d).size();
+        }
+
+        System.out.printf("round %d confirm: %,d messages in %.1f ms -> %,.0f msgs/s, failures=%d, consistent=%b%n",
+                round, results.size(), elapsed / 1e6, results.size() / (elapsed / 1e9), failures, consistent);
+    }
+
+    /**
+     * Reads snapshots of random doctors from several threads at once.
+     */
+    private static void runReadPhase(int round, int doctors, int readerThreads) throws InterruptedException {
+        int readsPerThread = 1_000_000;
+        long[] seen = new long[readerThreads];
+        List<Thread> readers = new ArrayList<>(readerThreads);
+        for (int t = 0; t < readerThreads; t++) {
+            int index = t;
+            readers.add(new Thread(() -> {
+                long entries = 0;
+                for (int i = 0; i < readsPerThread; i++) {
+                    entries += DoctorCalendar.of(doctorID(round, (i * 31 + index) % doctors)).snapshot()
+                            .getEntries().size();
+                }
+                seen[index] = entries;
+            }));
+        }
+        long begin = System.nanoTime();
+        readers.forEach(Thread::start);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        long reads = (long) readerThreads * readsPerThread;
+        long entries = 0;
+        for (long count : seen) {
+            entries += count;
+        }
+        System.out.printf("round %d read: %,d snapshot reads in %.1f ms -> %,.0f reads/s (%,d entries seen)%n",
+                round, reads, elapsed / 1e6, reads / (elapsed / 1e9), entries);
+    }
+
+    private static String doctorID(int round, int index) {
+        return String.format("D%d-%05d", round, index);
+    }
+}
@@ -0,0 +1,117 @@
+package benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import controller.AppointmentController;
+import controller.DoctorLoadBalancer;
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import model.Appointment;
+import model.Doctor;
+import repository.RecordsRepository;
+import repository.UserRepository;
+
+/**
+ * Benchmark for the least-loaded doctor recommender.
+ * Gives many doctors a long, uneven history of COMPLETED appointments and a few
+ * weeks of future slots, some already booked, then alternates booking a slot
+ * with asking for the best suggestions. A suggestion should cost about the same
+ * whatever the number of appointment records, and the incrementally kept counters
+ * should match a full recount at the end.
+ *
+ * Usage: DoctorLoadBenchmark [doctors] [historyDays] [slotsPerDay] [operations]
+ */
+public class DoctorLoadBenchmark {
+
+    public static void main(String[] args) {
+        int doctors = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int historyDays = args.length > 1 ? Integer.parseInt(args[1]) : 365;
+        int slotsPerDay = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int operations = args.length > 3 ? Integer.parseInt(args[3]) : 5_000;
+        int futureDays = 28;
+
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        UserRepository.DOCTORS.clear();
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        List<Appointment> free = new ArrayList<>();
+        int id = 0;
+        for (int d = 0; d < doctors; d++) {
+            String doctorID = String.format("D%03d", d);
+            UserRepository.DOCTORS.put(doctorID, new Doctor(doctorID, "Doctor " + d, "doctor" + d, null, null,
+                    null, null, "M", "Doctors", null));
+            // doctors with a lower number are busier
+            double busy = 1.0 - (double) d / doctors;
+            for (int day = -historyDays; day < futureDays; day++) {
+                for (int s = 0; s < slotsPerDay; s++) {
+                    LocalDateTime time = today.plusDays(day).atTime(8, 0).plusMinutes(30L * s);
+                    AppointmentStatus status = day < 0 ? AppointmentStatus.COMPLETED
+                            : random.nextDouble() < busy ? AppointmentStatus.CONFIRMED : AppointmentStatus.AVAILABLE;
+                    String recordID = "A-" + id++;
+                    Appointment appointment = new Appointment(recordID, time, time, RecordStatus.ACTIVE, null,
+                            status == AppointmentStatus.AVAILABLE ? null : "P00001", doctorID, time, "Room " + d,
+                            status, null);
+                    RecordsRepository.APPOINTMENT_RECORDS.put(recordID, appointment);
+                    if (status == AppointmentStatus.AVAILABLE && day > 0) {
+                        free.add(appointment);
+                    }
+                }
+            }
+        }
+        RecordsRepository.markRecordsReloaded();
+        System.out.printf("doctors=%d appointments=%,d free future slots=%,d%n", doctors, id, free.size());
+
+        long begin = System.nanoTime();
+        DoctorLoadBalancer.recommend(3, null, null, null);
+        System.out.printf("initial build: %.1f ms%n", (System.nanoTime() - begin) / 1e6);
+
+        long[] book = new long[operations];
+        long[] recommend = new long[operations];
+        int[] picked = new int[doctors];
+        for (int i = 0; i < operations && !free.isEmpty(); i++) {
+            Appointment slot = free.remove(random.nextInt(free.size()));
+            long start = System.nanoTime();
+            AppointmentController.bookAppointmentSlot(slot, "P00002");
+            book[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<DoctorLoadBalancer.Recommendation> best = DoctorLoadBalancer.recommend(3, null, null, null);
+            recommend[i] = System.nanoTime() - start;
+            picked[Integer.parseInt(best.get(0).slot().getDoctorID().substring(1))]++;
+        }
+        print("book (counters updated)", book);
+        print("recommend top 3", recommend);
+        System.out.printf("top pick from the least busy quarter of doctors: %.0f%%%n",
+                100.0 * Arrays.stream(picked, doctors * 3 / 4, doctors).sum() / operations);
+
+        boolean consistent = true;
+        for (int d = 0; d < doctors && consistent; d++) {
+            String doctorID = String.format("D%03d", d);
+            for (int day = -7; day < futureDays; day++) {
+                LocalDate date = today.plusDays(day);
+                int expected = 0;
+                for (int s = 0; s < slotsPerDay; s++) {
+                    // ids are laid out doctor by doctor, day by day
+                    Appointment appointment = RecordsRepository.APPOINTMENT_RECORDS.get("A-"
+                            + (((long) d * (historyDays + futureDays) + historyDays + day) * slotsPerDay + s));
+                    AppointmentStatus status = appointment.getAppointmentStatus();
+                    expected += status == AppointmentStatus.AVAILABLE || status == AppointmentStatus.CANCELED ? 0 : 1;
+                }
+                consistent &= DoctorLoadBalancer.getDayLoad(doctorID, date).total() == expected;
+            }
+        }
+        System.out.printf("consistent=%b%n", consistent);
+    }
+
+    private static void print(String label, long[] latencies) {
+        Arrays.sort(latencies);
+        int n = latencies.length;
+        System.out.printf("%s: p50=%.1f us p99=%.1f us max=%.1f us%n", label,
+                latencies[n / 2] / 1e3, latencies[(int) (n * 0.99)] / 1e3, latencies[n - 1] / 1e3);
+    }
+}
@@ -0,0 +1,91 @@
+package benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import controller.AppointmentController;
+import controller.DoctorCalendar;
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import model.Appointment;
+import model.DaySchedule;
+import repository.RecordsRepository;
+
+/**
+ * Benchmark for a doctor's materialized day-by-day schedule.
+ * Gives one doctor a long history of COMPLETED appointments plus a few weeks of
+ * future AVAILABLE slots, then books future slots one at a time and measures how
+ * long it takes until a fresh snapshot shows the change and the doctor's
+ * dashboard (today's counts and upcoming PENDING requests) has been read. The
+ * time should stay flat as the history grows.
+ *
+ * Usage: DoctorScheduleBenchmark [historyDays] [slotsPerDay] [bookings]
+ */
+public class DoctorScheduleBenchmark {
+
+    public static void main(String[] args) {
+        int historyDays = args.length > 0 ? Integer.parseInt(args[0]) : 3_650;
+        int slotsPerDay = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int bookings = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+        int futureDays = Math.max(1, (bookings + slotsPerDay - 1) / slotsPerDay);
+
+        System.out.printf("historyDays=%d slotsPerDay=%d historySlots=%,d bookings=%,d%n",
+                historyDays, slotsPerDay, (long) historyDays * slotsPerDay, bookings);
+
+        String doctorID = "D-BENCH";
+        LocalDate today = LocalDate.now();
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        for (int day = historyDays; day > 0; day--) {
+            addDay(doctorID, today.minusDays(day), slotsPerDay, AppointmentStatus.COMPLETED, "P00001");
+        }
+        List<Appointment> future = new ArrayList<>();
+        for (int day = 1; day <= futureDays; day++) {
+            future.addAll(addDay(doctorID, today.plusDays(day), slotsPerDay, AppointmentStatus.AVAILABLE, null));
+        }
+        RecordsRepository.markRecordsReloaded();
+
+        DoctorCalendar calendar = DoctorCalendar.of(doctorID);
+        long begin = System.nanoTime();
+        DoctorCalendar.Snapshot first = calendar.snapshot();
+        System.out.printf("initial build: %.1f ms, %,d slots on %,d days%n",
+                (System.nanoTime() - begin) / 1e6, first.getTotal(), first.getDays().size());
+
+        long[] latencies = new long[bookings];
+        long seen = 0;
+        for (int i = 0; i < bookings; i++) {
+            Appointment slot = future.get(i);
+            long start = System.nanoTime();
+            AppointmentController.bookAppointmentSlot(slot, "P00002");
+            DoctorCalendar.Snapshot snapshot = calendar.snapshot();
+            DaySchedule day = snapshot.getDay(slot.getAppointmentTime().toLocalDate());
+            seen += day.getCount(AppointmentStatus.PENDING)
+                    + snapshot.getEntries(LocalDateTime.now(), AppointmentStatus.PENDING).size();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("book + dashboard: p50=%.1f us p99=%.1f us max=%.1f us (%,d entries seen)%n",
+                latencies[bookings / 2] / 1e3, latencies[(int) (bookings * 0.99)] / 1e3,
+                latencies[bookings - 1] / 1e3, seen);
+
+        DoctorCalendar.Snapshot last = calendar.snapshot();
+        System.out.printf("consistent=%b%n", last.getCount(AppointmentStatus.PENDING) == bookings
+                && last.getCount(AppointmentStatus.COMPLETED) == historyDays * slotsPerDay);
+    }
+
+    private static List<Appointment> addDay(String doctorID, LocalDate date, int slots, AppointmentStatus status,
+                                            String patientID) {
+        List<Appointment> created = new ArrayList<>(slots);
+        for (int s = 0; s < slots; s++) {
+            LocalDateTime time = date.atTime(8, 0).plusMinutes(30L * s);
+            String id = "A-" + date + "-" + s;
+            Appointment appointment = new Appointment(id, time, time, RecordStatus.ACTIVE, null, patientID, doctorID,
+                    time, "Room 1", status, null);
+            RecordsRepository.APPOINTMENT_RECORDS.put(id, appointment);
+            created.add(appointment);
+        }
+        return created;
+    }
+}
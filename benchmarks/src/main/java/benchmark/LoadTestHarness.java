@@ -0,0 +1,496 @@
+package benchmark;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import controller.AppointmentController;
+import controller.DoctorCalendar;
+import controller.MedicineController;
+import controller.PharmacistController;
+import controller.PrescribedMedicineController;
+import controller.RecordsController;
+import controller.RegisterController;
+import controller.SlotSearchEngine;
+import enums.AppointmentOutcomeStatus;
+import enums.PaymentStatus;
+import enums.PrescriptionStatus;
+import enums.Record;
+import enums.RecordStatus;
+import enums.SlotTransitionResult;
+import enums.User;
+import model.Appointment;
+import model.AppointmentOutcomeRecord;
+import model.AppointmentSlotState;
+import model.Diagnosis;
+import model.MedicalRecord;
+import model.Medicine;
+import model.PaymentRecord;
+import model.PrescribedMedication;
+import model.Prescription;
+import repository.AppointmentOutcomeRecordRepository;
+import repository.MedicineRepository;
+import repository.RecordsRepository;
+import repository.UnitOfWork;
+import repository.UserRepository;
+
+/**
+ * Concurrent load test that runs whole hospital journeys against the controller
+ * and repository layer, the way the menus call it:
+ * a patient logs in and books a slot, the doctor logs in and accepts the request,
+ * then records the outcome with a prescription and a bill, a pharmacist logs in
+ * and dispenses the medicine, and an administrator logs in and settles the bill.
+ * Every worker repeats journeys for random patients and doctors until the time is up.
+ *
+ * Reports the throughput, the p50/p99/p999 latency and the errors of every step.
+ * A step fails if it throws or if the system refuses it (for example a booking
+ * that lost every slot it tried to a concurrent patient). At the end it checks
+ * for duplicate record IDs and for lost medicine stock updates, which only
+ * happen if concurrent journeys interfere.
+ *
+ * The dataset comes from {@link WorkloadGenerator}, anchored at today so that
+ * slots are bookable. It is written to ./src/repository/data, so run this in an
+ * empty directory; it refuses to run in the project.
+ * Workers are platform threads; "virtual" uses one virtual thread per worker on
+ * a JDK that has them (21 or later).
+ *
+ * Usage: LoadTestHarness [patients] [workers] [seconds] [platform|virtual]
+ */
+public class LoadTestHarness {
+    private static final int SLOTS_TRIED = 5;
+
+    /**
+     * The steps of a journey, in order.
+     */
+    enum Step {
+        PATIENT_LOGIN, BOOK_SLOT, DOCTOR_LOGIN, ACCEPT_REQUEST, RECORD_OUTCOME, PHARMACIST_LOGIN, DISPENSE,
+        ADMIN_LOGIN, SETTLE_BILL
+    }
+
+    /**
+     * Thrown by a step that the system refused; counted as an error of that step.
+     */
+    private static final class StepFailed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StepFailed(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Latencies and errors of one step, recorded by a single worker.
+     */
+    private static final class StepStats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<String, Long> errors = new TreeMap<>();
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        void error(String reason) {
+            errors.merge(reason, 1L, Long::sum);
+        }
+
+        void addAll(StepStats other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i]);
+            }
+            other.errors.forEach((reason, n) -> errors.merge(reason, n, Long::sum));
+        }
+
+        long errorCount() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    /**
+     * One simulated user session after another, on a single thread.
+     */
+    private static final class Worker implements Callable<Worker> {
+        private final SplittableRandom random;
+        private final long deadline;
+        private final String[] doctorIDs;
+        private final String[] medicineIDs;
+        private final int patients;
+        private final Map<Step, StepStats> stats = new EnumMap<>(Step.class);
+        private final Map<String, Long> dispensed = new HashMap<>();
+        private long journeys;
+        private long bookingConflicts;
+
+        Worker(long seed, long deadline, int patients, String[] doctorIDs, String[] medicineIDs) {
+            this.random = new SplittableRandom(seed);
+            this.deadline = deadline;
+            this.patients = patients;
+            this.doctorIDs = doctorIDs;
+            this.medicineIDs = medicineIDs;
+            for (Step step : Step.values()) {
+                stats.put(step, new StepStats());
+            }
+        }
+
+        @Override
+        public Worker call() {
+            while (System.nanoTime() < deadline) {
+                if (journey()) {
+                    journeys++;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Runs one journey, stopping at the first step that fails.
+         *
+         * @return true if every step succeeded
+         */
+        private boolean journey() {
+            int patientNumber = random.nextInt(patients);
+            String patientID = String.format("P%03d", patientNumber);
+            if (step(Step.PATIENT_LOGIN, () -> login("patient" + patientNumber, User.PATIENTS)) == null) {
+                return false;
+            }
+
+            String doctorID = doctorIDs[random.nextInt(doctorIDs.length)];
+            Appointment slot = step(Step.BOOK_SLOT, () -> book(patientID, doctorID));
+            if (slot == null) {
+                return false;
+            }
+
+            if (step(Step.DOCTOR_LOGIN, () -> login(UserRepository.DOCTORS.get(doctorID).getUsername(),
+                    User.DOCTORS)) == null) {
+                return false;
+            }
+            DoctorCalendar calendar = DoctorCalendar.of(doctorID);
+            AppointmentOutcomeRecord outcome = step(Step.ACCEPT_REQUEST, () -> accept(calendar, slot));
+            if (outcome == null) {
+                return false;
+            }
+            String medicineID = medicineIDs[random.nextInt(medicineIDs.length)];
+            Object[] recorded = step(Step.RECORD_OUTCOME, () -> recordOutcome(calendar, slot, outcome, medicineID));
+            if (recorded == null) {
+                return false;
+            }
+            PrescribedMedication medication = (PrescribedMedication) recorded[0];
+            PaymentRecord bill = (PaymentRecord) recorded[1];
+
+            String pharmacist = "pharmacist" + random.nextInt(UserRepository.PHARMACISTS.size());
+            if (step(Step.PHARMACIST_LOGIN, () -> login(pharmacist, User.PHARMACISTS)) == null
+                    || step(Step.DISPENSE, () -> dispense(medication)) == null) {
+                return false;
+            }
+
+            return step(Step.ADMIN_LOGIN, () -> login("admin", User.ADMINS)) != null
+                    && step(Step.SETTLE_BILL, () -> settle(bill)) != null;
+        }
+
+        /**
+         * Times a step and records its latency, or its error if it fails.
+         *
+         * @return the result of the step, or null if it failed
+         */
+        private <T> T step(Step step, Callable<T> action) {
+            StepStats stepStats = stats.get(step);
+            long start = System.nanoTime();
+            try {
+                T result = action.call();
+                stepStats.record(System.nanoTime() - start);
+                return result;
+            } catch (StepFailed e) {
+                stepStats.error(e.getMessage());
+            } catch (Exception e) {
+                stepStats.error(e.getClass().getSimpleName());
+            }
+            return null;
+        }
+
+        private model.User login(String username, User role) {
+            model.User user = RegisterController.login(username, BenchmarkDataset.PASSWORD, role);
+            if (user == null) {
+                throw new StepFailed("login refused");
+            }
+            return user;
+        }
+
+        /**
+         * Books one of the doctor's earliest free slots and saves the appointment
+         * records, as SchedulerBoundary does.
+         */
+        private Appointment book(String patientID, String doctorID) {
+            List<Appointment> candidates = SlotSearchEngine.findEarliestSlots(SLOTS_TRIED, LocalDateTime.now(),
+                    doctorID, null, null);
+            if (candidates.isEmpty()) {
+                throw new StepFailed("no free slot");
+            }
+            for (Appointment candidate : candidates) {
+                if (AppointmentController.bookAppointmentSlot(candidate, patientID) == SlotTransitionResult.SUCCESS) {
+                    RecordsRepository.saveAllRecordFiles();
+                    return candidate;
+                }
+                bookingConflicts++;
+            }
+            throw new StepFailed("every slot tried was taken");
+        }
+
+        /**
+         * Confirms the request and creates its outcome record, as the doctor's
+         * request menu does.
+         */
+        private AppointmentOutcomeRecord accept(DoctorCalendar calendar, Appointment slot) {
+            SlotTransitionResult result = calendar.confirmAll(List.of(slot.getRecordID())).join()
+                    .get(slot.getRecordID());
+            if (result != SlotTransitionResult.SUCCESS) {
+                throw new StepFailed("confirm: " + result);
+            }
+            MedicalRecord medicalRecord = RecordsController.getMedicalRecordsByPatientID(slot.getPatientID());
+            if (medicalRecord == null) {
+                throw new StepFailed("no medical record");
+            }
+            UnitOfWork unitOfWork = new UnitOfWork();
+            unitOfWork.set(medicalRecord::getDoctorID, medicalRecord::setDoctorID, slot.getDoctorID(),
+                    UnitOfWork.PersistTarget.RECORDS);
+            AppointmentOutcomeRecord outcome = new AppointmentOutcomeRecord(
+                    AppointmentController.generateRecordID(Record.APPOINTMENT_OUTCOME_RECORDS), slot.getPatientID(),
+                    slot.getDoctorID(), "", slot.getAppointmentTime(), null, "", "",
+                    AppointmentOutcomeStatus.INCOMPLETED);
+            unitOfWork.addAppointmentOutcomeRecord(slot.getPatientID(), outcome);
+            calendar.linkOutcomeRecord(slot.getRecordID(), outcome.getUID()).join();
+            if (!unitOfWork.touch(UnitOfWork.PersistTarget.RECORDS).commit()) {
+                throw new StepFailed("accept not saved");
+            }
+            return outcome;
+        }
+
+        /**
+         * Records a diagnosis with a one-medicine prescription, completes the
+         * appointment and bills the patient in one unit of work, as
+         * RecordOutcomeBoundary does.
+         *
+         * @return the prescribed medication and the bill
+         */
+        private Object[] recordOutcome(DoctorCalendar calendar, Appointment slot, AppointmentOutcomeRecord outcome,
+                                       String medicineID) {
+            String patientID = slot.getPatientID();
+            MedicalRecord medicalRecord = RecordsController.getMedicalRecordsByPatientID(patientID);
+            String diagnosisID = AppointmentController.generateRecordID(Record.DIAGNOSIS_RECORDS);
+            String prescribedID = PrescribedMedicineController.generateRecordIDs(Record.PRESCRIBED_RECORDS, 1).get(0);
+
+            UnitOfWork unitOfWork = new UnitOfWork();
+            PrescribedMedication medication = new PrescribedMedication(prescribedID, diagnosisID, medicineID, 1, 7,
+                    PrescriptionStatus.PENDING, "1 tablet daily");
+            unitOfWork.addPrescribedMedication(diagnosisID, medication);
+            Prescription prescription = new Prescription(diagnosisID, LocalDateTime.now(),
+                    new ArrayList<>(List.of(medication)));
+            unitOfWork.addPrescription(prescription);
+            unitOfWork.addDiagnosis(diagnosisID, new Diagnosis(patientID, diagnosisID, slot.getDoctorID(),
+                    medicalRecord.getRecordID(), LocalDateTime.now(), null, "Fever", prescription));
+            unitOfWork.set(outcome::getDiagnosisID, outcome::setDiagnosisID, diagnosisID,
+                            UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES)
+                    .set(outcome::getPrescription, outcome::setPrescription, prescription,
+                            UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES)
+                    .set(outcome::getTypeOfService, outcome::setTypeOfService, "consultation",
+                            UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES)
+                    .set(outcome::getConsultationNotes, outcome::setConsultationNotes, "fever",
+                            UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES)
+                    .set(outcome::getAppointmentOutcomeStatus, outcome::setAppointmentOutcomeStatus,
+                            AppointmentOutcomeStatus.COMPLETED, UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES);
+            AppointmentSlotState[] previous = new AppointmentSlotState[1];
+            unitOfWork.register(() -> {
+                previous[0] = slot.getSlotState();
+                SlotTransitionResult result = AppointmentController.completeAppointment(slot);
+                if (result != SlotTransitionResult.SUCCESS) {
+                    throw new IllegalStateException(result.getMessage());
+                }
+            }, () -> slot.compareAndSetSlotState(slot.getSlotState(), previous[0]), UnitOfWork.PersistTarget.RECORDS);
+
+            LocalDateTime now = LocalDateTime.now();
+            PaymentRecord bill = new PaymentRecord(RecordsController.generateRecordID(Record.PAYMENT_RECORDS), now, now,
+                    RecordStatus.ACTIVE, PaymentStatus.OUTSTANDING, patientID, 100);
+            unitOfWork.addPaymentRecord(patientID, bill);
+            if (!calendar.submit(unitOfWork::commit).join()) {
+                throw new StepFailed("outcome rolled back");
+            }
+            return new Object[] {medication, bill};
+        }
+
+        /**
+         * Marks the medication dispensed and takes it out of stock, as
+         * UpdatePrescriptionBoundary does.
+         */
+        private Boolean dispense(PrescribedMedication medication) {
+            medication.setPrescriptionStatus(PrescriptionStatus.DISPENSED);
+            PharmacistController.updatePrescribedMedicationRepository();
+            Medicine medicine = MedicineController.getMedicineByUID(medication.getMedicineID());
+            if (medicine == null) {
+                throw new StepFailed("medicine not found");
+            }
+            int quantity = medication.getMedicineQuantity();
+            if (medicine.getInventoryStock() < quantity) {
+                throw new StepFailed("out of stock");
+            }
+            medicine.setInventoryStock(medicine.getInventoryStock() - quantity);
+            if (!MedicineController.updateMedicine(medicine.getMedicineID(), medicine)) {
+                throw new StepFailed("stock not updated");
+            }
+            dispensed.merge(medicine.getMedicineID(), (long) quantity, Long::sum);
+            return Boolean.TRUE;
+        }
+
+        /**
+         * Clears and archives the bill and saves the records, as the administrator's
+         * billing menu does.
+         */
+        private Boolean settle(PaymentRecord bill) {
+            if (bill.getPaymentStatus() != PaymentStatus.OUTSTANDING) {
+                throw new StepFailed("bill already settled");
+            }
+            bill.setPaymentStatus(PaymentStatus.CLEARED);
+            bill.setUpdatedDate(LocalDateTime.now());
+            bill.setRecordStatus(RecordStatus.ARCHIVED);
+            RecordsRepository.saveAllRecordFiles();
+            return Boolean.TRUE;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        boolean virtual = args.length > 3 && args[3].equalsIgnoreCase("virtual");
+
+        BenchmarkDataset.prepare(patients, LocalDate.now());
+        long loadStart = System.nanoTime();
+        BenchmarkDataset.loadAll();
+        System.out.printf("Loaded %,d patients, %,d doctors, %,d appointments in %.1f s%n", patients,
+                UserRepository.DOCTORS.size(), RecordsRepository.APPOINTMENT_RECORDS.size(),
+                (System.nanoTime() - loadStart) / 1e9);
+
+        String[] doctorIDs = UserRepository.DOCTORS.keySet().toArray(new String[0]);
+        String[] medicineIDs = MedicineRepository.MEDICINES.keySet().toArray(new String[0]);
+        Map<String, Integer> initialStock = new HashMap<>();
+        MedicineRepository.MEDICINES.forEach((id, medicine) -> initialStock.put(id, medicine.getInventoryStock()));
+
+        ExecutorService executor = newExecutor(workers, virtual);
+        System.out.printf("Running %d %s workers for %d s%n", workers, virtual ? "virtual" : "platform", seconds);
+        PrintStream console = BenchmarkDataset.muteConsole();
+        long begin = System.nanoTime();
+        long deadline = begin + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Worker>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            futures.add(executor.submit(new Worker(BenchmarkDataset.SEED + w, deadline, patients, doctorIDs,
+                    medicineIDs)));
+        }
+        List<Worker> finished = new ArrayList<>(workers);
+        try {
+            for (Future<Worker> future : futures) {
+                finished.add(future.get());
+            }
+        } finally {
+            executor.shutdown();
+            System.setOut(console);
+        }
+        double elapsed = (System.nanoTime() - begin) / 1e9;
+
+        report(finished, elapsed);
+        checkConsistency(finished, initialStock);
+    }
+
+    private static void report(List<Worker> workers, double elapsed) {
+        long journeys = workers.stream().mapToLong(w -> w.journeys).sum();
+        long conflicts = workers.stream().mapToLong(w -> w.bookingConflicts).sum();
+        System.out.printf("%n%,d journeys completed in %.1f s (%,.1f journeys/s), %,d booking conflicts%n",
+                journeys, elapsed, journeys / elapsed, conflicts);
+        System.out.printf("%-17s %10s %10s %10s %10s %10s %10s %8s%n", "step", "count", "ops/s", "p50 ms",
+                "p99 ms", "p999 ms", "max ms", "errors");
+        for (Step step : Step.values()) {
+            StepStats merged = new StepStats();
+            for (Worker worker : workers) {
+                merged.addAll(worker.stats.get(step));
+            }
+            long[] sorted = Arrays.copyOf(merged.latencies, merged.count);
+            Arrays.sort(sorted);
+            System.out.printf("%-17s %,10d %,10.1f %10.3f %10.3f %10.3f %10.3f %,8d%n", step, sorted.length,
+                    sorted.length / elapsed, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0), merged.errorCount());
+            merged.errors.forEach((reason, n) -> System.out.printf("    %,d x %s%n", n, reason));
+        }
+    }
+
+    /**
+     * Checks for effects of interference between journeys: record IDs handed out
+     * twice and stock decrements that were lost.
+     */
+    private static void checkConsistency(List<Worker> workers, Map<String, Integer> initialStock) {
+        Set<String> outcomeIDs = new HashSet<>();
+        long duplicateOutcomes = 0;
+        for (List<AppointmentOutcomeRecord> records : AppointmentOutcomeRecordRepository.patientOutcomeRecords.values()) {
+            for (AppointmentOutcomeRecord record : records) {
+                if (!outcomeIDs.add(record.getUID())) {
+                    duplicateOutcomes++;
+                }
+            }
+        }
+        Set<String> billIDs = new HashSet<>();
+        long duplicateBills = 0;
+        for (PaymentRecord record : RecordsRepository.PAYMENT_RECORDS.values()) {
+            if (!billIDs.add(record.getRecordID())) {
+                duplicateBills++;
+            }
+        }
+        Map<String, Long> dispensed = new HashMap<>();
+        workers.forEach(worker -> worker.dispensed.forEach((id, n) -> dispensed.merge(id, n, Long::sum)));
+        long lostUnits = 0;
+        for (Map.Entry<String, Long> entry : dispensed.entrySet()) {
+            long taken = initialStock.get(entry.getKey())
+                    - MedicineRepository.MEDICINES.get(entry.getKey()).getInventoryStock();
+            lostUnits += entry.getValue() - taken;
+        }
+        System.out.printf("%nConsistency: %,d duplicate outcome record IDs, %,d duplicate bill IDs, "
+                + "%,d lost stock decrements%n", duplicateOutcomes, duplicateBills, lostUnits);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    /**
+     * Creates the worker pool: a fixed pool of platform threads, or one virtual
+     * thread per worker if asked for and the JDK supports them.
+     */
+    private static ExecutorService newExecutor(int workers, boolean virtual) {
+        if (virtual) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Virtual threads need JDK 21 or later, using platform threads");
+            }
+        }
+        return Executors.newFixedThreadPool(workers);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import controller.DoctorCalendar;
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import enums.SlotTransitionResult;
+import model.Appointment;
+import model.ScheduleEntry;
+import repository.RecordsRepository;
+
+/**
+ * Benchmark for a doctor's pending-request queue.
+ * Gives one doctor many PENDING requests, then handles them one at a time from
+ * the head of the queue (as the doctor's menu does) and measures the time until
+ * a fresh snapshot shows the next request. The remaining requests are then
+ * accepted in batches, each as a single calendar change.
+ *
+ * Usage: PendingRequestBenchmark [requests] [singles] [batchSize]
+ */
+public class PendingRequestBenchmark {
+
+    public static void main(String[] args) {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int singles = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        System.out.printf("requests=%,d singles=%,d batchSize=%d%n", requests, singles, batchSize);
+
+        String doctorID = "D-BENCH";
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        for (int i = 0; i < requests; i++) {
+            String id = "A-" + i;
+            // requests arrive in a different order from their appointment times
+            LocalDateTime time = base.plusMinutes(30L * ((i * 7919L) % requests));
+            LocalDateTime requestedAt = base.minusDays(2).plusSeconds(i);
+            RecordsRepository.APPOINTMENT_RECORDS.put(id, new Appointment(id, requestedAt, requestedAt,
+                    RecordStatus.ACTIVE, null, String.format("P%05d", i % 1000), doctorID, time, "Room 1",
+                    AppointmentStatus.PENDING, null));
+        }
+        RecordsRepository.markRecordsReloaded();
+
+        DoctorCalendar calendar = DoctorCalendar.of(doctorID);
+        long begin = System.nanoTime();
+        int queued = calendar.snapshot().getPendingRequests().size();
+        System.out.printf("initial build: %.1f ms, %,d requests queued%n", (System.nanoTime() - begin) / 1e6, queued);
+
+        long[] latencies = new long[singles];
+        boolean ordered = true;
+        LocalDateTime previous = null;
+        for (int i = 0; i < singles; i++) {
+            long start = System.nanoTime();
+            ScheduleEntry next = calendar.snapshot().getPendingRequests().first();
+            SlotTransitionResult result = i % 2 == 0 ? calendar.confirm(next.getAppointmentID()).join()
+                    : calendar.decline(next.getAppointmentID()).join();
+            latencies[i] = System.nanoTime() - start;
+            ordered &= result == SlotTransitionResult.SUCCESS
+                    && (previous == null || !next.getAppointmentTime().isBefore(previous));
+            previous = next.getAppointmentTime();
+        }
+        Arrays.sort(latencies);
+        System.out.printf("handle head of queue: p50=%.1f us p99=%.1f us max=%.1f us, ordered=%b%n",
+                latencies[singles / 2] / 1e3, latencies[(int) (singles * 0.99)] / 1e3,
+                latencies[singles - 1] / 1e3, ordered);
+
+        begin = System.nanoTime();
+        int batches = 0;
+        long accepted = 0;
+        while (!calendar.snapshot().getPendingRequests().isEmpty()) {
+            List<String> ids = new ArrayList<>(batchSize);
+            for (ScheduleEntry entry : calendar.snapshot().getPendingRequests()) {
+                ids.add(entry.getAppointmentID());
+                if (ids.size() == batchSize) {
+                    break;
+                }
+            }
+            Map<String, SlotTransitionResult> results = calendar.confirmAll(ids).join();
+            accepted += results.values().stream().filter(r -> r == SlotTransitionResult.SUCCESS).count();
+            batches++;
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("batch accept: %,d requests in %,d batches, %.1f ms (%.1f us per request)%n",
+                accepted, batches, elapsed / 1e6, elapsed / 1e3 / Math.max(1, accepted));
+
+        DoctorCalendar.RequestWaitStats stats = calendar.getRequestWaitStats();
+        System.out.printf("handled=%,d average wait=%s longest wait=%s%n",
+                stats.handled(), stats.averageWait(), stats.longestWait());
+    }
+}
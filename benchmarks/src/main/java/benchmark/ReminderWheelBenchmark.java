@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import utility.TimingWheel;
+
+/**
+ * Benchmark for the timing wheel behind appointment reminders.
+ * Schedules millions of timers spread over the coming weeks, cancels half of them
+ * (as cancellations and reschedules would), then runs a simulated clock through
+ * the whole period and checks that every remaining timer fires exactly once, at
+ * its own tick and in deadline order. Scheduling and cancelling should cost the
+ * same however many timers are pending.
+ *
+ * Usage: ReminderWheelBenchmark [timers] [days]
+ */
+public class ReminderWheelBenchmark {
+
+    public static void main(String[] args) {
+        int timers = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long tickMillis = 1_000;
+        long start = 1_700_000_000_000L;
+        long horizon = days * 86_400_000L;
+
+        Random random = new Random(42);
+        long[] deadlines = new long[timers];
+        for (int i = 0; i < timers; i++) {
+            deadlines[i] = start + (long) (random.nextDouble() * horizon);
+        }
+        TimingWheel<Long> wheel = new TimingWheel<>(tickMillis, start);
+        List<TimingWheel.Timer<Long>> scheduled = new ArrayList<>(timers);
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < timers; i++) {
+            scheduled.add(wheel.schedule(deadlines[i], deadlines[i]));
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("schedule: %,d timers over %d days, %.0f ns per timer%n", timers, days,
+                (double) elapsed / timers);
+
+        begin = System.nanoTime();
+        for (int i = 0; i < timers; i += 2) {
+            wheel.cancel(scheduled.get(i));
+        }
+        elapsed = System.nanoTime() - begin;
+        System.out.printf("cancel: %,d timers, %.0f ns per timer, %,d left%n", timers / 2,
+                (double) elapsed / (timers / 2), wheel.size());
+
+        long[] fired = {0};
+        boolean[] inOrder = {true};
+        long[] lastTick = {Long.MIN_VALUE};
+        begin = System.nanoTime();
+        for (long now = start; now <= start + horizon + tickMillis; now += tickMillis) {
+            long tick = now / tickMillis;
+            wheel.advanceTo(now, deadline -> {
+                long deadlineTick = deadline / tickMillis;
+                inOrder[0] &= deadlineTick == tick && deadlineTick >= lastTick[0];
+                lastTick[0] = deadlineTick;
+                fired[0]++;
+            });
+        }
+        elapsed = System.nanoTime() - begin;
+        System.out.printf("advance: %,d ticks in %.0f ms, %,d fired, on time and in order=%b, %,d left%n",
+                horizon / tickMillis, elapsed / 1e6, fired[0], inOrder[0], wheel.size());
+    }
+}
@@ -0,0 +1,126 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import repository.AppointmentOutcomeRecordRepository;
+import repository.DiagnosisRepository;
+import repository.MedicineRepository;
+import repository.PrescribedMedicationRepository;
+import repository.PrescriptionRepository;
+import repository.RecordsRepository;
+import repository.Repository;
+import repository.TreatmentRepository;
+import repository.UserRepository;
+
+/**
+ * JMH benchmark for loading and saving the CSV files of each repository, on
+ * datasets made by {@link WorkloadGenerator}. Reports throughput and the
+ * distribution of single operations (run with -prof gc for allocation rates).
+ * A load starts from empty maps, as at startup; a save writes the whole file and
+ * waits until it is on disk, as the synchronous save methods do.
+ *
+ * The startup report's heap measurement is turned off, as it collects garbage
+ * around every load.
+ *
+ * The repositories read ./src/repository/data, so this must run in a directory
+ * of its own; it refuses to run in the project. See benchmarks/pom.xml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Xms4g", "-Xmx4g"})
+public class RepositoryLoadSaveBenchmark {
+    /**
+     * The repositories under test, with their save method and the maps a load fills.
+     */
+    public enum Store {
+        USERS(UserRepository::new, UserRepository::saveAllPersonnelFiles, () -> {
+            UserRepository.DOCTORS.clear();
+            UserRepository.PATIENTS.clear();
+            UserRepository.PHARMACISTS.clear();
+            UserRepository.ADMINS.clear();
+        }),
+        RECORDS(RecordsRepository::new, RecordsRepository::saveAllRecordFiles, () -> {
+            RecordsRepository.MEDICAL_RECORDS.clear();
+            RecordsRepository.APPOINTMENT_RECORDS.clear();
+            RecordsRepository.PAYMENT_RECORDS.clear();
+        }),
+        MEDICINES(MedicineRepository::new, MedicineRepository::saveAllMedicinesToCSV,
+                MedicineRepository.MEDICINES::clear),
+        DIAGNOSES(DiagnosisRepository::new, DiagnosisRepository::saveAlltoCSV,
+                DiagnosisRepository.patientDiagnosisRecords::clear),
+        PRESCRIBED_MEDICATIONS(PrescribedMedicationRepository::new, PrescribedMedicationRepository::saveAlltoCSV,
+                PrescribedMedicationRepository.diagnosisToMedicationsMap::clear),
+        PRESCRIPTIONS(PrescriptionRepository::new, PrescriptionRepository::saveAlltoCSV,
+                PrescriptionRepository.PRESCRIPTION_MAP::clear),
+        TREATMENTS(TreatmentRepository::new, TreatmentRepository::saveAlltoCSV,
+                TreatmentRepository.diagnosisToTreatmentPlansMap::clear),
+        OUTCOMES(AppointmentOutcomeRecordRepository::new,
+                AppointmentOutcomeRecordRepository::saveAppointmentOutcomeRecordRepository,
+                AppointmentOutcomeRecordRepository.patientOutcomeRecords::clear);
+
+        private final Supplier<Repository> repository;
+        private final Runnable save;
+        private final Runnable clear;
+
+        Store(Supplier<Repository> repository, Runnable save, Runnable clear) {
+            this.repository = repository;
+            this.save = save;
+            this.clear = clear;
+        }
+    }
+
+    @Param({"10000", "100000"})
+    public int patients;
+
+    @Param
+    public Store store;
+
+    /**
+     * Writes the dataset unless the working directory already has this one, then
+     * loads every repository the way the system does at startup.
+     */
+    @Setup(Level.Trial)
+    public void loadDataset() throws IOException {
+        BenchmarkDataset.prepare(patients);
+        BenchmarkDataset.loadAll();
+    }
+
+    /**
+     * Empties the maps of the repository under test before each load, outside the measurement.
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyStore {
+        @Setup(Level.Invocation)
+        public void clear(RepositoryLoadSaveBenchmark benchmark) {
+            benchmark.store.clear.run();
+        }
+    }
+
+    @Benchmark
+    public boolean load(EmptyStore empty) {
+        return Repository.loadRepository(store.repository.get());
+    }
+
+    @Benchmark
+    public void save() {
+        store.save.run();
+    }
+}
@@ -0,0 +1,99 @@
+package benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import controller.RoomScheduler;
+import controller.ScheduleConflictDetector;
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import model.Appointment;
+import model.Location;
+import repository.LocationRepository;
+import repository.RecordsRepository;
+
+/**
+ * Benchmark for room allocation.
+ * Registers a number of locations with several rooms each and fills them with a
+ * long history of appointments, then reserves new slots one at a time (each is
+ * given a free room or rejected) and asks which locations have a room free at
+ * 14:00 on random days. Both should stay flat as the history grows.
+ *
+ * Usage: RoomSchedulerBenchmark [locations] [roomsPerLocation] [historyDays] [operations]
+ */
+public class RoomSchedulerBenchmark {
+
+    public static void main(String[] args) {
+        int locations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int rooms = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int historyDays = args.length > 2 ? Integer.parseInt(args[2]) : 365;
+        int operations = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        LocationRepository.LOCATIONS.clear();
+        for (int l = 0; l < locations; l++) {
+            LocationRepository.addLocation("Bench Clinic " + l, rooms);
+        }
+        List<Location> registered = LocationRepository.getLocations();
+
+        LocalDate firstDay = LocalDate.now().minusDays(historyDays);
+        int id = 0;
+        for (int day = 0; day < historyDays; day++) {
+            for (Location location : registered) {
+                // all but one room busy from 08:00 to 18:00
+                for (int room = 0; room < rooms - 1; room++) {
+                    for (int slot = 0; slot < 20; slot++) {
+                        LocalDateTime time = firstDay.plusDays(day).atTime(8, 0).plusMinutes(30L * slot);
+                        String recordID = "A-" + id++;
+                        RecordsRepository.APPOINTMENT_RECORDS.put(recordID, new Appointment(recordID, time, time,
+                                RecordStatus.ACTIVE, null, null, "D-" + location.getLocationID() + "-" + room, time,
+                                location.getName(), AppointmentStatus.COMPLETED, null));
+                    }
+                }
+            }
+        }
+        RecordsRepository.markRecordsReloaded();
+        System.out.printf("locations=%d rooms=%d historyDays=%d appointments=%,d bucket=%d min%n",
+                locations, rooms, historyDays, id, RoomScheduler.getBucketMinutes());
+
+        long begin = System.nanoTime();
+        RoomScheduler.findFreeLocations(LocalDateTime.now(), 30);
+        System.out.printf("initial build: %.1f ms%n", (System.nanoTime() - begin) / 1e6);
+
+        long[] reserve = new long[operations];
+        long[] query = new long[operations];
+        int reserved = 0;
+        long free = 0;
+        for (int i = 0; i < operations; i++) {
+            LocalDate day = firstDay.plusDays(Math.floorMod(i * 7919L, historyDays));
+            Location location = registered.get(i % locations);
+            LocalDateTime time = day.atTime(8, 0).plusMinutes(30L * ((i / locations) % 20));
+            Appointment slot = new Appointment("N-" + i, time, time, RecordStatus.ACTIVE, null, null, "D-NEW-" + i,
+                    time, location.getName(), AppointmentStatus.AVAILABLE, null);
+
+            long start = System.nanoTime();
+            if (ScheduleConflictDetector.reserve(slot) == null) {
+                reserved++;
+            }
+            reserve[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (RoomScheduler.FreeLocation candidate : RoomScheduler.findFreeLocations(day.atTime(14, 0), 30)) {
+                free += candidate.freeRooms();
+            }
+            query[i] = System.nanoTime() - start;
+        }
+        print("reserve", reserve);
+        print("free rooms at 14:00", query);
+        System.out.printf("reserved=%,d rejected=%,d free rooms seen=%,d%n", reserved, operations - reserved, free);
+    }
+
+    private static void print(String label, long[] latencies) {
+        Arrays.sort(latencies);
+        int n = latencies.length;
+        System.out.printf("%s: p50=%.1f us p99=%.1f us max=%.1f us%n", label,
+                latencies[n / 2] / 1e3, latencies[(int) (n * 0.99)] / 1e3, latencies[n - 1] / 1e3);
+    }
+}
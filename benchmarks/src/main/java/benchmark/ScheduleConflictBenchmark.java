@@ -0,0 +1,73 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import controller.ScheduleConflictDetector;
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import model.Appointment;
+import model.ScheduleConflict;
+import repository.RecordsRepository;
+
+/**
+ * Benchmark for slot conflict detection.
+ * Loads many existing slots, then times the overlap check made for every new slot
+ * (half of the candidates overlap an existing slot, half fit) and the single-pass
+ * validation of all appointment records.
+ *
+ * Usage: ScheduleConflictBenchmark [doctors] [slotsPerDoctor] [checks]
+ */
+public class ScheduleConflictBenchmark {
+
+    public static void main(String[] args) {
+        int doctors = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int slotsPerDoctor = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        int checks = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        System.out.printf("doctors=%d slotsPerDoctor=%d existingSlots=%,d checks=%,d%n",
+                doctors, slotsPerDoctor, (long) doctors * slotsPerDoctor, checks);
+
+        // slots are an hour apart, so a 30 minute slot at :00 overlaps and one at :30 fits
+        LocalDateTime base = LocalDateTime.of(2030, 1, 7, 8, 0);
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        for (int d = 0; d < doctors; d++) {
+            for (int s = 0; s < slotsPerDoctor; s++) {
+                String id = String.format("A-%d-%d", d, s);
+                RecordsRepository.APPOINTMENT_RECORDS.put(id, slot(id, d, base.plusHours(s)));
+            }
+        }
+        RecordsRepository.markRecordsReloaded();
+
+        long begin = System.nanoTime();
+        ScheduleConflictDetector.reserve(slot("warm-up", 0, base.minusYears(1)));
+        System.out.printf("tree build: %.1f ms%n", (System.nanoTime() - begin) / 1e6);
+
+        long[] latencies = new long[checks];
+        int conflicts = 0;
+        for (int i = 0; i < checks; i++) {
+            int doctor = i % doctors;
+            LocalDateTime time = base.plusHours((i / doctors) % slotsPerDoctor).plusMinutes(i % 2 == 0 ? 0 : 30);
+            Appointment candidate = slot("C-" + i, doctor, time);
+            long start = System.nanoTime();
+            ScheduleConflict conflict = ScheduleConflictDetector.reserve(candidate);
+            latencies[i] = System.nanoTime() - start;
+            if (conflict != null) {
+                conflicts++;
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.printf("reserve: p50=%.1f us p99=%.1f us max=%.1f us, conflicts=%,d of %,d%n",
+                latencies[checks / 2] / 1e3, latencies[(int) (checks * 0.99)] / 1e3, latencies[checks - 1] / 1e3,
+                conflicts, checks);
+
+        begin = System.nanoTime();
+        int found = ScheduleConflictDetector.findAllConflicts().size();
+        System.out.printf("validate all records: %.1f ms, %,d conflicts%n", (System.nanoTime() - begin) / 1e6, found);
+    }
+
+    private static Appointment slot(String id, int doctor, LocalDateTime time) {
+        return new Appointment(id, time, time, RecordStatus.ACTIVE, null, null, String.format("D%05d", doctor),
+                time, "Room " + doctor, AppointmentStatus.AVAILABLE, null);
+    }
+}
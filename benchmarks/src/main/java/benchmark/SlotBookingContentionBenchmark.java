@@ -0,0 +1,106 @@
+package benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.AppointmentController;
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import enums.SlotTransitionResult;
+import model.Appointment;
+import repository.RecordsRepository;
+
+/**
+ * JMH contention benchmark for appointment slot booking.
+ * Every benchmark thread picks a random slot from a small shared pool and tries to
+ * book it through AppointmentController.bookAppointmentSlot; a winner releases it
+ * again at once, so the slots stay contended. Fewer slots means more threads
+ * racing for each one. After every iteration the pool is checked: every slot must
+ * be AVAILABLE again and no booking may have gone to another patient, otherwise the
+ * run fails.
+ *
+ * Runs with as many threads as there are processors; pass -t to change that.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class SlotBookingContentionBenchmark {
+    @Param({"1", "64"})
+    public int slots;
+
+    private Appointment[] pool;
+    private final AtomicLong doubleBookings = new AtomicLong();
+
+    /**
+     * The patient a benchmark thread books for.
+     */
+    @State(Scope.Thread)
+    public static class Patient {
+        private static final AtomicInteger NEXT = new AtomicInteger();
+        private final String patientID = String.format("P%05d", NEXT.getAndIncrement());
+    }
+
+    @Setup(Level.Trial)
+    public void createSlots() {
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        pool = new Appointment[slots];
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 9, 0);
+        for (int i = 0; i < slots; i++) {
+            pool[i] = new Appointment(String.format("A-%03d", i), base, base, RecordStatus.ACTIVE, null, null,
+                    "D000", base.plusMinutes(30L * i), "Level 1 - Clinic", AppointmentStatus.AVAILABLE, null);
+            RecordsRepository.APPOINTMENT_RECORDS.put(pool[i].getRecordID(), pool[i]);
+        }
+        RecordsRepository.markRecordsReloaded();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkSlots() {
+        for (Appointment slot : pool) {
+            if (slot.getAppointmentStatus() != AppointmentStatus.AVAILABLE) {
+                throw new IllegalStateException(slot.getRecordID() + " was left " + slot.getAppointmentStatus());
+            }
+        }
+        if (doubleBookings.get() > 0) {
+            throw new IllegalStateException(doubleBookings.get() + " bookings went to another patient");
+        }
+    }
+
+    /**
+     * One booking attempt, followed by the release if it won.
+     */
+    @Benchmark
+    public SlotTransitionResult bookAndRelease(Patient patient) {
+        Appointment slot = pool[ThreadLocalRandom.current().nextInt(pool.length)];
+        SlotTransitionResult result = AppointmentController.bookAppointmentSlot(slot, patient.patientID);
+        if (result == SlotTransitionResult.SUCCESS) {
+            if (!patient.patientID.equals(slot.getPatientID())
+                    || AppointmentController.releaseAppointmentSlot(slot, patient.patientID)
+                    != SlotTransitionResult.SUCCESS) {
+                doubleBookings.incrementAndGet();
+            }
+        }
+        return result;
+    }
+}
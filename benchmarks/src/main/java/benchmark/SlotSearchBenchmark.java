@@ -0,0 +1,129 @@
+package benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import controller.AppointmentController;
+import controller.SlotSearchEngine;
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import model.Appointment;
+import repository.RecordsRepository;
+
+/**
+ * Latency benchmark for the earliest-available-slot search.
+ * Fills the appointment records with AVAILABLE slots for many doctors, then times
+ * "earliest N slots from time T" queries with and without filters, and compares
+ * them with a full scan and sort of the records. Every few queries a slot is booked
+ * so the index is also updated while it is being searched.
+ *
+ * Usage: SlotSearchBenchmark [doctors] [slotsPerDoctor] [queries] [limit]
+ */
+public class SlotSearchBenchmark {
+    private static final String[] LOCATIONS = {"Level 1 - Clinic", "Level 2 - Clinic", "Level 3 - Ward"};
+
+    public static void main(String[] args) {
+        int doctors = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int slotsPerDoctor = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int limit = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        System.out.printf("doctors=%d slotsPerDoctor=%d openSlots=%,d queries=%d limit=%d%n",
+                doctors, slotsPerDoctor, (long) doctors * slotsPerDoctor, queries, limit);
+
+        LocalDateTime base = LocalDateTime.of(2030, 1, 7, 8, 0);
+        List<Appointment> slots = createSlots(doctors, slotsPerDoctor, base);
+
+        long begin = System.nanoTime();
+        SlotSearchEngine.findEarliestSlots(1, null, null, null, null);
+        System.out.printf("index build: %.1f ms%n", (System.nanoTime() - begin) / 1e6);
+
+        Random random = new Random(42);
+        long horizonMinutes = 30L * slotsPerDoctor;
+        for (int pass = 0; pass < 2; pass++) {
+            boolean report = pass == 1;
+            run("any doctor", queries, report, random, slots, i -> SlotSearchEngine.findEarliestSlots(limit,
+                    base.plusMinutes(random.nextLong(horizonMinutes)), null, null, null));
+            run("one doctor", queries, report, random, slots, i -> SlotSearchEngine.findEarliestSlots(limit,
+                    base.plusMinutes(random.nextLong(horizonMinutes)), doctorID(random.nextInt(doctors)), null, null));
+            run("location", queries, report, random, slots, i -> SlotSearchEngine.findEarliestSlots(limit,
+                    base.plusMinutes(random.nextLong(horizonMinutes)), null, LOCATIONS[i % LOCATIONS.length], null));
+            run("day of week", queries, report, random, slots, i -> SlotSearchEngine.findEarliestSlots(limit,
+                    base.plusMinutes(random.nextLong(horizonMinutes)), null, null, DayOfWeek.of(1 + i % 7)));
+            run("full scan", Math.max(1, queries / 1_000), report, random, slots, i -> scanAndSort(limit,
+                    base.plusMinutes(random.nextLong(horizonMinutes))));
+        }
+    }
+
+    private interface Query {
+        List<Appointment> run(int i);
+    }
+
+    /**
+     * Runs a query repeatedly, booking a random slot every 16 queries, and prints latency percentiles.
+     */
+    private static void run(String name, int queries, boolean report, Random random, List<Appointment> slots,
+                            Query query) {
+        long[] latencies = new long[queries];
+        long returned = 0;
+        for (int i = 0; i < queries; i++) {
+            if (i % 16 == 0) {
+                AppointmentController.bookAppointmentSlot(slots.get(random.nextInt(slots.size())), "P00001");
+            }
+            long begin = System.nanoTime();
+            returned += query.run(i).size();
+            latencies[i] = System.nanoTime() - begin;
+        }
+        if (!report) {
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-12s p50=%8.1f us  p99=%8.1f us  max=%9.1f us  (avg %.1f slots returned)%n", name,
+                latencies[queries / 2] / 1e3, latencies[(int) (queries * 0.99)] / 1e3,
+                latencies[queries - 1] / 1e3, (double) returned / queries);
+    }
+
+    /**
+     * The search the boundaries used to do: every record is scanned and the matches sorted.
+     */
+    private static List<Appointment> scanAndSort(int limit, LocalDateTime from) {
+        List<Appointment> matches = new ArrayList<>();
+        for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+            if (appointment.getAppointmentStatus() == AppointmentStatus.AVAILABLE
+                    && !appointment.getAppointmentTime().isBefore(from)) {
+                matches.add(appointment);
+            }
+        }
+        matches.sort(Comparator.comparing(Appointment::getAppointmentTime));
+        return matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    /**
+     * Replaces the appointment records with AVAILABLE slots, 30 minutes apart, for every doctor.
+     */
+    private static List<Appointment> createSlots(int doctors, int slotsPerDoctor, LocalDateTime base) {
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        List<Appointment> slots = new ArrayList<>(doctors * slotsPerDoctor);
+        for (int d = 0; d < doctors; d++) {
+            for (int s = 0; s < slotsPerDoctor; s++) {
+                String id = String.format("A-%d-%d", d, s);
+                Appointment appointment = new Appointment(id, base, base, RecordStatus.ACTIVE, null, null,
+                        doctorID(d), base.plusMinutes(30L * s + d % 30), LOCATIONS[(d + s) % LOCATIONS.length],
+                        AppointmentStatus.AVAILABLE, null);
+                RecordsRepository.APPOINTMENT_RECORDS.put(id, appointment);
+                slots.add(appointment);
+            }
+        }
+        RecordsRepository.markRecordsReloaded();
+        return slots;
+    }
+
+    private static String doctorID(int index) {
+        return String.format("D%05d", index);
+    }
+}
@@ -0,0 +1,356 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a synthetic hospital dataset in the CSV formats the repositories read,
+ * for testing the system at scale.
+ * The output depends only on the configuration: the same seed, sizes and anchor
+ * date always give the same files. Rows are streamed straight to disk, so millions
+ * of rows take seconds and little memory.
+ *
+ * The dataset has an administrator, patients with a medical record each,
+ * doctors with a room each, pharmacists and medicines. Every doctor has a
+ * timetable of 30-minute slots from 08:00, filled day by day around the anchor
+ * date. About 70% of the days lie in the past. Past appointments are COMPLETED
+ * (85%) or CANCELED; each COMPLETED one has an outcome record, a diagnosis, a
+ * prescription of one or two medicines, a payment, and in half the cases a
+ * treatment plan. Future slots are AVAILABLE (50%), PENDING (15%) or CONFIRMED.
+ * Every user's password is Password123!, and usernames are patient0, doctor0,
+ * pharmacist0 and so on.
+ *
+ * The system reads its data from ./src/repository/data, so generate into
+ * RUN_DIR/src/repository/data and start the system from RUN_DIR.
+ *
+ * Usage: WorkloadGenerator [outputDir] [patients] [seed] [anchorDate]
+ */
+public class WorkloadGenerator {
+    private static final int SLOTS_PER_DAY = 16;
+    private static final double PAST_FRACTION = 0.7;
+    private static final String PASSWORD = "Password123!";
+    private static final String STAMP_TIME = "T09:00";
+
+    private static final String[] FIRST_NAMES = {"Aisha", "Ben", "Chen", "Daniel", "Emma", "Farah", "Grace", "Hiro",
+            "Isaac", "Jia Hui", "Kumar", "Li Wei", "Maria", "Nur", "Oliver", "Priya", "Qi", "Rahul", "Siti", "Tan",
+            "Uma", "Victor", "Wen", "Xin Yi", "Yusuf", "Zara"};
+    private static final String[] LAST_NAMES = {"Tan", "Lim", "Lee", "Ng", "Ong", "Wong", "Goh", "Chua", "Koh",
+            "Teo", "Ang", "Yeo", "Kumar", "Singh", "Rahman", "Ismail", "Smith", "Brown", "Garcia", "Nguyen"};
+    private static final String[] BLOOD_TYPES = {"O+", "O+", "O+", "A+", "A+", "B+", "B+", "AB+", "O-", "A-", "B-",
+            "AB-"};
+    private static final String[] ALLERGIES = {"None", "None", "None", "None", "Penicillin", "Peanuts", "Latex",
+            "Aspirin", "Shellfish"};
+    private static final String[] SERVICES = {"consultation", "follow-up", "blood test", "x-ray", "vaccination",
+            "physiotherapy"};
+    private static final String[] CONDITIONS = {"Fever", "Influenza", "Hypertension", "Type 2 diabetes", "Asthma",
+            "Migraine", "Back pain", "Gastritis", "Bronchitis", "Allergic rhinitis", "Sprained ankle", "Anxiety"};
+    private static final String[] TREATMENTS = {"Rest and fluids", "Physiotherapy twice a week",
+            "Low-salt diet and exercise", "Review in two weeks", "Inhaler technique training", "Stop NSAIDs"};
+    private static final String[] MEDICINE_NAMES = {"Paracetamol", "Ibuprofen", "Amoxicillin", "Metformin",
+            "Amlodipine", "Salbutamol", "Omeprazole", "Cetirizine", "Loratadine", "Atorvastatin", "Losartan",
+            "Prednisolone", "Azithromycin", "Diclofenac", "Sertraline", "Insulin glargine"};
+    private static final String[] STRENGTHS = {"5mg", "10mg", "20mg", "50mg", "100mg", "250mg", "500mg"};
+    private static final String[] MANUFACTURERS = {"NTU", "Pfizer", "GSK", "Novartis", "Sanofi", "Roche"};
+    private static final String[] DOSAGES = {"1 tablet twice daily", "1 tablet daily", "2 tablets three times daily",
+            "2 puffs as needed", "1 capsule at night"};
+
+    /**
+     * The size and shape of a dataset.
+     *
+     * @param seed                   the seed of the random numbers
+     * @param patients               the number of patients
+     * @param doctors                the number of doctors
+     * @param pharmacists            the number of pharmacists
+     * @param medicines              the number of medicines
+     * @param appointmentsPerPatient the average number of appointment slots per patient
+     * @param anchorDate             the "today" of the dataset; earlier slots are in the past
+     */
+    public record Config(long seed, int patients, int doctors, int pharmacists, int medicines,
+                         int appointmentsPerPatient, LocalDate anchorDate) {
+        /**
+         * Sizes the rest of a dataset from its number of patients: one doctor per
+         * 250 patients, one pharmacist per 2,000, 200 medicines and four slots per patient.
+         *
+         * @param patients   the number of patients
+         * @param seed       the seed of the random numbers
+         * @param anchorDate the "today" of the dataset
+         * @return the configuration
+         */
+        public static Config forPatients(int patients, long seed, LocalDate anchorDate) {
+            return new Config(seed, patients, Math.max(1, patients / 250), Math.max(1, patients / 2_000), 200, 4,
+                    anchorDate);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "generated/src/repository/data");
+        int patients = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        LocalDate anchor = args.length > 3 ? LocalDate.parse(args[3]) : LocalDate.now();
+        Config config = Config.forPatients(patients, seed, anchor);
+
+        long begin = System.nanoTime();
+        Map<String, Long> rows = generate(directory, config);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long total = 0;
+        long bytes = 0;
+        for (Map.Entry<String, Long> file : rows.entrySet()) {
+            long size = Files.size(directory.resolve(file.getKey()));
+            System.out.printf("%-34s %,12d rows %,10.1f MB%n", file.getKey(), file.getValue(), size / 1e6);
+            total += file.getValue();
+            bytes += size;
+        }
+        System.out.printf("%,d rows (%.1f MB) in %.1f s, %,.0f rows/s, into %s%n", total, bytes / 1e6, seconds,
+                total / seconds, directory.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Writes a dataset, replacing the files of the same names in the directory.
+     *
+     * @param directory the directory to write to; created if missing
+     * @param config    the size and shape of the dataset
+     * @return the number of data rows written to each file, by file name
+     * @throws IOException if a file cannot be written
+     */
+    public static Map<String, Long> generate(Path directory, Config config) throws IOException {
+        Files.createDirectories(directory);
+        SplittableRandom random = new SplittableRandom(config.seed());
+        Map<String, Long> rows = new LinkedHashMap<>();
+        LocalDate anchor = config.anchorDate();
+
+        long appointments = (long) config.patients() * config.appointmentsPerPatient();
+        long slotsPerDay = (long) config.doctors() * SLOTS_PER_DAY;
+        int days = (int) Math.max(1, (appointments + slotsPerDay - 1) / slotsPerDay);
+        int pastDays = (int) Math.round(days * PAST_FRACTION);
+        LocalDate firstDay = anchor.minusDays(pastDays);
+        // dates are formatted once per day, not once per row
+        String[] dayStrings = new String[days + 400];
+        for (int d = 0; d < dayStrings.length; d++) {
+            dayStrings[d] = firstDay.minusDays(365).plusDays(d).toString();
+        }
+        int dayOffset = 365;
+
+        try (Writer out = open(directory, "admins.csv")) {
+            out.write("ID,FullName,Username,Email,PhoneNo,PasswordHash,DoB,Gender,Role,DateOfCreation\n");
+            out.write("A000,Administrator,admin,admin@hospital.example,90000000," + PASSWORD
+                    + ",1980-01-01T00:00,M,Admins," + dayStrings[0] + STAMP_TIME + "\n");
+            rows.put("admins.csv", 1L);
+        }
+
+        try (Writer out = open(directory, "patients.csv");
+             Writer records = open(directory, "medical_records.csv")) {
+            out.write("ID,FullName,Username,Email,PhoneNo,PasswordHash,DoB,Gender,Role,Allergies,DateOfAdmission\n");
+            records.write("Record ID,Full Name,Phone Number,Email,Created Date,Updated Date,Record status,"
+                    + "Patient ID,Doctor ID,Blood Type\n");
+            StringBuilder row = new StringBuilder(256);
+            for (int p = 0; p < config.patients(); p++) {
+                String name = name(random);
+                String email = "patient" + p + "@mail.example";
+                String phone = phone(random);
+                String admitted = dayStrings[random.nextInt(dayOffset)] + STAMP_TIME;
+                row.setLength(0);
+                row.append(id("P", p)).append(',').append(name).append(",patient").append(p).append(',')
+                        .append(email).append(',').append(phone).append(',').append(PASSWORD).append(',')
+                        .append(birthDate(random, 1940, 2020)).append(',').append(random.nextBoolean() ? 'M' : 'F')
+                        .append(",Patients,").append(pick(random, ALLERGIES)).append(',').append(admitted)
+                        .append('\n');
+                out.append(row);
+                row.setLength(0);
+                row.append(id("MR-", p)).append(',').append(name).append(',').append(phone).append(',')
+                        .append(email).append(',').append(admitted).append(',').append(admitted)
+                        .append(",ACTIVE,").append(id("P", p)).append(',')
+                        .append(id("D", random.nextInt(config.doctors()))).append(',')
+                        .append(pick(random, BLOOD_TYPES)).append('\n');
+                records.append(row);
+            }
+            rows.put("patients.csv", (long) config.patients());
+            rows.put("medical_records.csv", (long) config.patients());
+        }
+
+        try (Writer out = open(directory, "doctors.csv");
+             Writer locations = open(directory, "locations.csv")) {
+            out.write("ID,FullName,Username,Email,PhoneNo,PasswordHash,DoB,Gender,Role,DateJoin\n");
+            locations.write("Location ID,Name,Capacity\n");
+            for (int d = 0; d < config.doctors(); d++) {
+                out.write(id("D", d) + ",Dr " + name(random) + ",doctor" + d + ",doctor" + d + "@hospital.example,"
+                        + phone(random) + "," + PASSWORD + "," + birthDate(random, 1950, 1995) + ","
+                        + (random.nextBoolean() ? 'M' : 'F') + ",Doctors," + dayStrings[random.nextInt(dayOffset)]
+                        + STAMP_TIME + "\n");
+                locations.write(id("L", d) + "," + roomName(d) + ",1\n");
+            }
+            rows.put("doctors.csv", (long) config.doctors());
+            rows.put("locations.csv", (long) config.doctors());
+        }
+
+        try (Writer out = open(directory, "pharmacists.csv")) {
+            out.write("ID,FullName,Username,Email,PhoneNo,PasswordHash,DoB,Gender,Role,DateOfEmployment\n");
+            for (int p = 0; p < config.pharmacists(); p++) {
+                out.write(id("PH", p) + "," + name(random) + ",pharmacist" + p + ",pharmacist" + p
+                        + "@hospital.example," + phone(random) + "," + PASSWORD + "," + birthDate(random, 1960, 2000)
+                        + "," + (random.nextBoolean() ? 'M' : 'F') + ",PHARMACISTS,"
+                        + dayStrings[random.nextInt(dayOffset)] + STAMP_TIME + "\n");
+            }
+            rows.put("pharmacists.csv", (long) config.pharmacists());
+        }
+
+        try (Writer out = open(directory, "medicines.csv")) {
+            out.write("Medicine ID,Name,Manufacturer,Expiry Date,Stock,Low Level Stock,Replenishment Stock,Status,"
+                    + "Request Date,Approved Date\n");
+            for (int m = 0; m < config.medicines(); m++) {
+                String name = MEDICINE_NAMES[m % MEDICINE_NAMES.length]
+                        + (m < MEDICINE_NAMES.length ? "" : " " + STRENGTHS[(m / MEDICINE_NAMES.length) % STRENGTHS.length]
+                        + (m < MEDICINE_NAMES.length * (STRENGTHS.length + 1) ? "" : " " + m));
+                int stock = 20 + random.nextInt(500);
+                String status = stock < 50 ? (random.nextBoolean() ? "REQUESTED" : "APPROVED") : "NULL";
+                String stamp = dayStrings[dayOffset - 1 - random.nextInt(30)] + STAMP_TIME;
+                out.write(id("M", m) + "," + name + "," + pick(random, MANUFACTURERS) + ","
+                        + anchor.plusDays(180 + random.nextInt(1500)) + "T00:00," + stock + ",50,100," + status + ","
+                        + stamp + "," + stamp + "\n");
+            }
+            rows.put("medicines.csv", (long) config.medicines());
+        }
+
+        long outcomes = 0;
+        long prescribed = 0;
+        long treatments = 0;
+        try (Writer out = open(directory, "appointment_records.csv");
+             Writer outcomeOut = open(directory, "appointment_outcome_records.csv");
+             Writer diagnosisOut = open(directory, "diagnosis_records.csv");
+             Writer prescriptionOut = open(directory, "prescriptions_records.csv");
+             Writer medicationOut = open(directory, "prescribed_medications.csv");
+             Writer treatmentOut = open(directory, "treatment_plans_records.csv");
+             Writer paymentOut = open(directory, "payment_records.csv")) {
+            out.write("Record ID,Created Date,Updated Date,Record status,Appointment Outcome Record ID, Patient ID,"
+                    + "Doctor ID,Appointment Time, Location, Appointment Status, Slot Length, Location ID\n");
+            outcomeOut.write("Appointment Outcome ID,PatientID,DoctorID,DiagnosisID,AppointmentTime,TypeOfService,"
+                    + "ConsultationNotes,AppointmentOutcomeStatus\n");
+            paymentOut.write("Record ID,Created Date,Updated Date,Record Status,Patient ID,Payment Status,"
+                    + "Payment Amount\n");
+            String[] slotTimes = new String[SLOTS_PER_DAY];
+            for (int s = 0; s < SLOTS_PER_DAY; s++) {
+                slotTimes[s] = String.format("T%02d:%02d", 8 + s / 2, (s % 2) * 30);
+            }
+            StringBuilder row = new StringBuilder(256);
+            for (long a = 0; a < appointments; a++) {
+                int doctor = (int) (a % config.doctors());
+                long slot = a / config.doctors();
+                int day = (int) (slot / SLOTS_PER_DAY);
+                String date = dayStrings[dayOffset + day];
+                String time = date + slotTimes[(int) (slot % SLOTS_PER_DAY)];
+                String created = dayStrings[dayOffset + day - 1 - random.nextInt(30)] + STAMP_TIME;
+                String status;
+                if (day < pastDays) {
+                    status = random.nextInt(100) < 85 ? "COMPLETED" : "CANCELED";
+                } else {
+                    int roll = random.nextInt(100);
+                    status = roll < 50 ? "AVAILABLE" : roll < 65 ? "PENDING" : "CONFIRMED";
+                }
+                int patient = random.nextInt(config.patients());
+                String patientID = status.equals("AVAILABLE") ? "null" : id("P", patient);
+                String doctorID = id("D", doctor);
+                String outcomeID = "null";
+
+                if (status.equals("COMPLETED")) {
+                    outcomeID = id("AO-", outcomes);
+                    String diagnosisID = id("DIAG-", outcomes);
+                    String condition = pick(random, CONDITIONS);
+                    row.setLength(0);
+                    row.append(outcomeID).append(',').append(patientID).append(',').append(doctorID).append(',')
+                            .append(diagnosisID).append(',').append(time).append(",\"").append(pick(random, SERVICES))
+                            .append("\",\"").append(condition).append("\",COMPLETED\n");
+                    outcomeOut.append(row);
+                    row.setLength(0);
+                    row.append(patientID).append(',').append(diagnosisID).append(',').append(doctorID).append(',')
+                            .append(id("MR-", patient)).append(',').append(time).append(",\"").append(condition)
+                            .append("\"\n");
+                    diagnosisOut.append(row);
+                    prescriptionOut.append(diagnosisID).append(',').append(time).append('\n');
+                    int medications = Math.min(1 + random.nextInt(2), config.medicines());
+                    // a diagnosis prescribes each medicine at most once
+                    int medicine = random.nextInt(config.medicines());
+                    for (int m = 0; m < medications; m++) {
+                        medicine = m == 0 ? medicine : (medicine + 1 + random.nextInt(config.medicines() - 1))
+                                % config.medicines();
+                        row.setLength(0);
+                        row.append(id("PR-", prescribed++)).append(',').append(diagnosisID).append(',')
+                                .append(id("M", medicine)).append(',')
+                                .append(1 + random.nextInt(30)).append(',').append(1 + random.nextInt(14)).append(',')
+                                .append(day < pastDays - 1 || random.nextBoolean() ? "Dispensed" : "Pending")
+                                .append(",\"").append(pick(random, DOSAGES)).append("\"\n");
+                        medicationOut.append(row);
+                    }
+                    if (random.nextBoolean()) {
+                        treatmentOut.append(diagnosisID).append(',').append(time).append(",\"")
+                                .append(pick(random, TREATMENTS)).append("\"\n");
+                        treatments++;
+                    }
+                    row.setLength(0);
+                    row.append(id("P-", outcomes)).append(',').append(time).append(',').append(time)
+                            .append(",ACTIVE,").append(patientID).append(',')
+                            .append(random.nextInt(100) < 70 ? "CLEARED" : "OUTSTANDING").append(',')
+                            .append(50 + random.nextInt(40) * 25).append(".0\n");
+                    paymentOut.append(row);
+                    outcomes++;
+                }
+
+                row.setLength(0);
+                row.append(id("A-", a)).append(',').append(created).append(',')
+                        .append(status.equals("AVAILABLE") ? created : date + STAMP_TIME).append(",ACTIVE,")
+                        .append(outcomeID).append(',').append(patientID).append(',').append(doctorID).append(',')
+                        .append(time).append(',').append(roomName(doctor)).append(',').append(status)
+                        .append(",30,").append(id("L", doctor)).append('\n');
+                out.append(row);
+            }
+        }
+        rows.put("appointment_records.csv", appointments);
+        rows.put("appointment_outcome_records.csv", outcomes);
+        rows.put("diagnosis_records.csv", outcomes);
+        rows.put("prescriptions_records.csv", outcomes);
+        rows.put("prescribed_medications.csv", prescribed);
+        rows.put("treatment_plans_records.csv", treatments);
+        rows.put("payment_records.csv", outcomes);
+        return rows;
+    }
+
+    private static Writer open(Path directory, String fileName) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(directory.resolve(fileName), StandardCharsets.UTF_8),
+                1 << 16);
+    }
+
+    /**
+     * Formats an ID the way the system does, with at least three digits ("P007", "P1234").
+     */
+    private static String id(String prefix, long number) {
+        String digits = Long.toString(number);
+        return digits.length() >= 3 ? prefix + digits : prefix + "000".substring(digits.length()) + digits;
+    }
+
+    private static String roomName(int doctor) {
+        return "Level " + (1 + doctor / 50 % 10) + " Clinic " + (1 + doctor / 500) + " Room " + (1 + doctor % 50);
+    }
+
+    private static String name(SplittableRandom random) {
+        return pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES);
+    }
+
+    private static String phone(SplittableRandom random) {
+        return (random.nextBoolean() ? "8" : "9") + (1_000_000 + random.nextInt(9_000_000));
+    }
+
+    private static String birthDate(SplittableRandom random, int fromYear, int toYear) {
+        return LocalDate.of(fromYear, 1, 1).plusDays(random.nextInt((toYear - fromYear) * 365)) + "T00:00";
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
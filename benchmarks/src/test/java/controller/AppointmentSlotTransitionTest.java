@@ -0,0 +1,176 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import enums.SlotTransitionResult;
+import model.Appointment;
+import repository.RecordsRepository;
+
+/**
+ * Checks the compare-and-set transitions of appointment slots in
+ * {@link AppointmentController}, alone and with several threads racing for one slot.
+ */
+class AppointmentSlotTransitionTest {
+    private static final int THREADS = 8;
+    private static ExecutorService workers;
+    private int nextSlot;
+
+    @BeforeAll
+    static void startWorkers() {
+        workers = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterAll
+    static void stopWorkers() {
+        workers.shutdownNow();
+    }
+
+    @BeforeEach
+    void clearRecords() {
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        RecordsRepository.markRecordsReloaded();
+    }
+
+    private Appointment newSlot() {
+        LocalDateTime time = LocalDateTime.of(2030, 1, 1, 9, 0).plusMinutes(30L * nextSlot);
+        Appointment slot = new Appointment(String.format("A-%03d", nextSlot++), time, time, RecordStatus.ACTIVE,
+                null, null, "D001", time, "Level 1 - Clinic", AppointmentStatus.AVAILABLE, null);
+        RecordsRepository.APPOINTMENT_RECORDS.put(slot.getRecordID(), slot);
+        return slot;
+    }
+
+    @Test
+    void slotCanOnlyBeBookedOnce() {
+        Appointment slot = newSlot();
+
+        assertEquals(SlotTransitionResult.SUCCESS, AppointmentController.bookAppointmentSlot(slot, "P001"));
+        assertEquals(SlotTransitionResult.SLOT_TAKEN, AppointmentController.bookAppointmentSlot(slot, "P002"));
+        assertEquals(SlotTransitionResult.SLOT_TAKEN, AppointmentController.bookAppointmentSlot(slot, "P001"));
+        assertEquals(AppointmentStatus.PENDING, slot.getAppointmentStatus());
+        assertEquals("P001", slot.getPatientID());
+    }
+
+    @Test
+    void onlyTheHolderCanReleaseASlot() {
+        Appointment slot = newSlot();
+        AppointmentController.bookAppointmentSlot(slot, "P001");
+
+        assertEquals(SlotTransitionResult.NOT_OWNER, AppointmentController.releaseAppointmentSlot(slot, "P002"));
+        assertEquals(SlotTransitionResult.SUCCESS, AppointmentController.releaseAppointmentSlot(slot, "P001"));
+        assertEquals(SlotTransitionResult.NOT_OWNER, AppointmentController.releaseAppointmentSlot(slot, "P001"));
+        assertEquals(AppointmentStatus.AVAILABLE, slot.getAppointmentStatus());
+        assertNull(slot.getPatientID());
+    }
+
+    @Test
+    void transitionsOnlyLeaveTheExpectedStatus() {
+        Appointment slot = newSlot();
+
+        assertEquals(SlotTransitionResult.INVALID_STATE, AppointmentController.confirmAppointment(slot));
+        AppointmentController.bookAppointmentSlot(slot, "P001");
+        assertEquals(SlotTransitionResult.INVALID_STATE, AppointmentController.completeAppointment(slot));
+        assertEquals(SlotTransitionResult.SUCCESS, AppointmentController.confirmAppointment(slot));
+        assertEquals(SlotTransitionResult.INVALID_STATE, AppointmentController.confirmAppointment(slot));
+        assertEquals(SlotTransitionResult.INVALID_STATE, AppointmentController.declineAppointment(slot));
+        assertEquals(SlotTransitionResult.SUCCESS, AppointmentController.completeAppointment(slot));
+        assertEquals(SlotTransitionResult.INVALID_STATE, AppointmentController.releaseAppointmentSlot(slot, "P001"));
+        assertEquals(AppointmentStatus.COMPLETED, slot.getAppointmentStatus());
+    }
+
+    @Test
+    void racingBookingsHaveExactlyOneWinner() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            Appointment slot = newSlot();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<SlotTransitionResult>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String patientID = String.format("P%03d", t);
+                results.add(workers.submit(() -> {
+                    start.await();
+                    return AppointmentController.bookAppointmentSlot(slot, patientID);
+                }));
+            }
+            start.countDown();
+
+            String winner = null;
+            int wins = 0;
+            for (int t = 0; t < THREADS; t++) {
+                if (results.get(t).get() == SlotTransitionResult.SUCCESS) {
+                    winner = String.format("P%03d", t);
+                    wins++;
+                }
+            }
+            assertEquals(1, wins);
+            assertEquals(winner, slot.getPatientID());
+            assertEquals(AppointmentStatus.PENDING, slot.getAppointmentStatus());
+        }
+    }
+
+    @Test
+    void slotReleasedDuringBookingsIsRebookedOnce() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            Appointment slot = newSlot();
+            AppointmentController.bookAppointmentSlot(slot, "P-HOLDER");
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean released = new AtomicBoolean();
+            List<Future<Boolean>> bookers = new ArrayList<>();
+            for (int t = 1; t < THREADS; t++) {
+                String patientID = String.format("P%03d", t);
+                bookers.add(workers.submit(() -> {
+                    start.await();
+                    while (true) {
+                        // read before booking: SLOT_TAKEN after the release means another booker won
+                        boolean afterRelease = released.get();
+                        SlotTransitionResult result = AppointmentController.bookAppointmentSlot(slot, patientID);
+                        if (result == SlotTransitionResult.SUCCESS) {
+                            return true;
+                        }
+                        if (afterRelease) {
+                            return false;
+                        }
+                        Thread.onSpinWait();
+                    }
+                }));
+            }
+            Callable<SlotTransitionResult> release = () -> {
+                start.await();
+                SlotTransitionResult result = AppointmentController.releaseAppointmentSlot(slot, "P-HOLDER");
+                released.set(true);
+                return result;
+            };
+            Future<SlotTransitionResult> releaseResult = workers.submit(release);
+            start.countDown();
+
+            assertEquals(SlotTransitionResult.SUCCESS, releaseResult.get());
+            String winner = null;
+            int wins = 0;
+            for (int t = 1; t < THREADS; t++) {
+                if (bookers.get(t - 1).get()) {
+                    winner = String.format("P%03d", t);
+                    wins++;
+                }
+            }
+            assertEquals(1, wins);
+            assertEquals(winner, slot.getPatientID());
+            assertEquals(AppointmentStatus.PENDING, slot.getAppointmentStatus());
+        }
+    }
+}
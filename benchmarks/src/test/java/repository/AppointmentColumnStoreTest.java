@@ -0,0 +1,160 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import enums.AppointmentStatus;
+import enums.RecordStatus;
+import model.Appointment;
+import model.AppointmentSlotState;
+
+/**
+ * Checks {@link AppointmentColumnStore} scans against a filter over
+ * APPOINTMENT_RECORDS, before and after slots change.
+ */
+class AppointmentColumnStoreTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    private final Random random = new Random(11);
+
+    @BeforeEach
+    void fillRecords() {
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        for (int i = 0; i < 2_000; i++) {
+            add(i);
+        }
+        RecordsRepository.markRecordsReloaded();
+    }
+
+    private Appointment add(int number) {
+        AppointmentStatus status = STATUSES[random.nextInt(STATUSES.length)];
+        String patientID = status == AppointmentStatus.AVAILABLE ? null : String.format("P%03d", random.nextInt(50));
+        LocalDateTime time = BASE.plusMinutes(30L * random.nextInt(5_000));
+        Appointment appointment = new Appointment(String.format("A-%04d", number), BASE, BASE, RecordStatus.ACTIVE,
+                null, patientID, String.format("D%03d", random.nextInt(20)), time, "Room " + random.nextInt(5),
+                status, null);
+        RecordsRepository.APPOINTMENT_RECORDS.put(appointment.getRecordID(), appointment);
+        return appointment;
+    }
+
+    private static Set<String> expected(Predicate<Appointment> filter) {
+        Set<String> ids = new HashSet<>();
+        for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+            if (filter.test(appointment)) {
+                ids.add(appointment.getRecordID());
+            }
+        }
+        return ids;
+    }
+
+    private static Set<String> ids(AppointmentColumnStore.Selection selection) {
+        Set<String> ids = new HashSet<>();
+        for (Appointment appointment : selection.toAppointments()) {
+            ids.add(appointment.getRecordID());
+        }
+        assertEquals(selection.size(), ids.size());
+        return ids;
+    }
+
+    private static void assertScansMatch() {
+        assertEquals(expected(a -> "P007".equals(a.getPatientID())),
+                ids(AppointmentColumnStore.find("P007", null, null)));
+        assertEquals(expected(a -> "D003".equals(a.getDoctorID()) && a.getAppointmentStatus() == AppointmentStatus.AVAILABLE),
+                ids(AppointmentColumnStore.find(null, "D003", AppointmentStatus.AVAILABLE)));
+        for (AppointmentStatus status : STATUSES) {
+            assertEquals(expected(a -> a.getAppointmentStatus() == status).size(),
+                    AppointmentColumnStore.countByStatus(status));
+        }
+    }
+
+    @Test
+    void scansMatchRecords() {
+        assertScansMatch();
+        assertEquals(expected(a -> true), ids(AppointmentColumnStore.find(null, null, null)));
+    }
+
+    @Test
+    void timeRangeIncludesStartAndExcludesEnd() {
+        LocalDateTime from = BASE.plusDays(10);
+        LocalDateTime to = BASE.plusDays(12);
+
+        assertEquals(expected(a -> !a.getAppointmentTime().isBefore(from) && a.getAppointmentTime().isBefore(to)),
+                ids(AppointmentColumnStore.findInTimeRange(from, to, null)));
+        assertEquals(expected(a -> a.getAppointmentTime().isBefore(to)
+                        && a.getAppointmentStatus() == AppointmentStatus.CONFIRMED),
+                ids(AppointmentColumnStore.findInTimeRange(null, to, AppointmentStatus.CONFIRMED)));
+    }
+
+    @Test
+    void viewReadsTheRow() {
+        AppointmentColumnStore.Selection selection = AppointmentColumnStore.find(null, "D005", null);
+        AppointmentColumnStore.AppointmentView view = selection.view();
+        for (int i = 0; i < selection.size(); i++) {
+            view.moveTo(selection.getRow(i));
+            Appointment appointment = RecordsRepository.APPOINTMENT_RECORDS.get(view.getRecordID());
+            assertEquals(appointment, view.getAppointment());
+            assertEquals("D005", view.getDoctorID());
+            assertEquals(appointment.getPatientID(), view.getPatientID());
+            assertEquals(appointment.getLocation(), view.getLocation());
+            assertEquals(appointment.getAppointmentStatus(), view.getAppointmentStatus());
+            assertEquals(appointment.getAppointmentTime(), view.getAppointmentTime());
+            assertFalse(view.isRemoved());
+        }
+    }
+
+    @Test
+    void changedSlotsAreScannedInTheirNewState() {
+        AppointmentColumnStore.countByStatus(AppointmentStatus.AVAILABLE);
+        List<Appointment> changed = new ArrayList<>();
+        for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+            if (appointment.getAppointmentStatus() == AppointmentStatus.AVAILABLE && changed.size() < 100) {
+                AppointmentSlotState state = appointment.getSlotState();
+                appointment.compareAndSetSlotState(state,
+                        new AppointmentSlotState(AppointmentStatus.PENDING, "P007", null));
+                changed.add(appointment);
+            }
+        }
+        AppointmentColumnStore.slotsChanged(changed);
+
+        assertScansMatch();
+    }
+
+    @Test
+    void addedAndRemovedSlotsAreScanned() {
+        AppointmentColumnStore.countByStatus(AppointmentStatus.AVAILABLE);
+        Appointment added = add(5_000);
+        AppointmentColumnStore.slotChanged(added);
+        Appointment removed = RecordsRepository.APPOINTMENT_RECORDS.remove("A-0042");
+        AppointmentColumnStore.slotChanged(removed);
+
+        assertScansMatch();
+        assertTrue(ids(AppointmentColumnStore.find(null, added.getDoctorID(), null)).contains("A-5000"));
+        assertFalse(ids(AppointmentColumnStore.find(null, removed.getDoctorID(), null)).contains("A-0042"));
+    }
+
+    @Test
+    void reloadRebuildsTheColumns() {
+        AppointmentColumnStore.countByStatus(AppointmentStatus.AVAILABLE);
+        RecordsRepository.APPOINTMENT_RECORDS.clear();
+        for (int i = 0; i < 300; i++) {
+            add(i);
+        }
+        RecordsRepository.markRecordsReloaded();
+
+        assertScansMatch();
+        assertEquals(300, AppointmentColumnStore.find(null, null, null).size());
+    }
+}
@@ -0,0 +1,79 @@
+package repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import repository.UnitOfWork.PersistTarget;
+
+/**
+ * Checks that a {@link UnitOfWork} applies its changes in order and undoes the
+ * applied ones, newest first, when a change fails.
+ */
+class UnitOfWorkTest {
+    @Test
+    void appliesChangesInOrder() {
+        List<String> log = new ArrayList<>();
+        UnitOfWork unitOfWork = new UnitOfWork()
+                .register(() -> log.add("apply 1"), () -> log.add("undo 1"), PersistTarget.DIAGNOSES)
+                .register(() -> log.add("apply 2"), () -> log.add("undo 2"), PersistTarget.DIAGNOSES);
+
+        assertTrue(unitOfWork.commit());
+        assertTrue(unitOfWork.isApplied());
+        assertEquals(List.of("apply 1", "apply 2"), log);
+    }
+
+    @Test
+    void failedChangeUndoesAppliedChangesInReverseOrder() {
+        List<String> log = new ArrayList<>();
+        UnitOfWork unitOfWork = new UnitOfWork()
+                .register(() -> log.add("apply 1"), () -> log.add("undo 1"), PersistTarget.DIAGNOSES)
+                .register(() -> log.add("apply 2"), () -> log.add("undo 2"), PersistTarget.DIAGNOSES)
+                .register(() -> {
+                    throw new IllegalStateException("change 3 failed");
+                }, () -> log.add("undo 3"), PersistTarget.DIAGNOSES)
+                .register(() -> log.add("apply 4"), () -> log.add("undo 4"), PersistTarget.DIAGNOSES);
+
+        assertFalse(unitOfWork.commit());
+        assertFalse(unitOfWork.isApplied());
+        assertEquals(List.of("apply 1", "apply 2", "undo 2", "undo 1"), log);
+    }
+
+    @Test
+    void setRestoresPreviousValueOnRollback() {
+        AtomicReference<String> property = new AtomicReference<>("old");
+        UnitOfWork unitOfWork = new UnitOfWork()
+                .set(property::get, property::set, "new", PersistTarget.DIAGNOSES)
+                .register(() -> {
+                    assertEquals("new", property.get());
+                    throw new IllegalStateException("rolled back");
+                }, () -> { }, PersistTarget.DIAGNOSES);
+
+        assertFalse(unitOfWork.commit());
+        assertEquals("old", property.get());
+    }
+
+    @Test
+    void setKeepsNewValueOnCommit() {
+        AtomicReference<String> property = new AtomicReference<>("old");
+
+        assertTrue(new UnitOfWork().set(property::get, property::set, "new", PersistTarget.DIAGNOSES).commit());
+        assertEquals("new", property.get());
+    }
+
+    @Test
+    void cannotBeCommittedTwice() {
+        UnitOfWork unitOfWork = new UnitOfWork().touch(PersistTarget.DIAGNOSES);
+        assertTrue(unitOfWork.commit());
+
+        assertThrows(IllegalStateException.class, unitOfWork::commit);
+        assertThrows(IllegalStateException.class, () -> unitOfWork.touch(PersistTarget.DIAGNOSES));
+    }
+}
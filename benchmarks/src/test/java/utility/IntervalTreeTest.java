@@ -0,0 +1,95 @@
+package utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks {@link IntervalTree} against a plain list of intervals.
+ */
+class IntervalTreeTest {
+    private record Interval(long start, long end, String key) {
+    }
+
+    @Test
+    void rangesAreHalfOpen() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(10, 20, "a", "a");
+
+        assertNull(tree.findAnyOverlap(0, 10));
+        assertNull(tree.findAnyOverlap(20, 30));
+        assertEquals("a", tree.findAnyOverlap(19, 21));
+        assertEquals("a", tree.findAnyOverlap(0, 11));
+        assertEquals(List.of("a"), tree.findOverlaps(12, 15));
+    }
+
+    @Test
+    void insertWithSameStartAndKeyReplacesInterval() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(10, 20, "a", "first");
+        tree.insert(10, 40, "a", "second");
+        tree.insert(10, 15, "b", "other");
+
+        assertEquals(2, tree.size());
+        assertEquals(List.of("second"), tree.findOverlaps(30, 35));
+    }
+
+    @Test
+    void removeOnlyDropsMatchingInterval() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(10, 20, "a", "a");
+        tree.insert(10, 20, "b", "b");
+        tree.remove(10, "c");
+        tree.remove(11, "a");
+        assertEquals(2, tree.size());
+
+        tree.remove(10, "a");
+        assertEquals(1, tree.size());
+        assertEquals(List.of("b"), tree.findOverlaps(0, 100));
+    }
+
+    @Test
+    void matchesBruteForceAfterRandomInsertsAndRemoves() {
+        Random random = new Random(42);
+        IntervalTree<Interval> tree = new IntervalTree<>();
+        List<Interval> stored = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            if (!stored.isEmpty() && random.nextInt(3) == 0) {
+                Interval removed = stored.remove(random.nextInt(stored.size()));
+                tree.remove(removed.start(), removed.key());
+            } else {
+                long start = random.nextInt(100_000);
+                Interval interval = new Interval(start, start + 1 + random.nextInt(500), "k" + i);
+                tree.insert(interval.start(), interval.end(), interval.key(), interval);
+                stored.add(interval);
+            }
+
+            if (i % 10 == 0) {
+                long start = random.nextInt(100_000);
+                long end = start + 1 + random.nextInt(1_000);
+                List<Interval> expected = new ArrayList<>();
+                for (Interval interval : stored) {
+                    if (interval.start() < end && start < interval.end()) {
+                        expected.add(interval);
+                    }
+                }
+                expected.sort(Comparator.comparingLong(Interval::start).thenComparing(Interval::key));
+
+                assertEquals(stored.size(), tree.size());
+                assertEquals(expected, tree.findOverlaps(start, end));
+                if (expected.isEmpty()) {
+                    assertNull(tree.findAnyOverlap(start, end));
+                } else {
+                    assertNotNull(tree.findAnyOverlap(start, end));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link TimingWheel} fires every timer at its deadline, on every
+ * level of the wheel, and never fires a cancelled timer.
+ */
+class TimingWheelTest {
+    private static final long TICK = 1_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void firesAtDeadlineAndNotBefore() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        wheel.schedule(START + 5 * TICK, "a");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(START + 4 * TICK, fired::add);
+        assertEquals(List.of(), fired);
+        assertEquals(1, wheel.size());
+
+        wheel.advanceTo(START + 5 * TICK, fired::add);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void firesInDeadlineOrderAcrossLevels() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, START);
+        long[] ticks = {300_000, 1, 64 * 64 * 64 + 5, 63, 4_096, 64, 4_095, 20_000_000, 64L * 64 * 64 * 64 * 64 + 9};
+        for (long ticksAhead : ticks) {
+            wheel.schedule(START + ticksAhead * TICK, ticksAhead);
+        }
+        List<Long> fired = new ArrayList<>();
+
+        wheel.advanceTo(START + 20_000_000 * TICK, fired::add);
+        assertEquals(List.of(1L, 63L, 64L, 4_095L, 4_096L, 64L * 64 * 64 + 5, 300_000L, 20_000_000L), fired);
+
+        // beyond the span of the wheel: parked on the top level until it comes within reach
+        wheel.advanceTo(START + 64L * 64 * 64 * 64 * 64 * TICK, fired::add);
+        assertEquals(8, fired.size());
+        wheel.advanceTo(START + (64L * 64 * 64 * 64 * 64 + 9) * TICK, fired::add);
+        assertEquals(64L * 64 * 64 * 64 * 64 + 9, fired.get(8));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        wheel.advanceTo(START + 10 * TICK, value -> { });
+        wheel.schedule(START, "late");
+        List<String> fired = new ArrayList<>();
+
+        // the tick of the last advance has already been processed
+        wheel.advanceTo(START + 10 * TICK + TICK / 2, fired::add);
+        assertEquals(List.of(), fired);
+
+        wheel.advanceTo(START + 11 * TICK, fired::add);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void cancelledTimerNeverFires() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        TimingWheel.Timer<String> cancelled = wheel.schedule(START + 100 * TICK, "cancelled");
+        wheel.schedule(START + 100 * TICK, "kept");
+
+        assertTrue(cancelled.isPending());
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertFalse(cancelled.isPending());
+        assertEquals(1, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(START + 200 * TICK, fired::add);
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    void randomTimersFireOnFirstAdvancePastTheirTick() {
+        Random random = new Random(7);
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, START);
+        // the first tick not processed yet
+        long nextTick = Math.floorDiv(START, TICK);
+        Map<Integer, Long> deadlineTicks = new HashMap<>();
+        Map<Integer, TimingWheel.Timer<Integer>> timers = new HashMap<>();
+        long now = START;
+        int next = 0;
+        for (int round = 0; round < 2_000; round++) {
+            for (int i = random.nextInt(5); i > 0; i--) {
+                long deadline = now + (long) (Math.pow(random.nextDouble(), 4) * 10_000_000) * TICK
+                        + random.nextInt((int) TICK);
+                int id = next++;
+                timers.put(id, wheel.schedule(deadline, id));
+                deadlineTicks.put(id, Math.max(nextTick, Math.floorDiv(deadline, TICK)));
+            }
+            if (!timers.isEmpty() && random.nextInt(4) == 0) {
+                Integer id = timers.keySet().iterator().next();
+                assertTrue(wheel.cancel(timers.remove(id)));
+                deadlineTicks.remove(id);
+            }
+
+            now += (long) (Math.pow(random.nextDouble(), 3) * 50_000) * TICK;
+            long nowTick = Math.floorDiv(now, TICK);
+            List<Integer> fired = new ArrayList<>();
+            wheel.advanceTo(now, fired::add);
+            nextTick = Math.max(nextTick, nowTick + 1);
+            for (Integer id : fired) {
+                Long deadlineTick = deadlineTicks.remove(id);
+                assertTrue(deadlineTick != null && deadlineTick <= nowTick, "timer " + id + " fired early or twice");
+                timers.remove(id);
+            }
+            for (long deadlineTick : deadlineTicks.values()) {
+                assertTrue(deadlineTick > nowTick, "timer due at tick " + deadlineTick + " did not fire");
+            }
+            assertEquals(timers.size(), wheel.size());
+        }
+    }
+}
@@ -8,12 +8,18 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import Main.Main;
 import enums.*;
 import enums.User;
 import model.*;
+import repository.AppointmentColumnStore;
+import repository.HeapFootprint;
+import repository.LocationRepository;
 import repository.RecordsRepository;
+import repository.RepositoryLoadReport;
+import repository.StartupReport;
 import repository.UserRepository;
 import utility.Validator;
 import repository.MedicineRepository;
@@ -52,7 +58,12 @@ public class AdministratorBoundary extends Boundary {
         System.out.println("3. View and Manage Medication Inventory");
         System.out.println("4. Approve Replenishment Requests");
         System.out.println("5. View and Manage Billing Information");
-        System.out.println("6. Logout");
+        System.out.println("6. Validate Appointment Schedule");
+        System.out.println("7. Manage Locations");
+        System.out.println("8. View Startup Report");
+        System.out.println("9. View Heap Footprint");
+        System.out.println("10. View Appointment Dashboard");
+        System.out.println("11. Logout");
     }
     
 	/**
@@ -76,7 +87,12 @@ public class AdministratorBoundary extends Boundary {
                 case 3 -> viewAndManageMedicationInventory();
                 case 4 -> approveReplenishRequest();
                 case 5 -> viewAndManageBilling();
-                case 6 -> {
+                case 6 -> validateAppointmentSchedule();
+                case 7 -> manageLocations();
+                case 8 -> viewStartupReport();
+                case 9 -> viewHeapFootprint();
+                case 10 -> viewAppointmentDashboard();
+                case 11 -> {
                     System.out.println("Logging out...");
                     Main.main(null); // Restart application
                     return; // Exit after logging out
@@ -218,6 +234,260 @@ public class AdministratorBoundary extends Boundary {
     	}
     }
 
+    /**
+     * Administrator Menu Option 6
+     * Checks every appointment record for doctors or locations booked twice for
+     * overlapping times and lists the conflicts found.
+     */
+
+    private static void validateAppointmentSchedule() {
+        System.out.println("\n--- Appointment Schedule Conflicts ---");
+        List<ScheduleConflict> conflicts = ScheduleConflictDetector.findAllConflicts();
+        if (conflicts.isEmpty()) {
+            System.out.println("No overlapping appointments found.");
+            singleline();
+            return;
+        }
+        for (ScheduleConflict conflict : conflicts) {
+            System.out.println(conflict.getConflictType() + " conflict on " + conflict.getResource());
+            for (Appointment appointment : List.of(conflict.getExisting(), conflict.getConflicting())) {
+                System.out.printf("  %s  %s to %s  Doctor: %s  Location: %s  Status: %s\n",
+                        appointment.getRecordID(),
+                        appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+                        appointment.getEndTime().format(DateTimeFormatter.ofPattern("HH:mm")),
+                        appointment.getDoctorID(), appointment.getLocation(), appointment.getAppointmentStatus());
+            }
+        }
+        System.out.println(conflicts.size() + " conflict(s) found.");
+        singleline();
+    }
+
+    /**
+     * Administrator Menu Option 7
+     * Displays the options for managing the locations appointments are held at
+     * and the number of rooms each has.
+     */
+
+    private static void manageLocations() {
+        System.out.println("1. View Locations");
+        System.out.println("2. Add Location");
+        System.out.println("3. Change Number of Rooms");
+        System.out.println("4. Find Free Rooms");
+        int choice = Validator.readInt("Enter your choice: ");
+        switch (choice) {
+            case 1 -> listLocations();
+            case 2 -> {
+                String name = Validator.readString("Enter Location Name: ");
+                int capacity = Validator.readInt("Enter Number of Rooms: ", 1, 1000);
+                Location existing = LocationRepository.findLocationByName(name);
+                Location location = LocationRepository.addLocation(name, capacity);
+                if (location == null) {
+                    System.out.println("Error: Location name cannot be blank.");
+                } else if (existing != null) {
+                    System.out.println("Location already exists as " + location.getLocationID() + ".");
+                } else {
+                    LocationRepository.saveIfChangedAsync();
+                    System.out.println("Location " + location.getLocationID() + " added.");
+                }
+            }
+            case 3 -> {
+                String locationID = Validator.readString("Enter Location ID: ").toUpperCase();
+                int capacity = Validator.readInt("Enter New Number of Rooms: ", 1, 1000);
+                if (LocationRepository.setCapacity(locationID, capacity)) {
+                    LocationRepository.saveIfChangedAsync();
+                    System.out.println("Location " + locationID + " now has " + capacity + " room(s).");
+                } else {
+                    System.out.println("Location not found.");
+                }
+            }
+            case 4 -> findFreeRooms();
+            default -> System.out.println("Error: Invalid choice. Please select a valid option.");
+        }
+        singleline();
+    }
+
+    /**
+     * Lists every location with its number of rooms and how much of it is booked today.
+     */
+
+    private static void listLocations() {
+        List<Location> locations = LocationRepository.getLocations();
+        if (locations.isEmpty()) {
+            System.out.println("No locations registered.");
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        System.out.printf("%-6s %-40s %6s %18s\n", "ID", "Name", "Rooms", "Booked Today (h)");
+        for (Location location : locations) {
+            System.out.printf("%-6s %-40s %6d %18.1f\n", location.getLocationID(), location.getName(),
+                    location.getCapacity(),
+                    RoomScheduler.getBookedMinutes(location.getLocationID(), today) / 60.0);
+        }
+    }
+
+    /**
+     * Asks for a date, time and duration and lists the locations with a room free for all of it.
+     */
+
+    private static void findFreeRooms() {
+        LocalDate date = Validator.readDate("Enter date (yyyy-MM-dd):").toLocalDate();
+        LocalDateTime start = date.atTime(Validator.readTime("Enter start time (HH:mm):"));
+        int minutes = Validator.readInt("Enter duration in minutes: ", 1, 24 * 60);
+        List<RoomScheduler.FreeLocation> free = RoomScheduler.findFreeLocations(start, minutes);
+        if (free.isEmpty()) {
+            System.out.println("No rooms are free at that time.");
+            return;
+        }
+        System.out.println("Rooms free from " + start.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+                + " for " + minutes + " minutes:");
+        for (RoomScheduler.FreeLocation location : free) {
+            System.out.printf("  %-6s %-40s %d of %d room(s) free\n", location.location().getLocationID(),
+                    location.location().getName(), location.freeRooms(), location.location().getCapacity());
+        }
+    }
+
+    /**
+     * Administrator Menu Option 8
+     * Shows how long each repository took to load at startup, how many rows it read,
+     * parsed and rejected, and the rows that were rejected with their reasons.
+     */
+
+    private static void viewStartupReport() {
+        System.out.println("\n--- Startup Report ---");
+        List<RepositoryLoadReport> loads = StartupReport.getLoads();
+        if (loads.isEmpty()) {
+            System.out.println("No repositories have been loaded.");
+            singleline();
+            return;
+        }
+        long totalNanos = 0;
+        System.out.printf("%-36s %10s %10s %10s %9s %10s %10s\n", "Repository", "Time (ms)", "Rows Read",
+                "Parsed", "Rejected", "Read (KB)", "Heap (KB)");
+        for (RepositoryLoadReport load : loads) {
+            totalNanos += load.getElapsedNanos();
+            System.out.printf("%-36s %10.1f %10d %10d %9d %10d %10d\n", load.getRepository(),
+                    load.getElapsedNanos() / 1e6, load.getRowsRead(), load.getRowsParsed(), load.getRowsRejected(),
+                    load.getBytesRead() / 1024, load.getHeapBytes() / 1024);
+        }
+        System.out.printf("Total load time: %.1f ms\n", totalNanos / 1e6);
+        for (RepositoryLoadReport load : loads) {
+            for (RepositoryLoadReport.RejectedRow row : load.getRejectedRows()) {
+                System.out.printf("Rejected %s line %d: %s\n", row.file(), row.line(), row.reason());
+            }
+            if (load.getRowsRejected() > load.getRejectedRows().size()) {
+                System.out.println("... and " + (load.getRowsRejected() - load.getRejectedRows().size())
+                        + " more rejected row(s) in " + load.getRepository());
+            }
+        }
+        System.out.println("Full report: " + StartupReport.getFile());
+        singleline();
+    }
+
+    /**
+     * Administrator Menu Option 9
+     * Estimates how much heap each repository and each kind of record takes now,
+     * and how that has changed since the previous and the first recorded snapshot.
+     */
+
+    private static void viewHeapFootprint() {
+        System.out.println("\n--- Heap Footprint ---");
+        List<HeapFootprint.Snapshot> history = HeapFootprint.getHistory();
+        HeapFootprint.Snapshot snapshot = HeapFootprint.record();
+        HeapFootprint.Snapshot previous = history.isEmpty() ? null : history.get(history.size() - 1);
+        HeapFootprint.Snapshot first = history.isEmpty() ? null : history.get(0);
+
+        System.out.printf("%-58s %10s %12s %12s %12s\n", "Repository", "Entries", "Size (KB)", "Change (KB)",
+                "Since First");
+        for (HeapFootprint.RepositoryFootprint repository : snapshot.repositories()) {
+            System.out.printf("%-58s %10d %12d %12s %12s\n", repository.name(), repository.entries(),
+                    repository.estimatedBytes() / 1024,
+                    change(repository.estimatedBytes(), repositoryBytes(previous, repository.name())),
+                    change(repository.estimatedBytes(), repositoryBytes(first, repository.name())));
+        }
+        System.out.printf("%-58s %10s %12d %12s %12s\n", "Total", "", snapshot.totalEstimatedBytes() / 1024,
+                change(snapshot.totalEstimatedBytes(), previous == null ? null : previous.totalEstimatedBytes()),
+                change(snapshot.totalEstimatedBytes(), first == null ? null : first.totalEstimatedBytes()));
+
+        System.out.printf("\n%-30s %12s %12s %12s\n", "Class", "Instances", "Size (KB)", "Avg (bytes)");
+        for (HeapFootprint.ClassFootprint footprint : snapshot.classes()) {
+            System.out.printf("%-30s %12d %12d %12s\n", footprint.className(), footprint.instances(),
+                    footprint.estimatedBytes() / 1024,
+                    footprint.instances() == 0 ? "-"
+                            : String.valueOf(footprint.estimatedBytes() / footprint.instances()));
+        }
+        System.out.printf("\nHeap in use: %d KB (including garbage), of which repositories are an estimated %d KB\n",
+                snapshot.heapUsedBytes() / 1024, snapshot.totalEstimatedBytes() / 1024);
+        if (first != null) {
+            System.out.println("Compared with " + history.size() + " earlier snapshot(s), the first taken at "
+                    + first.takenAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+        }
+        singleline();
+    }
+
+    /**
+     * Administrator Menu Option 10
+     * Shows how many appointments have each status, and each doctor's appointments
+     * in the next seven days by status. Both are read from the appointment columns,
+     * without going through the appointment records.
+     */
+
+    private static void viewAppointmentDashboard() {
+        System.out.println("\n--- Appointment Dashboard ---");
+        AppointmentStatus[] statuses = AppointmentStatus.values();
+        for (AppointmentStatus status : statuses) {
+            System.out.printf("%-10s %8d\n", status, AppointmentColumnStore.countByStatus(status));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        AppointmentColumnStore.Selection week = AppointmentColumnStore.findInTimeRange(now, now.plusDays(7), null);
+        // key value = doctorID; the doctor's appointments by status ordinal
+        Map<String, int[]> byDoctor = new TreeMap<>();
+        AppointmentColumnStore.AppointmentView view = week.view();
+        for (int i = 0; i < week.size(); i++) {
+            view.moveTo(week.getRow(i));
+            AppointmentStatus status = view.getAppointmentStatus();
+            if (status != null && view.getDoctorID() != null) {
+                byDoctor.computeIfAbsent(view.getDoctorID(), doctorID -> new int[statuses.length])[status.ordinal()]++;
+            }
+        }
+
+        System.out.println("\nNext 7 days by doctor:");
+        if (byDoctor.isEmpty()) {
+            System.out.println("No appointments in the next 7 days.");
+            singleline();
+            return;
+        }
+        System.out.printf("%-6s %-24s", "ID", "Doctor");
+        for (AppointmentStatus status : statuses) {
+            System.out.printf(" %10s", status);
+        }
+        System.out.println();
+        for (Map.Entry<String, int[]> doctor : byDoctor.entrySet()) {
+            System.out.printf("%-6s %-24s", doctor.getKey(), DoctorController.getDoctorNameById(doctor.getKey()));
+            for (int count : doctor.getValue()) {
+                System.out.printf(" %10d", count);
+            }
+            System.out.println();
+        }
+        singleline();
+    }
+
+    private static Long repositoryBytes(HeapFootprint.Snapshot snapshot, String name) {
+        if (snapshot == null) {
+            return null;
+        }
+        for (HeapFootprint.RepositoryFootprint repository : snapshot.repositories()) {
+            if (repository.name().equals(name)) {
+                return repository.estimatedBytes();
+            }
+        }
+        return null;
+    }
+
+    private static String change(long bytes, Long before) {
+        return before == null ? "-" : String.format("%+d", (bytes - before) / 1024);
+    }
+
     /**
      * Administrator Menu Option 2
      * Lists all appointment records in the system.
@@ -5,19 +5,28 @@
  */
 package boundary;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
 
-import controller.RecordsController;
+import controller.DoctorCalendar;
 import enums.AppointmentStatus;
-import enums.Record;
-import enums.RecordStatus;
 import utility.DateTime;
 import utility.Validator;
 import model.Appointment;
+import model.AvailabilityTemplate;
 import model.Doctor;
+import model.Location;
+import repository.LocationRepository;
 import repository.RecordsRepository;
 
 import static utility.Validator.sc;
@@ -48,7 +57,8 @@ public class AvailabilitySetterBoundary extends Boundary {
     protected void printChoice() {
         System.out.println("Appointment Availability Menu:");
         System.out.println("1. Set Availability for Appointments");
-        System.out.println("2. Back to Doctor Dashboard");
+        System.out.println("2. Set Recurring Weekly Availability");
+        System.out.println("3. Back to Doctor Dashboard");
         System.out.print("Enter your choice: ");
     }
 
@@ -64,7 +74,8 @@ public class AvailabilitySetterBoundary extends Boundary {
             choice = Validator.readInt("");
             switch (choice) {
                 case 1 -> setAvailabilityForAppointments();
-                case 2 -> {
+                case 2 -> setRecurringAvailability();
+                case 3 -> {
                     System.out.println("Returning to Doctor Dashboard...");
                     return; // Exit the loop and method
                 }
@@ -80,7 +91,7 @@ public class AvailabilitySetterBoundary extends Boundary {
      */
     public void setAvailabilityForAppointments() {
         List<Appointment> availableAppointments = new ArrayList<>();
-        AppointmentStatus status = AppointmentStatus.AVAILABLE;
+        DoctorCalendar calendar = DoctorCalendar.of(doctor.getUID());
         System.out.println("Enter your availability. Type 'done' when finished.");
 
         boolean addavailability = true; // Flag to handle the first run of the loop
@@ -98,29 +109,20 @@ public class AvailabilitySetterBoundary extends Boundary {
             addavailability = false; // Reset flag after the first iteration
 
             // Prompt for location
-            String location = Validator.readString("Enter the location (e.g., 'Level 2 - Heart Clinic'): ");
+            String locationID = readLocation();
 
             // Prompt for appointment date and time
             LocalDateTime appointmentDateTime = DateTime.pickDateTime("Enter the appointment date and time:");
 
-            // Create appointment record
-            Appointment appointment = new Appointment(
-                    RecordsController.generateRecordID(Record.APPOINTMENT_RECORDS),
-                    LocalDateTime.now(),
-                    LocalDateTime.now(),
-                    RecordStatus.ACTIVE,
-                    null,
-                    null,
-                    doctor.getUID(),
-                    appointmentDateTime,
-                    location,
-                    status,
-                    null
-            );
-
-            // Add and save the appointment
+            // Create the slot through the doctor's calendar so it is ordered with the doctor's other changes
+            Appointment appointment;
+            try {
+                appointment = calendar.addAvailableSlot(appointmentDateTime, locationID).join();
+            } catch (CompletionException e) {
+                System.out.println("Error: " + e.getCause().getMessage());
+                continue;
+            }
             availableAppointments.add(appointment);
-            RecordsRepository.APPOINTMENT_RECORDS.put(appointment.getRecordID(), appointment);
 
             System.out.printf("Created and saved appointment for %s at %s\n",
                     appointmentDateTime.toLocalDate(), appointmentDateTime.toLocalTime());
@@ -134,6 +136,146 @@ public class AvailabilitySetterBoundary extends Boundary {
     }
 
 
+    /**
+     * Allows the doctor to describe a recurring weekly availability (days of the
+     * week, working hours, slot length, location, date range and excluded dates)
+     * and creates every matching slot in one batch with a single save.
+     */
+    public void setRecurringAvailability() {
+        String locationID = readLocation();
+        Set<DayOfWeek> daysOfWeek = readDaysOfWeek();
+        LocalTime dailyStartTime = Validator.readTime("Enter the daily start time (HH:mm, e.g., 09:00): ");
+        LocalTime dailyEndTime = Validator.readTime("Enter the daily end time (HH:mm, e.g., 17:00): ");
+        int slotLength = Validator.readInt("Enter the slot length in minutes: ", 5, 480);
+        LocalDate startDate = Validator.readDate("Enter the first date (yyyy-MM-dd): ").toLocalDate();
+        LocalDate endDate = Validator.readDate("Enter the last date (yyyy-MM-dd): ").toLocalDate();
+        Set<LocalDate> excludedDates = readExcludedDates();
+
+        AvailabilityTemplate template;
+        try {
+            template = new AvailabilityTemplate(daysOfWeek, dailyStartTime, dailyEndTime, slotLength, locationID,
+                    startDate, endDate, excludedDates);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            return;
+        }
+
+        int slotCount = template.countSlots();
+        if (slotCount == 0) {
+            System.out.println("No slots match this availability. Nothing was created.");
+            return;
+        }
+        if (!Validator.promptConfirmation("create up to " + slotCount + " slots from " + startDate + " to " + endDate)) {
+            System.out.println("No slots were created.");
+            return;
+        }
+
+        List<Appointment> created = DoctorCalendar.of(doctor.getUID()).addAvailableSlots(template).join();
+        if (created.isEmpty()) {
+            System.out.println("Every slot overlaps an existing appointment for you or at this location. Nothing was created.");
+            return;
+        }
+        RecordsRepository.saveAllRecordFiles();
+
+        System.out.printf("Created %d slots (%s to %s), skipped %d that overlap existing appointments.\n",
+                created.size(),
+                created.get(0).getRecordID(),
+                created.get(created.size() - 1).getRecordID(),
+                slotCount - created.size());
+        System.out.printf("First slot: %s, last slot: %s, location: %s\n",
+                created.get(0).getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+                created.get(created.size() - 1).getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+                created.get(0).getLocation());
+    }
+
+    /**
+     * Reads the location of new slots, either by its number in the list of registered
+     * locations or by name. A name that is not registered yet becomes a new location
+     * with one room.
+     *
+     * @return the ID of the location entered by the doctor
+     */
+    private String readLocation() {
+        List<Location> locations = LocationRepository.getLocations();
+        for (int i = 0; i < locations.size(); i++) {
+            System.out.printf("%d. %s (%d room(s))\n", i + 1, locations.get(i).getName(),
+                    locations.get(i).getCapacity());
+        }
+        while (true) {
+            String input = Validator.readString(locations.isEmpty()
+                    ? "Enter the location (e.g., 'Level 2 - Heart Clinic'): "
+                    : "Enter the number of the location, or a new location name: ").trim();
+            if (input.matches("\\d+")) {
+                int choice = Integer.parseInt(input);
+                if (choice >= 1 && choice <= locations.size()) {
+                    return locations.get(choice - 1).getLocationID();
+                }
+                System.out.println("Invalid choice! Please try again.");
+            } else if (!input.isEmpty()) {
+                return LocationRepository.addLocation(input, 1).getLocationID();
+            }
+        }
+    }
+
+    /**
+     * Reads the days of the week for a recurring availability, e.g. "MON,WED,FRI".
+     *
+     * @return the days entered by the doctor
+     */
+    private Set<DayOfWeek> readDaysOfWeek() {
+        while (true) {
+            String input = Validator.readString("Enter the days of the week (e.g., MON,WED,FRI): ");
+            Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            boolean valid = true;
+            for (String day : input.split(",")) {
+                // a prefix must name one day, so "T" (TUESDAY or THURSDAY) is rejected
+                List<DayOfWeek> matches = new ArrayList<>();
+                for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                    if (!day.trim().isEmpty() && dayOfWeek.name().startsWith(day.trim().toUpperCase())) {
+                        matches.add(dayOfWeek);
+                    }
+                }
+                if (matches.isEmpty()) {
+                    System.out.println("Invalid day: " + day.trim());
+                    valid = false;
+                    break;
+                }
+                if (matches.size() > 1) {
+                    System.out.println("Ambiguous day: " + day.trim() + " could be any of " + matches);
+                    valid = false;
+                    break;
+                }
+                days.add(matches.get(0));
+            }
+            if (valid) {
+                return days;
+            }
+        }
+    }
+
+    /**
+     * Reads the dates to leave out of a recurring availability, e.g. public holidays.
+     *
+     * @return the excluded dates, empty if the doctor entered none
+     */
+    private Set<LocalDate> readExcludedDates() {
+        while (true) {
+            String input = Validator.readString("Enter dates to exclude (yyyy-MM-dd, separated by commas), or 'none': ");
+            if (input.trim().equalsIgnoreCase("none")) {
+                return Set.of();
+            }
+            Set<LocalDate> dates = new HashSet<>();
+            try {
+                for (String date : input.split(",")) {
+                    dates.add(LocalDate.parse(date.trim()));
+                }
+                return dates;
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format. Please enter the dates in yyyy-MM-dd format.");
+            }
+        }
+    }
+
     /**
      * Displays a summary of the available appointments set by the doctor,
      * showing details such as date, time, location, and record IDs.
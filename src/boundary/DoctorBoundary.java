@@ -5,21 +5,31 @@
  */
 package boundary;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToIntFunction;
 
 import Main.Main;
 import controller.*;
 import enums.AppointmentOutcomeStatus;
 import enums.AppointmentStatus;
 import enums.Record;
+import enums.SlotTransitionResult;
 import utility.Validator;
 import model.*;
-import repository.AppointmentOutcomeRecordRepository;
+import repository.PersistenceExecutor;
 import repository.PrescriptionRepository;
 import repository.RecordsRepository;
+import repository.UnitOfWork;
 
 /**
  * DoctorBoundary class represents the user interface for a doctor in the HMS
@@ -181,14 +191,19 @@ public class DoctorBoundary extends Boundary {
 	public void viewPersonalSchedule() {
 		System.out.println("\n--- Appointments for Dr. " + doctor.getFullName() + " (ID: " + doctor.getUID() + ") ---");
 
-		boolean found = false;
 		DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+		DoctorCalendar.Snapshot schedule = DoctorCalendar.of(doctor.getUID()).snapshot();
+		boolean found = schedule.getTotal() > 0;
+		if (found) {
+			System.out.println("Total: " + describeCounts(schedule.getTotal(), schedule::getCount));
+		}
 
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			if (doctor.getUID().equals(appointment.getDoctorID())) {
-				found = true;
+		for (DaySchedule day : schedule.getDays().values()) {
+			System.out.println("\n=== " + day.getDate() + " (" + day.getDate().getDayOfWeek() + "): "
+					+ describeCounts(day.getTotal(), day::getCount) + " ===");
+			for (ScheduleEntry appointment : day.getEntries()) {
 				System.out.println("Appointment Record:");
-				System.out.println("  - Appointment ID: " + appointment.getRecordID());
+				System.out.println("  - Appointment ID: " + appointment.getAppointmentID());
 				System.out.println("  - Date & Time: " + appointment.getAppointmentTime().format(dateTimeFormatter));
 				System.out.println("  - Location: " + appointment.getLocation());
 				System.out.println("  - Status: " + appointment.getAppointmentStatus());
@@ -204,6 +219,23 @@ public class DoctorBoundary extends Boundary {
 		System.out.println("---------------------------------------");
 	}
 
+	/**
+	 * Describes how many slots there are in each status, for example
+	 * "5 slots (2 CONFIRMED, 3 AVAILABLE)".
+	 */
+	private static String describeCounts(int total, ToIntFunction<AppointmentStatus> counts) {
+		StringBuilder description = new StringBuilder(total + (total == 1 ? " slot" : " slots"));
+		String separator = " (";
+		for (AppointmentStatus status : AppointmentStatus.values()) {
+			int count = counts.applyAsInt(status);
+			if (count > 0) {
+				description.append(separator).append(count).append(' ').append(status);
+				separator = ", ";
+			}
+		}
+		return total > 0 ? description.append(')').toString() : description.toString();
+	}
+
 	/**
 	 * Doctor Menu Option 4
 	 * Opens the UI for setting the doctor's availability for appointments.
@@ -215,74 +247,191 @@ public class DoctorBoundary extends Boundary {
 
 	/**
 	 * Doctor Menu Option 5
-	 * Allows the doctor to review and either accept or decline pending appointment
-	 * requests.
+	 * Lists the doctor's pending appointment requests, soonest appointment first and
+	 * then oldest request, with how long each has been waiting. The doctor picks one
+	 * or more requests and accepts or declines them together, and the whole
+	 * selection is saved at once.
 	 */
 	public void manageAppointmentRequests() {
 		System.out.println(
 				"\n--- Request Appointments for: " + doctor.getFullName() + " (UID: " + doctor.getUID() + ") ---");
 		Scanner sc = new Scanner(System.in);
+		DoctorCalendar calendar = DoctorCalendar.of(doctor.getUID());
 
-		boolean found = false;
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			if (doctor.getUID().equals(appointment.getDoctorID())
-					&& appointment.getAppointmentStatus().equals(AppointmentStatus.PENDING)) {
-				found = true;
-				System.out.println("Day: " + appointment.getAppointmentTime().getDayOfWeek() + ", Time: "
+		while (true) {
+			List<ScheduleEntry> pendingAppointments = new ArrayList<>(calendar.snapshot().getPendingRequests());
+			if (pendingAppointments.isEmpty()) {
+				System.out.println("No pending appointments found for this doctor.");
+				break;
+			}
+
+			LocalDateTime now = LocalDateTime.now();
+			Duration longestWait = Duration.ZERO;
+			for (int i = 0; i < pendingAppointments.size(); i++) {
+				ScheduleEntry appointment = pendingAppointments.get(i);
+				Duration wait = appointment.getUpdatedDate() == null ? Duration.ZERO
+						: Duration.between(appointment.getUpdatedDate(), now);
+				if (wait.compareTo(longestWait) > 0) {
+					longestWait = wait;
+				}
+				System.out.println((i + 1) + ". Day: " + appointment.getAppointmentTime().getDayOfWeek() + ", Time: "
 						+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
 						+ ", Location: " + appointment.getLocation() + ", Patient ID: " + appointment.getPatientID()
-						+ ", Patient Name: " + PatientController.getPatientNameById(appointment.getPatientID()));
-
-				System.out.println("Do you want to accept or decline this appointment? (Type 'accept' or 'decline'): ");
-				String choice = sc.nextLine().trim().toLowerCase();
-
-				if ("accept".equals(choice)) {
-					String patientID = appointment.getPatientID();
-					String doctorID = appointment.getDoctorID();
-					String medicalRecordID = retrieveMedicalRecordID(patientID);
-
-					appointment.setAppointmentStatus(AppointmentStatus.CONFIRMED);
-					// Update the doctor ID in the medical record
-					RecordsRepository.updateDoctorIDInMedicalRecord(medicalRecordID, doctorID);
-					System.out.println(
-							"Appointment with Patient ID: " + appointment.getPatientID() + " has been confirmed.");
-
-					// Now we will generate the appointment outcome record
-					if (medicalRecordID != null) {
-						MedicalRecord medicalRecord = RecordsRepository.MEDICAL_RECORDS.get(medicalRecordID);
-
-						// Assuming you have a way to get the diagnosis ID, type of service, and
-						// consultation notes
-						String diagnosisID = ""; // Retrieve the diagnosis ID (you may need to implement a way to get this)
-						String typeOfService = ""; // Define the type of service provided
-						String consultationNotes = ""; // Get consultation notes from the doctor
-
-						// Generate the appointment outcome record
-						String AppOutcomeID = generateAppointmentOutcomeRecord(medicalRecord,
-								diagnosisID, typeOfService, consultationNotes, appointment.getAppointmentTime());
-						appointment.setAppointmentOutcomeRecordID(AppOutcomeID);
-						break;
-					} else {
-						System.out.println("No medical record found for Patient ID: " + patientID);
-					}
+						+ ", Patient Name: " + PatientController.getPatientNameById(appointment.getPatientID())
+						+ ", Waiting: " + formatWait(wait));
+			}
+			DoctorCalendar.RequestWaitStats stats = calendar.getRequestWaitStats();
+			System.out.println(pendingAppointments.size() + " pending request(s), longest waiting "
+					+ formatWait(longestWait) + (stats.handled() == 0 ? "."
+							: "; handled requests waited " + formatWait(stats.averageWait()) + " on average."));
+
+			System.out.println("Enter the requests to handle (e.g. 1,3-5 or 'all'), or press Enter to go back: ");
+			String selection = sc.nextLine().trim();
+			if (selection.isEmpty()) {
+				break;
+			}
+			List<ScheduleEntry> selected = selectRequests(selection, pendingAppointments);
+			if (selected == null) {
+				System.out.println("Invalid selection. Please enter numbers between 1 and " + pendingAppointments.size()
+						+ ", separated by commas.");
+				continue;
+			}
 
-				} else if ("decline".equals(choice)) {
-					appointment.setAppointmentStatus(AppointmentStatus.CANCELED);
-					System.out.println("Appointment with Patient ID: " + appointment.getPatientID()
-							+ " has been declined and is waiting for patient to acknowledge.");
-				} else {
-					System.out.println("Invalid choice. Please enter 'accept' or 'decline'.");
-				}
+			System.out.println("Do you want to accept or decline the selected appointment(s)? (Type 'accept' or 'decline'): ");
+			String choice = sc.nextLine().trim().toLowerCase();
+			if ("accept".equals(choice)) {
+				acceptAppointmentRequests(calendar, selected);
+			} else if ("decline".equals(choice)) {
+				declineAppointmentRequests(calendar, selected);
+			} else {
+				System.out.println("Invalid choice. Please enter 'accept' or 'decline'.");
 			}
 		}
 
-		if (!found) {
-			System.out.println("No pending appointments found for this doctor.");
+		System.out.println("---------------------------------------");
+	}
+
+	/**
+	 * Accepts a selection of requests in one calendar change. For each accepted
+	 * request the patient's medical record is assigned to the doctor and an
+	 * appointment outcome record is created; all of it is saved in one unit of work.
+	 */
+	private void acceptAppointmentRequests(DoctorCalendar calendar, List<ScheduleEntry> requests) {
+		Map<String, SlotTransitionResult> results = calendar.confirmAll(appointmentIDs(requests)).join();
+		UnitOfWork unitOfWork = new UnitOfWork();
+		List<CompletableFuture<Boolean>> links = new ArrayList<>();
+		// the outcome records are only stored on commit, so their IDs are reserved up front
+		Iterator<String> outcomeRecordIDs = AppointmentController
+				.generateRecordIDs(Record.APPOINTMENT_OUTCOME_RECORDS, requests.size()).iterator();
+		boolean confirmed = false;
+
+		for (ScheduleEntry appointment : requests) {
+			SlotTransitionResult result = results.get(appointment.getAppointmentID());
+			if (result != SlotTransitionResult.SUCCESS) {
+				System.out.println("Appointment " + appointment.getAppointmentID() + ": " + result.getMessage());
+				continue;
+			}
+			confirmed = true;
+			System.out.println("Appointment with Patient ID: " + appointment.getPatientID() + " has been confirmed.");
+
+			String medicalRecordID = retrieveMedicalRecordID(appointment.getPatientID());
+			if (medicalRecordID == null) {
+				System.out.println("No medical record found for Patient ID: " + appointment.getPatientID());
+				continue;
+			}
+			MedicalRecord medicalRecord = RecordsRepository.MEDICAL_RECORDS.get(medicalRecordID);
+			unitOfWork.set(medicalRecord::getDoctorID, medicalRecord::setDoctorID, appointment.getDoctorID(),
+					UnitOfWork.PersistTarget.RECORDS);
+
+			// Diagnosis, type of service and consultation notes are filled in when the outcome is recorded
+			AppointmentOutcomeRecord outcomeRecord = createAppointmentOutcomeRecord(outcomeRecordIDs.next(),
+					appointment.getPatientID(), appointment.getDoctorID(), "", "", "", appointment.getAppointmentTime());
+			unitOfWork.addAppointmentOutcomeRecord(appointment.getPatientID(), outcomeRecord);
+			links.add(calendar.linkOutcomeRecord(appointment.getAppointmentID(), outcomeRecord.getUID()));
 		}
 
-		System.out.println("---------------------------------------");
+		if (!confirmed) {
+			return;
+		}
+		links.forEach(CompletableFuture::join);
+		if (!unitOfWork.touch(UnitOfWork.PersistTarget.RECORDS).commit()) {
+			System.out.println("Error: the accepted appointments could not be saved.");
+		}
+	}
 
-		RecordsRepository.saveAllRecordFiles();
+	/**
+	 * Declines a selection of requests in one calendar change and saves the
+	 * appointment records once.
+	 */
+	private void declineAppointmentRequests(DoctorCalendar calendar, List<ScheduleEntry> requests) {
+		Map<String, SlotTransitionResult> results = calendar.declineAll(appointmentIDs(requests)).join();
+		boolean declined = false;
+		for (ScheduleEntry appointment : requests) {
+			SlotTransitionResult result = results.get(appointment.getAppointmentID());
+			if (result != SlotTransitionResult.SUCCESS) {
+				System.out.println("Appointment " + appointment.getAppointmentID() + ": " + result.getMessage());
+				continue;
+			}
+			declined = true;
+			System.out.println("Appointment with Patient ID: " + appointment.getPatientID()
+					+ " has been declined and is waiting for patient to acknowledge.");
+		}
+		if (declined) {
+			RecordsRepository.saveAppointmentRecordsAsync().thenAccept(PersistenceExecutor::reportFailure);
+		}
+	}
+
+	/**
+	 * Parses a selection such as "1,3-5" or "all" against a numbered list.
+	 *
+	 * @return the selected entries in list order, or null if the selection is invalid
+	 */
+	private static List<ScheduleEntry> selectRequests(String selection, List<ScheduleEntry> requests) {
+		if ("all".equalsIgnoreCase(selection)) {
+			return requests;
+		}
+		Set<Integer> chosen = new TreeSet<>();
+		try {
+			for (String part : selection.split(",")) {
+				String[] range = part.trim().split("-", 2);
+				int first = Integer.parseInt(range[0].trim());
+				int last = range.length == 2 ? Integer.parseInt(range[1].trim()) : first;
+				if (first < 1 || last > requests.size() || first > last) {
+					return null;
+				}
+				for (int i = first; i <= last; i++) {
+					chosen.add(i);
+				}
+			}
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		List<ScheduleEntry> selected = new ArrayList<>(chosen.size());
+		for (int index : chosen) {
+			selected.add(requests.get(index - 1));
+		}
+		return selected;
+	}
+
+	private static List<String> appointmentIDs(List<ScheduleEntry> entries) {
+		List<String> ids = new ArrayList<>(entries.size());
+		for (ScheduleEntry entry : entries) {
+			ids.add(entry.getAppointmentID());
+		}
+		return ids;
+	}
+
+	/**
+	 * Formats a waiting time, for example "2d 3h", "3h 12m" or "12m".
+	 */
+	private static String formatWait(Duration wait) {
+		if (wait.toDays() > 0) {
+			return wait.toDays() + "d " + wait.toHoursPart() + "h";
+		}
+		if (wait.toHours() > 0) {
+			return wait.toHours() + "h " + wait.toMinutesPart() + "m";
+		}
+		return wait.toMinutes() + "m";
 	}
 
 	/**
@@ -295,17 +444,15 @@ public class DoctorBoundary extends Boundary {
 
 		boolean found = false;
 
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			if (doctor.getUID().equals(appointment.getDoctorID())
-					&& appointment.getAppointmentStatus().equals(AppointmentStatus.CONFIRMED)) {
-				found = true;
-				System.out.println("Day: " + appointment.getAppointmentTime().getDayOfWeek() + ", Time: "
-						+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
-						+ ", Location: " + appointment.getLocation() + ", Patient ID: " + appointment.getPatientID()
-						+ "\n" + PatientController.getPatientInfoById(appointment.getPatientID())
+		for (ScheduleEntry appointment : DoctorCalendar.of(doctor.getUID()).snapshot()
+				.getEntries(LocalDateTime.now(), AppointmentStatus.CONFIRMED)) {
+			found = true;
+			System.out.println("Day: " + appointment.getAppointmentTime().getDayOfWeek() + ", Time: "
+					+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+					+ ", Location: " + appointment.getLocation() + ", Patient ID: " + appointment.getPatientID()
+					+ "\n" + PatientController.getPatientInfoById(appointment.getPatientID())
 
-				);
-			}
+			);
 		}
 
 		if (!found) {
@@ -326,36 +473,33 @@ public class DoctorBoundary extends Boundary {
 	}
 
 	/**
-	 * Generates an appointment outcome record for a specific medical record and
-	 * diagnosis.
-	 * Populates the outcome record with details such as patient ID, doctor ID, type
-	 * of service,
-	 * and consultation notes, and marks the outcome status as incomplete.
+	 * Creates an appointment outcome record for an accepted appointment, with
+	 * details such as patient ID, doctor ID, type of service and consultation notes,
+	 * and marks the outcome status as incomplete. The record is not added to the
+	 * repository; the caller adds it as part of its unit of work.
 	 *
-	 * @param medicalRecord     the medical record associated with the appointment
+	 * @param outcomeRecordID   the ID of the new appointment outcome record
+	 * @param patientID         the ID of the patient
+	 * @param doctorID          the ID of the doctor
 	 * @param diagnosisID       the ID of the diagnosis for the appointment outcome
 	 * @param typeOfService     the type of service provided during the appointment
 	 * @param consultationNotes notes taken by the doctor during the consultation
+	 * @param appointmentTime   the date and time of the appointment
 	 * @return the created AppointmentOutcomeRecord object
 	 */
-	public String generateAppointmentOutcomeRecord(MedicalRecord medicalRecord, String diagnosisID,
-			String typeOfService, String consultationNotes, LocalDateTime appointmentTime) {
-		String UID = AppointmentController.generateRecordID(Record.APPOINTMENT_OUTCOME_RECORDS);
-		AppointmentOutcomeRecord outcomeRecord = new AppointmentOutcomeRecord(
-				UID,
-				medicalRecord.getPatientID(),
-				medicalRecord.getDoctorID(),
+	private static AppointmentOutcomeRecord createAppointmentOutcomeRecord(String outcomeRecordID, String patientID,
+			String doctorID, String diagnosisID, String typeOfService, String consultationNotes,
+			LocalDateTime appointmentTime) {
+		return new AppointmentOutcomeRecord(
+				outcomeRecordID,
+				patientID,
+				doctorID,
 				diagnosisID,
 				appointmentTime,
 				PrescriptionRepository.PRESCRIPTION_MAP.get(diagnosisID),
 				typeOfService,
 				consultationNotes,
 				AppointmentOutcomeStatus.INCOMPLETED);
-
-		AppointmentOutcomeRecordRepository.addAppointmentOutcomeRecord(medicalRecord.getPatientID(), outcomeRecord);
-		// AppointmentOutcomeRecordRepository.saveAppointmentOutcomeRecordRepository();
-		return UID;
-
 	}
 
 	/**
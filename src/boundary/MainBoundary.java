@@ -5,7 +5,10 @@
  */
 package boundary;
 
+import controller.AppointmentSweeper;
+import controller.ReminderService;
 import repository.*;
+import utility.Metrics;
 import utility.Validator;
 import repository.UserRepository;
 
@@ -43,6 +46,9 @@ public class MainBoundary extends Boundary {
 	@Override
 	public void start() {
 		loadHMSRepository();
+		AppointmentSweeper.start();
+		ReminderService.start();
+		Metrics.start();
 
 		while (true) {
 			printChoice();
@@ -83,14 +89,20 @@ public class MainBoundary extends Boundary {
      */
 	public static void loadHMSRepository() {
 		// MUST BE LOADED IN THIS SEQUENCE, RECORDS REPOSITORY LOADED LAST!
-		Repository.loadRepository(new UserRepository());
-		Repository.loadRepository(new PrescribedMedicationRepository());
-		Repository.loadRepository(new TreatmentRepository());
-		Repository.loadRepository(new PrescriptionRepository());
-		Repository.loadRepository(new DiagnosisRepository());
-		Repository.loadRepository(new AppointmentOutcomeRecordRepository());
-		Repository.loadRepository(new RecordsRepository());
-		Repository.loadRepository(new MedicineRepository());
+		Repository.loadRepositories(
+				new UserRepository(),
+				new PrescribedMedicationRepository(),
+				new TreatmentRepository(),
+				new PrescriptionRepository(),
+				new DiagnosisRepository(),
+				new AppointmentOutcomeRecordRepository(),
+				new LocationRepository(),
+				new RecordsRepository(),
+				new MedicineRepository(),
+				new WaitlistRepository(),
+				new ReminderOutboxRepository());
+		StartupReport.writeFile();
+		HeapFootprint.record();
 	}
 
 }
\ No newline at end of file
@@ -1,12 +1,17 @@
 package boundary;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import Main.Main;
 import controller.AppointmentController;
 import controller.DoctorController;
-import enums.AppointmentStatus;
+import controller.SlotSearchEngine;
+import controller.WaitlistController;
+import enums.SlotTransitionResult;
+import enums.WaitlistUrgency;
 import utility.Validator;
 import model.*;
 import model.Appointment;
@@ -54,7 +59,9 @@ public class PatientBoundary extends Boundary {
 		System.out.println("8. View Scheduled Appointments");
 		System.out.println("9. View Past Appointment Outcome Records");
 		System.out.println("10. Acknowledge Rejected Appointment Slots");
-		System.out.println("11. Logout");
+		System.out.println("11. Join a Waitlist");
+		System.out.println("12. View or Leave Waitlist");
+		System.out.println("13. Logout");
 	}
 
 	/**
@@ -84,7 +91,9 @@ public class PatientBoundary extends Boundary {
 				case 8 -> viewScheduledAppointments();
 				case 9 -> viewPastAppointmentOutcomes();
 				case 10 -> acknowledgeRejectedAppointments();
-				case 11 -> {
+				case 11 -> joinWaitlist();
+				case 12 -> viewWaitlist();
+				case 13 -> {
 					System.out.println("Logging out...");
 					Main.main(null);
 					return;
@@ -163,31 +172,23 @@ public class PatientBoundary extends Boundary {
 
 	/**
 	 * Patient Menu Option 4
-	 * Displays all available appointment slots from all doctors.
+	 * Searches the available appointment slots of all doctors and displays the
+	 * earliest ones matching the patient's filters, followed by suggested slots
+	 * with the least-loaded doctors.
 	 */
 	private static boolean viewAvailableAppointmentSlots() {
-		System.out.println("\n--- Available Appointment Slots ---");
-		List<Appointment> availableSlots = AppointmentController.getAvailableAppointmentSlotsFromAllDoctor();
+		SlotSearchForm.Filters filters = SlotSearchForm.readFilters();
+		List<Appointment> availableSlots = SlotSearchForm.search(filters);
 
 		if (availableSlots.isEmpty()) {
+			System.out.println("\n--- Available Appointment Slots ---");
 			System.out.println("No appointments found");
 			System.out.println("---------------------------------------");
 			return false;
 		}
 
-		for (Appointment appointment : availableSlots) {
-			String doctorName = DoctorController.getDoctorNameById(appointment.getDoctorID());
-			System.out.println("Doctor ID        : " + appointment.getDoctorID());
-			System.out.println("Doctor           : " + doctorName);
-			System.out.println("Day              : " + appointment.getAppointmentTime().getDayOfWeek());
-			System.out.println("Date             : "
-					+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-			System.out.println("Time             : "
-					+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("HH:mm")));
-			System.out.println("Location         : " + appointment.getLocation());
-			System.out.println("---------------------------------------");
-		}
-
+		SlotSearchForm.displaySlots("Earliest Available Appointment Slots", availableSlots);
+		SlotSearchForm.displaySuggestions(filters);
 		return true;
 	}
 
@@ -208,11 +209,13 @@ public class PatientBoundary extends Boundary {
 	 * Reschedules an existing appointment for the patient.
 	 */
 	private void rescheduleAppointment() {
-		if(viewAvailableAppointmentSlots()) {
+		if (SlotSearchEngine.findEarliestSlots(1, LocalDateTime.now(), null, null, null).isEmpty()) {
+			System.out.println("No available slots for rescheduling for all the doctors.");
+			return;
+		}
 		System.out.println("\n--- Reschedule an Appointment ---");
 		ReschedulerBoundary rescheduleAppointmentUI = new ReschedulerBoundary(patient);
 		rescheduleAppointmentUI.start();
-		}
 	}
 
 	/**
@@ -369,8 +372,12 @@ public class PatientBoundary extends Boundary {
 			String userResponse = Validator.readString("Do you acknowledge this cancellation? (yes/no): ");
 
 			if ("yes".equalsIgnoreCase(userResponse)) {
-				appointment.setAppointmentStatus(AppointmentStatus.AVAILABLE);
-				appointment.setPatientID(null);
+				SlotTransitionResult result = AppointmentController.releaseAppointmentSlot(appointment,
+						patient.getUID());
+				if (result != SlotTransitionResult.SUCCESS) {
+					System.out.println(result.getMessage());
+					continue;
+				}
 				System.out.println("Thank you for acknowledging the cancelled slots.");
 				RecordsRepository.saveAllRecordFiles();
 
@@ -382,4 +389,81 @@ public class PatientBoundary extends Boundary {
 		System.out.println("-----------------------------------------");
 	}
 
+	/**
+	 * Patient Menu Option 11
+	 * Adds the patient to the waitlist of a doctor for a day. The first slot that
+	 * frees up with that doctor on that day is booked for the patient automatically.
+	 */
+	private void joinWaitlist() {
+		System.out.println("\n--- Join a Waitlist ---");
+		String doctorID = Validator.readID("Doctor", "D\\d{3}");
+		if (UserRepository.DOCTORS.get(doctorID) == null) {
+			System.out.println("Doctor not found. Please enter a valid Doctor ID.");
+			return;
+		}
+		LocalDate preferredDate = Validator.readDate("Enter the day you want to be seen (yyyy-MM-dd):").toLocalDate();
+		if (preferredDate.isBefore(LocalDate.now())) {
+			System.out.println("The day must not be in the past.");
+			return;
+		}
+
+		LocalDateTime from = preferredDate.atStartOfDay();
+		if (from.isBefore(LocalDateTime.now())) {
+			from = LocalDateTime.now();
+		}
+		List<Appointment> openSlots = SlotSearchEngine.findEarliestSlots(1, from, doctorID, null, null);
+		if (!openSlots.isEmpty() && openSlots.get(0).getAppointmentTime().toLocalDate().equals(preferredDate)) {
+			System.out.println("This doctor still has available slots on that day. Please schedule one directly.");
+			return;
+		}
+
+		WaitlistUrgency urgency = null;
+		while (urgency == null) {
+			urgency = WaitlistUrgency.toEnumWaitlistUrgency(
+					Validator.readString("Enter the urgency (ROUTINE, SOON or URGENT):"));
+			if (urgency == null) {
+				System.out.println("Invalid urgency. Please try again.");
+			}
+		}
+
+		WaitlistEntry entry = WaitlistController.joinWaitlist(patient.getUID(), doctorID, preferredDate, urgency);
+		System.out.printf("You are on the waitlist (%s) for %s on %s, position %d.\n", entry.getWaitlistID(),
+				DoctorController.getDoctorNameById(doctorID), preferredDate, WaitlistController.getQueuePosition(entry));
+		System.out.println("The first slot that frees up will be requested for you automatically.");
+		System.out.println("---------------------------------------");
+	}
+
+	/**
+	 * Patient Menu Option 12
+	 * Lists the patient's waitlist entries and lets them leave one.
+	 */
+	private void viewWaitlist() {
+		System.out.println("\n--- My Waitlist ---");
+		List<WaitlistEntry> entries = WaitlistController.getWaitlistEntries(patient.getUID());
+		if (entries.isEmpty()) {
+			System.out.println("You are not on any waitlist.");
+			System.out.println("---------------------------------------");
+			return;
+		}
+
+		int index = 1;
+		for (WaitlistEntry entry : entries) {
+			System.out.println(index++ + ")");
+			System.out.println("Waitlist ID      : " + entry.getWaitlistID());
+			System.out.println("Doctor           : " + DoctorController.getDoctorNameById(entry.getDoctorID()));
+			System.out.println("Date             : " + entry.getPreferredDate());
+			System.out.println("Urgency          : " + entry.getUrgency());
+			System.out.println("Position         : " + WaitlistController.getQueuePosition(entry));
+			System.out.println("---------------------------------------");
+		}
+
+		int choice = Validator.readInt("Enter the number of an entry to leave, or 0 to go back: ");
+		if (choice >= 1 && choice <= entries.size()) {
+			if (WaitlistController.leaveWaitlist(entries.get(choice - 1).getWaitlistID(), patient.getUID())) {
+				System.out.println("You have left the waitlist.");
+			} else {
+				System.out.println("This entry is no longer on the waitlist.");
+			}
+		}
+	}
 }
@@ -8,8 +8,11 @@ package boundary;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import controller.AppointmentController;
+import controller.DoctorCalendar;
 import controller.PrescribedMedicineController;
 import controller.RecordsController;
 import enums.*;
@@ -116,10 +119,18 @@ public class RecordOutcomeBoundary extends Boundary {
      * Processes the selected appointment by allowing the doctor to enter
      * details such as type of service and consultation notes, then marks
      * the appointment as completed.
+     * All details are collected first and then applied through a single
+     * UnitOfWork, so either every repository is updated or none is.
      *
      * @param appointment the AppointmentOutcomeRecord to process
      */
     private void processOutcome(AppointmentOutcomeRecord appointment) {
+        MedicalRecord medicalRecord = RecordsController.getMedicalRecordsByPatientID(appointment.getPatientID());
+        if (medicalRecord == null) {
+            System.out.println("No medical record found for patient ID: " + appointment.getPatientID());
+            System.out.println("Cannot proceed with diagnosis creation. Exiting...");
+            return; // Exit the method if no medical record is found
+        }
 
         String diagnosisDescription = Validator.readString("\n--- Enter Diagnosis for Patient (ID: " + appointment.getPatientID() + ") ---");
         String diagnosisID = AppointmentController.generateRecordID(Record.DIAGNOSIS_RECORDS);
@@ -127,87 +138,108 @@ public class RecordOutcomeBoundary extends Boundary {
 
         String medicine = Validator.readString("\n--- Enter Medicine ID for Patient (ID: " + appointment.getPatientID() + ")(Separate by ,: e.g M000,M001)---");
         // Split the string by commas
-        String[] medicineIDs = medicine.split(",");
-
-        ArrayList<PrescribedMedication> medications1 = new ArrayList<>();
-        for (String medicineID : medicineIDs) {
+        ArrayList<String> medicineIDs = new ArrayList<>();
+        for (String medicineID : medicine.split(",")) {
             medicineID = medicineID.trim(); // Remove any leading or trailing spaces
-
             if (!medicineID.isEmpty()) {
-                // Gather additional details for each prescribed medication
-                int quantity = Validator.readInt("Enter quantity for medicine ID " + medicineID + ": ");
-                int periodDays = Validator.readInt("Enter period (days) for medicine ID " + medicineID + ": ");
-                String dosage = Validator.readString("Enter dosage for medicine ID " + medicineID + ": ");
-                String prescribedmedicationID = PrescribedMedicineController.generateRecordID(Record.PRESCRIBED_RECORDS);
-                // Create and add a new PrescribedMedication object to the list
-                PrescribedMedication medication = new PrescribedMedication(prescribedmedicationID,diagnosisID, medicineID, quantity, periodDays, PrescriptionStatus.PENDING, dosage);
-                medications1.add(medication);
-                PrescribedMedicationRepository.addMedication(medication.getDiagnosisID(), medication);
-                PrescribedMedicationRepository.saveAlltoCSV();
-
+                medicineIDs.add(medicineID);
             }
-
         }
+        // IDs are reserved up front because nothing is stored until the commit
+        List<String> prescribedMedicationIDs = PrescribedMedicineController.generateRecordIDs(Record.PRESCRIBED_RECORDS,
+                medicineIDs.size());
 
+        UnitOfWork unitOfWork = new UnitOfWork();
+        ArrayList<PrescribedMedication> medications1 = new ArrayList<>();
+        for (int i = 0; i < medicineIDs.size(); i++) {
+            String medicineID = medicineIDs.get(i);
+            // Gather additional details for each prescribed medication
+            int quantity = Validator.readInt("Enter quantity for medicine ID " + medicineID + ": ");
+            int periodDays = Validator.readInt("Enter period (days) for medicine ID " + medicineID + ": ");
+            String dosage = Validator.readString("Enter dosage for medicine ID " + medicineID + ": ");
+            // Create and add a new PrescribedMedication object to the list
+            PrescribedMedication medication = new PrescribedMedication(prescribedMedicationIDs.get(i), diagnosisID,
+                    medicineID, quantity, periodDays, PrescriptionStatus.PENDING, dosage);
+            medications1.add(medication);
+            unitOfWork.addPrescribedMedication(medication.getDiagnosisID(), medication);
+        }
 
         // Create a Prescription object with the list of medications
         Prescription prescription1 = new Prescription(diagnosisID, LocalDateTime.now(), medications1);
-        PrescriptionRepository.addPrescriptionRecord(prescription1);
-        PrescriptionRepository.saveAlltoCSV();
+        unitOfWork.addPrescription(prescription1);
         // Create a Diagnosis object that includes the prescription
-        String MRecord;
-        MedicalRecord medicalRecord = RecordsController.getMedicalRecordsByPatientID(appointment.getPatientID());
-
-        if (medicalRecord != null) {
-            MRecord = medicalRecord.getRecordID();
-        } else {
-            System.out.println("No medical record found for patient ID: " + appointment.getPatientID());
-            System.out.println("Cannot proceed with diagnosis creation. Exiting...");
-            return; // Exit the method if no medical record is found
-        }
         Diagnosis diagnosis = new Diagnosis(
-                appointment.getPatientID(), diagnosisID, appointment.getDoctorID(), MRecord,
+                appointment.getPatientID(), diagnosisID, appointment.getDoctorID(), medicalRecord.getRecordID(),
                 LocalDateTime.now(), null,
                 diagnosisDescription, prescription1);
-        //say something need controller
-        DiagnosisRepository.addDiagnosis(diagnosisID, diagnosis);
-        DiagnosisRepository.saveAlltoCSV();
-
+        unitOfWork.addDiagnosis(diagnosisID, diagnosis);
 
         String typeOfService = Validator.readString("Enter the type of service: ");
         String consultationNotes = Validator.readString("Enter your consultation notes: ");
-        appointment.setDiagnosisID(diagnosisID);
-        appointment.setPrescription(prescription1);
-        appointment.getPrescription().setMedications(medications1);
-        appointment.setTypeOfService(typeOfService);
-        appointment.setConsultationNotes(consultationNotes);
-        appointment.setAppointmentOutcomeStatus(AppointmentOutcomeStatus.COMPLETED);
-
+        unitOfWork.set(appointment::getDiagnosisID, appointment::setDiagnosisID, diagnosisID,
+                        UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES)
+                .set(appointment::getPrescription, appointment::setPrescription, prescription1,
+                        UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES)
+                .set(appointment::getTypeOfService, appointment::setTypeOfService, typeOfService,
+                        UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES)
+                .set(appointment::getConsultationNotes, appointment::setConsultationNotes, consultationNotes,
+                        UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES)
+                .set(appointment::getAppointmentOutcomeStatus, appointment::setAppointmentOutcomeStatus,
+                        AppointmentOutcomeStatus.COMPLETED, UnitOfWork.PersistTarget.APPOINTMENT_OUTCOMES);
+
+        DoctorCalendar calendar = DoctorCalendar.of(doctor.getUID());
         // Null check to avoid potential NPE in the following loop
         if (appointment.getUID() != null) {
-            for (Appointment app : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-                if (app.getAppointmentOutcomeRecordID().equals(appointment.getUID())) {
-                    app.setAppointmentStatus(AppointmentStatus.COMPLETED);
+            for (ScheduleEntry entry : calendar.snapshot().getEntries()) {
+                if (appointment.getUID().equals(entry.getAppointmentOutcomeRecordID())) {
+                    completeAppointment(unitOfWork, RecordsRepository.APPOINTMENT_RECORDS.get(entry.getAppointmentID()));
                 }
             }
         } else {
             System.out.println("Appointment outcome record ID is null. Cannot update appointment status.");
         }
-        RecordsRepository.saveAllRecordFiles();
-        AppointmentOutcomeRecordRepository.saveAppointmentOutcomeRecordRepository();
-        System.out.println("Appointment outcome recorded and saved successfully.");
+
         // Enter amount to be paid
         int paymentAmount = Validator.readInt("Enter Payment Amount: ");
         String billingID = RecordsController.generateRecordID(Record.PAYMENT_RECORDS);
         LocalDateTime createdDate = LocalDateTime.now();
         LocalDateTime updateDate = LocalDateTime.now();
         PaymentStatus paymentStatus =  PaymentStatus.OUTSTANDING;
-        // Generate the next medicine ID
-        PaymentRecord record;
-        System.out.println(appointment.getPatientID());
-        record = new PaymentRecord(billingID,createdDate,updateDate, RecordStatus.ACTIVE,paymentStatus,appointment.getPatientID(),paymentAmount);
-        RecordsRepository.PAYMENT_RECORDS.put(appointment.getPatientID(), record);
-        RecordsRepository.saveAllRecordFiles();
+        PaymentRecord record = new PaymentRecord(billingID,createdDate,updateDate, RecordStatus.ACTIVE,paymentStatus,appointment.getPatientID(),paymentAmount);
+        unitOfWork.addPaymentRecord(appointment.getPatientID(), record);
+
+        // Applied in the doctor's calendar so the completion is ordered with the doctor's other changes;
+        // the files are waited for outside it so the calendar's worker never waits on the disk
+        CompletableFuture<Boolean> saved = calendar.submit(unitOfWork::apply).thenCompose(save -> save);
+        if (saved.join()) {
+            System.out.println("Appointment outcome recorded and saved successfully.");
+        } else if (unitOfWork.isApplied()) {
+            System.out.println("Warning: the appointment outcome was recorded but could not be saved to disk. "
+                    + "It stays recorded and is saved again with the next change.");
+        } else {
+            System.out.println("Error: the appointment outcome could not be recorded.");
+        }
+    }
+
+    /**
+     * Buffers the CONFIRMED -> COMPLETED transition of an appointment. The commit is
+     * aborted if the appointment is no longer confirmed when the change is applied.
+     *
+     * @param unitOfWork the unit of work to add the change to
+     * @param app        the appointment to complete
+     */
+    private static void completeAppointment(UnitOfWork unitOfWork, Appointment app) {
+        AppointmentSlotState[] previous = new AppointmentSlotState[1];
+        unitOfWork.register(() -> {
+            previous[0] = app.getSlotState();
+            SlotTransitionResult result = AppointmentController.completeAppointment(app);
+            if (result != SlotTransitionResult.SUCCESS) {
+                throw new IllegalStateException("Appointment " + app.getRecordID() + ": " + result.getMessage());
+            }
+        }, () -> {
+            app.compareAndSetSlotState(app.getSlotState(), previous[0]);
+            AppointmentColumnStore.slotChanged(app);
+        }, UnitOfWork.PersistTarget.RECORDS);
     }
 
 }
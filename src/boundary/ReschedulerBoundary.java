@@ -5,10 +5,11 @@ import java.util.List;
 
 import controller.AppointmentController;
 import controller.DoctorController;
-import enums.AppointmentStatus;
+import enums.SlotTransitionResult;
 import utility.Validator;
 import model.Appointment;
 import model.Patient;
+import repository.AppointmentOutcomeRecordRepository;
 import repository.RecordsRepository;
 /**
  * The ReschedulerBoundary class provides functionality to reschedule
@@ -89,27 +90,32 @@ public class ReschedulerBoundary extends Boundary {
 			if (choice >= 1 && choice <= confirmedAppointments.size()) {
 				Appointment selectedAppointment = confirmedAppointments.get(choice - 1);
 
-				// Get the available slots for rescheduling
-				List<Appointment> availableSlots = AppointmentController.getAvailableAppointmentSlotsFromAllDoctor();
+				// Search the earliest available slots matching the patient's filters
+				List<Appointment> availableSlots = SlotSearchForm.search();
 				if (availableSlots.isEmpty()) {
-					System.out.println("No available slots for rescheduling for all the doctors.");
-					return; // Exit the method if no available slots
+					System.out.println("No available slots match the search.");
+					continue;
 				}
 
 				// Display the available slots for the user to choose from
-				displayAvailableSlots(availableSlots);
+				SlotSearchForm.displaySlots("Available Slots for Rescheduling", availableSlots);
 
 				// Get the new slot choice from the user
 				int newSlotChoice = Validator.readInt("Enter the number of the new slot: ");
 				if (newSlotChoice >= 1 && newSlotChoice <= availableSlots.size()) {
 					Appointment newSlot = availableSlots.get(newSlotChoice - 1);
 
-					// Update the appointment status and assign it to the new slot
-					selectedAppointment.setAppointmentStatus(AppointmentStatus.AVAILABLE);
-					selectedAppointment.setPatientID(null);
-
-					newSlot.setAppointmentStatus(AppointmentStatus.PENDING);
-					newSlot.setPatientID(patient.getUID());
+					// Secure the new slot first, then hand the old one back
+					String oldOutcomeRecordID = selectedAppointment.getAppointmentOutcomeRecordID();
+					SlotTransitionResult result = AppointmentController.rescheduleAppointment(selectedAppointment,
+							newSlot, patient.getUID());
+					if (result != SlotTransitionResult.SUCCESS) {
+						System.out.println(result.getMessage());
+						continue;
+					}
+					if (oldOutcomeRecordID != null) {
+						AppointmentOutcomeRecordRepository.deleteAppointmentOutcomeRecord(oldOutcomeRecordID);
+					}
 					System.out.println("Appointment has been successfully rescheduled.");
 
 					// Save all the records after rescheduling
@@ -146,26 +152,4 @@ public class ReschedulerBoundary extends Boundary {
 		}
 
 	}
-    /**
-     * Displays the list of available appointment slots for rescheduling.
-     *
-     * @param availableSlots The list of available appointment slots.
-     */
-	private void displayAvailableSlots(List<Appointment> availableSlots) {
-		System.out.println("\n--- Available Slots for Rescheduling ---");
-		int index = 1;
-		for (Appointment appointment : availableSlots) {
-			String doctorName = DoctorController.getDoctorNameById(appointment.getDoctorID());
-			System.out.println(index++ + ")");
-			System.out.println("Doctor ID        : " + appointment.getDoctorID());
-			System.out.println("Doctor           : " + doctorName);
-			System.out.println("Day              : " + appointment.getAppointmentTime().getDayOfWeek());
-			System.out.println("Date             : "
-					+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-			System.out.println("Time             : "
-					+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("HH:mm")));
-			System.out.println("Location         : " + appointment.getLocation());
-			System.out.println("---------------------------------------");
-		}
-	}
-}
\ No newline at end of file
+}
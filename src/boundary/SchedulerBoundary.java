@@ -2,8 +2,10 @@ package boundary;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import controller.AppointmentController;
 import controller.DoctorController;
-import enums.AppointmentStatus;
+import controller.SlotSearchEngine;
+import enums.SlotTransitionResult;
 import repository.UserRepository;
 import utility.Validator;
 import model.Appointment;
@@ -92,20 +94,22 @@ public class SchedulerBoundary extends Boundary {
 			}
 
 			Appointment existingAppointment = null;
-			for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-				if (appointment.getDoctorID().equals(doctorId)
-						&& appointment.getAppointmentTime().equals(appointmentTime)
-						&& appointment.getAppointmentStatus() == AppointmentStatus.AVAILABLE) {
+			for (Appointment appointment : SlotSearchEngine.findEarliestSlots(1, appointmentTime, doctorId, null,
+					null)) {
+				if (appointment.getAppointmentTime().equals(appointmentTime)) {
 					existingAppointment = appointment;
-					break;
 				}
 			}
 
 			if (existingAppointment != null) {
-				existingAppointment.setAppointmentStatus(AppointmentStatus.PENDING);
-				existingAppointment.setPatientID(patient.getUID());
-				displayScheduledSummary(existingAppointment);
-				RecordsRepository.saveAllRecordFiles();
+				SlotTransitionResult result = AppointmentController.bookAppointmentSlot(existingAppointment,
+						patient.getUID());
+				if (result == SlotTransitionResult.SUCCESS) {
+					displayScheduledSummary(existingAppointment);
+					RecordsRepository.saveAllRecordFiles();
+				} else {
+					System.out.println(result.getMessage());
+				}
 			} else {
 				System.out.println("No available appointment found for the selected time. Please try again.");
 			}
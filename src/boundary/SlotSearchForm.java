@@ -0,0 +1,167 @@
+package boundary;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import controller.DoctorController;
+import controller.DoctorLoadBalancer;
+import controller.SlotSearchEngine;
+import model.Appointment;
+import utility.Validator;
+
+/**
+ * The SlotSearchForm class asks a patient for optional slot search filters and
+ * lists the earliest matching AVAILABLE slots, instead of every open slot in the system.
+ */
+final class SlotSearchForm {
+	/**
+	 * Number of slots shown for one search.
+	 */
+	static final int RESULT_LIMIT = 10;
+	/**
+	 * Number of least-loaded doctors suggested for one search.
+	 */
+	static final int SUGGESTION_LIMIT = 3;
+
+	/**
+	 * The filters of one search; a null filter matches any slot.
+	 */
+	record Filters(String doctorID, String location, DayOfWeek dayOfWeek, LocalDateTime from) {
+	}
+
+	private SlotSearchForm() {
+	}
+
+	/**
+	 * Prompts for the doctor, location, day of the week and earliest date to search
+	 * from, each of which may be left blank, and returns the earliest matching slots.
+	 *
+	 * @return up to {@link #RESULT_LIMIT} available slots ordered by appointment time
+	 */
+	static List<Appointment> search() {
+		return search(readFilters());
+	}
+
+	/**
+	 * Prompts for the doctor, location, day of the week and earliest date to search
+	 * from, each of which may be left blank.
+	 *
+	 * @return the filters entered
+	 */
+	static Filters readFilters() {
+		System.out.println("Search for available slots. Leave a filter blank to match any.");
+		String doctorID = readOptional("Doctor ID (e.g. D001):");
+		while (doctorID != null && !doctorID.matches("D\\d{3}")) {
+			System.out.println("Invalid Doctor ID format.");
+			doctorID = readOptional("Doctor ID (e.g. D001):");
+		}
+		String location = readOptional("Location:");
+		DayOfWeek dayOfWeek = readDayOfWeek();
+		LocalDateTime from = readFromDate();
+		return new Filters(doctorID, location, dayOfWeek, from);
+	}
+
+	/**
+	 * Finds the earliest slots matching a set of filters.
+	 *
+	 * @param filters the filters to match
+	 * @return up to {@link #RESULT_LIMIT} available slots ordered by appointment time
+	 */
+	static List<Appointment> search(Filters filters) {
+		return SlotSearchEngine.findEarliestSlots(RESULT_LIMIT, filters.from(), filters.doctorID(),
+				filters.location(), filters.dayOfWeek());
+	}
+
+	/**
+	 * Prints slots with the least-loaded doctors matching a set of filters, unless
+	 * the patient asked for a particular doctor.
+	 *
+	 * @param filters the filters to match
+	 */
+	static void displaySuggestions(Filters filters) {
+		if (filters.doctorID() != null) {
+			return;
+		}
+		List<DoctorLoadBalancer.Recommendation> suggestions = DoctorLoadBalancer.recommend(SUGGESTION_LIMIT,
+				filters.from(), filters.location(), filters.dayOfWeek());
+		if (suggestions.isEmpty()) {
+			return;
+		}
+		System.out.println("\n--- Suggested Slots (doctors with the shortest queues) ---");
+		int index = 1;
+		for (DoctorLoadBalancer.Recommendation suggestion : suggestions) {
+			Appointment appointment = suggestion.slot();
+			System.out.printf("%d) %s  %s  Dr. %s (%s)  %s  [%d booked that day, %d in the week before]\n",
+					index++,
+					appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")),
+					appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("HH:mm")),
+					DoctorController.getDoctorNameById(appointment.getDoctorID()), appointment.getDoctorID(),
+					appointment.getLocation(), suggestion.dayLoad().total(), suggestion.weekLoad().total());
+		}
+		System.out.println("---------------------------------------");
+	}
+
+	/**
+	 * Prints a numbered list of slots.
+	 *
+	 * @param heading the heading printed above the list
+	 * @param slots   the slots to print
+	 */
+	static void displaySlots(String heading, List<Appointment> slots) {
+		System.out.println("\n--- " + heading + " ---");
+		int index = 1;
+		for (Appointment appointment : slots) {
+			String doctorName = DoctorController.getDoctorNameById(appointment.getDoctorID());
+			System.out.println(index++ + ")");
+			System.out.println("Doctor ID        : " + appointment.getDoctorID());
+			System.out.println("Doctor           : " + doctorName);
+			System.out.println("Day              : " + appointment.getAppointmentTime().getDayOfWeek());
+			System.out.println("Date             : "
+					+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
+			System.out.println("Time             : "
+					+ appointment.getAppointmentTime().format(DateTimeFormatter.ofPattern("HH:mm")));
+			System.out.println("Location         : " + appointment.getLocation());
+			System.out.println("---------------------------------------");
+		}
+	}
+
+	private static String readOptional(String prompt) {
+		System.out.println(prompt);
+		String input = Validator.readString().trim();
+		return input.isEmpty() ? null : input;
+	}
+
+	private static DayOfWeek readDayOfWeek() {
+		while (true) {
+			String input = readOptional("Day of the week (e.g. MONDAY):");
+			if (input == null) {
+				return null;
+			}
+			try {
+				return DayOfWeek.valueOf(input.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				System.out.println("Invalid day of the week. Please try again.");
+			}
+		}
+	}
+
+	/**
+	 * Reads the date to search from; a blank answer searches from now.
+	 */
+	private static LocalDateTime readFromDate() {
+		while (true) {
+			String input = readOptional("Earliest date (yyyy-MM-dd, blank for today):");
+			if (input == null) {
+				return LocalDateTime.now();
+			}
+			try {
+				return LocalDateTime.parse(input + "T00:00:00", DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+			} catch (DateTimeParseException e) {
+				System.out.println("Invalid date format. Please enter the date in yyyy-MM-dd format.");
+			}
+		}
+	}
+}
@@ -4,10 +4,12 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Scanner;
 
+import controller.AppointmentController;
 import controller.PrescribedMedicineController;
 import enums.AppointmentStatus;
 import enums.PrescriptionStatus;
 import enums.Record;
+import enums.SlotTransitionResult;
 import model.*;
 import repository.*;
 import controller.MedicineController;
@@ -101,7 +103,12 @@ public class UpdateMRBoundary {
 
         // Save updated medical record back to repository
         RecordsRepository.MEDICAL_RECORDS.put(medicalRecord.getRecordID(), medicalRecord);
-        currentAppointment.setAppointmentStatus(AppointmentStatus.COMPLETED);
+        SlotTransitionResult result = AppointmentController.completeAppointment(currentAppointment);
+        // the appointments offered here are normally completed already
+        if (result != SlotTransitionResult.SUCCESS
+                && currentAppointment.getAppointmentStatus() != AppointmentStatus.COMPLETED) {
+            System.out.println("Appointment " + currentAppointment.getRecordID() + ": " + result.getMessage());
+        }
         RecordsRepository.saveAllRecordFiles();
 
     }
@@ -2,6 +2,7 @@ package controller;
 
 import model.Administrator;
 import repository.UserRepository;
+import utility.Metrics;
 
 /**
  * The AdministratorController class that provides methods to access and retrieve staff-related information
@@ -10,6 +11,9 @@ import repository.UserRepository;
 
 public class AdministratorController extends UserController {
 
+    private static final Metrics.Timer GET_ADMIN_BY_ID = Metrics.call("AdministratorController.getAdminById");
+    private static final Metrics.Timer GET_ADMIN_NAME_BY_ID = Metrics.call("AdministratorController.getAdminNameById");
+
     /**
      * Retrieves a Doctor object based on the provided doctor ID.
      *
@@ -18,11 +22,10 @@ public class AdministratorController extends UserController {
      */
 
     public static Administrator getAdminById(String adminId) {
-        if (UserRepository.isRepoLoad())
-            return UserRepository.ADMINS.get(adminId);
-        else
-            return null;
-
+        long started = System.nanoTime();
+        Administrator administrator = UserRepository.isRepoLoad() ? UserRepository.ADMINS.get(adminId) : null;
+        GET_ADMIN_BY_ID.record(started, 0, adminId);
+        return administrator;
     }
 
     /**
@@ -33,8 +36,11 @@ public class AdministratorController extends UserController {
      */
 
     public static String getAdminNameById(String adminId) {
+        long started = System.nanoTime();
         Administrator administrator = getAdminById(adminId);
-        return administrator != null ? administrator.getFullName() : "Unknown Administrator";
+        String name = administrator != null ? administrator.getFullName() : "Unknown Administrator";
+        GET_ADMIN_NAME_BY_ID.record(started, 0, adminId);
+        return name;
     }
 
 
@@ -1,14 +1,18 @@
 package controller;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 import enums.AppointmentOutcomeStatus;
 import enums.AppointmentStatus;
 import enums.Record;
+import enums.SlotTransitionResult;
 import model.*;
+import repository.AppointmentColumnStore;
 import repository.AppointmentOutcomeRecordRepository;
 import repository.DiagnosisRepository;
 import repository.RecordsRepository;
+import utility.Metrics;
 
 /**
  * The AppointmentController class provides methods to handle appointment
@@ -18,19 +22,34 @@ import repository.RecordsRepository;
  */
 public class AppointmentController {
 
-	/** Map to keep track of the next ID for each record type
-	 * Generates a unique record ID for a specific record type using UUID.
-	 */
-	private static final Map<Record, Integer> recordCounters = new HashMap<>();
-
-	static {
-		// Initialize counters for each record type starting at 0
-		for (Record recType : Record.values()) {
-			recordCounters.put(recType, 0);
-		}
-	}
+	private static final Metrics.Timer GENERATE_RECORD_ID = Metrics.call("AppointmentController.generateRecordID");
+	private static final Metrics.Timer GET_APPOINTMENTS_BY_DOCTOR_AND_PATIENT = Metrics
+			.call("AppointmentController.getAppointmentsByDoctorAndPatient");
+	private static final Metrics.Timer GET_CONFIRMED_APPOINTMENTS = Metrics
+			.call("AppointmentController.getConfirmedAppointments");
+	private static final Metrics.Timer GET_COMPLETED_APPOINTMENTS_BY_DOCTOR_ID = Metrics
+			.call("AppointmentController.getCompletedAppointmentsByDoctorID");
+	private static final Metrics.Timer GET_ALL_APPOINTMENTS = Metrics.call("AppointmentController.getAllAppointments");
+	private static final Metrics.Timer GET_AVAILABLE_APPOINTMENT_SLOTS_FROM_ALL_DOCTOR = Metrics
+			.call("AppointmentController.getAvailableAppointmentSlotsFromAllDoctor");
+	private static final Metrics.Timer GET_CANCELLED_APPOINTMENT_SLOTS = Metrics
+			.call("AppointmentController.getCancelledAppointmentSlots");
+	private static final Metrics.Timer CANCEL_APPOINTMENT = Metrics.call("AppointmentController.cancelAppointment");
+	private static final Metrics.Timer BOOK_APPOINTMENT_SLOT = Metrics
+			.call("AppointmentController.bookAppointmentSlot");
+	private static final Metrics.Timer CONFIRM_APPOINTMENT = Metrics.call("AppointmentController.confirmAppointment");
+	private static final Metrics.Timer DECLINE_APPOINTMENT = Metrics.call("AppointmentController.declineAppointment");
+	private static final Metrics.Timer COMPLETE_APPOINTMENT = Metrics.call("AppointmentController.completeAppointment");
+	private static final Metrics.Timer RELEASE_APPOINTMENT_SLOT = Metrics
+			.call("AppointmentController.releaseAppointmentSlot");
+	private static final Metrics.Timer RESCHEDULE_APPOINTMENT = Metrics
+			.call("AppointmentController.rescheduleAppointment");
+	private static final Metrics.Timer GET_PAST_APPOINTMENT_OUTCOMES = Metrics
+			.call("AppointmentController.getPastAppointmentOutcomes");
 
 	public static String generateRecordID(Record recType) {
+		long started = System.nanoTime();
+		long scanned = 0;
 		String prefix;
 		int nextId = 0;
 
@@ -56,6 +75,7 @@ public class AppointmentController {
 				HashMap<String, ArrayList<AppointmentOutcomeRecord>> outcomeRepository = AppointmentOutcomeRecordRepository.patientOutcomeRecords;
 				for (ArrayList<AppointmentOutcomeRecord> records : outcomeRepository.values()) {
 					for (AppointmentOutcomeRecord record : records) {
+						scanned++;
 						String id = record.getUID();
 						if (id.startsWith(prefix)) {
 							try {
@@ -74,6 +94,7 @@ public class AppointmentController {
 				HashMap<String, ArrayList<Diagnosis>> diagnosisRepository = DiagnosisRepository.patientDiagnosisRecords;
 				for (ArrayList<Diagnosis> records : diagnosisRepository.values()) {
 					for (Diagnosis record : records) {
+						scanned++;
 						String id = record.getDiagnosisID();
 						if (id.startsWith(prefix)) {
 							try {
@@ -93,8 +114,27 @@ public class AppointmentController {
 				break;
 		}
 
+		// Skip IDs reserved by generateRecordIDs but not stored yet
+		nextId = RecordIDAllocator.skipReserved(recType, nextId);
+
 		// Format the next ID with leading zeros (e.g., "AO001")
-		return String.format("%s%03d", prefix, nextId);
+		String id = String.format("%s%03d", prefix, nextId);
+		GENERATE_RECORD_ID.record(started, scanned, recType);
+		return id;
+	}
+
+	/**
+	 * Reserves a block of consecutive record IDs with a single scan of the repository,
+	 * for callers that create several records before any of them is stored. IDs
+	 * reserved by earlier calls are skipped even if those records have not been
+	 * stored yet.
+	 *
+	 * @param recType The type of record.
+	 * @param count   The number of IDs to reserve.
+	 * @return The reserved IDs, in ascending order.
+	 */
+	public static List<String> generateRecordIDs(Record recType, int count) {
+		return RecordIDAllocator.reserve(recType, count, AppointmentController::generateRecordID);
 	}
 
 	/**
@@ -108,23 +148,15 @@ public class AppointmentController {
 	 */
 	public static ArrayList<Appointment> getAppointmentsByDoctorAndPatient(String doctorID, String patientID,
 																		   AppointmentStatus status) {
-		ArrayList<Appointment> filteredAppointments = new ArrayList<>();
-
-		// Loop through all appointment records
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			// Check if appointment matches both the doctorID and patientID, and has a
-			// CONFIRMED status
-			if (doctorID.equals(appointment.getDoctorID()) && patientID.equals(appointment.getPatientID())
-					&& appointment.getAppointmentStatus() == status) {
-
-				// Add to filtered list
-				filteredAppointments.add(appointment);
-			}
-		}
-
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		// Scan the appointment columns for the doctor, patient and status
+		AppointmentColumnStore.Selection selection = AppointmentColumnStore.find(patientID, doctorID, status);
+		ArrayList<Appointment> filteredAppointments = selection.toAppointments();
+		GET_APPOINTMENTS_BY_DOCTOR_AND_PATIENT.record(started, selection.getScanned(), doctorID, patientID, status);
+		event.complete(GET_APPOINTMENTS_BY_DOCTOR_AND_PATIENT, selection.getScanned(), filteredAppointments.size());
 		return filteredAppointments;
-
-		// If no appointments match the criteria
 	}
 
 	/**
@@ -134,13 +166,13 @@ public class AppointmentController {
 	 * @return A list of confirmed appointment records for the specified patient.
 	 */
 	public static List<Appointment> getConfirmedAppointments(String patientID) {
-		List<Appointment> confirmedAppointments = new ArrayList<>();
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			if (patientID.equals(appointment.getPatientID())
-					&& appointment.getAppointmentStatus() == AppointmentStatus.CONFIRMED) {
-				confirmedAppointments.add(appointment);
-			}
-		}
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		AppointmentColumnStore.Selection selection = AppointmentColumnStore.find(patientID, null, AppointmentStatus.CONFIRMED);
+		List<Appointment> confirmedAppointments = selection.toAppointments();
+		GET_CONFIRMED_APPOINTMENTS.record(started, selection.getScanned(), patientID);
+		event.complete(GET_CONFIRMED_APPOINTMENTS, selection.getScanned(), confirmedAppointments.size());
 		return confirmedAppointments;
 	}
 	/**
@@ -150,13 +182,13 @@ public class AppointmentController {
 	 * @return A list of confirmed appointment records for the specified patient.
 	 */
 	public static List<Appointment> getCompletedAppointmentsByDoctorID(String doctorID) {
-		List<Appointment> confirmedAppointments = new ArrayList<>();
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			if (doctorID.equals(appointment.getDoctorID())
-					&& appointment.getAppointmentStatus() == AppointmentStatus.COMPLETED) {
-				confirmedAppointments.add(appointment);
-			}
-		}
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		AppointmentColumnStore.Selection selection = AppointmentColumnStore.find(null, doctorID, AppointmentStatus.COMPLETED);
+		List<Appointment> confirmedAppointments = selection.toAppointments();
+		GET_COMPLETED_APPOINTMENTS_BY_DOCTOR_ID.record(started, selection.getScanned(), doctorID);
+		event.complete(GET_COMPLETED_APPOINTMENTS_BY_DOCTOR_ID, selection.getScanned(), confirmedAppointments.size());
 		return confirmedAppointments;
 	}
 
@@ -167,27 +199,25 @@ public class AppointmentController {
 	 * @return A list of all appointment records for the specified patient.
 	 */
 	public static List<Appointment> getAllAppointments(String patientID) {
-		List<Appointment> confirmedAppointments = new ArrayList<>();
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			if (patientID.equals(appointment.getPatientID())) {
-				confirmedAppointments.add(appointment);
-			}
-		}
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		AppointmentColumnStore.Selection selection = AppointmentColumnStore.find(patientID, null, null);
+		List<Appointment> confirmedAppointments = selection.toAppointments();
+		GET_ALL_APPOINTMENTS.record(started, selection.getScanned(), patientID);
+		event.complete(GET_ALL_APPOINTMENTS, selection.getScanned(), confirmedAppointments.size());
 		return confirmedAppointments;
 	}
 
 	/**
 	 * Retrieves all available appointment slots from all doctors.
 	 *
-	 * @return A list of available appointment records.
+	 * @return A list of available appointment records, ordered by appointment time.
 	 */
 	public static List<Appointment> getAvailableAppointmentSlotsFromAllDoctor() {
-		List<Appointment> availableSlots = new ArrayList<>();
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			if (appointment.getAppointmentStatus() == AppointmentStatus.AVAILABLE) {
-				availableSlots.add(appointment);
-			}
-		}
+		long started = System.nanoTime();
+		List<Appointment> availableSlots = SlotSearchEngine.findEarliestSlots(Integer.MAX_VALUE, null, null, null, null);
+		GET_AVAILABLE_APPOINTMENT_SLOTS_FROM_ALL_DOCTOR.record(started);
 		return availableSlots;
 	}
 
@@ -198,55 +228,263 @@ public class AppointmentController {
 	 * @return A list of canceled appointment records for the specified patient.
 	 */
 	public static List<Appointment> getCancelledAppointmentSlots(String patientID) {
-		List<Appointment> canceledSlots = new ArrayList<>();
-		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
-			if (patientID.equals(appointment.getPatientID())
-					&& appointment.getAppointmentStatus() == AppointmentStatus.CANCELED) {
-				canceledSlots.add(appointment);
-			}
-		}
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		AppointmentColumnStore.Selection selection = AppointmentColumnStore.find(patientID, null, AppointmentStatus.CANCELED);
+		List<Appointment> canceledSlots = selection.toAppointments();
+		GET_CANCELLED_APPOINTMENT_SLOTS.record(started, selection.getScanned(), patientID);
+		event.complete(GET_CANCELLED_APPOINTMENT_SLOTS, selection.getScanned(), canceledSlots.size());
 		return canceledSlots;
 	}
 
     /**
      * Cancels an appointment from the confirmed appointments list based on the user's choice.
+     * The slot is handed back only if it is still confirmed for the same patient, so a
+     * concurrent reschedule or doctor action is never overwritten.
      *
      * @param choice The index of the appointment to be canceled.
      * @param confirmedAppointments A list of confirmed appointment records.
      * @return appointmentOutcomeRecordID if the appointment was successfully canceled, null otherwise.
      */
 	public static String cancelAppointment(int choice, List<Appointment> confirmedAppointments) {
+		long started = System.nanoTime();
+		String appointmentOutcomeRecordID = cancel(choice, confirmedAppointments);
+		CANCEL_APPOINTMENT.record(started, 0, choice, confirmedAppointments);
+		return appointmentOutcomeRecordID;
+	}
 
+	private static String cancel(int choice, List<Appointment> confirmedAppointments) {
 		if (choice >= 1 && choice <= confirmedAppointments.size()) {
 			Appointment selectedAppointment = confirmedAppointments.get(choice - 1);
-			selectedAppointment.setAppointmentStatus(AppointmentStatus.AVAILABLE);
-			selectedAppointment.setPatientID(null);
-			String appointmentOutcomeRecordID = selectedAppointment.getAppointmentOutcomeRecordID();
-			selectedAppointment.setAppointmentOutcomeRecordID(null);
-			RecordsRepository.saveAllRecordFiles();
-			return appointmentOutcomeRecordID;
+			while (true) {
+				AppointmentSlotState current = selectedAppointment.getSlotState();
+				if (current.getAppointmentStatus() != AppointmentStatus.CONFIRMED) {
+					return null;
+				}
+				if (selectedAppointment.compareAndSetSlotState(current, AppointmentSlotState.available())) {
+					slotChanged(selectedAppointment);
+					RecordsRepository.saveAllRecordFiles();
+					return current.getAppointmentOutcomeRecordID();
+				}
+			}
 		} else {
 			return null;
 		}
 	}
 
+	/**
+	 * Books an AVAILABLE slot for a patient. The slot moves to PENDING only if no
+	 * other session booked it in the meantime.
+	 *
+	 * @param slot      The appointment slot to book.
+	 * @param patientID The ID of the patient booking the slot.
+	 * @return SUCCESS if the slot was booked, SLOT_TAKEN if another session got it first.
+	 */
+	public static SlotTransitionResult bookAppointmentSlot(Appointment slot, String patientID) {
+		long started = System.nanoTime();
+		SlotTransitionResult result = book(slot, patientID);
+		BOOK_APPOINTMENT_SLOT.record(started, 0, slot, patientID);
+		return result;
+	}
+
+	private static SlotTransitionResult book(Appointment slot, String patientID) {
+		while (true) {
+			AppointmentSlotState current = slot.getSlotState();
+			if (current.getAppointmentStatus() != AppointmentStatus.AVAILABLE) {
+				return SlotTransitionResult.SLOT_TAKEN;
+			}
+			AppointmentSlotState booked = new AppointmentSlotState(AppointmentStatus.PENDING, patientID, null);
+			if (slot.compareAndSetSlotState(current, booked)) {
+				slotChanged(slot);
+				return SlotTransitionResult.SUCCESS;
+			}
+		}
+	}
+
+	/**
+	 * Accepts a PENDING appointment request (PENDING -> CONFIRMED).
+	 *
+	 * @param slot The appointment slot to confirm.
+	 * @return the result of the transition.
+	 */
+	public static SlotTransitionResult confirmAppointment(Appointment slot) {
+		long started = System.nanoTime();
+		SlotTransitionResult result = transition(slot, AppointmentStatus.CONFIRMED, AppointmentStatus.PENDING);
+		CONFIRM_APPOINTMENT.record(started, 0, slot);
+		return result;
+	}
+
+	/**
+	 * Declines a PENDING appointment request (PENDING -> CANCELED). The patient keeps
+	 * the slot until they acknowledge the cancellation.
+	 *
+	 * @param slot The appointment slot to decline.
+	 * @return the result of the transition.
+	 */
+	public static SlotTransitionResult declineAppointment(Appointment slot) {
+		long started = System.nanoTime();
+		SlotTransitionResult result = transition(slot, AppointmentStatus.CANCELED, AppointmentStatus.PENDING);
+		DECLINE_APPOINTMENT.record(started, 0, slot);
+		return result;
+	}
+
+	/**
+	 * Marks a CONFIRMED appointment as COMPLETED.
+	 *
+	 * @param slot The appointment slot to complete.
+	 * @return the result of the transition.
+	 */
+	public static SlotTransitionResult completeAppointment(Appointment slot) {
+		long started = System.nanoTime();
+		SlotTransitionResult result = transition(slot, AppointmentStatus.COMPLETED, AppointmentStatus.CONFIRMED);
+		COMPLETE_APPOINTMENT.record(started, 0, slot);
+		return result;
+	}
+
+	/**
+	 * Hands a slot held by a patient back to AVAILABLE, clearing the patient and the
+	 * linked outcome record. Used when a patient acknowledges a declined request.
+	 *
+	 * @param slot      The appointment slot to release.
+	 * @param patientID The ID of the patient who must currently hold the slot.
+	 * @return the result of the transition.
+	 */
+	public static SlotTransitionResult releaseAppointmentSlot(Appointment slot, String patientID) {
+		long started = System.nanoTime();
+		SlotTransitionResult result = release(slot, patientID);
+		RELEASE_APPOINTMENT_SLOT.record(started, 0, slot, patientID);
+		return result;
+	}
+
+	private static SlotTransitionResult release(Appointment slot, String patientID) {
+		while (true) {
+			AppointmentSlotState current = slot.getSlotState();
+			if (!Objects.equals(patientID, current.getPatientID())) {
+				return SlotTransitionResult.NOT_OWNER;
+			}
+			AppointmentStatus status = current.getAppointmentStatus();
+			if (status == AppointmentStatus.AVAILABLE || status == AppointmentStatus.COMPLETED) {
+				return SlotTransitionResult.INVALID_STATE;
+			}
+			if (slot.compareAndSetSlotState(current, AppointmentSlotState.available())) {
+				slotChanged(slot);
+				return SlotTransitionResult.SUCCESS;
+			}
+		}
+	}
+
+	/**
+	 * Moves a patient's confirmed appointment to a new AVAILABLE slot. The new slot is
+	 * booked first; the old slot is only released once the new one is secured, and the
+	 * new booking is rolled back if the old appointment changed in the meantime.
+	 *
+	 * @param currentAppointment The patient's confirmed appointment.
+	 * @param newSlot            The AVAILABLE slot to move to.
+	 * @param patientID          The ID of the patient rescheduling.
+	 * @return the result of the reschedule.
+	 */
+	public static SlotTransitionResult rescheduleAppointment(Appointment currentAppointment, Appointment newSlot,
+															 String patientID) {
+		long started = System.nanoTime();
+		SlotTransitionResult result = reschedule(currentAppointment, newSlot, patientID);
+		RESCHEDULE_APPOINTMENT.record(started, 0, currentAppointment, newSlot, patientID);
+		return result;
+	}
+
+	private static SlotTransitionResult reschedule(Appointment currentAppointment, Appointment newSlot,
+												   String patientID) {
+		SlotTransitionResult booked = bookAppointmentSlot(newSlot, patientID);
+		if (booked != SlotTransitionResult.SUCCESS) {
+			return booked;
+		}
+
+		AppointmentSlotState current = currentAppointment.getSlotState();
+		SlotTransitionResult released;
+		if (!patientID.equals(current.getPatientID())) {
+			released = SlotTransitionResult.NOT_OWNER;
+		} else if (current.getAppointmentStatus() != AppointmentStatus.CONFIRMED) {
+			released = SlotTransitionResult.INVALID_STATE;
+		} else if (!currentAppointment.compareAndSetSlotState(current, AppointmentSlotState.available())) {
+			released = SlotTransitionResult.INVALID_STATE;
+		} else {
+			slotChanged(currentAppointment);
+			released = SlotTransitionResult.SUCCESS;
+		}
+
+		if (released != SlotTransitionResult.SUCCESS) {
+			releaseAppointmentSlot(newSlot, patientID);
+		}
+		return released;
+	}
+
+	/**
+	 * Moves a slot to the target status if it is currently in the expected status.
+	 * The patient and outcome record are carried over unchanged.
+	 *
+	 * @param slot      The appointment slot to update.
+	 * @param target    The status to move to.
+	 * @param expected  The status the slot must currently have.
+	 * @return the result of the transition.
+	 */
+	private static SlotTransitionResult transition(Appointment slot, AppointmentStatus target,
+												   AppointmentStatus expected) {
+		while (true) {
+			AppointmentSlotState current = slot.getSlotState();
+			if (current.getAppointmentStatus() != expected) {
+				return SlotTransitionResult.INVALID_STATE;
+			}
+			if (slot.compareAndSetSlotState(current, current.withStatus(target))) {
+				slotChanged(slot);
+				return SlotTransitionResult.SUCCESS;
+			}
+		}
+	}
+
+	/**
+	 * Publishes a change to a slot made outside the doctor's calendar, so the
+	 * calendar snapshot and the slot search index pick it up. The slot's updated
+	 * date is stamped first, so a PENDING slot records when it was requested. A slot
+	 * that became AVAILABLE is first offered to the waitlist of its doctor and day.
+	 *
+	 * @param slot The appointment slot that changed.
+	 */
+	private static void slotChanged(Appointment slot) {
+		slot.setUpdatedDate(LocalDateTime.now());
+		DoctorCalendar.refresh(slot);
+		SlotSearchEngine.slotChanged(slot);
+		AppointmentColumnStore.slotChanged(slot);
+		DoctorLoadBalancer.slotChanged(slot);
+		ReminderService.appointmentChanged(slot);
+		if (slot.getAppointmentStatus() == AppointmentStatus.AVAILABLE) {
+			WaitlistController.offerSlot(slot);
+		}
+	}
+
 	/**
 	 * Gets the list of Past Appointment Outcomes as specific patient has
 	 * @param patientId the current patient
 	 * @return the list
 	 */
 	public static List<AppointmentOutcomeRecord> getPastAppointmentOutcomes(String patientId) {
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		long scanned = 0;
 		List<AppointmentOutcomeRecord> pastOutcomes = new ArrayList<>();
 		// Retrieve past appointment outcomes for the given patient ID
 		for (List<AppointmentOutcomeRecord> outcomes : AppointmentOutcomeRecordRepository.patientOutcomeRecords
 				.values()) {
 			for (AppointmentOutcomeRecord outcome : outcomes) {
+				scanned++;
 				if (outcome.getPatientID().equals(patientId)
 						&& outcome.getAppointmentOutcomeStatus() == AppointmentOutcomeStatus.COMPLETED) {
 					pastOutcomes.add(outcome);
 				}
 			}
 		}
+		GET_PAST_APPOINTMENT_OUTCOMES.record(started, scanned, patientId);
+		event.complete(GET_PAST_APPOINTMENT_OUTCOMES, scanned, pastOutcomes.size());
 		return pastOutcomes;
 	}
 
@@ -0,0 +1,246 @@
+package controller;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import enums.AppointmentStatus;
+import model.Appointment;
+import repository.AppointmentColumnStore;
+import repository.PersistenceExecutor;
+import repository.RecordsRepository;
+import repository.SaveResult;
+import utility.Metrics;
+
+/**
+ * The AppointmentSweeper class keeps APPOINTMENT_RECORDS down to the appointments
+ * that still matter.
+ * A background thread walks the records in short time slices, with a pause between
+ * slices, so it never holds the CPU long enough for a user to notice. At the end of
+ * each pass it removes AVAILABLE slots that have already ended, and moves COMPLETED
+ * and CANCELED appointments older than the retention period to the archive segment
+ * (appointment_records_archive.csv), which is not loaded at startup. The appointment
+ * records file is then saved once for the whole pass.
+ */
+public final class AppointmentSweeper {
+	/**
+	 * Days after which COMPLETED and CANCELED appointments are archived, configurable with -Dhms.sweeper.archiveAfterDays.
+	 */
+	private static final int ARCHIVE_AFTER_DAYS = Integer.getInteger("hms.sweeper.archiveAfterDays", 90);
+	/**
+	 * Longest time one slice may run, configurable with -Dhms.sweeper.sliceMillis.
+	 */
+	private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("hms.sweeper.sliceMillis", 2));
+	/**
+	 * Most records examined in one slice, so a slow clock read cannot stretch a slice.
+	 */
+	private static final int SLICE_MAX_RECORDS = 1_024;
+	/**
+	 * Pause between slices of one pass, configurable with -Dhms.sweeper.pauseMillis.
+	 */
+	private static final long SLICE_PAUSE_MILLIS = Long.getLong("hms.sweeper.pauseMillis", 20);
+	/**
+	 * Time between the end of one pass and the start of the next, configurable with -Dhms.sweeper.intervalSeconds.
+	 */
+	private static final long PASS_INTERVAL_SECONDS = Long.getLong("hms.sweeper.intervalSeconds", 600);
+
+	private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "hms-appointment-sweeper");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
+	private static final AtomicBoolean STARTED = new AtomicBoolean();
+	private static final Metrics.Timer SWEEP_NOW = Metrics.call("AppointmentSweeper.sweepNow");
+
+	// Only touched by the sweeper thread
+	private static Iterator<Appointment> cursor;
+	private static int passGeneration;
+	private static LocalDateTime passStartedAt;
+	private static int passSlices;
+	private static final List<Appointment> expired = new ArrayList<>();
+	private static final List<Appointment> archived = new ArrayList<>();
+
+	private static volatile PassSummary lastPass;
+
+	/**
+	 * What one completed pass did.
+	 *
+	 * @param finishedAt the time the pass finished
+	 * @param slices     the number of slices the pass took
+	 * @param expired    the number of past AVAILABLE slots removed
+	 * @param archived   the number of appointments moved to the archive segment
+	 */
+	public record PassSummary(LocalDateTime finishedAt, int slices, int expired, int archived) {
+	}
+
+	private AppointmentSweeper() {
+	}
+
+	/**
+	 * Starts sweeping in the background. Calling it again has no effect.
+	 */
+	public static void start() {
+		if (STARTED.compareAndSet(false, true)) {
+			SWEEPER.schedule(AppointmentSweeper::runSlice, SLICE_PAUSE_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Runs one complete pass on the sweeper thread, still in slices, and waits for it.
+	 * Any pass already in progress is restarted.
+	 *
+	 * @return the summary of the pass
+	 */
+	public static PassSummary sweepNow() {
+		long started = System.nanoTime();
+		CompletableFuture<PassSummary> done = new CompletableFuture<>();
+		SWEEPER.execute(() -> {
+			try {
+				// restart from the first record so nothing changed before this call is missed
+				cursor = null;
+				boolean passComplete = false;
+				while (!passComplete) {
+					passComplete = sweepSlice();
+				}
+				done.complete(lastPass);
+			} catch (RuntimeException e) {
+				done.completeExceptionally(e);
+			}
+		});
+		PassSummary summary = done.join();
+		SWEEP_NOW.record(started);
+		return summary;
+	}
+
+	/**
+	 * Gets the summary of the last completed pass.
+	 *
+	 * @return the summary, or null if no pass has completed yet
+	 */
+	public static PassSummary getLastPass() {
+		return lastPass;
+	}
+
+	private static void runSlice() {
+		boolean passComplete = false;
+		try {
+			passComplete = sweepSlice();
+		} catch (RuntimeException e) {
+			// a failed pass is retried from the start next time
+			cursor = null;
+			passComplete = true;
+		} finally {
+			if (passComplete) {
+				SWEEPER.schedule(AppointmentSweeper::runSlice, PASS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+			} else {
+				SWEEPER.schedule(AppointmentSweeper::runSlice, SLICE_PAUSE_MILLIS, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Examines the next few records of the current pass, starting a pass if none is in progress.
+	 *
+	 * @return true if this slice finished the pass
+	 */
+	private static boolean sweepSlice() {
+		if (cursor == null || passGeneration != RecordsRepository.getLoadGeneration()) {
+			cursor = RecordsRepository.APPOINTMENT_RECORDS.values().iterator();
+			passGeneration = RecordsRepository.getLoadGeneration();
+			passStartedAt = LocalDateTime.now();
+			passSlices = 0;
+			expired.clear();
+			archived.clear();
+		}
+		passSlices++;
+
+		LocalDateTime archiveBefore = passStartedAt.minusDays(ARCHIVE_AFTER_DAYS);
+		long deadline = System.nanoTime() + SLICE_NANOS;
+		int examined = 0;
+		while (cursor.hasNext() && examined < SLICE_MAX_RECORDS && System.nanoTime() < deadline) {
+			Appointment appointment = cursor.next();
+			examined++;
+			if (appointment.getAppointmentTime() == null) {
+				continue;
+			}
+			AppointmentStatus status = appointment.getAppointmentStatus();
+			if (status == AppointmentStatus.AVAILABLE && !appointment.getEndTime().isAfter(passStartedAt)) {
+				expired.add(appointment);
+			} else if ((status == AppointmentStatus.COMPLETED || status == AppointmentStatus.CANCELED)
+					&& appointment.getAppointmentTime().isBefore(archiveBefore)) {
+				archived.add(appointment);
+			}
+		}
+		if (cursor.hasNext()) {
+			return false;
+		}
+		cursor = null;
+		if (passGeneration == RecordsRepository.getLoadGeneration()) {
+			finishPass();
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the slots and appointments found during the pass and saves the records once.
+	 */
+	private static void finishPass() {
+		int expiredCount = 0;
+		for (Appointment appointment : expired) {
+			if (retire(appointment, AppointmentStatus.AVAILABLE)) {
+				expiredCount++;
+			}
+		}
+
+		int archivedCount = 0;
+		if (!archived.isEmpty()) {
+			// the rows must be in the archive before they leave the records file
+			SaveResult result = RecordsRepository.archiveAppointmentsAsync(archived).join();
+			if (result.isSuccess()) {
+				for (Appointment appointment : archived) {
+					if (retire(appointment, appointment.getAppointmentStatus())) {
+						archivedCount++;
+					}
+				}
+			} else {
+				PersistenceExecutor.reportFailure(result);
+			}
+		}
+
+		if (expiredCount > 0 || archivedCount > 0) {
+			RecordsRepository.saveAppointmentRecordsAsync().thenAccept(PersistenceExecutor::reportFailure);
+		}
+		lastPass = new PassSummary(LocalDateTime.now(), passSlices, expiredCount, archivedCount);
+		expired.clear();
+		archived.clear();
+	}
+
+	/**
+	 * Removes an appointment from the records if it still has the status it was
+	 * selected with, and tells the indexes built over the records.
+	 */
+	private static boolean retire(Appointment appointment, AppointmentStatus expected) {
+		if (appointment.getAppointmentStatus() != expected
+				|| !RecordsRepository.APPOINTMENT_RECORDS.remove(appointment.getRecordID(), appointment)) {
+			return false;
+		}
+		if (appointment.getAppointmentStatus() != expected) {
+			// changed while being removed, for example booked; keep it
+			RecordsRepository.APPOINTMENT_RECORDS.put(appointment.getRecordID(), appointment);
+			return false;
+		}
+		SlotSearchEngine.slotChanged(appointment);
+		AppointmentColumnStore.slotChanged(appointment);
+		ScheduleConflictDetector.release(appointment);
+		DoctorCalendar.refresh(appointment);
+		DoctorLoadBalancer.slotChanged(appointment);
+		return true;
+	}
+}
@@ -0,0 +1,705 @@
+package controller;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import enums.AppointmentStatus;
+import enums.Record;
+import enums.RecordStatus;
+import enums.SlotTransitionResult;
+import model.Appointment;
+import model.AvailabilityTemplate;
+import model.DaySchedule;
+import model.ScheduleConflict;
+import model.ScheduleEntry;
+import repository.AppointmentColumnStore;
+import repository.RecordsRepository;
+
+/**
+ * The DoctorCalendar class owns the appointment slots of one doctor.
+ * Every doctor-side change to those slots is sent to the calendar's mailbox and
+ * run one at a time on a shared pool of worker threads, so changes for the same
+ * doctor never interleave while different doctors proceed in parallel without a
+ * common lock. After each batch of changes the calendar publishes a
+ * {@link Snapshot} that any thread can read without locking. A published snapshot
+ * never changes: the next one is built as a new map of days in which only the days
+ * whose slots changed are replaced, and every other day is shared with the previous
+ * snapshot, since a {@link DaySchedule} is immutable.
+ * The slots are kept in one {@link DaySchedule} per day, with counts by status.
+ * Only the days whose slots changed are rebuilt when a snapshot is published, so
+ * the cost of a change and of reading a day does not grow with the doctor's history.
+ * PENDING requests are also kept in a queue ordered by appointment time and then by
+ * how long the request has waited, so the next request is found in O(log n).
+ */
+public final class DoctorCalendar {
+	/**
+	 * Maximum number of messages handled before the calendar publishes and yields its worker.
+	 */
+	private static final int BATCH_SIZE = 64;
+	/**
+	 * Order of the pending-request queue: soonest appointment first, then oldest request.
+	 */
+	private static final Comparator<ScheduleEntry> PENDING_ORDER = Comparator
+			.comparing(ScheduleEntry::getAppointmentTime)
+			.thenComparing(ScheduleEntry::getUpdatedDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(ScheduleEntry::getAppointmentID);
+
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "hms-doctor-calendar");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	// key value = doctorID
+	private static final Map<String, DoctorCalendar> CALENDARS = new ConcurrentHashMap<>();
+	/**
+	 * Appointments grouped by doctor, built once per load generation so that opening
+	 * a calendar does not scan every appointment record.
+	 */
+	private static volatile SlotIndex slotIndex;
+
+	private final String doctorID;
+	private final Queue<Message<?>> mailbox = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	/**
+	 * Set whenever a slot may have changed since the last published snapshot.
+	 */
+	private volatile boolean stale = true;
+	private volatile Snapshot snapshot;
+	/**
+	 * Record IDs of the slots that changed since the last published snapshot.
+	 * A slot may be queued more than once; moving it again is harmless.
+	 */
+	private final Queue<String> changedSlots = new ConcurrentLinkedQueue<>();
+
+	// Only touched by messages running in the mailbox. key value = appointment recordID
+	private final Map<String, Appointment> slots = new HashMap<>();
+	// key value = appointment recordID; the entry each slot was last published as
+	private final Map<String, ScheduleEntry> publishedEntries = new HashMap<>();
+	// key value = date; the published entries on each day
+	private final Map<LocalDate, Map<String, ScheduleEntry>> entriesByDay = new HashMap<>();
+	private final int[] statusCounts = new int[AppointmentStatus.values().length];
+	// the days of the last published snapshot; never changed, only replaced by a copy
+	private NavigableMap<LocalDate, DaySchedule> days = new TreeMap<>();
+	// the pending requests as they are now; each snapshot gets its own copy
+	private final NavigableSet<ScheduleEntry> pendingRequests = new TreeSet<>(PENDING_ORDER);
+	// the pending requests of the last published snapshot; never changed, only replaced by a copy
+	private NavigableSet<ScheduleEntry> publishedPending = new TreeSet<>(PENDING_ORDER);
+	private int loadGeneration = -1;
+	// only written in the mailbox
+	private volatile RequestWaitStats requestWaitStats = new RequestWaitStats(0, Duration.ZERO, Duration.ZERO);
+
+	/**
+	 * A change waiting in the mailbox and the future that receives its result.
+	 */
+	private static final class Message<T> {
+		private final Supplier<T> action;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+
+		private Message(Supplier<T> action) {
+			this.action = action;
+		}
+
+		/**
+		 * Runs the change and returns the completion to deliver once the new snapshot is published.
+		 */
+		private Runnable run() {
+			try {
+				T result = action.get();
+				return () -> future.complete(result);
+			} catch (RuntimeException e) {
+				return () -> future.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * The appointments of every doctor as they were right after a load.
+	 */
+	private record SlotIndex(int loadGeneration, Map<String, List<Appointment>> slotsByDoctor) {
+	}
+
+	/**
+	 * How long the requests this calendar accepted or declined had waited.
+	 *
+	 * @param handled     the number of requests accepted or declined
+	 * @param totalWait   the sum of their waiting times
+	 * @param longestWait the longest time one of them waited
+	 */
+	public record RequestWaitStats(long handled, Duration totalWait, Duration longestWait) {
+		/**
+		 * Gets the average time a handled request waited.
+		 *
+		 * @return the average wait, or zero if no request was handled
+		 */
+		public Duration averageWait() {
+			return handled == 0 ? Duration.ZERO : totalWait.dividedBy(handled);
+		}
+
+		private RequestWaitStats plus(Duration wait) {
+			return new RequestWaitStats(handled + 1, totalWait.plus(wait),
+					wait.compareTo(longestWait) > 0 ? wait : longestWait);
+		}
+	}
+
+	/**
+	 * View of a doctor's slots, grouped by day and ordered by appointment time.
+	 * Each day is an immutable {@link DaySchedule}, and the snapshot owns its map of
+	 * days and its pending-request queue, so it shows the slots exactly as they were
+	 * when it was published, however long it is kept.
+	 */
+	public static final class Snapshot {
+		private final String doctorID;
+		private final long version;
+		private final int loadGeneration;
+		private final NavigableMap<LocalDate, DaySchedule> days;
+		private final NavigableSet<ScheduleEntry> pendingRequests;
+		private final int[] statusCounts;
+
+		private Snapshot(String doctorID, long version, int loadGeneration, NavigableMap<LocalDate, DaySchedule> days,
+						 NavigableSet<ScheduleEntry> pendingRequests, int[] statusCounts) {
+			this.doctorID = doctorID;
+			this.version = version;
+			this.loadGeneration = loadGeneration;
+			this.days = Collections.unmodifiableNavigableMap(days);
+			this.pendingRequests = Collections.unmodifiableNavigableSet(pendingRequests);
+			this.statusCounts = statusCounts;
+		}
+
+		/**
+		 * Gets the ID of the doctor this snapshot belongs to.
+		 *
+		 * @return the doctor ID
+		 */
+		public String getDoctorID() {
+			return doctorID;
+		}
+
+		/**
+		 * Gets the version of this snapshot; each publish increases it by one.
+		 *
+		 * @return the snapshot version
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * Gets the days on which the doctor has slots.
+		 *
+		 * @return an unmodifiable map of day to schedule, ordered by date
+		 */
+		public NavigableMap<LocalDate, DaySchedule> getDays() {
+			return days;
+		}
+
+		/**
+		 * Gets the doctor's slots on one day.
+		 *
+		 * @param date the day
+		 * @return the day's schedule, or null if the doctor has no slots that day
+		 */
+		public DaySchedule getDay(LocalDate date) {
+			return days.get(date);
+		}
+
+		/**
+		 * Gets the doctor's PENDING requests in the order they should be handled.
+		 *
+		 * @return an unmodifiable set ordered by appointment time, then by request time
+		 */
+		public NavigableSet<ScheduleEntry> getPendingRequests() {
+			return pendingRequests;
+		}
+
+		/**
+		 * Gets every slot of the doctor.
+		 *
+		 * @return the entries ordered by appointment time
+		 */
+		public List<ScheduleEntry> getEntries() {
+			List<ScheduleEntry> entries = new ArrayList<>(getTotal());
+			for (DaySchedule day : days.values()) {
+				entries.addAll(day.getEntries());
+			}
+			return entries;
+		}
+
+		/**
+		 * Gets the slots of the doctor with the given status.
+		 *
+		 * @param status the status to filter by
+		 * @return the matching entries ordered by appointment time
+		 */
+		public List<ScheduleEntry> getEntries(AppointmentStatus status) {
+			return getEntries(null, status);
+		}
+
+		/**
+		 * Gets the slots of the doctor with the given status from a point in time on.
+		 * Days before it are skipped, and days without such slots are passed over by
+		 * their counts without reading their entries.
+		 *
+		 * @param from   the earliest appointment time to include, or null for all
+		 * @param status the status to filter by
+		 * @return the matching entries ordered by appointment time
+		 */
+		public List<ScheduleEntry> getEntries(LocalDateTime from, AppointmentStatus status) {
+			List<ScheduleEntry> matching = new ArrayList<>();
+			if (getCount(status) == 0) {
+				return matching;
+			}
+			Map<LocalDate, DaySchedule> range = from == null ? days : days.tailMap(from.toLocalDate(), true);
+			for (DaySchedule day : range.values()) {
+				for (ScheduleEntry entry : day.getEntries(status)) {
+					if (from == null || !entry.getAppointmentTime().isBefore(from)) {
+						matching.add(entry);
+					}
+				}
+			}
+			return matching;
+		}
+
+		/**
+		 * Gets the number of slots of the doctor with the given status.
+		 *
+		 * @param status the status to count
+		 * @return the number of slots
+		 */
+		public int getCount(AppointmentStatus status) {
+			return statusCounts[status.ordinal()];
+		}
+
+		/**
+		 * Gets the number of slots of the doctor.
+		 *
+		 * @return the number of slots
+		 */
+		public int getTotal() {
+			int total = 0;
+			for (int count : statusCounts) {
+				total += count;
+			}
+			return total;
+		}
+	}
+
+	private DoctorCalendar(String doctorID) {
+		this.doctorID = doctorID;
+		this.snapshot = new Snapshot(doctorID, 0, -1, days, publishedPending, statusCounts.clone());
+	}
+
+	/**
+	 * Gets the calendar of a doctor, creating it on first use.
+	 *
+	 * @param doctorID the ID of the doctor
+	 * @return the doctor's calendar
+	 */
+	public static DoctorCalendar of(String doctorID) {
+		return CALENDARS.computeIfAbsent(doctorID, DoctorCalendar::new);
+	}
+
+	/**
+	 * Tells a doctor's calendar that one of its slots was changed, added or removed
+	 * outside the mailbox, for example by a patient booking it, so a new snapshot
+	 * with that slot's day rebuilt is published.
+	 * Does nothing if the doctor's calendar has not been opened yet.
+	 *
+	 * @param slot the appointment slot that changed
+	 */
+	public static void refresh(Appointment slot) {
+		DoctorCalendar calendar = slot == null || slot.getDoctorID() == null ? null : CALENDARS.get(slot.getDoctorID());
+		if (calendar != null) {
+			calendar.changedSlots.add(slot.getRecordID());
+			calendar.stale = true;
+			calendar.schedule();
+		}
+	}
+
+	/**
+	 * Returns the latest published snapshot of the doctor's slots without waiting for
+	 * changes that are still being published. A caller that needs to see its own
+	 * change waits for the future returned when it submitted the change, which
+	 * completes only after a snapshot including it is published. Only the first read
+	 * after the calendar is opened or the records are reloaded waits, because until
+	 * then there is no snapshot of the current records at all.
+	 *
+	 * @return the current snapshot
+	 */
+	public Snapshot snapshot() {
+		Snapshot current = snapshot;
+		if (current.loadGeneration != RecordsRepository.getLoadGeneration()) {
+			submit(() -> null).join();
+			current = snapshot;
+		}
+		return current;
+	}
+
+	/**
+	 * Runs a change to this doctor's slots in the mailbox, after every change sent
+	 * before it. The future completes once a snapshot including the change is published.
+	 *
+	 * @param action the change to run
+	 * @param <T>    the type of the result
+	 * @return a future completed with the result of the change
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> action) {
+		Message<T> message = new Message<>(action);
+		mailbox.add(message);
+		schedule();
+		return message.future;
+	}
+
+	/**
+	 * Creates a new AVAILABLE slot for the doctor, unless it overlaps another slot of
+	 * the doctor or another appointment at the same location.
+	 *
+	 * @param appointmentTime the date and time of the slot
+	 * @param locationID      the ID of the registered location of the slot
+	 * @return a future completed with the created appointment, or completed
+	 *         exceptionally with an IllegalArgumentException describing the conflict
+	 */
+	public CompletableFuture<Appointment> addAvailableSlot(LocalDateTime appointmentTime, String locationID) {
+		return submit(() -> {
+			String appointmentID = RecordsController.generateRecordIDs(Record.APPOINTMENT_RECORDS, 1).get(0);
+			LocalDateTime now = LocalDateTime.now();
+			Appointment appointment = new Appointment(appointmentID, now, now, RecordStatus.ACTIVE, null, null,
+					doctorID, appointmentTime, null, AppointmentStatus.AVAILABLE, null);
+			appointment.setLocationID(locationID);
+			ScheduleConflict conflict = ScheduleConflictDetector.reserve(appointment);
+			if (conflict != null) {
+				throw new IllegalArgumentException(describe(conflict));
+			}
+			RecordsRepository.APPOINTMENT_RECORDS.put(appointmentID, appointment);
+			slots.put(appointmentID, appointment);
+			changedSlots.add(appointmentID);
+			SlotSearchEngine.slotChanged(appointment);
+			AppointmentColumnStore.slotChanged(appointment);
+			WaitlistController.offerSlot(appointment);
+			return appointment;
+		});
+	}
+
+	/**
+	 * Creates every AVAILABLE slot described by a recurring availability rule in one
+	 * batch. IDs for the whole batch are reserved with a single allocation, and slots
+	 * that overlap another slot of the doctor or another appointment at the same
+	 * location are skipped.
+	 *
+	 * @param template the availability rule to expand
+	 * @return a future completed with the created appointments, in chronological order
+	 */
+	public CompletableFuture<List<Appointment>> addAvailableSlots(AvailabilityTemplate template) {
+		return submit(() -> {
+			List<LocalDateTime> slotTimes = template.generateSlotTimes();
+			List<String> appointmentIDs = RecordsController.generateRecordIDs(Record.APPOINTMENT_RECORDS,
+					slotTimes.size());
+			LocalDateTime now = LocalDateTime.now();
+			List<Appointment> created = new ArrayList<>(slotTimes.size());
+			Map<String, Appointment> batch = new HashMap<>();
+			for (int i = 0; i < slotTimes.size(); i++) {
+				Appointment appointment = new Appointment(appointmentIDs.get(i), now, now, RecordStatus.ACTIVE,
+						null, null, doctorID, slotTimes.get(i), null, AppointmentStatus.AVAILABLE,
+						null, template.getSlotLengthMinutes());
+				appointment.setLocationID(template.getLocationID());
+				if (ScheduleConflictDetector.reserve(appointment) != null) {
+					continue;
+				}
+				created.add(appointment);
+				batch.put(appointment.getRecordID(), appointment);
+			}
+			RecordsRepository.APPOINTMENT_RECORDS.putAll(batch);
+			slots.putAll(batch);
+			changedSlots.addAll(batch.keySet());
+			SlotSearchEngine.slotsChanged(created);
+			AppointmentColumnStore.slotsChanged(created);
+			for (Appointment appointment : created) {
+				WaitlistController.offerSlot(appointment);
+			}
+			return created;
+		});
+	}
+
+	/**
+	 * Accepts a PENDING appointment request.
+	 *
+	 * @param appointmentID the record ID of the appointment
+	 * @return a future completed with the result of the transition
+	 */
+	public CompletableFuture<SlotTransitionResult> confirm(String appointmentID) {
+		return submit(() -> handleRequest(appointmentID, true));
+	}
+
+	/**
+	 * Accepts several PENDING appointment requests as one change, so they are
+	 * published together and can be saved with a single write.
+	 *
+	 * @param appointmentIDs the record IDs of the appointments
+	 * @return a future completed with the result of each transition, in the given order
+	 */
+	public CompletableFuture<Map<String, SlotTransitionResult>> confirmAll(Collection<String> appointmentIDs) {
+		return submit(() -> handleRequests(appointmentIDs, true));
+	}
+
+	/**
+	 * Declines a PENDING appointment request.
+	 *
+	 * @param appointmentID the record ID of the appointment
+	 * @return a future completed with the result of the transition
+	 */
+	public CompletableFuture<SlotTransitionResult> decline(String appointmentID) {
+		return submit(() -> handleRequest(appointmentID, false));
+	}
+
+	/**
+	 * Declines several PENDING appointment requests as one change, so they are
+	 * published together and can be saved with a single write.
+	 *
+	 * @param appointmentIDs the record IDs of the appointments
+	 * @return a future completed with the result of each transition, in the given order
+	 */
+	public CompletableFuture<Map<String, SlotTransitionResult>> declineAll(Collection<String> appointmentIDs) {
+		return submit(() -> handleRequests(appointmentIDs, false));
+	}
+
+	/**
+	 * Gets how long the requests accepted or declined through this calendar had waited.
+	 *
+	 * @return the waiting-time statistics
+	 */
+	public RequestWaitStats getRequestWaitStats() {
+		return requestWaitStats;
+	}
+
+	/**
+	 * Links an appointment outcome record to one of the doctor's appointments.
+	 *
+	 * @param appointmentID              the record ID of the appointment
+	 * @param appointmentOutcomeRecordID the ID of the outcome record
+	 * @return a future completed with true if the appointment was found
+	 */
+	public CompletableFuture<Boolean> linkOutcomeRecord(String appointmentID, String appointmentOutcomeRecordID) {
+		return submit(() -> {
+			Appointment slot = slots.get(appointmentID);
+			if (slot == null) {
+				return false;
+			}
+			slot.setAppointmentOutcomeRecordID(appointmentOutcomeRecordID);
+			changedSlots.add(appointmentID);
+			return true;
+		});
+	}
+
+	/**
+	 * Accepts or declines one request in the mailbox and records how long it waited.
+	 */
+	private SlotTransitionResult handleRequest(String appointmentID, boolean accept) {
+		Appointment slot = slots.get(appointmentID);
+		if (slot == null) {
+			return SlotTransitionResult.INVALID_STATE;
+		}
+		LocalDateTime requestedAt = slot.getUpdatedDate();
+		SlotTransitionResult result = accept ? AppointmentController.confirmAppointment(slot)
+				: AppointmentController.declineAppointment(slot);
+		if (result == SlotTransitionResult.SUCCESS && requestedAt != null) {
+			Duration wait = Duration.between(requestedAt, LocalDateTime.now());
+			requestWaitStats = requestWaitStats.plus(wait.isNegative() ? Duration.ZERO : wait);
+		}
+		return result;
+	}
+
+	private Map<String, SlotTransitionResult> handleRequests(Collection<String> appointmentIDs, boolean accept) {
+		Map<String, SlotTransitionResult> results = new LinkedHashMap<>();
+		for (String appointmentID : appointmentIDs) {
+			results.put(appointmentID, handleRequest(appointmentID, accept));
+		}
+		return results;
+	}
+
+	/**
+	 * Describes a conflict for the doctor creating the slot.
+	 */
+	private static String describe(ScheduleConflict conflict) {
+		Appointment existing = conflict.getExisting();
+		return String.format("%s It overlaps appointment %s (%s, %s to %s, %s).",
+				conflict.getConflictType().getMessage(), existing.getRecordID(), existing.getDoctorID(),
+				existing.getAppointmentTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+				existing.getEndTime().format(DateTimeFormatter.ofPattern("HH:mm")), existing.getLocation());
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) {
+			WORKERS.execute(this::drain);
+		}
+	}
+
+	/**
+	 * Runs up to one batch of messages, publishes a new snapshot if anything changed,
+	 * and then completes the futures of the messages that ran.
+	 */
+	private void drain() {
+		List<Runnable> completions = new ArrayList<>();
+		try {
+			if (loadGeneration != RecordsRepository.getLoadGeneration()) {
+				reload();
+			}
+			Message<?> message;
+			while (completions.size() < BATCH_SIZE && (message = mailbox.poll()) != null) {
+				completions.add(message.run());
+				stale = true;
+			}
+			if (stale) {
+				// cleared first, so a refresh that arrives while publishing schedules another pass
+				stale = false;
+				publish();
+			}
+		} finally {
+			completions.forEach(Runnable::run);
+			scheduled.set(false);
+			if (!mailbox.isEmpty() || stale) {
+				schedule();
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the owned slots after the records were loaded from disk.
+	 */
+	private void reload() {
+		slots.clear();
+		publishedEntries.clear();
+		entriesByDay.clear();
+		Arrays.fill(statusCounts, 0);
+		days = new TreeMap<>();
+		pendingRequests.clear();
+		publishedPending = new TreeSet<>(PENDING_ORDER);
+		loadGeneration = RecordsRepository.getLoadGeneration();
+		for (Appointment appointment : getSlotIndex(loadGeneration).slotsByDoctor()
+				.getOrDefault(doctorID, List.of())) {
+			slots.put(appointment.getRecordID(), appointment);
+			changedSlots.add(appointment.getRecordID());
+		}
+		stale = true;
+	}
+
+	/**
+	 * Returns the index of appointments by doctor for a load generation, building it
+	 * with a single scan of the appointment records the first time it is needed.
+	 */
+	private static SlotIndex getSlotIndex(int generation) {
+		SlotIndex index = slotIndex;
+		if (index != null && index.loadGeneration() == generation) {
+			return index;
+		}
+		synchronized (DoctorCalendar.class) {
+			index = slotIndex;
+			if (index == null || index.loadGeneration() != generation) {
+				Map<String, List<Appointment>> slotsByDoctor = new HashMap<>();
+				for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+					if (appointment.getDoctorID() != null) {
+						slotsByDoctor.computeIfAbsent(appointment.getDoctorID(), id -> new ArrayList<>()).add(appointment);
+					}
+				}
+				index = new SlotIndex(generation, slotsByDoctor);
+				slotIndex = index;
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Moves every changed slot to the day it now belongs to, rebuilds only the days
+	 * that changed, and publishes a new snapshot. The snapshot gets a new map of days
+	 * that shares the unchanged days with the previous one, and its own copy of the
+	 * pending requests if they changed. Slots that were deleted from the repository
+	 * are dropped, and slots of this doctor created elsewhere are adopted.
+	 */
+	private void publish() {
+		Set<LocalDate> changedDays = new HashSet<>();
+		boolean pendingChanged = false;
+		String appointmentID;
+		// polled before reading the slot, so a change made after this read queues it again
+		while ((appointmentID = changedSlots.poll()) != null) {
+			Appointment current = RecordsRepository.APPOINTMENT_RECORDS.get(appointmentID);
+			Appointment appointment = slots.get(appointmentID);
+			if (appointment == null && current != null && doctorID.equals(current.getDoctorID())) {
+				appointment = current;
+				slots.put(appointmentID, appointment);
+			} else if (appointment != null && current != appointment) {
+				slots.remove(appointmentID);
+				appointment = null;
+			}
+
+			ScheduleEntry previous = publishedEntries.remove(appointmentID);
+			if (previous != null) {
+				LocalDate day = previous.getAppointmentTime().toLocalDate();
+				Map<String, ScheduleEntry> dayEntries = entriesByDay.get(day);
+				dayEntries.remove(appointmentID);
+				if (dayEntries.isEmpty()) {
+					entriesByDay.remove(day);
+				}
+				statusCounts[previous.getAppointmentStatus().ordinal()]--;
+				if (previous.getAppointmentStatus() == AppointmentStatus.PENDING) {
+					pendingRequests.remove(previous);
+					pendingChanged = true;
+				}
+				changedDays.add(day);
+			}
+			if (appointment != null && appointment.getAppointmentTime() != null) {
+				ScheduleEntry entry = new ScheduleEntry(appointment);
+				LocalDate day = entry.getAppointmentTime().toLocalDate();
+				publishedEntries.put(appointmentID, entry);
+				entriesByDay.computeIfAbsent(day, d -> new HashMap<>()).put(appointmentID, entry);
+				statusCounts[entry.getAppointmentStatus().ordinal()]++;
+				if (entry.getAppointmentStatus() == AppointmentStatus.PENDING) {
+					pendingRequests.add(entry);
+					pendingChanged = true;
+				}
+				changedDays.add(day);
+			}
+		}
+		if (!changedDays.isEmpty()) {
+			NavigableMap<LocalDate, DaySchedule> nextDays = new TreeMap<>(days);
+			for (LocalDate day : changedDays) {
+				Map<String, ScheduleEntry> dayEntries = entriesByDay.get(day);
+				if (dayEntries == null) {
+					nextDays.remove(day);
+				} else {
+					nextDays.put(day, new DaySchedule(day, new ArrayList<>(dayEntries.values())));
+				}
+			}
+			days = nextDays;
+		}
+		if (pendingChanged) {
+			publishedPending = new TreeSet<>(pendingRequests);
+		}
+		snapshot = new Snapshot(doctorID, snapshot.version + 1, loadGeneration, days, publishedPending,
+				statusCounts.clone());
+	}
+}
@@ -2,6 +2,7 @@ package controller;
 
 import model.Doctor;
 import repository.UserRepository;
+import utility.Metrics;
 
 /**
  * The DoctorController class provides methods for retrieving doctor-related information
@@ -10,6 +11,9 @@ import repository.UserRepository;
 
 public class DoctorController {
 
+	private static final Metrics.Timer GET_DOCTOR_BY_ID = Metrics.call("DoctorController.getDoctorById");
+	private static final Metrics.Timer GET_DOCTOR_NAME_BY_ID = Metrics.call("DoctorController.getDoctorNameById");
+
     /**
      * Retrieves a Doctor object based on the provided doctor ID.
      *
@@ -18,11 +22,10 @@ public class DoctorController {
      */
 
 	public static Doctor getDoctorById(String doctorId) {
-		if (UserRepository.isRepoLoad())
-			return UserRepository.DOCTORS.get(doctorId);
-		else
-			return null;
-
+		long started = System.nanoTime();
+		Doctor doctor = UserRepository.isRepoLoad() ? UserRepository.DOCTORS.get(doctorId) : null;
+		GET_DOCTOR_BY_ID.record(started, 0, doctorId);
+		return doctor;
 	}
 
     /**
@@ -33,8 +36,11 @@ public class DoctorController {
      */
 
 	public static String getDoctorNameById(String doctorId) {
+		long started = System.nanoTime();
 		Doctor doctor = getDoctorById(doctorId);
-		return doctor != null ? doctor.getFullName() : "Unknown Doctor";
+		String name = doctor != null ? doctor.getFullName() : "Unknown Doctor";
+		GET_DOCTOR_NAME_BY_ID.record(started, 0, doctorId);
+		return name;
 	}
 
 }
@@ -0,0 +1,299 @@
+package controller;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import enums.AppointmentStatus;
+import model.Appointment;
+import repository.RecordsRepository;
+import repository.UserRepository;
+import utility.Metrics;
+
+/**
+ * The DoctorLoadBalancer class suggests slots with the doctors who are least busy,
+ * so patients who have no preferred doctor are spread more evenly.
+ * It keeps rolling per-doctor, per-day counters of CONFIRMED, PENDING and COMPLETED
+ * appointments, built once per load of the records and updated by
+ * {@link #slotChanged(Appointment)} whenever an appointment changes. Days older
+ * than the history window (28 days by default, -Dhms.recommender.historyDays) are
+ * dropped as time moves on. A recommendation looks at the first few free slots of
+ * each doctor and ranks them by the doctor's load on that day and in the week up
+ * to it, and by how long the patient would have to wait, so it costs
+ * O(doctors) rather than O(appointments).
+ */
+public final class DoctorLoadBalancer {
+	private static final int HISTORY_DAYS = Integer.getInteger("hms.recommender.historyDays", 28);
+	private static final int SLOTS_PER_DOCTOR = Integer.getInteger("hms.recommender.slotsPerDoctor", 3);
+	/**
+	 * Score added for each appointment the doctor already has on the slot's day.
+	 */
+	private static final int DAY_WEIGHT = Integer.getInteger("hms.recommender.dayWeight", 4);
+	/**
+	 * Score added for each appointment the doctor has in the seven days up to the slot's day.
+	 */
+	private static final int WEEK_WEIGHT = Integer.getInteger("hms.recommender.weekWeight", 1);
+	/**
+	 * Hours of waiting that weigh as much as one appointment in the week.
+	 */
+	private static final int WAIT_HOURS_PER_POINT = Integer.getInteger("hms.recommender.waitHoursPerPoint", 24);
+	private static final Metrics.Timer RECOMMEND = Metrics.call("DoctorLoadBalancer.recommend");
+
+	private static final int CONFIRMED = 0;
+	private static final int PENDING = 1;
+	private static final int COMPLETED = 2;
+
+	// Guarded by the class lock. key value = doctorID, then epoch day; value = count per counted status
+	private static final Map<String, Map<Long, int[]>> COUNTERS = new HashMap<>();
+	// key value = appointment recordID; where each counted appointment was last counted
+	private static final Map<String, Counted> COUNTED = new HashMap<>();
+	private static int loadGeneration = -1;
+	private static long oldestDay = Long.MIN_VALUE;
+
+	/**
+	 * The doctor, day and status an appointment is counted under.
+	 */
+	private record Counted(String doctorID, long epochDay, int status) {
+	}
+
+	/**
+	 * A doctor's CONFIRMED, PENDING and COMPLETED appointments over a range of days.
+	 *
+	 * @param confirmed the number of CONFIRMED appointments
+	 * @param pending   the number of PENDING requests
+	 * @param completed the number of COMPLETED appointments
+	 */
+	public record DoctorLoad(int confirmed, int pending, int completed) {
+		/**
+		 * Gets the number of appointments counted as load.
+		 *
+		 * @return the sum of the three counts
+		 */
+		public int total() {
+			return confirmed + pending + completed;
+		}
+	}
+
+	/**
+	 * A suggested slot and why it was ranked where it is.
+	 *
+	 * @param slot     the AVAILABLE slot
+	 * @param dayLoad  the doctor's load on the slot's day
+	 * @param weekLoad the doctor's load in the seven days up to and including the slot's day
+	 * @param score    the ranking score; lower is better
+	 */
+	public record Recommendation(Appointment slot, DoctorLoad dayLoad, DoctorLoad weekLoad, double score) {
+	}
+
+	private DoctorLoadBalancer() {
+	}
+
+	/**
+	 * Suggests AVAILABLE slots with the least-loaded doctors, optionally restricted
+	 * to one location or one day of the week.
+	 *
+	 * @param limit     the maximum number of slots to return
+	 * @param from      the earliest appointment time to suggest, or null for now
+	 * @param location  the location to match (case-insensitive), or null for any location
+	 * @param dayOfWeek the day of the week to match, or null for any day
+	 * @return the suggested slots, best first, at most one per doctor
+	 */
+	public static List<Recommendation> recommend(int limit, LocalDateTime from, String location,
+												 DayOfWeek dayOfWeek) {
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		long scanned = 0;
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime start = from == null || from.isBefore(now) ? now : from;
+		Map<String, List<Appointment>> candidates = new HashMap<>();
+		for (String doctorID : new ArrayList<>(UserRepository.DOCTORS.keySet())) {
+			scanned++;
+			List<Appointment> slots = SlotSearchEngine.findEarliestSlots(SLOTS_PER_DOCTOR, start, doctorID, location,
+					dayOfWeek);
+			if (!slots.isEmpty()) {
+				candidates.put(doctorID, slots);
+			}
+		}
+
+		List<Recommendation> ranked = new ArrayList<>(candidates.size());
+		synchronized (DoctorLoadBalancer.class) {
+			ensureCurrent();
+			for (List<Appointment> slots : candidates.values()) {
+				Recommendation best = null;
+				for (Appointment slot : slots) {
+					Recommendation recommendation = score(slot, now);
+					if (best == null || recommendation.score() < best.score()) {
+						best = recommendation;
+					}
+				}
+				ranked.add(best);
+			}
+		}
+		ranked.sort(Comparator.comparingDouble(Recommendation::score)
+				.thenComparing(r -> r.slot().getAppointmentTime())
+				.thenComparing(r -> r.slot().getRecordID()));
+		List<Recommendation> recommendations = ranked.size() > limit
+				? new ArrayList<>(ranked.subList(0, Math.max(limit, 0))) : ranked;
+		RECOMMEND.record(started, scanned, limit, from, location);
+		event.complete(RECOMMEND, scanned, recommendations.size());
+		return recommendations;
+	}
+
+	/**
+	 * Gets a doctor's load on one day.
+	 *
+	 * @param doctorID the ID of the doctor
+	 * @param date     the day
+	 * @return the doctor's counts for the day
+	 */
+	public static synchronized DoctorLoad getDayLoad(String doctorID, LocalDate date) {
+		ensureCurrent();
+		return load(doctorID, date.toEpochDay(), 1);
+	}
+
+	/**
+	 * Gets a doctor's load in the seven days up to and including one day.
+	 *
+	 * @param doctorID the ID of the doctor
+	 * @param date     the last day of the week
+	 * @return the doctor's counts for the week
+	 */
+	public static synchronized DoctorLoad getWeekLoad(String doctorID, LocalDate date) {
+		ensureCurrent();
+		return load(doctorID, date.toEpochDay(), 7);
+	}
+
+	/**
+	 * Moves an appointment to the counter matching its current doctor, day and
+	 * status. Call this after an appointment is booked, confirmed, completed,
+	 * cancelled or deleted.
+	 *
+	 * @param appointment the appointment that changed
+	 */
+	public static synchronized void slotChanged(Appointment appointment) {
+		if (appointment == null || loadGeneration != RecordsRepository.getLoadGeneration()) {
+			// a rebuild on the next read picks the change up
+			return;
+		}
+		roll();
+		Counted now = countedAs(appointment);
+		Counted before = now == null ? COUNTED.remove(appointment.getRecordID())
+				: COUNTED.put(appointment.getRecordID(), now);
+		if (before != null) {
+			add(before, -1);
+		}
+		if (now != null) {
+			add(now, 1);
+		}
+	}
+
+	/**
+	 * Rebuilds the counters if the records were reloaded and drops the days that
+	 * left the history window since the last call.
+	 */
+	private static void ensureCurrent() {
+		int generation = RecordsRepository.getLoadGeneration();
+		if (loadGeneration != generation) {
+			COUNTERS.clear();
+			COUNTED.clear();
+			oldestDay = LocalDate.now().toEpochDay() - HISTORY_DAYS;
+			for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+				Counted counted = countedAs(appointment);
+				if (counted != null) {
+					COUNTED.put(appointment.getRecordID(), counted);
+					add(counted, 1);
+				}
+			}
+			loadGeneration = generation;
+		}
+		roll();
+	}
+
+	/**
+	 * Drops the counters of days that left the history window. Runs at most once a day.
+	 */
+	private static void roll() {
+		long oldest = LocalDate.now().toEpochDay() - HISTORY_DAYS;
+		if (oldest <= oldestDay) {
+			return;
+		}
+		oldestDay = oldest;
+		for (Map<Long, int[]> days : COUNTERS.values()) {
+			days.keySet().removeIf(day -> day < oldest);
+		}
+		COUNTERS.values().removeIf(Map::isEmpty);
+		for (Iterator<Counted> it = COUNTED.values().iterator(); it.hasNext(); ) {
+			if (it.next().epochDay() < oldest) {
+				it.remove();
+			}
+		}
+	}
+
+	private static Recommendation score(Appointment slot, LocalDateTime now) {
+		long day = slot.getAppointmentTime().toLocalDate().toEpochDay();
+		DoctorLoad dayLoad = load(slot.getDoctorID(), day, 1);
+		DoctorLoad weekLoad = load(slot.getDoctorID(), day, 7);
+		double waitHours = Math.max(0, Duration.between(now, slot.getAppointmentTime()).toMinutes()) / 60.0;
+		double score = dayLoad.total() * DAY_WEIGHT + weekLoad.total() * WEEK_WEIGHT
+				+ waitHours / WAIT_HOURS_PER_POINT;
+		return new Recommendation(slot, dayLoad, weekLoad, score);
+	}
+
+	private static DoctorLoad load(String doctorID, long lastDay, int days) {
+		Map<Long, int[]> counters = COUNTERS.get(doctorID);
+		int[] sum = new int[3];
+		if (counters != null) {
+			for (long day = lastDay - days + 1; day <= lastDay; day++) {
+				int[] counts = counters.get(day);
+				if (counts != null) {
+					sum[CONFIRMED] += counts[CONFIRMED];
+					sum[PENDING] += counts[PENDING];
+					sum[COMPLETED] += counts[COMPLETED];
+				}
+			}
+		}
+		return new DoctorLoad(sum[CONFIRMED], sum[PENDING], sum[COMPLETED]);
+	}
+
+	private static void add(Counted counted, int delta) {
+		Map<Long, int[]> days = COUNTERS.computeIfAbsent(counted.doctorID(), id -> new HashMap<>());
+		int[] counts = days.computeIfAbsent(counted.epochDay(), day -> new int[3]);
+		counts[counted.status()] += delta;
+		if (counts[CONFIRMED] == 0 && counts[PENDING] == 0 && counts[COMPLETED] == 0) {
+			days.remove(counted.epochDay());
+		}
+	}
+
+	/**
+	 * Returns where an appointment is counted, or null if it is not counted: it is
+	 * not in the records, has no doctor or time, is older than the history window,
+	 * or has a status that is not load.
+	 */
+	private static Counted countedAs(Appointment appointment) {
+		if (appointment.getDoctorID() == null || appointment.getAppointmentTime() == null
+				|| RecordsRepository.APPOINTMENT_RECORDS.get(appointment.getRecordID()) != appointment) {
+			return null;
+		}
+		long day = appointment.getAppointmentTime().toLocalDate().toEpochDay();
+		if (day < oldestDay) {
+			return null;
+		}
+		AppointmentStatus status = appointment.getAppointmentStatus();
+		if (status == AppointmentStatus.CONFIRMED) {
+			return new Counted(appointment.getDoctorID(), day, CONFIRMED);
+		} else if (status == AppointmentStatus.PENDING) {
+			return new Counted(appointment.getDoctorID(), day, PENDING);
+		} else if (status == AppointmentStatus.COMPLETED) {
+			return new Counted(appointment.getDoctorID(), day, COMPLETED);
+		}
+		return null;
+	}
+}
@@ -2,6 +2,8 @@ package controller;
 
 import model.Medicine;
 import repository.MedicineRepository;
+import repository.PersistenceExecutor;
+import utility.Metrics;
 
 /**
  * The MedicineController class that provides methods to access and retrieve information regarding medicine
@@ -10,6 +12,14 @@ import repository.MedicineRepository;
 
 public class MedicineController {
 
+    private static final Metrics.Timer GET_NEXT_MEDICINE_ID = Metrics.call("MedicineController.getNextMedicineID");
+    private static final Metrics.Timer ADD_MEDICINE = Metrics.call("MedicineController.addMedicine");
+    private static final Metrics.Timer UPDATE_MEDICINE = Metrics.call("MedicineController.updateMedicine");
+    private static final Metrics.Timer REMOVE_MEDICINE = Metrics.call("MedicineController.removeMedicine");
+    private static final Metrics.Timer GET_MEDICINE_BY_UID = Metrics.call("MedicineController.getMedicineByUID");
+    private static final Metrics.Timer LIST_ALL_MEDICINES = Metrics.call("MedicineController.listAllMedicines");
+    private static final Metrics.Timer GET_MEDICINE_BY_NAME = Metrics.call("MedicineController.getMedicineByName");
+
 
     /**
      * Method used to generate a new Medicine ID
@@ -39,17 +49,27 @@ public class MedicineController {
     }
     // Public method to expose the ID generation functionality
     public static String getNextMedicineID() {
-        return generateNextMedicineID(); // Call the private method
+        long started = System.nanoTime();
+        String medicineID = generateNextMedicineID(); // Call the private method
+        GET_NEXT_MEDICINE_ID.record(started);
+        return medicineID;
     }
     /**
      * Adds a new medicine to the repository.
      * Validates the medicine data before adding it to the repository.
-     * Saves the updated repository to a CSV file after a successful addition.
+     * Queues the updated repository to be saved to a CSV file in the background after a successful addition.
      *
      * @param medicine The {@link Medicine} object to be added.
      * @return {@code true} if the medicine is successfully added; {@code false} otherwise.
      */
     public static boolean addMedicine(Medicine medicine) {
+        long started = System.nanoTime();
+        boolean added = add(medicine);
+        ADD_MEDICINE.record(started, 0, medicine);
+        return added;
+    }
+
+    private static boolean add(Medicine medicine) {
         if (medicine == null || medicine.getName() == null) {
             System.out.println("Error: Invalid medicine data.");
             return false;
@@ -61,7 +81,7 @@ public class MedicineController {
         medicine.setMedicineID(nextMedicineID);
 
         MedicineRepository.MEDICINES.put(medicine.getMedicineID(), medicine);
-        MedicineRepository.saveAllMedicinesToCSV();
+        MedicineRepository.saveAllMedicinesToCSVAsync().thenAccept(PersistenceExecutor::reportFailure);
         System.out.println("Medicine added: " + medicine.getName());
         return true;
     }
@@ -69,13 +89,20 @@ public class MedicineController {
     /**
      * Updates an existing medicine in the repository.
      * Validates the provided medicine ID and updated medicine data before updating.
-     * Saves the updated repository to a CSV file after a successful update.
+     * Queues the updated repository to be saved to a CSV file in the background after a successful update.
      *
      * @param medicineID      The ID of the medicine to update.
      * @param updatedMedicine The {@link Medicine} object with updated data.
      * @return {@code true} if the medicine is successfully updated; {@code false} otherwise.
      */
     public static boolean updateMedicine(String medicineID, Medicine updatedMedicine) {
+        long started = System.nanoTime();
+        boolean updated = update(medicineID, updatedMedicine);
+        UPDATE_MEDICINE.record(started, 0, medicineID, updatedMedicine);
+        return updated;
+    }
+
+    private static boolean update(String medicineID, Medicine updatedMedicine) {
         if (medicineID == null || medicineID.isEmpty() || updatedMedicine == null) {
             System.out.println("Error: Invalid update request.");
             return false;
@@ -83,7 +110,7 @@ public class MedicineController {
 
         if (MedicineRepository.MEDICINES.containsKey(medicineID)) {
             MedicineRepository.MEDICINES.put(medicineID, updatedMedicine);
-            MedicineRepository.saveAllMedicinesToCSV();
+            MedicineRepository.saveAllMedicinesToCSVAsync().thenAccept(PersistenceExecutor::reportFailure);
             System.out.println("Medicine updated: " + updatedMedicine.getName());
             return true;
         } else {
@@ -95,12 +122,19 @@ public class MedicineController {
     /**
      * Removes a medicine from the repository by its ID.
      * Validates the medicine ID before attempting the removal.
-     * Saves the updated repository to a CSV file after a successful removal.
+     * Queues the updated repository to be saved to a CSV file in the background after a successful removal.
      *
      * @param medicineID The ID of the medicine to remove.
      * @return {@code true} if the medicine is successfully removed; {@code false} otherwise.
      */
     public static boolean removeMedicine(String medicineID) {
+        long started = System.nanoTime();
+        boolean removed = remove(medicineID);
+        REMOVE_MEDICINE.record(started, 0, medicineID);
+        return removed;
+    }
+
+    private static boolean remove(String medicineID) {
         if (medicineID == null || medicineID.isEmpty()) {
             System.out.println("Error: Invalid medicine ID.");
             return false;
@@ -108,7 +142,7 @@ public class MedicineController {
 
         Medicine removedMedicine = MedicineRepository.MEDICINES.remove(medicineID);
         if (removedMedicine != null) {
-            MedicineRepository.saveAllMedicinesToCSV();
+            MedicineRepository.saveAllMedicinesToCSVAsync().thenAccept(PersistenceExecutor::reportFailure);
             System.out.println("Medicine removed: " + removedMedicine.getName());
             return true;
         } else {
@@ -125,6 +159,13 @@ public class MedicineController {
      * @return The {@link Medicine} object if found; {@code null} otherwise.
      */
     public static Medicine getMedicineByUID(String medicineID) {
+        long started = System.nanoTime();
+        Medicine medicine = findMedicine(medicineID);
+        GET_MEDICINE_BY_UID.record(started, 0, medicineID);
+        return medicine;
+    }
+
+    private static Medicine findMedicine(String medicineID) {
         if (medicineID == null || medicineID.isEmpty()) {
             System.out.println("Error: Invalid medicine ID.");
             return null;
@@ -143,13 +184,17 @@ public class MedicineController {
      * List all medicines in the repository.
      */
     public static void listAllMedicines() {
+        long started = System.nanoTime();
+        long scanned = 0;
         if (MedicineRepository.MEDICINES.isEmpty()) {
             System.out.println("No medicines available.");
+            LIST_ALL_MEDICINES.record(started, scanned);
             return;
         }
 
         System.out.println("Listing all medicines:");
         for (Medicine medicine : MedicineRepository.MEDICINES.values()) {
+            scanned++;
             System.out.println("UID: " + medicine.getMedicineID());
             System.out.println("Name: " + medicine.getName());
             System.out.println("Manufacturer: " + medicine.getManufacturer());
@@ -161,6 +206,7 @@ public class MedicineController {
             System.out.println("Approved Date: " + medicine.getApprovedDate());
             System.out.println();
         }
+        LIST_ALL_MEDICINES.record(started, scanned);
     }
     /**
      * Retrieves a medicine from the repository by its name.
@@ -170,20 +216,29 @@ public class MedicineController {
      * @return The {@link Medicine} object if found; {@code null} otherwise.
      */
     public static Medicine getMedicineByName(String medicineName) {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        long started = System.nanoTime();
+        long scanned = 0;
+        Medicine found = null;
         if (medicineName == null || medicineName.isEmpty()) {
             System.out.println("Error: Invalid medicine name.");
-            return null;
-        }
-
-        for (Medicine medicine : MedicineRepository.MEDICINES.values()) {
-            if (medicineName.equalsIgnoreCase(medicine.getName())) {
-                System.out.println("Medicine found: " + medicine.getName());
-                return medicine;
+        } else {
+            for (Medicine medicine : MedicineRepository.MEDICINES.values()) {
+                scanned++;
+                if (medicineName.equalsIgnoreCase(medicine.getName())) {
+                    System.out.println("Medicine found: " + medicine.getName());
+                    found = medicine;
+                    break;
+                }
+            }
+            if (found == null) {
+                System.out.println("Error: Medicine not found with name: " + medicineName);
             }
         }
-
-        System.out.println("Error: Medicine not found with name: " + medicineName);
-        return null;
+        GET_MEDICINE_BY_NAME.record(started, scanned, medicineName);
+        event.complete(GET_MEDICINE_BY_NAME, scanned, found == null ? 0 : 1);
+        return found;
     }
 
 }
@@ -2,6 +2,7 @@ package controller;
 
 import model.Patient;
 import repository.UserRepository;
+import utility.Metrics;
 
 /**
  * The PatientController class that provides methods to access and retrieve patient-related information
@@ -10,6 +11,10 @@ import repository.UserRepository;
 
 public class PatientController {
 
+	private static final Metrics.Timer GET_PATIENT_BY_ID = Metrics.call("PatientController.getPatientById");
+	private static final Metrics.Timer GET_PATIENT_NAME_BY_ID = Metrics.call("PatientController.getPatientNameById");
+	private static final Metrics.Timer GET_PATIENT_INFO_BY_ID = Metrics.call("PatientController.getPatientInfoById");
+
     /**
      * Retrieves a Patient object based on the provided patient ID.
      *
@@ -18,7 +23,10 @@ public class PatientController {
      */
 
 	public static Patient getPatientById(String patientId) {
-		return UserRepository.PATIENTS.get(patientId);
+		long started = System.nanoTime();
+		Patient patient = UserRepository.PATIENTS.get(patientId);
+		GET_PATIENT_BY_ID.record(started, 0, patientId);
+		return patient;
 	}
 
     /**
@@ -29,8 +37,11 @@ public class PatientController {
      */
 
 	public static String getPatientNameById(String patientId) {
+		long started = System.nanoTime();
 		Patient patient = getPatientById(patientId);
-		return patient != null ? patient.getFullName() : "Unknown patient";
+		String name = patient != null ? patient.getFullName() : "Unknown patient";
+		GET_PATIENT_NAME_BY_ID.record(started, 0, patientId);
+		return name;
 	}
 
     /**
@@ -41,11 +52,13 @@ public class PatientController {
      */
 
 	public static String getPatientInfoById(String patientId) {
+		long started = System.nanoTime();
 		Patient patient = getPatientById(patientId);
 
+		String info = "Unknown patient";
 		if (patient != null) {
 			// Using String concatenation instead of StringBuilder
-			String info = "Patient Information:\n";
+			info = "Patient Information:\n";
 			info += "UID: " + patient.getUID() + "\n";
 			info += "Full Name: " + patient.getFullName() + "\n";
 			info += "Username: " + patient.getUsername() + "\n";
@@ -56,11 +69,9 @@ public class PatientController {
 			info += "Role: " + patient.getRole() + "\n";
 			info += "Allergies: " + patient.getAllergies() + "\n";
 			info += "Date of Admission: " + patient.getDateOfAdmission() + "\n";
-
-			return info;
-		} else {
-			return "Unknown patient";
 		}
+		GET_PATIENT_INFO_BY_ID.record(started, 0, patientId);
+		return info;
 	}
 
 
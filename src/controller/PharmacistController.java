@@ -4,6 +4,7 @@ import model.Pharmacist;
 import repository.AppointmentOutcomeRecordRepository;
 import repository.UserRepository;
 import repository.PrescribedMedicationRepository;
+import utility.Metrics;
 
 /**
  * The PharmacistController class that provides methods to access and retrieve pharmacist-related information
@@ -12,6 +13,12 @@ import repository.PrescribedMedicationRepository;
 
 public class PharmacistController{
 
+    private static final Metrics.Timer GET_PHARMACIST_BY_ID = Metrics.call("PharmacistController.getPharmacistById");
+    private static final Metrics.Timer GET_PHARMACIST_NAME_BY_ID = Metrics
+            .call("PharmacistController.getPharmacistNameById");
+    private static final Metrics.Timer UPDATE_PRESCRIBED_MEDICATION_REPOSITORY = Metrics
+            .call("PharmacistController.updatePrescribedMedicationRepository");
+
     /**
      * Retrieves a Pharmacist object based on the provided pharmacist ID.
      *
@@ -20,11 +27,10 @@ public class PharmacistController{
      */
 
     public static Pharmacist getPharmacistById(String pharmacistId) {
-        if (UserRepository.isRepoLoad())
-            return UserRepository.PHARMACISTS.get(pharmacistId);
-        else
-            return null;
-
+        long started = System.nanoTime();
+        Pharmacist pharmacist = UserRepository.isRepoLoad() ? UserRepository.PHARMACISTS.get(pharmacistId) : null;
+        GET_PHARMACIST_BY_ID.record(started, 0, pharmacistId);
+        return pharmacist;
     }
 
     /**
@@ -35,16 +41,21 @@ public class PharmacistController{
      */
 
     public static String getPharmacistNameById(String pharmacistId) {
+        long started = System.nanoTime();
         Pharmacist pharmacist = getPharmacistById(pharmacistId);
-        return pharmacist != null ? pharmacist.getFullName() : "Unknown Pharmacist";
+        String name = pharmacist != null ? pharmacist.getFullName() : "Unknown Pharmacist";
+        GET_PHARMACIST_NAME_BY_ID.record(started, 0, pharmacistId);
+        return name;
     }
 
     /**
      * method to update the prescribed Medication Repository
      */
     public static void updatePrescribedMedicationRepository() {
+        long started = System.nanoTime();
         PrescribedMedicationRepository.saveAlltoCSV();
         AppointmentOutcomeRecordRepository.saveAppointmentOutcomeRecordRepository();
+        UPDATE_PRESCRIBED_MEDICATION_REPOSITORY.record(started);
     }
 
 }
\ No newline at end of file
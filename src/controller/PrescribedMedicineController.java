@@ -3,16 +3,23 @@ package controller;
 import enums.Record;
 import model.PrescribedMedication;
 import repository.PrescribedMedicationRepository;
+import utility.Metrics;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * The PrescribedMedicineController class that provides methods to access and retrieve information regarding prescribed medications
  * from the PrescribedMedicationRepository.
  */
 public class PrescribedMedicineController {
+    private static final Metrics.Timer GENERATE_RECORD_ID = Metrics
+            .call("PrescribedMedicineController.generateRecordID");
+
     public static String generateRecordID(Record recType) {
+        long started = System.nanoTime();
+        long scanned = 0;
         String prefix = "";
         int nextId = 0;
         // Set the prefix based on the record type
@@ -30,6 +37,7 @@ public class PrescribedMedicineController {
                 HashMap<String, ArrayList<PrescribedMedication>> prescribedRepo = PrescribedMedicationRepository.diagnosisToMedicationsMap;
                 for (ArrayList<PrescribedMedication> records : prescribedRepo.values()) {
                     for (PrescribedMedication record : records) {
+                        scanned++;
                         String id = record.getPrescribedMedID();
                         if (id.startsWith(prefix)) {
                             try {
@@ -49,7 +57,25 @@ public class PrescribedMedicineController {
                 break;
         }
 
+        // Skip IDs reserved by generateRecordIDs but not stored yet
+        nextId = RecordIDAllocator.skipReserved(recType, nextId);
+
+        GENERATE_RECORD_ID.record(started, scanned, recType);
         // Format the next ID with leading zeros (e.g., "AO001")
         return String.format("%s%03d", prefix, nextId);
     }
+
+    /**
+     * Reserves a block of consecutive record IDs with a single scan of the repository,
+     * for callers that create several records before any of them is stored. IDs
+     * reserved by earlier calls are skipped even if those records have not been
+     * stored yet.
+     *
+     * @param recType the type of record
+     * @param count   the number of IDs to reserve
+     * @return the reserved IDs, in ascending order
+     */
+    public static List<String> generateRecordIDs(Record recType, int count) {
+        return RecordIDAllocator.reserve(recType, count, PrescribedMedicineController::generateRecordID);
+    }
 }
@@ -0,0 +1,48 @@
+package controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import utility.Metrics;
+
+/**
+ * JDK Flight Recorder event for a controller query, with how many records it
+ * looked at against how many it returned. A query that scans far more than it
+ * returns is a candidate for an index. See hms.jfc.
+ */
+@Name("hms.Query")
+@Label("Query")
+@Category({"HMS", "Controller"})
+@Description("Controller query over the repositories")
+@StackTrace(false)
+final class QueryEvent extends jdk.jfr.Event {
+    @Label("Query Type")
+    @Description("Controller and method, for example AppointmentController.getConfirmedAppointments")
+    String queryType;
+
+    @Label("Rows Scanned")
+    long scanned;
+
+    @Label("Rows Returned")
+    long returned;
+
+    /**
+     * Ends the event and commits it if the recording wants it.
+     *
+     * @param query    the timer of the query, named after its controller and method
+     * @param scanned  the number of records looked at
+     * @param returned the number of records returned
+     */
+    void complete(Metrics.Timer query, long scanned, long returned) {
+        end();
+        if (shouldCommit()) {
+            this.queryType = query.getName();
+            this.scanned = scanned;
+            this.returned = returned;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import enums.Record;
+import utility.Metrics;
+
+/**
+ * Hands out blocks of record IDs for callers that create several records before
+ * any of them is stored, for every record type. Each controller finds the next
+ * unused ID of its own record types by scanning its repository; the allocator
+ * remembers how far every record type has been reserved, so an ID reserved but not
+ * yet stored is never handed out again, by a later block or by a single ID.
+ */
+final class RecordIDAllocator {
+    private static final Metrics.Timer RESERVE = Metrics.call("RecordIDAllocator.reserve");
+    // key value = record type; the first numeric ID not reserved yet
+    private static final Map<Record, Integer> nextReservedIDs = new EnumMap<>(Record.class);
+
+    private RecordIDAllocator() {
+    }
+
+    /**
+     * Reserves a block of consecutive record IDs with a single scan of the repository.
+     *
+     * @param recType      the type of record
+     * @param count        the number of IDs to reserve
+     * @param nextUnusedID finds the next ID of the record type not used in its repository
+     * @return the reserved IDs, in ascending order, or an empty list if the record type has no IDs
+     */
+    static synchronized List<String> reserve(Record recType, int count, Function<Record, String> nextUnusedID) {
+        long started = System.nanoTime();
+        // already past the IDs reserved before, see skipReserved
+        String first = nextUnusedID.apply(recType);
+        if (first.isEmpty()) {
+            RESERVE.record(started, 0, recType, count);
+            return List.of();
+        }
+        int split = first.lastIndexOf('-') + 1;
+        String prefix = first.substring(0, split);
+        int nextId = Integer.parseInt(first.substring(split));
+        nextReservedIDs.put(recType, nextId + count);
+
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(String.format("%s%03d", prefix, nextId + i));
+        }
+        RESERVE.record(started, 0, recType, count);
+        return ids;
+    }
+
+    /**
+     * Moves a candidate numeric ID past every ID reserved so far for its record type.
+     *
+     * @param recType the type of record
+     * @param nextId  the next numeric ID not used in the repository
+     * @return the next numeric ID that is neither used nor reserved
+     */
+    static synchronized int skipReserved(Record recType, int nextId) {
+        return Math.max(nextId, nextReservedIDs.getOrDefault(recType, 0));
+    }
+}
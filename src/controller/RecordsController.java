@@ -1,6 +1,7 @@
 package controller;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 import enums.Record;
@@ -9,8 +10,10 @@ import java.util.ArrayList;
 
 import enums.RecordStatus;
 import model.*;
+import repository.AppointmentColumnStore;
 import repository.RecordsRepository;
 import repository.AppointmentOutcomeRecordRepository;
+import utility.Metrics;
 /**
  * This Records Controller class  is responsible for managing and handling various records (Medical, Appointment, Payment) in the system.
  * This class provides functionality to generate record IDs, add, update, delete, and retrieve records from the repository.
@@ -18,12 +21,30 @@ import repository.AppointmentOutcomeRecordRepository;
 public class RecordsController {
 
     private static final System.Logger logger = System.getLogger(RecordsController.class.getName());
+    private static final Metrics.Timer GENERATE_RECORD_ID = Metrics.call("RecordsController.generateRecordID");
+    private static final Metrics.Timer CHECK_RECORDS_DUPLICATION = Metrics
+            .call("RecordsController.checkRecordsDuplication");
+    private static final Metrics.Timer ADD_MEDICAL_RECORD = Metrics.call("RecordsController.addMedicalRecord");
+    private static final Metrics.Timer UPDATE_RECORD = Metrics.call("RecordsController.updateRecord");
+    private static final Metrics.Timer DELETE_RECORD = Metrics.call("RecordsController.deleteRecord");
+    private static final Metrics.Timer GET_MEDICAL_RECORDS_BY_PATIENT_ID = Metrics
+            .call("RecordsController.getMedicalRecordsByPatientID");
+    private static final Metrics.Timer GET_MEDICAL_RECORDS_BY_DOCTOR_ID = Metrics
+            .call("RecordsController.getMedicalRecordsByDoctorID");
+    private static final Metrics.Timer GET_MEDICAL_RECORDBY_ID = Metrics.call("RecordsController.getMedicalRecordbyID");
+    private static final Metrics.Timer GET_DIAGNOSIS_RECORDBY_ID = Metrics
+            .call("RecordsController.getDiagnosisRecordbyID");
+    private static final Metrics.Timer GET_PAYMENT_RECORDBY_ID = Metrics.call("RecordsController.getPaymentRecordbyID");
+    private static final Metrics.Timer GET_APPOINTMENT_OUTCOME_RECORD_BY_PATIENT_ID = Metrics
+            .call("RecordsController.getAppointmentOutcomeRecordByPatientId");
     /**
      * Generates a unique record ID based on the record type.
      * @param recType the type of record (Appointment, Payment, or Medical)
      * @return a unique record ID as a string
      */
     public static String generateRecordID(Record recType) {
+        long started = System.nanoTime();
+        long scanned = 0;
         String prefix = "";
         int nextId = 0;
         Map<String, ? extends Records> repository = null;
@@ -41,11 +62,13 @@ public class RecordsController {
                 repository = RecordsRepository.MEDICAL_RECORDS;
                 break;
             default:
+                GENERATE_RECORD_ID.record(started, scanned, recType);
                 return "";  // Return an empty string for unrecognized types
         }
         // Find the highest ID currently in the repository
         if (repository != null && !repository.isEmpty()) {
             for (String id : repository.keySet()) {
+                scanned++;
                 if (id.startsWith(prefix)) {
                     try {
                         // Extract the numeric part after the prefix and parse it
@@ -59,9 +82,25 @@ public class RecordsController {
             }
         }
 
-        // Format the next ID with leading zeros (e.g., "A001", "MR002")
-        return String.format("%s%03d", prefix, nextId);
+        // Never reuse the ID of a record that was archived, or one reserved by generateRecordIDs
+        nextId = Math.max(nextId, RecordsRepository.getRetiredIDHighWater(prefix));
+        nextId = RecordIDAllocator.skipReserved(recType, nextId);
 
+        // Format the next ID with leading zeros (e.g., "A001", "MR002")
+        String id = String.format("%s%03d", prefix, nextId);
+        GENERATE_RECORD_ID.record(started, scanned, recType);
+        return id;
+    }
+    /**
+     * Reserves a block of consecutive record IDs with a single scan of the repository,
+     * for callers that create many records at once. IDs reserved by earlier calls are
+     * skipped even if those records have not been stored yet.
+     * @param recType the type of record (Appointment, Payment, or Medical)
+     * @param count the number of IDs to reserve
+     * @return the reserved IDs, in ascending order
+     */
+    public static List<String> generateRecordIDs(Record recType, int count) {
+        return RecordIDAllocator.reserve(recType, count, RecordsController::generateRecordID);
     }
     /**
      * Checks if a record of the specified type already exists for a given UID.
@@ -70,6 +109,13 @@ public class RecordsController {
      * @return true if a record exists for the given UID, otherwise false
      */
     public Boolean checkRecordsDuplication(String UID, Record recType) {
+        long started = System.nanoTime();
+        Boolean duplicated = isRecorded(UID, recType);
+        CHECK_RECORDS_DUPLICATION.record(started, 0, UID, recType);
+        return duplicated;
+    }
+
+    private Boolean isRecorded(String UID, Record recType) {
         switch (recType) {
             case MEDICAL_RECORDS:
                 return RecordsRepository.MEDICAL_RECORDS.get(UID) != null;
@@ -86,7 +132,9 @@ public class RecordsController {
      * @param mr the MedicalRecord object to be added
      */
     public void addMedicalRecord(MedicalRecord mr) {
+        long started = System.nanoTime();
         RecordsRepository.MEDICAL_RECORDS.put(mr.getRecordID(), mr);
+        ADD_MEDICAL_RECORD.record(started, 0, mr);
     }
     /**
      * Updates an existing record based on the record type and provided details.
@@ -100,6 +148,14 @@ public class RecordsController {
      */
     public Boolean updateRecord(String recordID, Record recType, String status, String doctorID,
                                 String patientID, LocalDateTime updatedDate) {
+        long started = System.nanoTime();
+        Boolean updated = update(recordID, recType, status, doctorID, patientID, updatedDate);
+        UPDATE_RECORD.record(started, 0, recordID, recType, status);
+        return updated;
+    }
+
+    private Boolean update(String recordID, Record recType, String status, String doctorID,
+                           String patientID, LocalDateTime updatedDate) {
         if (!RecordsRepository.isRepoLoad()) {
             logger.log(System.Logger.Level.WARNING, "Repository not loaded. Cannot update record.");
             return false;
@@ -188,6 +244,13 @@ public class RecordsController {
      * @return true if the record was successfully deleted, otherwise false
      */
     public Boolean deleteRecord(String recordID) {
+        long started = System.nanoTime();
+        Boolean deleted = delete(recordID);
+        DELETE_RECORD.record(started, 0, recordID);
+        return deleted;
+    }
+
+    private Boolean delete(String recordID) {
         if (deleteMedicalRecord(recordID)) {
             return true;
         } else if (deleteAppointmentRecord(recordID)) {
@@ -222,7 +285,13 @@ public class RecordsController {
      */
     private Boolean deleteAppointmentRecord(String recordID) {
         if (RecordsRepository.APPOINTMENT_RECORDS.containsKey(recordID)) {
-            RecordsRepository.APPOINTMENT_RECORDS.remove(recordID);
+            Appointment removed = RecordsRepository.APPOINTMENT_RECORDS.remove(recordID);
+            SlotSearchEngine.slotChanged(removed);
+            AppointmentColumnStore.slotChanged(removed);
+            ScheduleConflictDetector.release(removed);
+            DoctorCalendar.refresh(removed);
+            DoctorLoadBalancer.slotChanged(removed);
+            ReminderService.appointmentChanged(removed);
             RecordsRepository.saveAllRecordFiles();
             logger.log(System.Logger.Level.INFO, "Deleted Appointment Record with ID: {0}", recordID);
             return true;
@@ -250,14 +319,23 @@ public class RecordsController {
      * @return the medical record for the given patient ID, or null if not found
      */
     public static MedicalRecord getMedicalRecordsByPatientID(String patientID) {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        long started = System.nanoTime();
+        long scanned = 0;
+        MedicalRecord found = null;
         if (RecordsRepository.isRepoLoad()) {
             for (MedicalRecord record : RecordsRepository.MEDICAL_RECORDS.values()) {
+                scanned++;
                 if (record.getPatientID().equals(patientID)) {
-                    return record;
+                    found = record;
+                    break;
                 }
             }
         }
-        return null;
+        GET_MEDICAL_RECORDS_BY_PATIENT_ID.record(started, scanned, patientID);
+        event.complete(GET_MEDICAL_RECORDS_BY_PATIENT_ID, scanned, found == null ? 0 : 1);
+        return found;
     }
     /**
      * Retrieves a list of medical records by the doctor ID.
@@ -265,15 +343,22 @@ public class RecordsController {
      * @return a list of medical records for the given doctor ID
      */
     public ArrayList<MedicalRecord> getMedicalRecordsByDoctorID(String doctorID) {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        long started = System.nanoTime();
+        long scanned = 0;
         ArrayList<MedicalRecord> recordsByDoctor = new ArrayList<>(); // Initialize an empty list
 
         if (RecordsRepository.isRepoLoaded()) {
             for (MedicalRecord record : RecordsRepository.MEDICAL_RECORDS.values()) {
+                scanned++;
                 if (record.getDoctorID().equals(doctorID)) {
                     recordsByDoctor.add(record); // Add matching records to the list
                 }
             }
         }
+        GET_MEDICAL_RECORDS_BY_DOCTOR_ID.record(started, scanned, doctorID);
+        event.complete(GET_MEDICAL_RECORDS_BY_DOCTOR_ID, scanned, recordsByDoctor.size());
         return recordsByDoctor; // Return the list, even if it might be empty
     }
     /**
@@ -282,10 +367,10 @@ public class RecordsController {
      * @return the medical record corresponding to the given record ID, or null if not found
      */
     public MedicalRecord getMedicalRecordbyID(String recordID) {
-        if (RecordsRepository.isRepoLoad())
-            return RecordsRepository.MEDICAL_RECORDS.get(recordID);
-        else
-            return null;
+        long started = System.nanoTime();
+        MedicalRecord record = RecordsRepository.isRepoLoad() ? RecordsRepository.MEDICAL_RECORDS.get(recordID) : null;
+        GET_MEDICAL_RECORDBY_ID.record(started, 0, recordID);
+        return record;
     }
     /**
      * Retrieves an appointment record by the record ID.
@@ -293,10 +378,10 @@ public class RecordsController {
      * @return the appointment record corresponding to the given record ID, or null if not found
      */
     public Appointment getDiagnosisRecordbyID(String recordID) {
-        if (RecordsRepository.isRepoLoad())
-            return RecordsRepository.APPOINTMENT_RECORDS.get(recordID);
-        else
-            return null;
+        long started = System.nanoTime();
+        Appointment record = RecordsRepository.isRepoLoad() ? RecordsRepository.APPOINTMENT_RECORDS.get(recordID) : null;
+        GET_DIAGNOSIS_RECORDBY_ID.record(started, 0, recordID);
+        return record;
     }
     /**
      * Retrieves a payment record by the record ID.
@@ -304,10 +389,10 @@ public class RecordsController {
      * @return the payment record corresponding to the given record ID, or null if not found
      */
     public PaymentRecord getPaymentRecordbyID(String recordID) {
-        if (RecordsRepository.isRepoLoad())
-            return RecordsRepository.PAYMENT_RECORDS.get(recordID);
-        else
-            return null;
+        long started = System.nanoTime();
+        PaymentRecord record = RecordsRepository.isRepoLoad() ? RecordsRepository.PAYMENT_RECORDS.get(recordID) : null;
+        GET_PAYMENT_RECORDBY_ID.record(started, 0, recordID);
+        return record;
     }
 
     /**
@@ -318,9 +403,13 @@ public class RecordsController {
      */
     //Initially had static keyword
     public ArrayList<AppointmentOutcomeRecord> getAppointmentOutcomeRecordByPatientId(String patientID) {
+        long started = System.nanoTime();
         // Retrieve the list of records for the given patientID, or an empty list if
         // none exists
-        return AppointmentOutcomeRecordRepository.patientOutcomeRecords.getOrDefault(patientID, new ArrayList<>());
+        ArrayList<AppointmentOutcomeRecord> records = AppointmentOutcomeRecordRepository.patientOutcomeRecords
+                .getOrDefault(patientID, new ArrayList<>());
+        GET_APPOINTMENT_OUTCOME_RECORD_BY_PATIENT_ID.record(started, 0, patientID);
+        return records;
     }
 
 }
\ No newline at end of file
@@ -7,12 +7,21 @@ import java.util.regex.Pattern;
 import enums.User;
 import model.*;
 import repository.UserRepository;
+import utility.Metrics;
 
 /**
  * This Register Controller class  is responsible for registering,
  * handling methods between repository and the Boundary classes
  */
 public class RegisterController {
+    private static final Metrics.Timer LOGIN = Metrics.call("RegisterController.login");
+    private static final Metrics.Timer UPDATE_PASSWORD = Metrics.call("RegisterController.updatePassword");
+    private static final Metrics.Timer REGISTER_PATIENT = Metrics.call("RegisterController.registerPatient");
+    private static final Metrics.Timer REGISTER_DOCTOR = Metrics.call("RegisterController.registerDoctor");
+    private static final Metrics.Timer REGISTER_PHARMACIST = Metrics.call("RegisterController.registerPharmacist");
+    private static final Metrics.Timer REGISTER_ADMIN = Metrics.call("RegisterController.registerAdmin");
+    private static final Metrics.Timer LOGOUT = Metrics.call("RegisterController.logout");
+
     public static UserSessionTracker cookie = new UserSessionTracker(null, null);
     /**
      * Authenticates a user based on username, password, and role.
@@ -23,6 +32,8 @@ public class RegisterController {
      */
     // Method to authenticate a user based on username and password
     public static model.User login(String username, String password, enums.User role) {
+        long started = System.nanoTime();
+        long scanned = 0;
         Map<String, ? extends model.User> personnelMap = null;
 
         switch (role.toString().toLowerCase()) {
@@ -40,19 +51,26 @@ public class RegisterController {
                 break;
             default:
                 System.out.println("Login failed: Invalid role provided.");
+                SessionEvent.record("login", role.toString(), username, null, false);
+                LOGIN.record(started, scanned, username, role);
                 return null;
         }
 
         for (model.User personnel : personnelMap.values()) {
+            scanned++;
             if (personnel.getUsername().equals(username) && verifyPassword(personnel, password)) {
                 System.out.println(role + " " + personnel.getFullName() + " logged in successfully.");
                 cookie.setRole(User.toEnum(personnel.getRole()));
                 cookie.setUid(personnel.getUID());
+                SessionEvent.record("login", role.toString(), username, personnel.getUID(), true);
+                LOGIN.record(started, scanned, username, role);
                 return personnel;
             }
         }
 
         //System.out.println("Login failed: Invalid username or password.");
+        SessionEvent.record("login", role.toString(), username, null, false);
+        LOGIN.record(started, scanned, username, role);
         return null;
     }
     /**
@@ -73,6 +91,13 @@ public class RegisterController {
      */
     // Method to update the password for a given personnel
     public static boolean updatePassword(model.User personnel, String newPassword) {
+        long started = System.nanoTime();
+        boolean updated = changePassword(personnel, newPassword);
+        UPDATE_PASSWORD.record(started, 0, personnel);
+        return updated;
+    }
+
+    private static boolean changePassword(model.User personnel, String newPassword) {
         if (newPassword == null || newPassword.isEmpty()) {
             System.out.println("Password update failed: New password cannot be empty.");
             return false;
@@ -129,12 +154,14 @@ public class RegisterController {
             String phoneNo, String passwordHash, LocalDateTime DoB,
             String gender, String allergies,
             LocalDateTime dateOfAdmission) {
+        long started = System.nanoTime();
 
         // Register patient
         Patient patient = new Patient(fullName, username, email, phoneNo, passwordHash, DoB, gender, allergies, dateOfAdmission);
         UserRepository.PATIENTS.put(patient.getUID(), patient);
         UserRepository.saveAllPersonnelFiles();
         System.out.println("Patient registered successfully with username: " + username);
+        REGISTER_PATIENT.record(started, 0, username, dateOfAdmission);
         return patient.getUID();
     }
     /**
@@ -154,11 +181,13 @@ public class RegisterController {
             String phoneNo, String passwordHash, LocalDateTime DoB,
             String gender,
             LocalDateTime dateJoin) {
+        long started = System.nanoTime();
         // Register doctor
         Doctor doctor = new Doctor(fullName, username, email, phoneNo, passwordHash, DoB, gender, dateJoin );
         UserRepository.DOCTORS.put(doctor.getUID(), doctor);
         UserRepository.saveAllPersonnelFiles();
         System.out.println("Doctor registered successfully with username: " + username);
+        REGISTER_DOCTOR.record(started, 0, username, dateJoin);
         return true;
     }
     /**
@@ -178,12 +207,14 @@ public class RegisterController {
             String phoneNo, String passwordHash, LocalDateTime DoB,
             String gender,
             LocalDateTime dateOfEmployment) {
+        long started = System.nanoTime();
         // Register pharmacist
         Pharmacist pharmacist = new Pharmacist(fullName, username, email, phoneNo, passwordHash, DoB, gender,
                  dateOfEmployment);
         UserRepository.PHARMACISTS.put(pharmacist.getUID(), pharmacist);
         UserRepository.saveAllPersonnelFiles();
         System.out.println("Pharmacist registered successfully with username: " + username);
+        REGISTER_PHARMACIST.record(started, 0, username, dateOfEmployment);
         return true;
     }
     /**
@@ -202,12 +233,14 @@ public class RegisterController {
     public static boolean registerAdmin(String fullName, String username, String email,
             String phoneNo, String passwordHash, LocalDateTime DoB,
             String gender, LocalDateTime dateOfCreation) {
+        long started = System.nanoTime();
         // Register administrator
         Administrator administrator = new Administrator(fullName, username, email, phoneNo, passwordHash, DoB, gender, "Admins",
                 dateOfCreation);
         UserRepository.ADMINS.put(administrator.getUID(), administrator);
         UserRepository.saveAllPersonnelFiles();
         System.out.println("Administrator registered successfully with username: " + username);
+        REGISTER_ADMIN.record(started, 0, username, dateOfCreation);
         return true;
     }
     /**
@@ -216,7 +249,10 @@ public class RegisterController {
      */
     // Optional: Implement a logout method if needed
     public static void logout(model.User personnel) {
+        long started = System.nanoTime();
         System.out.println(personnel.getFullName() + " has been logged out.");
+        SessionEvent.record("logout", personnel.getRole(), personnel.getUsername(), personnel.getUID(), true);
+        LOGOUT.record(started, 0, personnel);
     }
     /**
      * Checks if a username is already taken in the given personnel map.
@@ -0,0 +1,260 @@
+package controller;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import enums.AppointmentStatus;
+import model.Appointment;
+import model.Reminder;
+import repository.AppointmentColumnStore;
+import repository.PersistenceExecutor;
+import repository.RecordsRepository;
+import repository.ReminderOutboxRepository;
+import repository.SaveResult;
+import utility.Metrics;
+import utility.TimingWheel;
+
+/**
+ * The ReminderService class writes a reminder to the outbox file
+ * (reminder_outbox.csv) a fixed time before each CONFIRMED appointment.
+ * The offsets are configurable with -Dhms.reminders.offsetMinutes (a comma
+ * separated list, 1440,60 by default, that is one day and one hour before).
+ * Pending reminders are kept in a {@link TimingWheel} with one-second ticks, so
+ * scheduling or cancelling one is O(1) however many are pending. The wheel is
+ * filled from the appointment records once per load, and
+ * {@link #appointmentChanged(Appointment)} moves an appointment's reminders when
+ * it is confirmed, cancelled or rescheduled.
+ * A reminder that became due while the system was not running is not written
+ * late, except the closest one before an upcoming appointment; the same applies
+ * to an appointment confirmed after some of its reminders were due.
+ */
+public final class ReminderService {
+	private static final int[] OFFSET_MINUTES = offsetMinutes();
+	/**
+	 * Resolution of the reminders, configurable with -Dhms.reminders.tickMillis.
+	 */
+	private static final long TICK_MILLIS = Long.getLong("hms.reminders.tickMillis", 1_000);
+	/**
+	 * Delay before reminders whose append to the outbox failed are tried again,
+	 * configurable with -Dhms.reminders.retryMillis.
+	 */
+	private static final long RETRY_MILLIS = Long.getLong("hms.reminders.retryMillis", 60_000);
+
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "hms-reminders");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final AtomicBoolean STARTED = new AtomicBoolean();
+	private static final Metrics.Timer RUN_DUE = Metrics.call("ReminderService.runDue");
+
+	// Guarded by the class lock
+	private static TimingWheel<Reminder> wheel;
+	// key value = appointment recordID
+	private static final Map<String, List<TimingWheel.Timer<Reminder>>> TIMERS = new HashMap<>();
+	private static int loadGeneration = -1;
+	private static long written;
+
+	private ReminderService() {
+	}
+
+	/**
+	 * Starts checking for due reminders once per tick. Calling it again has no effect.
+	 */
+	public static void start() {
+		if (STARTED.compareAndSet(false, true)) {
+			TIMER.scheduleAtFixedRate(() -> {
+				try {
+					runDue();
+				} catch (RuntimeException e) {
+					// keep the timer running, a failed tick is retried on the next one
+					System.out.println("Error writing reminders: " + e.getMessage());
+				}
+			}, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Brings an appointment's reminders in line with its current state: cancels the
+	 * pending ones and schedules new ones if it is CONFIRMED. Call this after an
+	 * appointment is confirmed, cancelled, rescheduled or deleted.
+	 *
+	 * @param appointment the appointment that changed
+	 */
+	public static synchronized void appointmentChanged(Appointment appointment) {
+		if (appointment == null || loadGeneration != RecordsRepository.getLoadGeneration()) {
+			// a rebuild on the next tick picks the change up
+			return;
+		}
+		List<TimingWheel.Timer<Reminder>> timers = TIMERS.remove(appointment.getRecordID());
+		if (timers != null) {
+			for (TimingWheel.Timer<Reminder> timer : timers) {
+				wheel.cancel(timer);
+			}
+		}
+		schedule(appointment, LocalDateTime.now());
+	}
+
+	/**
+	 * Writes every reminder that is due now to the outbox.
+	 *
+	 * @return the number of reminders written
+	 */
+	public static int runDue() {
+		long started = System.nanoTime();
+		List<Reminder> due = new ArrayList<>();
+		synchronized (ReminderService.class) {
+			ensureCurrent();
+			wheel.advanceTo(System.currentTimeMillis(), reminder -> {
+				List<TimingWheel.Timer<Reminder>> timers = TIMERS.get(reminder.getAppointmentID());
+				if (timers != null) {
+					timers.removeIf(timer -> !timer.isPending());
+					if (timers.isEmpty()) {
+						TIMERS.remove(reminder.getAppointmentID());
+					}
+				}
+				if (isStillDue(reminder)) {
+					due.add(reminder);
+				}
+			});
+			if (!due.isEmpty()) {
+				// marks them as written before the lock is released, so they cannot be scheduled again
+				ReminderOutboxRepository.markWritten(due);
+			}
+		}
+		if (!due.isEmpty()) {
+			ReminderOutboxRepository.appendAsync(due).thenAccept(result -> appended(due, result));
+		}
+		RUN_DUE.record(started);
+		return due.size();
+	}
+
+	/**
+	 * Gets the number of reminders waiting to become due.
+	 *
+	 * @return the number of pending reminders
+	 */
+	public static synchronized int getPendingCount() {
+		ensureCurrent();
+		return wheel.size();
+	}
+
+	/**
+	 * Counts the reminders once they are in the outbox, or schedules them again
+	 * after RETRY_MILLIS if the append failed.
+	 */
+	private static synchronized void appended(List<Reminder> reminders, SaveResult result) {
+		if (result.isSuccess()) {
+			written += reminders.size();
+			return;
+		}
+		PersistenceExecutor.reportFailure(result);
+		if (wheel == null || loadGeneration != RecordsRepository.getLoadGeneration()) {
+			// the rebuild schedules the latest reminder of each appointment again
+			return;
+		}
+		long retryAt = System.currentTimeMillis() + RETRY_MILLIS;
+		for (Reminder reminder : reminders) {
+			TIMERS.computeIfAbsent(reminder.getAppointmentID(), id -> new ArrayList<>())
+					.add(wheel.schedule(retryAt, reminder));
+		}
+	}
+
+	/**
+	 * Gets the number of reminders written to the outbox since startup.
+	 *
+	 * @return the number of reminders written
+	 */
+	public static synchronized long getWrittenCount() {
+		return written;
+	}
+
+	/**
+	 * Refills the wheel from the appointment records if they were reloaded.
+	 */
+	private static void ensureCurrent() {
+		int generation = RecordsRepository.getLoadGeneration();
+		if (wheel == null || loadGeneration != generation) {
+			LocalDateTime now = LocalDateTime.now();
+			wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+			TIMERS.clear();
+			// only upcoming CONFIRMED appointments get reminders; schedule checks each one again
+			for (Appointment appointment : AppointmentColumnStore.findInTimeRange(now, null,
+					AppointmentStatus.CONFIRMED).toAppointments()) {
+				schedule(appointment, now);
+			}
+			loadGeneration = generation;
+		}
+	}
+
+	/**
+	 * Schedules the reminders of a CONFIRMED upcoming appointment that are not due
+	 * yet, plus the latest one that is already due if it was never written.
+	 */
+	private static void schedule(Appointment appointment, LocalDateTime now) {
+		if (appointment.getAppointmentStatus() != AppointmentStatus.CONFIRMED
+				|| appointment.getAppointmentTime() == null || !appointment.getAppointmentTime().isAfter(now)
+				|| RecordsRepository.APPOINTMENT_RECORDS.get(appointment.getRecordID()) != appointment) {
+			return;
+		}
+		List<TimingWheel.Timer<Reminder>> timers = new ArrayList<>(OFFSET_MINUTES.length);
+		Reminder late = null;
+		// offsets are sorted from the earliest reminder to the latest
+		for (int minutes : OFFSET_MINUTES) {
+			Reminder reminder = new Reminder(appointment.getRecordID(), appointment.getPatientID(),
+					appointment.getDoctorID(), appointment.getAppointmentTime(), appointment.getLocation(), minutes);
+			if (reminder.getDueAt().isAfter(now)) {
+				timers.add(wheel.schedule(toMillis(reminder.getDueAt()), reminder));
+			} else {
+				late = reminder;
+			}
+		}
+		if (late != null && !ReminderOutboxRepository.isWritten(late)) {
+			timers.add(wheel.schedule(toMillis(now), late));
+		}
+		if (!timers.isEmpty()) {
+			TIMERS.put(appointment.getRecordID(), timers);
+		}
+	}
+
+	/**
+	 * Checks that the appointment is still CONFIRMED for the time the reminder was
+	 * scheduled for and that the reminder has not been written yet.
+	 */
+	private static boolean isStillDue(Reminder reminder) {
+		Appointment appointment = RecordsRepository.APPOINTMENT_RECORDS.get(reminder.getAppointmentID());
+		return appointment != null && appointment.getAppointmentStatus() == AppointmentStatus.CONFIRMED
+				&& reminder.getAppointmentTime().equals(appointment.getAppointmentTime())
+				&& !ReminderOutboxRepository.isWritten(reminder);
+	}
+
+	private static long toMillis(LocalDateTime time) {
+		return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	/**
+	 * Reads the reminder offsets, sorted from the longest to the shortest.
+	 */
+	private static int[] offsetMinutes() {
+		try {
+			int[] offsets = Arrays.stream(System.getProperty("hms.reminders.offsetMinutes", "1440,60").split(","))
+					.map(String::trim).mapToInt(Integer::parseInt).filter(minutes -> minutes >= 0)
+					.distinct().map(minutes -> -minutes).sorted().map(minutes -> -minutes).toArray();
+			if (offsets.length > 0) {
+				return offsets;
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Invalid hms.reminders.offsetMinutes, using 1440,60: " + e.getMessage());
+		}
+		return new int[] {1440, 60};
+	}
+}
@@ -0,0 +1,258 @@
+package controller;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Appointment;
+import model.Location;
+import repository.LocationRepository;
+import utility.Metrics;
+
+/**
+ * The RoomScheduler class tracks which rooms of each registered location are in
+ * use, so a new slot is given a free room and an administrator can see which
+ * locations still have a room free at a given time.
+ * Time is divided into fixed buckets (5 minutes by default, configurable with
+ * -Dhms.rooms.bucketMinutes). Each room of a location has one bitmap per day with
+ * one bit per bucket, so checking or claiming a room for a slot is a handful of
+ * word operations. An appointment occupies every bucket it touches, so with times
+ * that are not multiples of the bucket length two back-to-back appointments can
+ * count as overlapping.
+ * The occupancy is maintained by {@link ScheduleConflictDetector}, which rebuilds
+ * it together with its interval trees whenever the records or the registry are reloaded.
+ */
+public final class RoomScheduler {
+	private static final int BUCKET_MINUTES = bucketMinutes();
+	private static final int BUCKETS_PER_DAY = 24 * 60 / BUCKET_MINUTES;
+	private static final int WORDS_PER_DAY = (BUCKETS_PER_DAY + 63) / 64;
+	private static final Metrics.Timer FIND_FREE_LOCATIONS = Metrics.call("RoomScheduler.findFreeLocations");
+
+	// Guarded by the class lock. key value = locationID, then epoch day; value = one bitmap per room
+	private static final Map<String, Map<Long, long[][]>> OCCUPANCY = new HashMap<>();
+	// key value = appointment recordID
+	private static final Map<String, Allocation> ALLOCATIONS = new HashMap<>();
+
+	/**
+	 * The room an appointment was given and the buckets it occupies.
+	 */
+	private record Allocation(String locationID, int room, long firstBucket, long endBucket) {
+	}
+
+	/**
+	 * A location with at least one room free for a requested time.
+	 *
+	 * @param location  the location
+	 * @param freeRooms the number of its rooms that are free for the whole time
+	 */
+	public record FreeLocation(Location location, int freeRooms) {
+	}
+
+	private RoomScheduler() {
+	}
+
+	/**
+	 * Gets the length of one occupancy bucket.
+	 *
+	 * @return the bucket length in minutes
+	 */
+	public static int getBucketMinutes() {
+		return BUCKET_MINUTES;
+	}
+
+	/**
+	 * Finds the locations that have a room free for the whole of a time range.
+	 *
+	 * @param start   the start of the range
+	 * @param minutes the length of the range in minutes
+	 * @return the locations with free rooms, ordered by location ID
+	 */
+	public static List<FreeLocation> findFreeLocations(LocalDateTime start, int minutes) {
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		long scanned = 0;
+		ScheduleConflictDetector.ensureCurrent();
+		long first = firstBucket(start);
+		long end = Math.max(first + 1, endBucket(start.plusMinutes(minutes)));
+		List<FreeLocation> free = new ArrayList<>();
+		synchronized (RoomScheduler.class) {
+			for (Location location : LocationRepository.getLocations()) {
+				scanned++;
+				Map<Long, long[][]> days = OCCUPANCY.get(location.getLocationID());
+				int freeRooms = 0;
+				for (int room = 0; room < location.getCapacity(); room++) {
+					if (days == null || isFree(days, room, first, end)) {
+						freeRooms++;
+					}
+				}
+				if (freeRooms > 0) {
+					free.add(new FreeLocation(location, freeRooms));
+				}
+			}
+		}
+		FIND_FREE_LOCATIONS.record(started, scanned, start, minutes);
+		event.complete(FIND_FREE_LOCATIONS, scanned, free.size());
+		return free;
+	}
+
+	/**
+	 * Gets how many room-minutes of a location are booked on a day.
+	 *
+	 * @param locationID the ID of the location
+	 * @param date       the day
+	 * @return the booked time summed over all rooms, in minutes
+	 */
+	public static int getBookedMinutes(String locationID, LocalDate date) {
+		ScheduleConflictDetector.ensureCurrent();
+		synchronized (RoomScheduler.class) {
+			Map<Long, long[][]> days = OCCUPANCY.get(locationID);
+			long[][] rooms = days == null ? null : days.get(date.toEpochDay());
+			if (rooms == null) {
+				return 0;
+			}
+			int buckets = 0;
+			for (long[] words : rooms) {
+				for (long word : words) {
+					buckets += Long.bitCount(word);
+				}
+			}
+			return buckets * BUCKET_MINUTES;
+		}
+	}
+
+	/**
+	 * Forgets every allocation, before the occupancy is rebuilt.
+	 */
+	static synchronized void clear() {
+		OCCUPANCY.clear();
+		ALLOCATIONS.clear();
+	}
+
+	/**
+	 * Gives an appointment the first room of its location that is free for the
+	 * whole slot.
+	 *
+	 * @param appointment the appointment
+	 * @param locationID  the ID of its location
+	 * @return the room number, starting at 0, or -1 if every room is taken
+	 */
+	static synchronized int allocate(Appointment appointment, String locationID) {
+		release(appointment);
+		Location location = LocationRepository.findLocation(locationID);
+		int capacity = location == null ? 1 : location.getCapacity();
+		long first = firstBucket(appointment.getAppointmentTime());
+		long end = Math.max(first + 1, endBucket(appointment.getEndTime()));
+		Map<Long, long[][]> days = OCCUPANCY.computeIfAbsent(locationID, id -> new HashMap<>());
+		for (int room = 0; room < capacity; room++) {
+			if (isFree(days, room, first, end)) {
+				mark(days, capacity, room, first, end, true);
+				ALLOCATIONS.put(appointment.getRecordID(), new Allocation(locationID, room, first, end));
+				return room;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Frees the room held by an appointment.
+	 *
+	 * @param appointment the appointment
+	 */
+	static synchronized void release(Appointment appointment) {
+		Allocation allocation = ALLOCATIONS.remove(appointment.getRecordID());
+		if (allocation != null) {
+			mark(OCCUPANCY.get(allocation.locationID()), allocation.room() + 1, allocation.room(),
+					allocation.firstBucket(), allocation.endBucket(), false);
+		}
+	}
+
+	/**
+	 * Gets the start of the first bucket an appointment starting at this time touches, in seconds.
+	 */
+	static long bucketStartSeconds(LocalDateTime time) {
+		return firstBucket(time) * BUCKET_MINUTES * 60L;
+	}
+
+	/**
+	 * Gets the end of the last bucket an appointment ending at this time touches, in seconds.
+	 */
+	static long bucketEndSeconds(LocalDateTime time) {
+		return endBucket(time) * BUCKET_MINUTES * 60L;
+	}
+
+	private static boolean isFree(Map<Long, long[][]> days, int room, long first, long end) {
+		for (long bucket = first; bucket < end; ) {
+			long day = Math.floorDiv(bucket, BUCKETS_PER_DAY);
+			int from = (int) (bucket - day * BUCKETS_PER_DAY);
+			int to = (int) Math.min(BUCKETS_PER_DAY, end - day * BUCKETS_PER_DAY);
+			long[][] rooms = days.get(day);
+			if (rooms != null && room < rooms.length && anySet(rooms[room], from, to)) {
+				return false;
+			}
+			bucket = (day + 1) * BUCKETS_PER_DAY;
+		}
+		return true;
+	}
+
+	private static void mark(Map<Long, long[][]> days, int capacity, int room, long first, long end, boolean taken) {
+		for (long bucket = first; bucket < end; ) {
+			long day = Math.floorDiv(bucket, BUCKETS_PER_DAY);
+			int from = (int) (bucket - day * BUCKETS_PER_DAY);
+			int to = (int) Math.min(BUCKETS_PER_DAY, end - day * BUCKETS_PER_DAY);
+			long[][] rooms = days.get(day);
+			if (rooms == null || rooms.length < capacity) {
+				rooms = rooms == null ? new long[capacity][] : Arrays.copyOf(rooms, capacity);
+				for (int r = 0; r < rooms.length; r++) {
+					if (rooms[r] == null) {
+						rooms[r] = new long[WORDS_PER_DAY];
+					}
+				}
+				days.put(day, rooms);
+			}
+			for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+				long mask = mask(word, from, to);
+				rooms[room][word] = taken ? rooms[room][word] | mask : rooms[room][word] & ~mask;
+			}
+			bucket = (day + 1) * BUCKETS_PER_DAY;
+		}
+	}
+
+	private static boolean anySet(long[] words, int from, int to) {
+		for (int word = from >>> 6; word <= (to - 1) >>> 6; word++) {
+			if ((words[word] & mask(word, from, to)) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The bits of one word that fall inside the bucket range [from, to) of a day.
+	 */
+	private static long mask(int word, int from, int to) {
+		int low = Math.max(from, word << 6) - (word << 6);
+		int high = Math.min(to, (word << 6) + 64) - (word << 6);
+		long upTo = high == 64 ? -1L : (1L << high) - 1;
+		return upTo & -(1L << low);
+	}
+
+	private static long firstBucket(LocalDateTime time) {
+		return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), BUCKET_MINUTES * 60L);
+	}
+
+	private static long endBucket(LocalDateTime time) {
+		return -Math.floorDiv(-time.toEpochSecond(ZoneOffset.UTC), BUCKET_MINUTES * 60L);
+	}
+
+	private static int bucketMinutes() {
+		int minutes = Integer.getInteger("hms.rooms.bucketMinutes", 5);
+		// buckets must divide a day evenly
+		return minutes > 0 && 24 * 60 % minutes == 0 ? minutes : 5;
+	}
+}
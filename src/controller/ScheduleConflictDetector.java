@@ -0,0 +1,230 @@
+package controller;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import enums.ConflictType;
+import model.Appointment;
+import model.Location;
+import model.ScheduleConflict;
+import repository.LocationRepository;
+import repository.RecordsRepository;
+import utility.IntervalTree;
+import utility.Metrics;
+
+/**
+ * The ScheduleConflictDetector class stops a doctor from being booked twice for the
+ * same time and a location from being booked for more appointments than it has rooms.
+ * The time range of every appointment is kept in one interval tree per doctor and
+ * one per location, so a new slot is checked against the doctor in O(log n); the
+ * location check is delegated to {@link RoomScheduler}, which gives the slot a free
+ * room. The trees and the room occupancy are rebuilt once per load of the records or
+ * of the location registry. {@link #findAllConflicts()} checks the existing records
+ * in a single pass for data that was created before the check existed.
+ */
+public final class ScheduleConflictDetector {
+	private static final Metrics.Timer RESERVE = Metrics.call("ScheduleConflictDetector.reserve");
+	private static final Metrics.Timer FIND_ALL_CONFLICTS = Metrics.call("ScheduleConflictDetector.findAllConflicts");
+
+	private static Index index;
+
+	/**
+	 * The interval trees for one load generation.
+	 */
+	private static final class Index {
+		private final int loadGeneration;
+		private final int locationGeneration;
+		// key value = doctorID
+		private final Map<String, IntervalTree<Appointment>> byDoctor = new HashMap<>();
+		// key value = locationID
+		private final Map<String, IntervalTree<Appointment>> byLocation = new HashMap<>();
+
+		private Index(int loadGeneration, int locationGeneration) {
+			this.loadGeneration = loadGeneration;
+			this.locationGeneration = locationGeneration;
+		}
+	}
+
+	private ScheduleConflictDetector() {
+	}
+
+	/**
+	 * Checks a new slot against the doctor's existing appointments, gives it a free
+	 * room at its location and records it if both succeed. The check and the insert
+	 * happen atomically, so two doctors cannot claim the same room at the same time.
+	 *
+	 * @param slot the slot to reserve
+	 * @return the conflict that prevented the reservation, or null if the slot was reserved
+	 */
+	public static synchronized ScheduleConflict reserve(Appointment slot) {
+		long started = System.nanoTime();
+		ScheduleConflict conflict = tryReserve(slot);
+		RESERVE.record(started, 0, slot);
+		return conflict;
+	}
+
+	private static ScheduleConflict tryReserve(Appointment slot) {
+		Index current = currentIndex();
+		long start = toSeconds(slot.getAppointmentTime());
+		long end = toSeconds(slot.getEndTime());
+
+		IntervalTree<Appointment> doctorTree = current.byDoctor.get(slot.getDoctorID());
+		Appointment existing = doctorTree == null ? null : doctorTree.findAnyOverlap(start, end);
+		if (existing != null) {
+			return new ScheduleConflict(ConflictType.DOCTOR, slot.getDoctorID(), existing, slot);
+		}
+		String locationID = LocationRepository.resolveLocationID(slot);
+		if (locationID != null && RoomScheduler.allocate(slot, locationID) < 0) {
+			IntervalTree<Appointment> locationTree = current.byLocation.get(locationID);
+			existing = locationTree.findAnyOverlap(start, end);
+			if (existing == null) {
+				// the rooms are only taken by appointments sharing a partly used bucket
+				existing = locationTree.findAnyOverlap(RoomScheduler.bucketStartSeconds(slot.getAppointmentTime()),
+						RoomScheduler.bucketEndSeconds(slot.getEndTime()));
+			}
+			return new ScheduleConflict(ConflictType.LOCATION, slot.getLocation(), existing, slot);
+		}
+		add(current, slot, locationID);
+		return null;
+	}
+
+	/**
+	 * Forgets an appointment that was deleted, freeing its time for the doctor and its room.
+	 *
+	 * @param appointment the deleted appointment
+	 */
+	public static synchronized void release(Appointment appointment) {
+		if (appointment == null || appointment.getAppointmentTime() == null) {
+			return;
+		}
+		Index current = currentIndex();
+		long start = toSeconds(appointment.getAppointmentTime());
+		IntervalTree<Appointment> doctorTree = current.byDoctor.get(appointment.getDoctorID());
+		if (doctorTree != null) {
+			doctorTree.remove(start, appointment.getRecordID());
+		}
+		String locationID = LocationRepository.resolveLocationID(appointment);
+		IntervalTree<Appointment> locationTree = locationID == null ? null : current.byLocation.get(locationID);
+		if (locationTree != null) {
+			locationTree.remove(start, appointment.getRecordID());
+		}
+		RoomScheduler.release(appointment);
+	}
+
+	/**
+	 * Rebuilds the trees and the room occupancy if the records or the location
+	 * registry were reloaded since they were last built.
+	 */
+	static synchronized void ensureCurrent() {
+		currentIndex();
+	}
+
+	/**
+	 * Scans every appointment record once and reports each appointment that overlaps an
+	 * earlier one on the same doctor, or that starts while every room of its location
+	 * is already in use.
+	 *
+	 * @return the conflicts found, grouped by doctor and then by location
+	 */
+	public static List<ScheduleConflict> findAllConflicts() {
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		long scanned = 0;
+		Map<String, List<Appointment>> byDoctor = new HashMap<>();
+		Map<String, List<Appointment>> byLocation = new HashMap<>();
+		for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+			scanned++;
+			if (appointment.getAppointmentTime() == null) {
+				continue;
+			}
+			if (appointment.getDoctorID() != null) {
+				byDoctor.computeIfAbsent(appointment.getDoctorID(), id -> new ArrayList<>()).add(appointment);
+			}
+			String locationID = LocationRepository.resolveLocationID(appointment);
+			if (locationID != null) {
+				byLocation.computeIfAbsent(locationID, key -> new ArrayList<>()).add(appointment);
+			}
+		}
+
+		List<ScheduleConflict> conflicts = new ArrayList<>();
+		for (Map.Entry<String, List<Appointment>> group : byDoctor.entrySet()) {
+			sweep(ConflictType.DOCTOR, group.getKey(), 1, group.getValue(), conflicts);
+		}
+		for (Map.Entry<String, List<Appointment>> group : byLocation.entrySet()) {
+			Location location = LocationRepository.findLocation(group.getKey());
+			sweep(ConflictType.LOCATION, group.getValue().get(0).getLocation(),
+					location == null ? 1 : location.getCapacity(), group.getValue(), conflicts);
+		}
+		FIND_ALL_CONFLICTS.record(started, scanned);
+		event.complete(FIND_ALL_CONFLICTS, scanned, conflicts.size());
+		return conflicts;
+	}
+
+	/**
+	 * Sorts one group by start time and reports every appointment that starts while
+	 * as many appointments as the resource can hold are still running.
+	 */
+	private static void sweep(ConflictType conflictType, String resource, int capacity, List<Appointment> group,
+							  List<ScheduleConflict> conflicts) {
+		group.sort(Comparator.comparing(Appointment::getAppointmentTime).thenComparing(Appointment::getRecordID));
+		PriorityQueue<Appointment> running = new PriorityQueue<>(Comparator.comparing(Appointment::getEndTime));
+		for (Appointment appointment : group) {
+			while (!running.isEmpty() && !running.peek().getEndTime().isAfter(appointment.getAppointmentTime())) {
+				running.poll();
+			}
+			if (running.size() >= capacity) {
+				conflicts.add(new ScheduleConflict(conflictType, resource, running.peek(), appointment));
+			}
+			running.add(appointment);
+		}
+	}
+
+	/**
+	 * Returns the trees for the current load generation, rebuilding them and the room
+	 * occupancy from the appointment records if the records or the locations were reloaded.
+	 */
+	private static Index currentIndex() {
+		int generation = RecordsRepository.getLoadGeneration();
+		int locationGeneration = LocationRepository.getLoadGeneration();
+		if (index == null || index.loadGeneration != generation || index.locationGeneration != locationGeneration) {
+			Index rebuilt = new Index(generation, locationGeneration);
+			RoomScheduler.clear();
+			for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+				if (appointment.getAppointmentTime() != null) {
+					String locationID = LocationRepository.resolveLocationID(appointment);
+					if (locationID != null) {
+						// existing over-booking is kept; findAllConflicts reports it
+						RoomScheduler.allocate(appointment, locationID);
+					}
+					add(rebuilt, appointment, locationID);
+				}
+			}
+			index = rebuilt;
+		}
+		return index;
+	}
+
+	private static void add(Index current, Appointment appointment, String locationID) {
+		long start = toSeconds(appointment.getAppointmentTime());
+		long end = toSeconds(appointment.getEndTime());
+		if (appointment.getDoctorID() != null) {
+			current.byDoctor.computeIfAbsent(appointment.getDoctorID(), id -> new IntervalTree<>())
+					.insert(start, end, appointment.getRecordID(), appointment);
+		}
+		if (locationID != null) {
+			current.byLocation.computeIfAbsent(locationID, key -> new IntervalTree<>())
+					.insert(start, end, appointment.getRecordID(), appointment);
+		}
+	}
+
+	private static long toSeconds(LocalDateTime time) {
+		return time.toEpochSecond(ZoneOffset.UTC);
+	}
+}
@@ -0,0 +1,54 @@
+package controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a login attempt or a logout. See hms.jfc.
+ */
+@Name("hms.Session")
+@Label("Session")
+@Category({"HMS", "Controller"})
+@Description("Login attempt or logout")
+@StackTrace(false)
+final class SessionEvent extends jdk.jfr.Event {
+    @Label("Action")
+    String action;
+
+    @Label("Role")
+    String role;
+
+    @Label("Username")
+    String username;
+
+    @Label("User ID")
+    @Description("UID of the user, empty if the login failed")
+    String userID;
+
+    @Label("Success")
+    boolean success;
+
+    /**
+     * Records a session event if the recording wants it.
+     *
+     * @param action   "login" or "logout"
+     * @param role     the role the user logged in as
+     * @param username the username that was entered
+     * @param userID   the UID of the user, or null if the login failed
+     * @param success  whether the action succeeded
+     */
+    static void record(String action, String role, String username, String userID, boolean success) {
+        SessionEvent event = new SessionEvent();
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.role = role;
+            event.username = username;
+            event.userID = userID == null ? "" : userID;
+            event.success = success;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package controller;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import enums.AppointmentStatus;
+import model.Appointment;
+import repository.LocationRepository;
+import repository.RecordsRepository;
+import utility.Metrics;
+
+/**
+ * The SlotSearchEngine class answers "earliest free slots from a given time"
+ * without scanning every appointment record.
+ * Each doctor's AVAILABLE slots are kept in one set per location, ordered by
+ * appointment time. A search merges the sets of the doctors and locations it asks
+ * for with a priority queue, so it only touches the slots that come before the last
+ * result, never sees a slot at another location, and skips days that do not match
+ * a day-of-week filter with one lookup per set.
+ * The sets are rebuilt once per load of the records and kept up to date by
+ * {@link #slotChanged(Appointment)} whenever a slot changes.
+ */
+public final class SlotSearchEngine {
+	private static final Comparator<FreeSlot> ORDER = (a, b) -> {
+		int byTime = Long.compare(a.epochSecond(), b.epochSecond());
+		return byTime != 0 ? byTime : a.appointmentID().compareTo(b.appointmentID());
+	};
+
+	/**
+	 * Taken for reading by every update and for writing by a rebuild, so an update
+	 * is never applied to an index that is about to be replaced.
+	 */
+	private static final ReadWriteLock REBUILD_LOCK = new ReentrantReadWriteLock();
+	private static volatile Index index;
+	private static final Metrics.Timer FIND_EARLIEST_SLOTS = Metrics.call("SlotSearchEngine.findEarliestSlots");
+
+	/**
+	 * One AVAILABLE slot as it was when it entered the index. The time is copied, as
+	 * seconds so that comparisons stay cheap, and the ordering of the set cannot
+	 * change underneath it.
+	 */
+	private record FreeSlot(long epochSecond, LocalDateTime appointmentTime, String appointmentID, String doctorID,
+							String location, Appointment appointment) {
+		private FreeSlot(LocalDateTime appointmentTime, String appointmentID, String doctorID, String location,
+						 Appointment appointment) {
+			this(appointmentTime.toEpochSecond(ZoneOffset.UTC), appointmentTime, appointmentID, doctorID,
+					location, appointment);
+		}
+	}
+
+	/**
+	 * The free slots of every doctor and location for one load generation.
+	 */
+	private static final class Index {
+		private final int loadGeneration;
+		// key value = doctorID; inner key value = location, see locationKey
+		private final Map<String, Map<String, NavigableSet<FreeSlot>>> freeSlotsByDoctor = new ConcurrentHashMap<>();
+		// key value = appointment recordID
+		private final Map<String, FreeSlot> indexedSlots = new ConcurrentHashMap<>();
+
+		private Index(int loadGeneration) {
+			this.loadGeneration = loadGeneration;
+		}
+
+		private NavigableSet<FreeSlot> freeSlotsOf(String doctorID, String location) {
+			return freeSlotsByDoctor.computeIfAbsent(doctorID, id -> new ConcurrentHashMap<>())
+					.computeIfAbsent(location, key -> new ConcurrentSkipListSet<>(ORDER));
+		}
+
+		/**
+		 * Collects the sets a search has to merge.
+		 *
+		 * @param doctorID the doctor to search, or null for every doctor
+		 * @param location the location key to match, or null for any location
+		 */
+		private Collection<NavigableSet<FreeSlot>> candidates(String doctorID, String location) {
+			Collection<Map<String, NavigableSet<FreeSlot>>> doctors;
+			if (doctorID != null) {
+				Map<String, NavigableSet<FreeSlot>> byLocation = freeSlotsByDoctor.get(doctorID);
+				doctors = byLocation == null ? List.of() : List.of(byLocation);
+			} else {
+				doctors = freeSlotsByDoctor.values();
+			}
+			List<NavigableSet<FreeSlot>> candidates = new ArrayList<>();
+			for (Map<String, NavigableSet<FreeSlot>> byLocation : doctors) {
+				if (location == null) {
+					candidates.addAll(byLocation.values());
+				} else {
+					NavigableSet<FreeSlot> freeSlots = byLocation.get(location);
+					if (freeSlots != null) {
+						candidates.add(freeSlots);
+					}
+				}
+			}
+			return candidates;
+		}
+	}
+
+	/**
+	 * Position in one doctor's free slots during a merge. Moves with ceiling/higher
+	 * lookups, so it can jump over whole days that do not match a filter.
+	 */
+	private static final class Cursor {
+		private final NavigableSet<FreeSlot> freeSlots;
+		private FreeSlot head;
+
+		private Cursor(NavigableSet<FreeSlot> freeSlots) {
+			this.freeSlots = freeSlots;
+		}
+
+		/**
+		 * Moves to the first slot at or after the key.
+		 *
+		 * @return true if there is one
+		 */
+		private boolean seek(FreeSlot key) {
+			head = freeSlots.ceiling(key);
+			return head != null;
+		}
+
+		/**
+		 * Moves to the slot after the current one.
+		 *
+		 * @return true if there is one
+		 */
+		private boolean next() {
+			head = freeSlots.higher(head);
+			return head != null;
+		}
+	}
+
+	private SlotSearchEngine() {
+	}
+
+	/**
+	 * Finds the earliest AVAILABLE slots at or after a given time, optionally
+	 * restricted to one doctor, one location or one day of the week.
+	 *
+	 * @param limit     the maximum number of slots to return
+	 * @param from      the earliest appointment time to return, or null for no lower bound
+	 * @param doctorID  the doctor to search, or null for every doctor
+	 * @param location  the location to match (ignoring case and spacing), or null for any location
+	 * @param dayOfWeek the day of the week to match, or null for any day
+	 * @return the matching slots ordered by appointment time
+	 */
+	public static List<Appointment> findEarliestSlots(int limit, LocalDateTime from, String doctorID,
+													  String location, DayOfWeek dayOfWeek) {
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		long scanned = 0;
+		Index current = currentIndex();
+		List<Appointment> results = new ArrayList<>(Math.min(Math.max(limit, 0), 64));
+		if (limit <= 0) {
+			FIND_EARLIEST_SLOTS.record(started, scanned, limit, from, doctorID);
+			event.complete(FIND_EARLIEST_SLOTS, scanned, results.size());
+			return results;
+		}
+
+		Collection<NavigableSet<FreeSlot>> candidates = current.candidates(doctorID,
+				location == null ? null : locationKey(location));
+
+		PriorityQueue<Cursor> merge = new PriorityQueue<>(Math.max(1, candidates.size()),
+				(a, b) -> ORDER.compare(a.head, b.head));
+		LocalDateTime start = from == null ? LocalDateTime.MIN : from;
+		if (dayOfWeek != null && from != null && from.getDayOfWeek() != dayOfWeek) {
+			start = from.toLocalDate().with(TemporalAdjusters.next(dayOfWeek)).atStartOfDay();
+		}
+		FreeSlot fromKey = searchKey(start);
+		for (NavigableSet<FreeSlot> freeSlots : candidates) {
+			Cursor cursor = new Cursor(freeSlots);
+			if (cursor.seek(fromKey)) {
+				merge.add(cursor);
+			}
+		}
+
+		// heads are only checked against the filters once they reach the front of the queue,
+		// so doctors whose next slot is late never have their slots examined
+		while (results.size() < limit && !merge.isEmpty()) {
+			Cursor cursor = merge.poll();
+			FreeSlot head = cursor.head;
+			scanned++;
+			boolean hasNext;
+			if (dayOfWeek != null && head.appointmentTime().getDayOfWeek() != dayOfWeek) {
+				LocalDate nextMatchingDay = head.appointmentTime().toLocalDate()
+						.with(TemporalAdjusters.next(dayOfWeek));
+				hasNext = cursor.seek(searchKey(nextMatchingDay.atStartOfDay()));
+			} else {
+				// the set may lag a booking by a moment, so the live status has the final say
+				if (head.appointment().getAppointmentStatus() == AppointmentStatus.AVAILABLE) {
+					results.add(head.appointment());
+				}
+				hasNext = cursor.next();
+			}
+			if (hasNext) {
+				merge.add(cursor);
+			}
+		}
+		FIND_EARLIEST_SLOTS.record(started, scanned, limit, from, doctorID);
+		event.complete(FIND_EARLIEST_SLOTS, scanned, results.size());
+		return results;
+	}
+
+	/**
+	 * Brings the index in line with the current state of one slot. Call this after a
+	 * slot is created, deleted, booked or released.
+	 *
+	 * @param appointment the slot that changed
+	 */
+	public static void slotChanged(Appointment appointment) {
+		if (appointment == null) {
+			return;
+		}
+		currentIndex();
+		REBUILD_LOCK.readLock().lock();
+		try {
+			// read again under the lock, a rebuild may have finished while this thread waited
+			update(index, appointment);
+		} finally {
+			REBUILD_LOCK.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Brings the index in line with the current state of several slots, for example
+	 * a batch created from a recurring availability rule.
+	 *
+	 * @param appointments the slots that changed
+	 */
+	public static void slotsChanged(Collection<Appointment> appointments) {
+		currentIndex();
+		REBUILD_LOCK.readLock().lock();
+		try {
+			Index current = index;
+			for (Appointment appointment : appointments) {
+				update(current, appointment);
+			}
+		} finally {
+			REBUILD_LOCK.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds, moves or removes the index entry of one slot. Updates for the same slot
+	 * are serialised by the entry's map bin, so the last one always sees the final state.
+	 */
+	private static void update(Index current, Appointment appointment) {
+		current.indexedSlots.compute(appointment.getRecordID(), (appointmentID, existing) -> {
+			boolean free = isFree(appointment);
+			String location = locationKey(appointment.getLocation());
+			if (existing != null) {
+				if (free && existing.appointment() == appointment
+						&& existing.appointmentTime().equals(appointment.getAppointmentTime())
+						&& existing.doctorID().equals(appointment.getDoctorID())
+						&& existing.location().equals(location)) {
+					return existing;
+				}
+				current.freeSlotsOf(existing.doctorID(), existing.location()).remove(existing);
+			}
+			if (!free) {
+				return null;
+			}
+			FreeSlot slot = new FreeSlot(appointment.getAppointmentTime(), appointmentID,
+					appointment.getDoctorID(), location, appointment);
+			current.freeSlotsOf(slot.doctorID(), slot.location()).add(slot);
+			return slot;
+		});
+	}
+
+	/**
+	 * Returns a key that sorts before every slot at the given time.
+	 */
+	private static FreeSlot searchKey(LocalDateTime appointmentTime) {
+		return new FreeSlot(appointmentTime, "", null, null, null);
+	}
+
+	/**
+	 * Returns the key of the set a location's slots are kept in. Locations are matched
+	 * the way the location registry matches names, so renaming a slot to the
+	 * registered spelling of its location never moves it to another set. Slots
+	 * without a location share the empty key.
+	 */
+	private static String locationKey(String location) {
+		String key = LocationRepository.normaliseName(location);
+		return key == null ? "" : key;
+	}
+
+	private static boolean isFree(Appointment appointment) {
+		return appointment.getAppointmentStatus() == AppointmentStatus.AVAILABLE
+				&& appointment.getDoctorID() != null
+				&& appointment.getAppointmentTime() != null
+				&& RecordsRepository.APPOINTMENT_RECORDS.get(appointment.getRecordID()) == appointment;
+	}
+
+	/**
+	 * Returns the index for the current load generation, rebuilding it with a single
+	 * scan of the appointment records if the records were reloaded.
+	 */
+	private static Index currentIndex() {
+		int generation = RecordsRepository.getLoadGeneration();
+		Index current = index;
+		if (current != null && current.loadGeneration == generation) {
+			return current;
+		}
+		REBUILD_LOCK.writeLock().lock();
+		try {
+			current = index;
+			if (current == null || current.loadGeneration != generation) {
+				current = new Index(generation);
+				for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+					if (isFree(appointment)) {
+						update(current, appointment);
+					}
+				}
+				index = current;
+			}
+			return current;
+		} finally {
+			REBUILD_LOCK.writeLock().unlock();
+		}
+	}
+}
@@ -5,18 +5,30 @@ import java.util.Map;
 import enums.User;
 import model.*;
 import repository.*;
+import utility.Metrics;
 
 /**
  * The UserController class is a super class that provides methods to access and retrieve user-related information
  * from the UserRepository.
  */
 public class UserController {
+    private static final Metrics.Timer GENERATE_UID = Metrics.call("UserController.generateUID");
+    private static final Metrics.Timer ADD_USER = Metrics.call("UserController.addUser");
+    private static final Metrics.Timer REMOVE_USER = Metrics.call("UserController.removeUser");
+    private static final Metrics.Timer GET_USERBY_UID = Metrics.call("UserController.getUserbyUID");
+    private static final Metrics.Timer UPDATE_PERSONNEL = Metrics.call("UserController.updatePersonnel");
+    private static final Metrics.Timer GET_PATIENT_BY_ID = Metrics.call("UserController.getPatientById");
+    private static final Metrics.Timer UPDATE_PATIENT_PARTICULARS = Metrics
+            .call("UserController.updatePatientParticulars");
+
     /**
      * Generates a unique ID (UID) for the personnel based on their type.
      * @param user the type of personnel (Administrator, Doctor, Patient, Pharmacist)
      * @return a unique UID string for the personnel
      */
     public static String generateUID(User user) {
+        long started = System.nanoTime();
+        long scanned = 0;
         String prefix = "";
         int nextId = 0;
         Map<String, ? extends model.User> repository = null;
@@ -39,11 +51,13 @@ public class UserController {
                 repository = UserRepository.PHARMACISTS;
                 break;
             default:
+                GENERATE_UID.record(started, scanned, user);
                 return "";
         }
         // Find the highest ID currently in the repository
         if (repository != null && !repository.isEmpty()) {
             for (String idCard : repository.keySet()) {
+                scanned++;
                 if (idCard.startsWith(prefix)) {
                     try {
                         // Extract the numeric part after the prefix and parse it
@@ -57,6 +71,7 @@ public class UserController {
             }
         }
 
+        GENERATE_UID.record(started, scanned, user);
         // Format the next ID with leading zeros (e.g., "A001")
         return String.format("%s%03d", prefix, nextId);
     }
@@ -66,6 +81,13 @@ public class UserController {
      * @return true if user is successfully added, false if the data is invalid
      */
     public static boolean addUser(model.User user) {
+        long started = System.nanoTime();
+        boolean added = add(user);
+        ADD_USER.record(started, 0, user);
+        return added;
+    }
+
+    private static boolean add(model.User user) {
         if (user == null) {
             System.out.println("Error: Invalid user data.");
             return false;
@@ -99,7 +121,7 @@ public class UserController {
             }
         }
         // Save the updated user to the file
-        UserRepository.saveAllPersonnelFiles();
+        UserRepository.saveAllPersonnelFilesAsync().thenAccept(PersistenceExecutor::reportFailure);
         return true;
     }
 
@@ -126,6 +148,13 @@ public class UserController {
      */
     // Remove personnel by UID
     public static boolean removeUser(String UID, User type) {
+        long started = System.nanoTime();
+        boolean removed = remove(UID, type);
+        REMOVE_USER.record(started, 0, UID, type);
+        return removed;
+    }
+
+    private static boolean remove(String UID, User type) {
         if (UID == null || UID.isEmpty()) {
             System.out.println("Error: Invalid ID Card.");
             return false;
@@ -136,7 +165,7 @@ public class UserController {
                 Doctor removedDoctor = UserRepository.DOCTORS.remove(UID);
                 if (removedDoctor != null) {
                     System.out.println("Doctor removed: " + removedDoctor.getFullName());
-                    UserRepository.saveAllPersonnelFiles();
+                    UserRepository.saveAllPersonnelFilesAsync().thenAccept(PersistenceExecutor::reportFailure);
                     return true;
                 }
                 break;
@@ -144,7 +173,7 @@ public class UserController {
                 Patient removedPatient = UserRepository.PATIENTS.remove(UID);
                 if (removedPatient != null) {
                     System.out.println("Patient removed: " + removedPatient.getFullName());
-                    UserRepository.saveAllPersonnelFiles();
+                    UserRepository.saveAllPersonnelFilesAsync().thenAccept(PersistenceExecutor::reportFailure);
                     return true;
                 }
                 break;
@@ -152,7 +181,7 @@ public class UserController {
                 Pharmacist removedPharmacist = UserRepository.PHARMACISTS.remove(UID);
                 if (removedPharmacist != null) {
                     System.out.println("Pharmacist removed: " + removedPharmacist.getFullName());
-                    UserRepository.saveAllPersonnelFiles();
+                    UserRepository.saveAllPersonnelFilesAsync().thenAccept(PersistenceExecutor::reportFailure);
                     return true;
                 }
                 break;
@@ -160,7 +189,7 @@ public class UserController {
                 Administrator removedAdministrator = UserRepository.ADMINS.remove(UID);
                 if (removedAdministrator != null) {
                     System.out.println("Administrator removed: " + removedAdministrator.getFullName());
-                    UserRepository.saveAllPersonnelFiles();
+                    UserRepository.saveAllPersonnelFilesAsync().thenAccept(PersistenceExecutor::reportFailure);
                     return true;
                 }
                 break;
@@ -180,6 +209,13 @@ public class UserController {
      * @return
      */
     public static model.User getUserbyUID(String UID, User type) {
+        long started = System.nanoTime();
+        model.User user = findUser(UID, type);
+        GET_USERBY_UID.record(started, 0, UID, type);
+        return user;
+    }
+
+    private static model.User findUser(String UID, User type) {
         if (UID == null || UID.isEmpty()) {
             System.out.println("Error: Invalid ID Card.");
             return null;
@@ -205,6 +241,13 @@ public class UserController {
      */
     // Update personnel details
     public static boolean updatePersonnel(String UID, model.User updatedPersonnel) {
+        long started = System.nanoTime();
+        boolean updated = update(UID, updatedPersonnel);
+        UPDATE_PERSONNEL.record(started, 0, UID, updatedPersonnel);
+        return updated;
+    }
+
+    private static boolean update(String UID, model.User updatedPersonnel) {
         if (UID == null || UID.isEmpty() || updatedPersonnel == null) {
             System.out.println("Error: Invalid update request.");
             return false;
@@ -229,7 +272,7 @@ public class UserController {
         }
 
         // Save the updated data
-        UserRepository.saveAllPersonnelFiles();
+        UserRepository.saveAllPersonnelFilesAsync().thenAccept(PersistenceExecutor::reportFailure);
         return true;
     }
 
@@ -240,6 +283,13 @@ public class UserController {
      */
     // Retrieve a patient by UID
     public static Patient getPatientById(String UID) {
+        long started = System.nanoTime();
+        Patient patient = findPatient(UID);
+        GET_PATIENT_BY_ID.record(started, 0, UID);
+        return patient;
+    }
+
+    private static Patient findPatient(String UID) {
         if (UID == null || UID.isEmpty()) {
             System.out.println("Error: Invalid ID Card.");
             return null;
@@ -260,6 +310,13 @@ public class UserController {
     // Update a patient's particulars by UID
     // Update a patient's particulars by UID
     public static boolean updatePatientParticulars(String UID, Patient updatedPatient) {
+        long started = System.nanoTime();
+        boolean updated = updateParticulars(UID, updatedPatient);
+        UPDATE_PATIENT_PARTICULARS.record(started, 0, UID, updatedPatient);
+        return updated;
+    }
+
+    private static boolean updateParticulars(String UID, Patient updatedPatient) {
         if (UID == null || UID.isEmpty() || updatedPatient == null) {
             System.out.println("Error: Invalid ID Card or patient data.");
             return false;
@@ -288,7 +345,7 @@ public class UserController {
 
         // Save changes to repository
         UserRepository.PATIENTS.put(UID, existingPatient);
-        UserRepository.saveAllPersonnelFiles();
+        UserRepository.saveAllPersonnelFilesAsync().thenAccept(PersistenceExecutor::reportFailure);
 
         System.out.println("Patient details updated successfully for ID Card: " + UID);
         return true;
@@ -0,0 +1,310 @@
+package controller;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import enums.AppointmentStatus;
+import enums.SlotTransitionResult;
+import enums.WaitlistUrgency;
+import model.Appointment;
+import model.WaitlistEntry;
+import repository.PersistenceExecutor;
+import repository.WaitlistRepository;
+import utility.Metrics;
+
+/**
+ * The WaitlistController class keeps patients waiting for a doctor on a given day
+ * and hands them a slot the moment one becomes AVAILABLE.
+ * Each doctor and day has its own priority queue, ordered by urgency and then by
+ * how long the patient has waited. {@link AppointmentController} and
+ * {@link DoctorCalendar} call {@link #offerSlot(Appointment)} whenever a slot is
+ * freed or created, so the slot is booked for the first patient in the queue as
+ * part of the same change, before anyone else can see it in a listing.
+ * Entries for a day that has passed can never be offered a slot, so they are
+ * dropped the first time the waitlist is used on a later day.
+ */
+public class WaitlistController {
+	private static final Comparator<WaitlistEntry> PRIORITY = Comparator
+			.comparing(WaitlistEntry::getUrgency, Comparator.reverseOrder())
+			.thenComparing(WaitlistEntry::getRequestedAt)
+			.thenComparing(WaitlistEntry::getWaitlistID);
+	private static final Metrics.Timer JOIN_WAITLIST = Metrics.call("WaitlistController.joinWaitlist");
+	private static final Metrics.Timer LEAVE_WAITLIST = Metrics.call("WaitlistController.leaveWaitlist");
+	private static final Metrics.Timer GET_WAITLIST_ENTRIES = Metrics.call("WaitlistController.getWaitlistEntries");
+	private static final Metrics.Timer GET_QUEUE_POSITION = Metrics.call("WaitlistController.getQueuePosition");
+	private static final Metrics.Timer OFFER_SLOT = Metrics.call("WaitlistController.offerSlot");
+
+	// Guarded by the class lock
+	private static final Map<WaitlistKey, PriorityQueue<WaitlistEntry>> QUEUES = new HashMap<>();
+	private static int loadGeneration = -1;
+	private static int nextWaitlistID = 0;
+	private static LocalDate prunedOn;
+
+	/**
+	 * The doctor and day a queue belongs to.
+	 */
+	private record WaitlistKey(String doctorID, LocalDate date) {
+	}
+
+	/**
+	 * Adds a patient to the waitlist of a doctor for a day. A patient who is already
+	 * waiting for the same doctor and day keeps their original place.
+	 *
+	 * @param patientID     the ID of the waiting patient
+	 * @param doctorID      the ID of the doctor
+	 * @param preferredDate the day the patient wants to be seen
+	 * @param urgency       how urgently the patient needs to be seen
+	 * @return the patient's waitlist entry
+	 */
+	public static synchronized WaitlistEntry joinWaitlist(String patientID, String doctorID, LocalDate preferredDate,
+														  WaitlistUrgency urgency) {
+		long started = System.nanoTime();
+		WaitlistEntry entry = join(patientID, doctorID, preferredDate, urgency);
+		JOIN_WAITLIST.record(started, 0, patientID, doctorID, preferredDate);
+		return entry;
+	}
+
+	private static WaitlistEntry join(String patientID, String doctorID, LocalDate preferredDate,
+									  WaitlistUrgency urgency) {
+		ensureLoaded();
+		WaitlistKey key = new WaitlistKey(doctorID, preferredDate);
+		PriorityQueue<WaitlistEntry> queue = QUEUES.computeIfAbsent(key, k -> new PriorityQueue<>(PRIORITY));
+		for (WaitlistEntry entry : queue) {
+			if (entry.getPatientID().equals(patientID)) {
+				return entry;
+			}
+		}
+		WaitlistEntry entry = new WaitlistEntry(String.format("W-%03d", nextWaitlistID++), patientID, doctorID,
+				preferredDate, urgency, LocalDateTime.now());
+		queue.add(entry);
+		WaitlistRepository.WAITLIST_ENTRIES.put(entry.getWaitlistID(), entry);
+		WaitlistRepository.saveAlltoCSVAsync().thenAccept(PersistenceExecutor::reportFailure);
+		return entry;
+	}
+
+	/**
+	 * Removes one of a patient's waitlist entries.
+	 *
+	 * @param waitlistID the ID of the entry
+	 * @param patientID  the ID of the patient who must own the entry
+	 * @return true if the entry was removed
+	 */
+	public static synchronized boolean leaveWaitlist(String waitlistID, String patientID) {
+		long started = System.nanoTime();
+		boolean left = leave(waitlistID, patientID);
+		LEAVE_WAITLIST.record(started, 0, waitlistID, patientID);
+		return left;
+	}
+
+	private static boolean leave(String waitlistID, String patientID) {
+		ensureLoaded();
+		WaitlistEntry entry = WaitlistRepository.WAITLIST_ENTRIES.get(waitlistID);
+		if (entry == null || !entry.getPatientID().equals(patientID)) {
+			return false;
+		}
+		remove(entry);
+		WaitlistRepository.saveAlltoCSVAsync().thenAccept(PersistenceExecutor::reportFailure);
+		return true;
+	}
+
+	/**
+	 * Gets the waitlist entries of a patient.
+	 *
+	 * @param patientID the ID of the patient
+	 * @return the patient's entries, ordered by preferred date
+	 */
+	public static synchronized List<WaitlistEntry> getWaitlistEntries(String patientID) {
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long started = System.nanoTime();
+		long scanned = 0;
+		ensureLoaded();
+		List<WaitlistEntry> entries = new ArrayList<>();
+		for (WaitlistEntry entry : WaitlistRepository.WAITLIST_ENTRIES.values()) {
+			scanned++;
+			if (entry.getPatientID().equals(patientID)) {
+				entries.add(entry);
+			}
+		}
+		entries.sort(Comparator.comparing(WaitlistEntry::getPreferredDate).thenComparing(PRIORITY));
+		GET_WAITLIST_ENTRIES.record(started, scanned, patientID);
+		event.complete(GET_WAITLIST_ENTRIES, scanned, entries.size());
+		return entries;
+	}
+
+	/**
+	 * Gets a patient's position in the queue of an entry.
+	 *
+	 * @param entry the waitlist entry
+	 * @return the 1-based position, or 0 if the entry is no longer waiting
+	 */
+	public static synchronized int getQueuePosition(WaitlistEntry entry) {
+		long started = System.nanoTime();
+		int position = findQueuePosition(entry);
+		GET_QUEUE_POSITION.record(started, 0, entry);
+		return position;
+	}
+
+	private static int findQueuePosition(WaitlistEntry entry) {
+		ensureLoaded();
+		PriorityQueue<WaitlistEntry> queue = QUEUES.get(new WaitlistKey(entry.getDoctorID(), entry.getPreferredDate()));
+		if (queue == null || !queue.contains(entry)) {
+			return 0;
+		}
+		int position = 1;
+		for (WaitlistEntry other : queue) {
+			if (PRIORITY.compare(other, entry) < 0) {
+				position++;
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * Offers an AVAILABLE slot to the waitlist of its doctor and day. The slot is
+	 * booked for the highest-priority patient, who leaves the waitlist. Slots in the
+	 * past, or that another session books first, are left alone.
+	 * The patient is taken off the queue under the class lock, but the slot is booked
+	 * after the lock is released, so a slow booking never holds up the waitlist. If
+	 * the booking fails, the patient goes back to their place in the queue.
+	 *
+	 * @param slot the slot that was freed or created
+	 * @return the entry that received the slot, or null if the slot was not assigned
+	 */
+	public static WaitlistEntry offerSlot(Appointment slot) {
+		long started = System.nanoTime();
+		WaitlistEntry entry = claim(slot);
+		if (entry != null) {
+			if (AppointmentController.bookAppointmentSlot(slot, entry.getPatientID()) == SlotTransitionResult.SUCCESS) {
+				settle(entry);
+			} else {
+				requeue(entry);
+				entry = null;
+			}
+		}
+		OFFER_SLOT.record(started, 0, slot);
+		return entry;
+	}
+
+	/**
+	 * Takes the highest-priority patient waiting for a slot off its queue. The entry
+	 * stays in the repository until the booking is settled.
+	 *
+	 * @param slot the slot that was freed or created
+	 * @return the entry to book the slot for, or null if nobody is waiting for it
+	 */
+	private static synchronized WaitlistEntry claim(Appointment slot) {
+		ensureLoaded();
+		if (QUEUES.isEmpty() || slot.getAppointmentTime() == null
+				|| !slot.getAppointmentTime().isAfter(LocalDateTime.now())) {
+			return null;
+		}
+		WaitlistKey key = new WaitlistKey(slot.getDoctorID(), slot.getAppointmentTime().toLocalDate());
+		PriorityQueue<WaitlistEntry> queue = QUEUES.get(key);
+		if (queue == null || slot.getAppointmentStatus() != AppointmentStatus.AVAILABLE) {
+			return null;
+		}
+		WaitlistEntry entry = queue.poll();
+		if (queue.isEmpty()) {
+			QUEUES.remove(key);
+		}
+		return entry;
+	}
+
+	/**
+	 * Removes an entry whose patient was booked into the offered slot.
+	 *
+	 * @param entry the entry that received the slot
+	 */
+	private static synchronized void settle(WaitlistEntry entry) {
+		WaitlistRepository.WAITLIST_ENTRIES.remove(entry.getWaitlistID());
+		WaitlistRepository.saveAlltoCSVAsync().thenAccept(PersistenceExecutor::reportFailure);
+	}
+
+	/**
+	 * Puts a claimed entry back in its queue after the offered slot could not be
+	 * booked, unless the patient left the waitlist or the waitlist was reloaded in
+	 * the meantime.
+	 *
+	 * @param entry the entry that was claimed
+	 */
+	private static synchronized void requeue(WaitlistEntry entry) {
+		if (WaitlistRepository.WAITLIST_ENTRIES.get(entry.getWaitlistID()) != entry) {
+			return;
+		}
+		QUEUES.computeIfAbsent(new WaitlistKey(entry.getDoctorID(), entry.getPreferredDate()),
+				k -> new PriorityQueue<>(PRIORITY)).add(entry);
+	}
+
+	private static void remove(WaitlistEntry entry) {
+		WaitlistRepository.WAITLIST_ENTRIES.remove(entry.getWaitlistID());
+		WaitlistKey key = new WaitlistKey(entry.getDoctorID(), entry.getPreferredDate());
+		PriorityQueue<WaitlistEntry> queue = QUEUES.get(key);
+		if (queue != null) {
+			queue.remove(entry);
+			if (queue.isEmpty()) {
+				QUEUES.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Brings the queues in line with the repository and drops the entries of days
+	 * that have passed.
+	 */
+	private static void ensureLoaded() {
+		if (loadGeneration != WaitlistRepository.getLoadGeneration()) {
+			reload();
+		}
+		dropExpired();
+	}
+
+	/**
+	 * Removes the queues of days before today, and their entries, once a day.
+	 */
+	private static void dropExpired() {
+		LocalDate today = LocalDate.now();
+		if (today.equals(prunedOn)) {
+			return;
+		}
+		prunedOn = today;
+		boolean dropped = QUEUES.entrySet().removeIf(queue -> {
+			if (!queue.getKey().date().isBefore(today)) {
+				return false;
+			}
+			for (WaitlistEntry entry : queue.getValue()) {
+				WaitlistRepository.WAITLIST_ENTRIES.remove(entry.getWaitlistID());
+			}
+			return true;
+		});
+		if (dropped) {
+			WaitlistRepository.saveAlltoCSVAsync().thenAccept(PersistenceExecutor::reportFailure);
+		}
+	}
+
+	/**
+	 * Rebuilds the queues from the repository after the waitlist was loaded from disk.
+	 */
+	private static void reload() {
+		loadGeneration = WaitlistRepository.getLoadGeneration();
+		prunedOn = null;
+		QUEUES.clear();
+		nextWaitlistID = 0;
+		for (WaitlistEntry entry : WaitlistRepository.WAITLIST_ENTRIES.values()) {
+			QUEUES.computeIfAbsent(new WaitlistKey(entry.getDoctorID(), entry.getPreferredDate()),
+					k -> new PriorityQueue<>(PRIORITY)).add(entry);
+			String id = entry.getWaitlistID();
+			try {
+				nextWaitlistID = Math.max(nextWaitlistID, Integer.parseInt(id.substring(id.indexOf('-') + 1)) + 1);
+			} catch (NumberFormatException e) {
+				System.out.println("Invalid ID format: " + id);
+			}
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package enums;
+
+/**
+ * Represents the resource two overlapping appointments compete for.
+ * The possible values are:
+ * <ul>
+ *     <li><b>DOCTOR:</b> The same doctor has two slots at overlapping times.</li>
+ *     <li><b>LOCATION:</b> The same room is booked for two slots at overlapping times.</li>
+ * </ul>
+ */
+public enum ConflictType {
+    DOCTOR, LOCATION;
+
+    /**
+     * Returns a message describing the conflict, suitable for displaying to the user.
+     *
+     * @return A message describing the conflict.
+     */
+    public String getMessage() {
+        return switch (this) {
+            case DOCTOR -> "The doctor already has a slot at an overlapping time.";
+            case LOCATION -> "The location is already in use at an overlapping time.";
+        };
+    }
+}
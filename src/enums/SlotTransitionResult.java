@@ -0,0 +1,29 @@
+package enums;
+
+/**
+ * Represents the result of an attempt to change the state of an appointment slot.
+ * The possible values are:
+ * <ul>
+ *     <li><b>SUCCESS:</b> The slot moved to the requested state.</li>
+ *     <li><b>SLOT_TAKEN:</b> Another session booked the slot first.</li>
+ *     <li><b>NOT_OWNER:</b> The slot is held by a different patient.</li>
+ *     <li><b>INVALID_STATE:</b> The slot is not in a state that allows the change.</li>
+ * </ul>
+ */
+public enum SlotTransitionResult {
+    SUCCESS, SLOT_TAKEN, NOT_OWNER, INVALID_STATE;
+
+    /**
+     * Returns a message describing the result, suitable for displaying to the user.
+     *
+     * @return A message describing the result.
+     */
+    public String getMessage() {
+        return switch (this) {
+            case SUCCESS -> "The appointment slot was updated successfully.";
+            case SLOT_TAKEN -> "Sorry, this slot was just taken by another patient. Please choose another slot.";
+            case NOT_OWNER -> "This appointment slot is not held by you.";
+            case INVALID_STATE -> "This appointment slot has changed and can no longer be updated.";
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package enums;
+
+/**
+ * Represents how urgently a waitlisted patient needs to be seen. More urgent
+ * requests are offered a freed slot before less urgent ones, whatever their age.
+ * The possible values are:
+ * <ul>
+ *     <li><b>ROUTINE:</b> The patient can wait for the next regular opening.</li>
+ *     <li><b>SOON:</b> The patient should be seen within a few days.</li>
+ *     <li><b>URGENT:</b> The patient should be seen as soon as a slot frees up.</li>
+ * </ul>
+ */
+public enum WaitlistUrgency {
+    ROUTINE, SOON, URGENT;
+
+    /**
+     * Converts a string representation of an urgency to the corresponding enum value.
+     *
+     * @param urgency A string representing the urgency (e.g., "ROUTINE", "URGENT").
+     * @return The corresponding {@code WaitlistUrgency} enum value, or {@code null} if the input string does not match.
+     */
+    public static WaitlistUrgency toEnumWaitlistUrgency(String urgency) {
+        return switch (urgency.trim().toUpperCase()) {
+            case "ROUTINE" -> ROUTINE;
+            case "SOON" -> SOON;
+            case "URGENT" -> URGENT;
+            default -> null;
+        };
+    }
+}
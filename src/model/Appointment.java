@@ -1,22 +1,30 @@
 package model;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
 
 import enums.AppointmentStatus;
 import enums.RecordStatus;
+import repository.LocationRepository;
 
 /**
  * Appointment class extends Records
  */
 
 public class Appointment extends Records {
-	private String appointmentOutcomeRecordID;
-	private String patientID;
+	/**
+	 * Length of a slot, in minutes, for appointments stored before slot lengths were recorded.
+	 */
+	public static final int DEFAULT_SLOT_LENGTH_MINUTES = 30;
+
+	private final AtomicReference<AppointmentSlotState> slotState;
 	private String doctorID;
 	private LocalDateTime appointmentTime;
+	private String locationID;
+	// the location name as entered, only shown until the location is registered
 	private String location;
-	private AppointmentStatus appointmentStatus;
 	private AppointmentOutcomeRecord appointmentOutcomeRecord;
+	private int slotLengthMinutes;
 
     /**
      * Constructor when retrieving CSV data to an object.
@@ -46,13 +54,47 @@ public class Appointment extends Records {
 					   AppointmentStatus appointmentStatus,
 					   AppointmentOutcomeRecord appointmentOutcomeRecord) {
 		super(recordID, createdDate, updatedDate, recordStatus);
-		this.appointmentOutcomeRecordID = appointmentOutcomeRecordID;
-		this.patientID = patientID;
+		this.slotState = new AtomicReference<>(
+				new AppointmentSlotState(appointmentStatus, patientID, appointmentOutcomeRecordID));
 		this.doctorID = doctorID;
 		this.appointmentTime = appointmentTime;
 		this.location = location;
-		this.appointmentStatus = appointmentStatus;
 		this.appointmentOutcomeRecord = appointmentOutcomeRecord;
+		this.slotLengthMinutes = DEFAULT_SLOT_LENGTH_MINUTES;
+	}
+
+    /**
+     * Constructor for an appointment slot with an explicit length.
+     *
+     * @param recordID the unique ID of the appointment record
+     * @param createdDate the date when the appointment record was created
+     * @param updatedDate the date when the appointment record was last updated
+     * @param recordStatus the status of the appointment record
+     * @param appointmentOutcomeRecordID the ID of the associated appointment outcome record
+     * @param patientID the ID of the patient
+     * @param doctorID the ID of the doctor
+     * @param appointmentTime the date and time of the appointment
+     * @param location the location of the appointment
+     * @param appointmentStatus the status of the appointment
+     * @param appointmentOutcomeRecord the associated appointment outcome record
+     * @param slotLengthMinutes the length of the slot in minutes
+     */
+
+	public Appointment(String recordID,
+					   LocalDateTime createdDate,
+					   LocalDateTime updatedDate,
+					   RecordStatus recordStatus,
+					   String appointmentOutcomeRecordID,
+					   String patientID,
+					   String doctorID,
+					   LocalDateTime appointmentTime,
+					   String location,
+					   AppointmentStatus appointmentStatus,
+					   AppointmentOutcomeRecord appointmentOutcomeRecord,
+					   int slotLengthMinutes) {
+		this(recordID, createdDate, updatedDate, recordStatus, appointmentOutcomeRecordID, patientID, doctorID,
+				appointmentTime, location, appointmentStatus, appointmentOutcomeRecord);
+		this.slotLengthMinutes = slotLengthMinutes;
 	}
 
     /**
@@ -62,7 +104,7 @@ public class Appointment extends Records {
      */
 
 	public String getAppointmentOutcomeRecordID() {
-		return appointmentOutcomeRecordID;
+		return slotState.get().getAppointmentOutcomeRecordID();
 	}
 
     /**
@@ -72,7 +114,7 @@ public class Appointment extends Records {
      */
 
 	public void setAppointmentOutcomeRecordID(String appointmentOutcomeRecordID) {
-		this.appointmentOutcomeRecordID = appointmentOutcomeRecordID;
+		slotState.updateAndGet(state -> state.withAppointmentOutcomeRecordID(appointmentOutcomeRecordID));
 	}
 
     /**
@@ -82,7 +124,7 @@ public class Appointment extends Records {
      */
 
 	public String getPatientID() {
-		return patientID;
+		return slotState.get().getPatientID();
 	}
 
     /**
@@ -92,7 +134,7 @@ public class Appointment extends Records {
      */
 
 	public void setPatientID(String patientID) {
-		this.patientID = patientID;
+		slotState.updateAndGet(state -> state.withPatientID(patientID));
 	}
 
     /**
@@ -136,23 +178,76 @@ public class Appointment extends Records {
 	}
 
     /**
-     * Gets the location of the appointment.
+     * Gets the name of the location of the appointment, as registered for its location ID.
      *
-     * @return the appointment location
+     * @return the appointment location, or the name as entered if the location is not registered
      */
 
 	public String getLocation() {
-		return location;
+		Location registered = LocationRepository.findLocation(locationID);
+		return registered != null ? registered.getName() : location;
 	}
 
     /**
-     * Sets the location for the appointment.
+     * Sets the location for the appointment by name. The location ID is cleared, and
+     * assigned again when the name is looked up in the location registry.
      *
      * @param location the location to set
      */
 
 	public void setLocation(String location) {
 		this.location = location;
+		this.locationID = null;
+	}
+
+    /**
+     * Gets the ID of the registered location of the appointment.
+     *
+     * @return the location ID, or null if the location has not been registered yet
+     */
+
+	public String getLocationID() {
+		return locationID;
+	}
+
+    /**
+     * Sets the ID of the registered location of the appointment.
+     *
+     * @param locationID the location ID to set
+     */
+
+	public void setLocationID(String locationID) {
+		this.locationID = locationID;
+	}
+
+    /**
+     * Gets the length of the appointment slot.
+     *
+     * @return the slot length in minutes
+     */
+
+	public int getSlotLengthMinutes() {
+		return slotLengthMinutes;
+	}
+
+    /**
+     * Sets the length of the appointment slot.
+     *
+     * @param slotLengthMinutes the slot length in minutes
+     */
+
+	public void setSlotLengthMinutes(int slotLengthMinutes) {
+		this.slotLengthMinutes = slotLengthMinutes;
+	}
+
+    /**
+     * Gets the time at which the appointment slot ends.
+     *
+     * @return the appointment time plus the slot length
+     */
+
+	public LocalDateTime getEndTime() {
+		return appointmentTime.plusMinutes(slotLengthMinutes);
 	}
 
     /**
@@ -162,7 +257,7 @@ public class Appointment extends Records {
      */
 
 	public AppointmentStatus getAppointmentStatus() {
-		return appointmentStatus;
+		return slotState.get().getAppointmentStatus();
 	}
 
     /**
@@ -172,7 +267,31 @@ public class Appointment extends Records {
      */
 
 	public void setAppointmentStatus(AppointmentStatus appointmentStatus) {
-		this.appointmentStatus = appointmentStatus;
+		slotState.updateAndGet(state -> state.withStatus(appointmentStatus));
+	}
+
+    /**
+     * Gets the current booking state of the appointment slot as one consistent snapshot.
+     *
+     * @return the current slot state
+     */
+
+	public AppointmentSlotState getSlotState() {
+		return slotState.get();
+	}
+
+    /**
+     * Atomically replaces the booking state of the slot, but only if it still
+     * holds the expected state. Used by AppointmentController so that two sessions
+     * can never both book, cancel or reschedule the same slot.
+     *
+     * @param expectedState the state the caller last read
+     * @param newState the state to move to
+     * @return true if the slot was updated, false if another session changed it first
+     */
+
+	public boolean compareAndSetSlotState(AppointmentSlotState expectedState, AppointmentSlotState newState) {
+		return slotState.compareAndSet(expectedState, newState);
 	}
 
     /**
@@ -0,0 +1,104 @@
+package model;
+
+import enums.AppointmentStatus;
+
+/**
+ * Immutable snapshot of the booking state of an appointment slot.
+ * An Appointment holds exactly one of these at a time and replaces it with
+ * compare-and-set, so the status, the patient holding the slot and the linked
+ * appointment outcome record always change together.
+ */
+
+public final class AppointmentSlotState {
+	private final AppointmentStatus appointmentStatus;
+	private final String patientID;
+	private final String appointmentOutcomeRecordID;
+
+    /**
+     * Constructs a slot state with the specified details.
+     *
+     * @param appointmentStatus the status of the appointment slot
+     * @param patientID the ID of the patient holding the slot, or null if none
+     * @param appointmentOutcomeRecordID the ID of the linked appointment outcome record, or null if none
+     */
+
+	public AppointmentSlotState(AppointmentStatus appointmentStatus, String patientID,
+								String appointmentOutcomeRecordID) {
+		this.appointmentStatus = appointmentStatus;
+		this.patientID = patientID;
+		this.appointmentOutcomeRecordID = appointmentOutcomeRecordID;
+	}
+
+    /**
+     * Gets the status of the appointment slot.
+     *
+     * @return the appointment status
+     */
+
+	public AppointmentStatus getAppointmentStatus() {
+		return appointmentStatus;
+	}
+
+    /**
+     * Gets the ID of the patient holding the slot.
+     *
+     * @return the patient ID, or null if the slot is not held
+     */
+
+	public String getPatientID() {
+		return patientID;
+	}
+
+    /**
+     * Gets the ID of the linked appointment outcome record.
+     *
+     * @return the appointment outcome record ID, or null if none
+     */
+
+	public String getAppointmentOutcomeRecordID() {
+		return appointmentOutcomeRecordID;
+	}
+
+    /**
+     * Returns a copy of this state with a different status.
+     *
+     * @param appointmentStatus the new status
+     * @return the new slot state
+     */
+
+	public AppointmentSlotState withStatus(AppointmentStatus appointmentStatus) {
+		return new AppointmentSlotState(appointmentStatus, patientID, appointmentOutcomeRecordID);
+	}
+
+    /**
+     * Returns a copy of this state held by a different patient.
+     *
+     * @param patientID the new patient ID
+     * @return the new slot state
+     */
+
+	public AppointmentSlotState withPatientID(String patientID) {
+		return new AppointmentSlotState(appointmentStatus, patientID, appointmentOutcomeRecordID);
+	}
+
+    /**
+     * Returns a copy of this state linked to a different appointment outcome record.
+     *
+     * @param appointmentOutcomeRecordID the new appointment outcome record ID
+     * @return the new slot state
+     */
+
+	public AppointmentSlotState withAppointmentOutcomeRecordID(String appointmentOutcomeRecordID) {
+		return new AppointmentSlotState(appointmentStatus, patientID, appointmentOutcomeRecordID);
+	}
+
+    /**
+     * Returns the state of a slot that has been handed back and is open for booking again.
+     *
+     * @return an AVAILABLE slot state with no patient and no outcome record
+     */
+
+	public static AppointmentSlotState available() {
+		return new AppointmentSlotState(AppointmentStatus.AVAILABLE, null, null);
+	}
+}
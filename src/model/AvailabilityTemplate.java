@@ -0,0 +1,181 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Recurring availability rule for a doctor.
+ * Describes a weekly pattern of working hours at one location over a date range,
+ * split into slots of a fixed length, with individual dates excluded (e.g. public
+ * holidays or leave). The rule is expanded into concrete slot times by
+ * {@link #generateSlotTimes()}.
+ */
+public class AvailabilityTemplate {
+    private final Set<DayOfWeek> daysOfWeek;
+    private final LocalTime dailyStartTime;
+    private final LocalTime dailyEndTime;
+    private final int slotLengthMinutes;
+    private final String locationID;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Set<LocalDate> excludedDates;
+
+    /**
+     * Constructs an AvailabilityTemplate with the specified details.
+     *
+     * @param daysOfWeek        the days of the week the doctor is available
+     * @param dailyStartTime    the start of the working hours on each available day
+     * @param dailyEndTime      the end of the working hours; the last slot ends on or before this time
+     * @param slotLengthMinutes the length of each slot, in minutes
+     * @param locationID        the ID of the registered location of every generated slot
+     * @param startDate         the first date of the range, inclusive
+     * @param endDate           the last date of the range, inclusive
+     * @param excludedDates     dates within the range on which no slots are generated
+     * @throws IllegalArgumentException if the rule cannot produce valid slots
+     */
+    public AvailabilityTemplate(Set<DayOfWeek> daysOfWeek, LocalTime dailyStartTime, LocalTime dailyEndTime,
+                                int slotLengthMinutes, String locationID, LocalDate startDate, LocalDate endDate,
+                                Set<LocalDate> excludedDates) {
+        if (daysOfWeek == null || daysOfWeek.isEmpty()) {
+            throw new IllegalArgumentException("At least one day of the week is required.");
+        }
+        if (slotLengthMinutes <= 0) {
+            throw new IllegalArgumentException("Slot length must be a positive number of minutes.");
+        }
+        if (!dailyStartTime.isBefore(dailyEndTime)) {
+            throw new IllegalArgumentException("Start time must be before end time.");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must not be before start date.");
+        }
+        this.daysOfWeek = Collections.unmodifiableSet(EnumSet.copyOf(daysOfWeek));
+        this.dailyStartTime = dailyStartTime;
+        this.dailyEndTime = dailyEndTime;
+        this.slotLengthMinutes = slotLengthMinutes;
+        this.locationID = locationID;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.excludedDates = excludedDates == null ? Set.of() : Collections.unmodifiableSet(new TreeSet<>(excludedDates));
+    }
+
+    /**
+     * Expands the rule into the start times of every slot it describes, in
+     * chronological order.
+     *
+     * @return the slot start times
+     */
+    public List<LocalDateTime> generateSlotTimes() {
+        List<LocalDateTime> slotTimes = new ArrayList<>(countSlots());
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (!daysOfWeek.contains(date.getDayOfWeek()) || excludedDates.contains(date)) {
+                continue;
+            }
+            LocalDateTime slot = date.atTime(dailyStartTime);
+            LocalDateTime dayEnd = date.atTime(dailyEndTime);
+            while (!slot.plusMinutes(slotLengthMinutes).isAfter(dayEnd)) {
+                slotTimes.add(slot);
+                slot = slot.plusMinutes(slotLengthMinutes);
+            }
+        }
+        return slotTimes;
+    }
+
+    /**
+     * Counts the slots the rule describes without generating them, so the doctor
+     * can be shown a preview before anything is created.
+     *
+     * @return the number of slots
+     */
+    public int countSlots() {
+        long minutesPerDay = Duration.between(dailyStartTime, dailyEndTime).toMinutes();
+        int slotsPerDay = (int) (minutesPerDay / slotLengthMinutes);
+        int days = 0;
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (daysOfWeek.contains(date.getDayOfWeek()) && !excludedDates.contains(date)) {
+                days++;
+            }
+        }
+        return days * slotsPerDay;
+    }
+
+    /**
+     * Gets the days of the week the doctor is available.
+     *
+     * @return the days of the week
+     */
+    public Set<DayOfWeek> getDaysOfWeek() {
+        return daysOfWeek;
+    }
+
+    /**
+     * Gets the start of the working hours on each available day.
+     *
+     * @return the daily start time
+     */
+    public LocalTime getDailyStartTime() {
+        return dailyStartTime;
+    }
+
+    /**
+     * Gets the end of the working hours on each available day.
+     *
+     * @return the daily end time
+     */
+    public LocalTime getDailyEndTime() {
+        return dailyEndTime;
+    }
+
+    /**
+     * Gets the length of each slot.
+     *
+     * @return the slot length in minutes
+     */
+    public int getSlotLengthMinutes() {
+        return slotLengthMinutes;
+    }
+
+    /**
+     * Gets the ID of the location of every generated slot.
+     *
+     * @return the location ID
+     */
+    public String getLocationID() {
+        return locationID;
+    }
+
+    /**
+     * Gets the first date of the range.
+     *
+     * @return the start date
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Gets the last date of the range.
+     *
+     * @return the end date
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * Gets the dates on which no slots are generated.
+     *
+     * @return the excluded dates
+     */
+    public Set<LocalDate> getExcludedDates() {
+        return excludedDates;
+    }
+}
@@ -0,0 +1,97 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import enums.AppointmentStatus;
+
+/**
+ * Immutable view of one doctor's slots on one day, with the number of slots in
+ * each status. A doctor's calendar keeps one per day and replaces only the days
+ * whose slots changed, so reading a day or its counts never depends on how many
+ * appointments the doctor has on other days.
+ */
+public final class DaySchedule {
+	private static final Comparator<ScheduleEntry> ORDER = Comparator
+			.comparing(ScheduleEntry::getAppointmentTime)
+			.thenComparing(ScheduleEntry::getAppointmentID);
+
+	private final LocalDate date;
+	private final List<ScheduleEntry> entries;
+	private final int[] statusCounts;
+
+	/**
+	 * Creates the view of a day from its slots.
+	 *
+	 * @param date    the day
+	 * @param entries the slots on the day, in any order
+	 */
+	public DaySchedule(LocalDate date, List<ScheduleEntry> entries) {
+		List<ScheduleEntry> sorted = new ArrayList<>(entries);
+		sorted.sort(ORDER);
+		this.date = date;
+		this.entries = List.copyOf(sorted);
+		this.statusCounts = new int[AppointmentStatus.values().length];
+		for (ScheduleEntry entry : sorted) {
+			statusCounts[entry.getAppointmentStatus().ordinal()]++;
+		}
+	}
+
+	/**
+	 * Gets the day this view belongs to.
+	 *
+	 * @return the date
+	 */
+	public LocalDate getDate() {
+		return date;
+	}
+
+	/**
+	 * Gets every slot on the day.
+	 *
+	 * @return an unmodifiable list of entries ordered by appointment time
+	 */
+	public List<ScheduleEntry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Gets the slots on the day with the given status.
+	 *
+	 * @param status the status to filter by
+	 * @return the matching entries ordered by appointment time
+	 */
+	public List<ScheduleEntry> getEntries(AppointmentStatus status) {
+		if (getCount(status) == 0) {
+			return List.of();
+		}
+		List<ScheduleEntry> matching = new ArrayList<>(getCount(status));
+		for (ScheduleEntry entry : entries) {
+			if (entry.getAppointmentStatus() == status) {
+				matching.add(entry);
+			}
+		}
+		return matching;
+	}
+
+	/**
+	 * Gets the number of slots on the day with the given status.
+	 *
+	 * @param status the status to count
+	 * @return the number of slots
+	 */
+	public int getCount(AppointmentStatus status) {
+		return statusCounts[status.ordinal()];
+	}
+
+	/**
+	 * Gets the number of slots on the day.
+	 *
+	 * @return the number of slots
+	 */
+	public int getTotal() {
+		return entries.size();
+	}
+}
@@ -0,0 +1,63 @@
+package model;
+
+/**
+ * A place where appointments are held, such as "Level 4 Heart Clinic".
+ * The capacity is the number of rooms at the location, that is, how many
+ * appointments it can hold at the same time. Locations are immutable; changing
+ * the capacity replaces the location in the registry.
+ */
+public final class Location {
+	private final String locationID;
+	private final String name;
+	private final int capacity;
+
+	/**
+	 * Constructs a location with the specified details.
+	 *
+	 * @param locationID the unique ID of the location
+	 * @param name       the name shown to users
+	 * @param capacity   the number of rooms at the location, at least 1
+	 */
+	public Location(String locationID, String name, int capacity) {
+		this.locationID = locationID;
+		this.name = name;
+		this.capacity = Math.max(1, capacity);
+	}
+
+	/**
+	 * Gets the ID of the location.
+	 *
+	 * @return the location ID
+	 */
+	public String getLocationID() {
+		return locationID;
+	}
+
+	/**
+	 * Gets the name of the location.
+	 *
+	 * @return the location name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the number of rooms at the location.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns a copy of this location with a different capacity.
+	 *
+	 * @param capacity the new number of rooms
+	 * @return the new location
+	 */
+	public Location withCapacity(int capacity) {
+		return new Location(locationID, name, capacity);
+	}
+}
@@ -0,0 +1,110 @@
+package model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification telling a patient that a CONFIRMED appointment is coming up, a
+ * fixed number of minutes before it starts. Reminders are immutable; the details
+ * of the appointment are copied when the reminder is scheduled.
+ */
+public final class Reminder {
+	private final String appointmentID;
+	private final String patientID;
+	private final String doctorID;
+	private final LocalDateTime appointmentTime;
+	private final String location;
+	private final int minutesBefore;
+
+	/**
+	 * Constructs a Reminder with the specified details.
+	 *
+	 * @param appointmentID   the record ID of the appointment
+	 * @param patientID       the ID of the patient to remind
+	 * @param doctorID        the ID of the doctor
+	 * @param appointmentTime the date and time of the appointment
+	 * @param location        the location of the appointment
+	 * @param minutesBefore   how long before the appointment the reminder is due
+	 */
+	public Reminder(String appointmentID, String patientID, String doctorID, LocalDateTime appointmentTime,
+					String location, int minutesBefore) {
+		this.appointmentID = appointmentID;
+		this.patientID = patientID;
+		this.doctorID = doctorID;
+		this.appointmentTime = appointmentTime;
+		this.location = location;
+		this.minutesBefore = minutesBefore;
+	}
+
+	/**
+	 * Gets the record ID of the appointment.
+	 *
+	 * @return the appointment ID
+	 */
+	public String getAppointmentID() {
+		return appointmentID;
+	}
+
+	/**
+	 * Gets the ID of the patient to remind.
+	 *
+	 * @return the patient ID
+	 */
+	public String getPatientID() {
+		return patientID;
+	}
+
+	/**
+	 * Gets the ID of the doctor.
+	 *
+	 * @return the doctor ID
+	 */
+	public String getDoctorID() {
+		return doctorID;
+	}
+
+	/**
+	 * Gets the date and time of the appointment.
+	 *
+	 * @return the appointment time
+	 */
+	public LocalDateTime getAppointmentTime() {
+		return appointmentTime;
+	}
+
+	/**
+	 * Gets the location of the appointment.
+	 *
+	 * @return the location
+	 */
+	public String getLocation() {
+		return location;
+	}
+
+	/**
+	 * Gets how long before the appointment the reminder is due.
+	 *
+	 * @return the offset in minutes
+	 */
+	public int getMinutesBefore() {
+		return minutesBefore;
+	}
+
+	/**
+	 * Gets the time the reminder is due.
+	 *
+	 * @return the appointment time minus the offset
+	 */
+	public LocalDateTime getDueAt() {
+		return appointmentTime.minusMinutes(minutesBefore);
+	}
+
+	/**
+	 * Gets a key that is the same for every copy of this reminder, so a reminder
+	 * is written at most once even if it is scheduled again after a restart.
+	 *
+	 * @return the appointment ID, time and offset
+	 */
+	public String getKey() {
+		return appointmentID + "@" + appointmentTime + "-" + minutesBefore;
+	}
+}
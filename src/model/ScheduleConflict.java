@@ -0,0 +1,65 @@
+package model;
+
+import enums.ConflictType;
+
+/**
+ * A pair of appointments whose time ranges overlap on the same doctor or the same location.
+ */
+public final class ScheduleConflict {
+	private final ConflictType conflictType;
+	private final String resource;
+	private final Appointment existing;
+	private final Appointment conflicting;
+
+	/**
+	 * Constructs a ScheduleConflict.
+	 *
+	 * @param conflictType whether the doctor or the location is double-booked
+	 * @param resource     the doctor ID or location shared by both appointments
+	 * @param existing     the appointment that starts first
+	 * @param conflicting  the appointment that overlaps it
+	 */
+	public ScheduleConflict(ConflictType conflictType, String resource, Appointment existing,
+							Appointment conflicting) {
+		this.conflictType = conflictType;
+		this.resource = resource;
+		this.existing = existing;
+		this.conflicting = conflicting;
+	}
+
+	/**
+	 * Gets whether the doctor or the location is double-booked.
+	 *
+	 * @return the conflict type
+	 */
+	public ConflictType getConflictType() {
+		return conflictType;
+	}
+
+	/**
+	 * Gets the doctor ID or location shared by both appointments.
+	 *
+	 * @return the shared resource
+	 */
+	public String getResource() {
+		return resource;
+	}
+
+	/**
+	 * Gets the appointment that starts first.
+	 *
+	 * @return the existing appointment
+	 */
+	public Appointment getExisting() {
+		return existing;
+	}
+
+	/**
+	 * Gets the appointment that overlaps the existing one.
+	 *
+	 * @return the conflicting appointment
+	 */
+	public Appointment getConflicting() {
+		return conflicting;
+	}
+}
@@ -0,0 +1,106 @@
+package model;
+
+import java.time.LocalDateTime;
+
+import enums.AppointmentStatus;
+
+/**
+ * Immutable copy of one appointment slot as it appeared when a doctor's schedule
+ * snapshot was published. Entries are safe to read from any thread and never
+ * change, even if the underlying appointment does.
+ */
+public final class ScheduleEntry {
+	private final String appointmentID;
+	private final String doctorID;
+	private final LocalDateTime appointmentTime;
+	private final String location;
+	private final AppointmentSlotState slotState;
+	private final LocalDateTime updatedDate;
+
+	/**
+	 * Captures the current state of an appointment.
+	 *
+	 * @param appointment the appointment to copy
+	 */
+	public ScheduleEntry(Appointment appointment) {
+		this.appointmentID = appointment.getRecordID();
+		this.doctorID = appointment.getDoctorID();
+		this.appointmentTime = appointment.getAppointmentTime();
+		this.location = appointment.getLocation();
+		this.slotState = appointment.getSlotState();
+		this.updatedDate = appointment.getUpdatedDate();
+	}
+
+	/**
+	 * Gets the record ID of the appointment.
+	 *
+	 * @return the appointment ID
+	 */
+	public String getAppointmentID() {
+		return appointmentID;
+	}
+
+	/**
+	 * Gets the ID of the doctor.
+	 *
+	 * @return the doctor ID
+	 */
+	public String getDoctorID() {
+		return doctorID;
+	}
+
+	/**
+	 * Gets the date and time of the appointment.
+	 *
+	 * @return the appointment time
+	 */
+	public LocalDateTime getAppointmentTime() {
+		return appointmentTime;
+	}
+
+	/**
+	 * Gets the location of the appointment.
+	 *
+	 * @return the location
+	 */
+	public String getLocation() {
+		return location;
+	}
+
+	/**
+	 * Gets the status of the appointment.
+	 *
+	 * @return the appointment status
+	 */
+	public AppointmentStatus getAppointmentStatus() {
+		return slotState.getAppointmentStatus();
+	}
+
+	/**
+	 * Gets the ID of the patient holding the slot.
+	 *
+	 * @return the patient ID, or null if the slot is free
+	 */
+	public String getPatientID() {
+		return slotState.getPatientID();
+	}
+
+	/**
+	 * Gets the ID of the linked appointment outcome record.
+	 *
+	 * @return the appointment outcome record ID, or null if there is none
+	 */
+	public String getAppointmentOutcomeRecordID() {
+		return slotState.getAppointmentOutcomeRecordID();
+	}
+
+	/**
+	 * Gets the time the slot last changed status. For a PENDING slot this is when
+	 * the patient made the request.
+	 *
+	 * @return the updated date of the appointment record
+	 */
+	public LocalDateTime getUpdatedDate() {
+		return updatedDate;
+	}
+}
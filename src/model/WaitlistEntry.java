@@ -0,0 +1,93 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import enums.WaitlistUrgency;
+
+/**
+ * A patient's request to be given the first slot that frees up with a doctor on a
+ * given day. Entries are immutable; an entry is removed once a slot is assigned.
+ */
+public final class WaitlistEntry {
+	private final String waitlistID;
+	private final String patientID;
+	private final String doctorID;
+	private final LocalDate preferredDate;
+	private final WaitlistUrgency urgency;
+	private final LocalDateTime requestedAt;
+
+	/**
+	 * Constructs a WaitlistEntry with the specified details.
+	 *
+	 * @param waitlistID    the ID of the entry
+	 * @param patientID     the ID of the waiting patient
+	 * @param doctorID      the ID of the doctor the patient wants to see
+	 * @param preferredDate the day the patient wants to be seen
+	 * @param urgency       how urgently the patient needs to be seen
+	 * @param requestedAt   when the patient joined the waitlist
+	 */
+	public WaitlistEntry(String waitlistID, String patientID, String doctorID, LocalDate preferredDate,
+						 WaitlistUrgency urgency, LocalDateTime requestedAt) {
+		this.waitlistID = waitlistID;
+		this.patientID = patientID;
+		this.doctorID = doctorID;
+		this.preferredDate = preferredDate;
+		this.urgency = urgency;
+		this.requestedAt = requestedAt;
+	}
+
+	/**
+	 * Gets the ID of the entry.
+	 *
+	 * @return the waitlist ID
+	 */
+	public String getWaitlistID() {
+		return waitlistID;
+	}
+
+	/**
+	 * Gets the ID of the waiting patient.
+	 *
+	 * @return the patient ID
+	 */
+	public String getPatientID() {
+		return patientID;
+	}
+
+	/**
+	 * Gets the ID of the doctor the patient wants to see.
+	 *
+	 * @return the doctor ID
+	 */
+	public String getDoctorID() {
+		return doctorID;
+	}
+
+	/**
+	 * Gets the day the patient wants to be seen.
+	 *
+	 * @return the preferred date
+	 */
+	public LocalDate getPreferredDate() {
+		return preferredDate;
+	}
+
+	/**
+	 * Gets how urgently the patient needs to be seen.
+	 *
+	 * @return the urgency
+	 */
+	public WaitlistUrgency getUrgency() {
+		return urgency;
+	}
+
+	/**
+	 * Gets when the patient joined the waitlist.
+	 *
+	 * @return the request time
+	 */
+	public LocalDateTime getRequestedAt() {
+		return requestedAt;
+	}
+}
@@ -0,0 +1,606 @@
+package repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import enums.AppointmentStatus;
+import model.Appointment;
+
+/**
+ * Columnar copy of APPOINTMENT_RECORDS for scans by patient, doctor, status and
+ * time. Each appointment is one row across a set of primitive arrays: the
+ * appointment time as epoch seconds, the status as a byte, and the patient,
+ * doctor and location as int keys into small dictionaries of the IDs. A scan
+ * is a loop over those arrays, which compares ints and bytes held next to each
+ * other in memory instead of following a map node, an Appointment, its
+ * AtomicReference and its slot state for every record.
+ *
+ * The rows are split into segments by record ID, each with its own arrays,
+ * dictionaries and lock, so a change locks only the segment of its slot: changes
+ * to slots in different segments run at the same time, and a scan holds up a
+ * change only while it reads that change's segment.
+ *
+ * The Appointment objects stay the records the rest of the system reads and
+ * changes. The columns are rebuilt once per load of the records and kept up to
+ * date by {@link #slotChanged(Appointment)}, called wherever slots are added,
+ * removed or change status or location. A scan returns a {@link Selection} of rows, read
+ * through a reusable {@link AppointmentView} or turned back into the
+ * appointments, which are checked against the query once more so a change made
+ * while the columns were being updated is never returned wrongly.
+ */
+public final class AppointmentColumnStore {
+    private static final byte REMOVED = -1;
+    private static final byte NO_STATUS = -2;
+    private static final int NO_KEY = -1;
+    private static final int ANY_KEY = -2;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    /**
+     * One lock per segment, taken for reading by every scan of the segment and for
+     * writing by every update of it. A rebuild takes all of them for writing.
+     */
+    private static final ReadWriteLock[] LOCKS = new ReadWriteLock[SEGMENTS];
+    private static volatile Columns columns;
+
+    static {
+        for (int segment = 0; segment < SEGMENTS; segment++) {
+            LOCKS[segment] = new ReentrantReadWriteLock();
+        }
+    }
+
+    private AppointmentColumnStore() {
+    }
+
+    /**
+     * The segments of every appointment for one load generation. A row number
+     * names the segment in its low {@value #SEGMENT_BITS} bits and the row within
+     * the segment in the rest.
+     */
+    private static final class Columns {
+        private final int loadGeneration;
+        private final Segment[] segments = new Segment[SEGMENTS];
+
+        private Columns(int loadGeneration, int capacity) {
+            this.loadGeneration = loadGeneration;
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                segments[segment] = new Segment(capacity / SEGMENTS);
+            }
+        }
+    }
+
+    /**
+     * The columns of the appointments whose record IDs fall in one segment. Row n
+     * is the appointment whose record ID has key n; removed appointments keep their
+     * row, marked REMOVED, so a row never moves.
+     */
+    private static final class Segment {
+        private final Keys recordIDs = new Keys();
+        private final Keys patients = new Keys();
+        private final Keys doctors = new Keys();
+        private final Keys locations = new Keys();
+        private long[] appointmentTimes;
+        private byte[] statuses;
+        private int[] patientKeys;
+        private int[] doctorKeys;
+        private int[] locationKeys;
+        private int[] slotLengths;
+
+        private Segment(int capacity) {
+            capacity = Math.max(16, capacity);
+            appointmentTimes = new long[capacity];
+            statuses = new byte[capacity];
+            patientKeys = new int[capacity];
+            doctorKeys = new int[capacity];
+            locationKeys = new int[capacity];
+            slotLengths = new int[capacity];
+        }
+
+        private int rows() {
+            return recordIDs.size();
+        }
+
+        private void put(Appointment appointment) {
+            int row = recordIDs.add(appointment.getRecordID());
+            if (row >= statuses.length) {
+                int capacity = statuses.length + (statuses.length >> 1);
+                appointmentTimes = Arrays.copyOf(appointmentTimes, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                patientKeys = Arrays.copyOf(patientKeys, capacity);
+                doctorKeys = Arrays.copyOf(doctorKeys, capacity);
+                locationKeys = Arrays.copyOf(locationKeys, capacity);
+                slotLengths = Arrays.copyOf(slotLengths, capacity);
+            }
+            LocalDateTime time = appointment.getAppointmentTime();
+            AppointmentStatus status = appointment.getAppointmentStatus();
+            appointmentTimes[row] = time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+            statuses[row] = status == null ? NO_STATUS : (byte) status.ordinal();
+            patientKeys[row] = patients.add(appointment.getPatientID());
+            doctorKeys[row] = doctors.add(appointment.getDoctorID());
+            locationKeys[row] = locations.add(appointment.getLocation());
+            slotLengths[row] = appointment.getSlotLengthMinutes();
+        }
+
+        private void remove(String recordID) {
+            int row = recordIDs.find(recordID);
+            if (row >= 0) {
+                statuses[row] = REMOVED;
+            }
+        }
+    }
+
+    /**
+     * Open-addressing dictionary from a string to a dense int key, and back. The
+     * strings are the ones the appointments hold, so the dictionary adds only the
+     * two arrays. Keys are never removed.
+     */
+    private static final class Keys {
+        private String[] slots = new String[64];
+        private int[] slotKeys = new int[64];
+        private String[] values = new String[32];
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private int find(String value) {
+            if (value == null) {
+                return NO_KEY;
+            }
+            int mask = slots.length - 1;
+            for (int i = spread(value.hashCode()) & mask; slots[i] != null; i = (i + 1) & mask) {
+                if (slots[i].equals(value)) {
+                    return slotKeys[i];
+                }
+            }
+            return NO_KEY;
+        }
+
+        private int add(String value) {
+            int key = find(value);
+            if (key != NO_KEY || value == null) {
+                return key;
+            }
+            if ((size + 1) * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+            key = size++;
+            if (key == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[key] = value;
+            insert(value, key);
+            return key;
+        }
+
+        private String get(int key) {
+            return key < 0 ? null : values[key];
+        }
+
+        private void insert(String value, int key) {
+            int mask = slots.length - 1;
+            int i = spread(value.hashCode()) & mask;
+            while (slots[i] != null) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = value;
+            slotKeys[i] = key;
+        }
+
+        private void rehash(int capacity) {
+            slots = new String[capacity];
+            slotKeys = new int[capacity];
+            for (int key = 0; key < size; key++) {
+                insert(values[key], key);
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int segmentOf(String recordID) {
+        return spread(recordID.hashCode()) & (SEGMENTS - 1);
+    }
+
+    /**
+     * Flyweight view of one row. The same view can be moved over every row of a
+     * selection, so reading a scan's results creates no objects beyond what the
+     * getters return. Moving the view copies the row under its segment's lock,
+     * once, so the getters read the row as it was at that moment, in the load of
+     * the records the selection was made from.
+     */
+    public static final class AppointmentView {
+        private final Columns columns;
+        private String recordID;
+        private String patientID;
+        private String doctorID;
+        private String location;
+        private byte status;
+        private long appointmentTime;
+        private int slotLength;
+
+        private AppointmentView(Columns columns) {
+            this.columns = columns;
+        }
+
+        /**
+         * Moves the view to a row.
+         *
+         * @param row the row, as returned by {@link Selection#getRow(int)}
+         * @return this view
+         */
+        public AppointmentView moveTo(int row) {
+            int segmentIndex = row & (SEGMENTS - 1);
+            int segmentRow = row >>> SEGMENT_BITS;
+            Lock lock = LOCKS[segmentIndex].readLock();
+            lock.lock();
+            try {
+                Segment segment = columns.segments[segmentIndex];
+                Objects.checkIndex(segmentRow, segment.rows());
+                recordID = segment.recordIDs.get(segmentRow);
+                patientID = segment.patients.get(segment.patientKeys[segmentRow]);
+                doctorID = segment.doctors.get(segment.doctorKeys[segmentRow]);
+                location = segment.locations.get(segment.locationKeys[segmentRow]);
+                status = segment.statuses[segmentRow];
+                appointmentTime = segment.appointmentTimes[segmentRow];
+                slotLength = segment.slotLengths[segmentRow];
+            } finally {
+                lock.unlock();
+            }
+            return this;
+        }
+
+        public String getRecordID() {
+            return recordID;
+        }
+
+        public String getPatientID() {
+            return patientID;
+        }
+
+        public String getDoctorID() {
+            return doctorID;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        /**
+         * @return the status, or null if the appointment has none or was removed
+         */
+        public AppointmentStatus getAppointmentStatus() {
+            return status < 0 ? null : STATUSES[status];
+        }
+
+        /**
+         * @return the appointment time in seconds since the epoch, read as UTC, or Long.MIN_VALUE if it has none
+         */
+        public long getAppointmentEpochSecond() {
+            return appointmentTime;
+        }
+
+        /**
+         * @return the appointment time to the second, or null if it has none
+         */
+        public LocalDateTime getAppointmentTime() {
+            return appointmentTime == NO_TIME ? null : LocalDateTime.ofEpochSecond(appointmentTime, 0, ZoneOffset.UTC);
+        }
+
+        public int getSlotLengthMinutes() {
+            return slotLength;
+        }
+
+        /**
+         * @return whether the appointment has been removed from the records
+         */
+        public boolean isRemoved() {
+            return status == REMOVED;
+        }
+
+        /**
+         * @return the appointment record of this row, or null if it was removed
+         */
+        public Appointment getAppointment() {
+            return RecordsRepository.APPOINTMENT_RECORDS.get(recordID);
+        }
+    }
+
+    /**
+     * The rows that matched a scan, segment by segment, each segment's rows in the
+     * order the appointments were added.
+     */
+    public static final class Selection {
+        private final Columns columns;
+        private final int[] rows;
+        private final int size;
+        private final int scanned;
+        private final String patientID;
+        private final String doctorID;
+        private final AppointmentStatus status;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        private Selection(Columns columns, int[] rows, int size, int scanned, String patientID, String doctorID,
+                          AppointmentStatus status, LocalDateTime from, LocalDateTime to) {
+            this.columns = columns;
+            this.rows = rows;
+            this.size = size;
+            this.scanned = scanned;
+            this.patientID = patientID;
+            this.doctorID = doctorID;
+            this.status = status;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * @return the number of rows that matched
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return the number of rows the scan looked at
+         */
+        public int getScanned() {
+            return scanned;
+        }
+
+        /**
+         * @param index the position in the selection, from 0 to {@link #size()} - 1
+         * @return the row at that position
+         */
+        public int getRow(int index) {
+            Objects.checkIndex(index, size);
+            return rows[index];
+        }
+
+        /**
+         * @return a new view over the rows of this selection
+         */
+        public AppointmentView view() {
+            return new AppointmentView(columns);
+        }
+
+        /**
+         * Gets the appointment records of the selected rows that still match the query.
+         * The rows of a segment are next to each other, so each segment's lock is
+         * taken once.
+         *
+         * @return the appointments, in the order of the rows
+         */
+        public ArrayList<Appointment> toAppointments() {
+            ArrayList<Appointment> appointments = new ArrayList<>(size);
+            int i = 0;
+            while (i < size) {
+                int segmentIndex = rows[i] & (SEGMENTS - 1);
+                Segment segment = columns.segments[segmentIndex];
+                Lock lock = LOCKS[segmentIndex].readLock();
+                lock.lock();
+                try {
+                    for (; i < size && (rows[i] & (SEGMENTS - 1)) == segmentIndex; i++) {
+                        Appointment appointment = RecordsRepository.APPOINTMENT_RECORDS
+                                .get(segment.recordIDs.get(rows[i] >>> SEGMENT_BITS));
+                        if (appointment != null && matches(appointment)) {
+                            appointments.add(appointment);
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return appointments;
+        }
+
+        private boolean matches(Appointment appointment) {
+            LocalDateTime time = appointment.getAppointmentTime();
+            return (patientID == null || patientID.equals(appointment.getPatientID()))
+                    && (doctorID == null || doctorID.equals(appointment.getDoctorID()))
+                    && (status == null || status == appointment.getAppointmentStatus())
+                    && (from == null || (time != null && !time.isBefore(from)))
+                    && (to == null || (time != null && time.isBefore(to)));
+        }
+    }
+
+    /**
+     * Finds the appointments of a patient and/or doctor, optionally with one status.
+     *
+     * @param patientID the patient, or null for any
+     * @param doctorID  the doctor, or null for any
+     * @param status    the status, or null for any
+     * @return the matching rows
+     */
+    public static Selection find(String patientID, String doctorID, AppointmentStatus status) {
+        return scan(patientID, doctorID, status, null, null);
+    }
+
+    /**
+     * Finds the appointments in a time range, optionally with one status.
+     *
+     * @param from   the earliest appointment time, inclusive, or null for no lower bound
+     * @param to     the latest appointment time, exclusive, or null for no upper bound
+     * @param status the status, or null for any
+     * @return the matching rows
+     */
+    public static Selection findInTimeRange(LocalDateTime from, LocalDateTime to, AppointmentStatus status) {
+        return scan(null, null, status, from, to);
+    }
+
+    /**
+     * Counts the appointments with a status without creating a selection.
+     *
+     * @param status the status
+     * @return the number of appointments with that status
+     */
+    public static int countByStatus(AppointmentStatus status) {
+        Columns current = currentColumns();
+        byte wanted = (byte) status.ordinal();
+        int count = 0;
+        for (int segmentIndex = 0; segmentIndex < SEGMENTS; segmentIndex++) {
+            Lock lock = LOCKS[segmentIndex].readLock();
+            lock.lock();
+            try {
+                Segment segment = current.segments[segmentIndex];
+                byte[] statuses = segment.statuses;
+                for (int row = 0, rows = segment.rows(); row < rows; row++) {
+                    if (statuses[row] == wanted) {
+                        count++;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Brings the columns in line with the current state of a slot: adds it, updates
+     * it, or marks it removed if it is no longer in APPOINTMENT_RECORDS. Does nothing
+     * if the columns have not been built for the current load of the records yet;
+     * the next scan builds them from the records as they are then.
+     *
+     * @param appointment the slot that changed
+     */
+    public static void slotChanged(Appointment appointment) {
+        if (appointment == null) {
+            return;
+        }
+        int segmentIndex = segmentOf(appointment.getRecordID());
+        Lock lock = LOCKS[segmentIndex].writeLock();
+        lock.lock();
+        try {
+            Columns current = columns;
+            if (isCurrent(current)) {
+                update(current.segments[segmentIndex], appointment);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Brings the columns in line with the current state of several slots.
+     *
+     * @param appointments the slots that changed
+     */
+    public static void slotsChanged(Collection<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            slotChanged(appointment);
+        }
+    }
+
+    private static boolean isCurrent(Columns current) {
+        return current != null && current.loadGeneration == RecordsRepository.getLoadGeneration();
+    }
+
+    private static void update(Segment segment, Appointment appointment) {
+        if (RecordsRepository.APPOINTMENT_RECORDS.get(appointment.getRecordID()) == appointment) {
+            segment.put(appointment);
+        } else {
+            segment.remove(appointment.getRecordID());
+        }
+    }
+
+    private static Selection scan(String patientID, String doctorID, AppointmentStatus status, LocalDateTime from,
+                                  LocalDateTime to) {
+        Columns current = currentColumns();
+        boolean anyStatus = status == null;
+        byte wanted = anyStatus ? NO_STATUS : (byte) status.ordinal();
+        // whole seconds, rounded outwards; the exact times are checked again in toAppointments
+        long fromSecond = from == null ? Long.MIN_VALUE : from.toEpochSecond(ZoneOffset.UTC);
+        long toSecond = to == null ? Long.MAX_VALUE
+                : to.toEpochSecond(ZoneOffset.UTC) + (to.getNano() > 0 ? 1 : 0);
+        boolean anyTime = from == null && to == null;
+
+        int[] matches = new int[16];
+        int size = 0;
+        int scanned = 0;
+        for (int segmentIndex = 0; segmentIndex < SEGMENTS; segmentIndex++) {
+            Lock lock = LOCKS[segmentIndex].readLock();
+            lock.lock();
+            try {
+                Segment segment = current.segments[segmentIndex];
+                int patient = patientID == null ? ANY_KEY : segment.patients.find(patientID);
+                int doctor = doctorID == null ? ANY_KEY : segment.doctors.find(doctorID);
+                if (patient == NO_KEY || doctor == NO_KEY) {
+                    // nobody with that ID has an appointment in this segment
+                    continue;
+                }
+                byte[] statuses = segment.statuses;
+                int[] patientKeys = segment.patientKeys;
+                int[] doctorKeys = segment.doctorKeys;
+                long[] appointmentTimes = segment.appointmentTimes;
+                int rows = segment.rows();
+                scanned += rows;
+                for (int row = 0; row < rows; row++) {
+                    byte rowStatus = statuses[row];
+                    if (rowStatus == REMOVED || (!anyStatus && rowStatus != wanted)
+                            || (patient != ANY_KEY && patientKeys[row] != patient)
+                            || (doctor != ANY_KEY && doctorKeys[row] != doctor)) {
+                        continue;
+                    }
+                    if (!anyTime) {
+                        long time = appointmentTimes[row];
+                        if (time == NO_TIME || time < fromSecond || time >= toSecond) {
+                            continue;
+                        }
+                    }
+                    if (size == matches.length) {
+                        matches = Arrays.copyOf(matches, size * 2);
+                    }
+                    matches[size++] = row << SEGMENT_BITS | segmentIndex;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return new Selection(current, matches, size, scanned, patientID, doctorID, status, from, to);
+    }
+
+    /**
+     * Returns the columns for the current load generation, rebuilding them with a
+     * single pass over the appointment records if the records were reloaded. The
+     * rebuild holds every segment's lock, so no update is lost between the pass and
+     * publishing the new columns.
+     */
+    private static Columns currentColumns() {
+        int generation = RecordsRepository.getLoadGeneration();
+        Columns current = columns;
+        if (isCurrent(current)) {
+            return current;
+        }
+        for (ReadWriteLock lock : LOCKS) {
+            lock.writeLock().lock();
+        }
+        try {
+            current = columns;
+            if (current == null || current.loadGeneration != generation) {
+                current = new Columns(generation, RecordsRepository.APPOINTMENT_RECORDS.size());
+                for (Appointment appointment : RecordsRepository.APPOINTMENT_RECORDS.values()) {
+                    current.segments[segmentOf(appointment.getRecordID())].put(appointment);
+                }
+                columns = current;
+            }
+            return current;
+        } finally {
+            for (ReadWriteLock lock : LOCKS) {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
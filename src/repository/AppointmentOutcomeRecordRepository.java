@@ -1,16 +1,15 @@
 package repository;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import enums.AppointmentOutcomeStatus;
 import model.AppointmentOutcomeRecord;
@@ -62,6 +61,16 @@ public class AppointmentOutcomeRecordRepository extends Repository {
         saveAppoinmentOutcomeRecordsToCSV(AppointmentOutcomeRecordsfileName, patientOutcomeRecords);
     }
 
+    /**
+     * Saves all appointment outcome records to the CSV file in the background.
+     *
+     * @return a future completed once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> saveAppointmentOutcomeRecordRepositoryAsync() {
+        return saveCSVAsync("./src/repository/" + folder + "/" + AppointmentOutcomeRecordsfileName,
+                appointmentOutcomesToCSVLines(patientOutcomeRecords));
+    }
+
     /**
      * Saves the provided appointment outcome records to the specified CSV file.
      *
@@ -72,31 +81,32 @@ public class AppointmentOutcomeRecordRepository extends Repository {
                                                          HashMap<String, ArrayList<AppointmentOutcomeRecord>> patientOutcomeRecords) {
         String filePath = "./src/repository/" + folder + "/" + fileName;
 
-        // Ensure the directory exists
-        File directory = new File("./src/repository/" + folder);
-        if (!directory.exists()) {
-            boolean dirsCreated = directory.mkdirs(); // Create the directory if it doesn't exist
-            if (!dirsCreated) {
-                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
-                return; // Exit if directory creation fails
-            }
+        SaveResult result = saveCSV(filePath, appointmentOutcomesToCSVLines(patientOutcomeRecords));
+        if (result.isSuccess()) {
+            System.out.println("Appointment outcome records successfully saved to CSV.");
+        } else {
+            System.out.println("Error saving appointment outcome records to CSV: " + result.getErrorMessage());
         }
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            writer.write(getCsvHeader());
-            writer.newLine();
-            for (String patientID : patientOutcomeRecords.keySet()) {
-                for (AppointmentOutcomeRecord record : patientOutcomeRecords.get(patientID)) {
-                    if (record != null) {
-                        writer.write(appointmentOutcomeToCSV(record));
-                        writer.newLine();
-                    }
+    /**
+     * Renders the appointment outcome records as CSV rows, header first.
+     *
+     * @param patientOutcomeRecords the map of appointment outcome records to render
+     * @return the rows of the file
+     */
+    private static List<String> appointmentOutcomesToCSVLines(
+            HashMap<String, ArrayList<AppointmentOutcomeRecord>> patientOutcomeRecords) {
+        List<String> lines = new ArrayList<>();
+        lines.add(getCsvHeader());
+        for (String patientID : patientOutcomeRecords.keySet()) {
+            for (AppointmentOutcomeRecord record : patientOutcomeRecords.get(patientID)) {
+                if (record != null) {
+                    lines.add(appointmentOutcomeToCSV(record));
                 }
             }
-            System.out.println("Appointment outcome records successfully saved to CSV.");
-        } catch (IOException e) {
-            System.out.println("Error saving appointment outcome records to CSV: " + e.getMessage());
         }
+        return lines;
     }
 
 
@@ -158,7 +168,7 @@ public class AppointmentOutcomeRecordRepository extends Repository {
             }
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openCSV(filePath)) {
             String line;
             boolean isFirstLine = true; // To skip the header row
 
@@ -169,6 +179,7 @@ public class AppointmentOutcomeRecordRepository extends Repository {
                 }
                 AppointmentOutcomeRecord record = csvToOutcomeRecord(line);
                 String patientID = getPatientIDFromCSV(line);
+                countRow(record != null && patientID != null);
                 if (record != null && patientID != null) {
                     addAppointmentOutcomeRecordIntoHashMapValue(patientID, record);
                 }
@@ -221,6 +232,7 @@ public class AppointmentOutcomeRecordRepository extends Repository {
                     consultationNotes,
                     appointmentOutcomeStatus);
         } catch (Exception e) {
+            parseFailed(e.getMessage());
             System.out.println("Error parsing appointment outcome record data: " + e.getMessage());
         }
         return null;
@@ -1,16 +1,15 @@
 package repository;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import model.Diagnosis;
 import model.Prescription;
@@ -66,6 +65,16 @@ public class DiagnosisRepository extends Repository {
         return true;
     }
 
+    /**
+     * Saves all diagnosis records to the CSV file in the background.
+     *
+     * @return a future completed once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> saveAlltoCSVAsync() {
+        return saveCSVAsync("./src/repository/" + folder + "/" + fileName,
+                diagnosisRecordsToCSVLines(patientDiagnosisRecords));
+    }
+
     /**
      * Saves the provided diagnosis records to the specified CSV file.
      *
@@ -76,34 +85,32 @@ public class DiagnosisRepository extends Repository {
                                                  HashMap<String, ArrayList<Diagnosis>> patientDiagnosisRecords) {
         String filePath = "./src/repository/" + folder + "/" + fileName;
 
-        // Ensure the directory exists
-        File directory = new File("./src/repository/" + folder);
-        if (!directory.exists()) {
-            boolean dirsCreated = directory.mkdirs(); // Create the directory if it doesn't exist
-            if (!dirsCreated) {
-                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
-                return; // Exit if directory creation fails
-            }
+        SaveResult result = saveCSV(filePath, diagnosisRecordsToCSVLines(patientDiagnosisRecords));
+        if (result.isSuccess()) {
+            System.out.println("Diagnosis records successfully saved to " + filePath);
+        } else {
+            System.out.println("Error saving diagnosis records to CSV: " + result.getErrorMessage());
         }
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            Set<String> writtenDiagnosisIDs = new HashSet<>();
-            for (String patientID : patientDiagnosisRecords.keySet()) {
-                for (Diagnosis record : patientDiagnosisRecords.get(patientID)) {
-                    String diagnosisID = record.getDiagnosisID();
-                    if (!writtenDiagnosisIDs.contains(diagnosisID)) {
-                        writer.write(diagnosisToCSV(record));
-                        writer.newLine();
-
-                        // Mark this diagnosisID as written
-                        writtenDiagnosisIDs.add(diagnosisID);
-                    }
+    /**
+     * Renders the diagnosis records as CSV rows, writing each diagnosis ID once.
+     *
+     * @param patientDiagnosisRecords the map of diagnosis records to render
+     * @return the rows of the file
+     */
+    private static List<String> diagnosisRecordsToCSVLines(HashMap<String, ArrayList<Diagnosis>> patientDiagnosisRecords) {
+        List<String> lines = new ArrayList<>();
+        Set<String> writtenDiagnosisIDs = new HashSet<>();
+        for (String patientID : patientDiagnosisRecords.keySet()) {
+            for (Diagnosis record : patientDiagnosisRecords.get(patientID)) {
+                // Mark this diagnosisID as written
+                if (writtenDiagnosisIDs.add(record.getDiagnosisID())) {
+                    lines.add(diagnosisToCSV(record));
                 }
             }
-            System.out.println("Diagnosis records successfully saved to " + filePath);
-        } catch (IOException e) {
-            System.out.println("Error saving diagnosis records to CSV: " + e.getMessage());
         }
+        return lines;
     }
 
     /**
@@ -162,10 +169,11 @@ public class DiagnosisRepository extends Repository {
         }
 
         // Read the data from the CSV file
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openCSV(filePath)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 Diagnosis record = csvToDiagnosisRecord(line);
+                countRow(record != null);
                 if (record != null) {
                     addDiagnosis(record.getPatientID(), record);
                 }
@@ -208,6 +216,7 @@ public class DiagnosisRepository extends Repository {
             return new Diagnosis(patientID, diagnosisID, doctorID, medicalRecordID, diagnosisDate,treatmentPlan, diagnosisDescription,
                     prescription);
         } catch (Exception e) {
+            parseFailed(e.getMessage());
             System.out.println("Error parsing diagnosis record data: " + e.getMessage());
         }
         return null;
@@ -0,0 +1,273 @@
+package repository;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import model.Administrator;
+import model.Appointment;
+import model.AppointmentOutcomeRecord;
+import model.Diagnosis;
+import model.Doctor;
+import model.Location;
+import model.MedicalRecord;
+import model.Medicine;
+import model.Patient;
+import model.PaymentRecord;
+import model.Pharmacist;
+import model.PrescribedMedication;
+import model.Prescription;
+import model.Treatment;
+import model.WaitlistEntry;
+import utility.ObjectSizeEstimator;
+
+/**
+ * Estimates how much heap each repository map and each model class takes, to
+ * size the heap. Each map is sized by walking up to -Dhms.heapReport.sampleSize
+ * (2000) of its entries, spread evenly over it, and scaling up to all of them,
+ * so a snapshot stays cheap with millions of records. Sizes come from the object
+ * layout, see {@link ObjectSizeEstimator}.
+ *
+ * A record counts in the repository that stores it: where another record refers
+ * to it, as an appointment refers to its outcome record, only the reference is
+ * counted. Objects shared between records, such as the strings deduplicated on
+ * load, are counted once per repository map that reaches them, so a string held
+ * by records of several repositories is counted in each of them.
+ *
+ * Every snapshot is appended to ./heap-footprint-history.csv (or
+ * -Dhms.heapReport.historyFile), so trends can be followed across restarts.
+ */
+public final class HeapFootprint {
+    private static final String HISTORY_FILE = System.getProperty("hms.heapReport.historyFile",
+            "heap-footprint-history.csv");
+    private static final String HISTORY_HEADER = "takenAt,kind,name,count,bytes";
+    private static final int SAMPLE_SIZE = Integer.getInteger("hms.heapReport.sampleSize", 2000);
+    // the types stored in a repository; a walk does not enter these unless they are the map's own
+    private static final Set<Class<?>> RECORD_TYPES = Set.of(Doctor.class, Patient.class, Pharmacist.class,
+            Administrator.class, Appointment.class, MedicalRecord.class, PaymentRecord.class,
+            AppointmentOutcomeRecord.class, Diagnosis.class, PrescribedMedication.class, Prescription.class,
+            Treatment.class, Medicine.class, Location.class, WaitlistEntry.class);
+    private static final String STRUCTURE = "(structure)";
+
+    /**
+     * Estimated size of one repository map.
+     *
+     * @param name           the repository and field, for example "RecordsRepository.APPOINTMENT_RECORDS"
+     * @param entries        the number of entries in the map
+     * @param sampledEntries the number of entries walked
+     * @param estimatedBytes the estimated size of the map and everything it holds
+     */
+    public record RepositoryFootprint(String name, long entries, long sampledEntries, long estimatedBytes) {
+    }
+
+    /**
+     * Estimated size of all instances of one model class, including the strings,
+     * dates and collections they hold. "(structure)" is the maps themselves and their keys.
+     *
+     * @param className      the simple class name
+     * @param instances      the estimated number of instances
+     * @param estimatedBytes the estimated size
+     */
+    public record ClassFootprint(String className, long instances, long estimatedBytes) {
+    }
+
+    /**
+     * The footprint of every repository at one moment.
+     *
+     * @param takenAt       when the snapshot was taken
+     * @param heapUsedBytes the heap in use at the time, garbage included
+     * @param repositories  the footprint of each repository map
+     * @param classes       the footprint of each model class, largest first
+     */
+    public record Snapshot(LocalDateTime takenAt, long heapUsedBytes, List<RepositoryFootprint> repositories,
+                           List<ClassFootprint> classes) {
+        /**
+         * @return the estimated size of all repositories together
+         */
+        public long totalEstimatedBytes() {
+            long total = 0;
+            for (RepositoryFootprint repository : repositories) {
+                total += repository.estimatedBytes();
+            }
+            return total;
+        }
+    }
+
+    private record TrackedMap(String name, Class<?> type, Supplier<Map<String, ?>> map) {
+    }
+
+    private static final List<TrackedMap> TRACKED = List.of(
+            new TrackedMap("UserRepository.PATIENTS", Patient.class, () -> UserRepository.PATIENTS),
+            new TrackedMap("UserRepository.DOCTORS", Doctor.class, () -> UserRepository.DOCTORS),
+            new TrackedMap("UserRepository.PHARMACISTS", Pharmacist.class, () -> UserRepository.PHARMACISTS),
+            new TrackedMap("UserRepository.ADMINS", Administrator.class, () -> UserRepository.ADMINS),
+            new TrackedMap("RecordsRepository.APPOINTMENT_RECORDS", Appointment.class,
+                    () -> RecordsRepository.APPOINTMENT_RECORDS),
+            new TrackedMap("RecordsRepository.MEDICAL_RECORDS", MedicalRecord.class,
+                    () -> RecordsRepository.MEDICAL_RECORDS),
+            new TrackedMap("RecordsRepository.PAYMENT_RECORDS", PaymentRecord.class,
+                    () -> RecordsRepository.PAYMENT_RECORDS),
+            new TrackedMap("AppointmentOutcomeRecordRepository.patientOutcomeRecords", AppointmentOutcomeRecord.class,
+                    () -> AppointmentOutcomeRecordRepository.patientOutcomeRecords),
+            new TrackedMap("DiagnosisRepository.patientDiagnosisRecords", Diagnosis.class,
+                    () -> DiagnosisRepository.patientDiagnosisRecords),
+            new TrackedMap("PrescribedMedicationRepository.diagnosisToMedicationsMap", PrescribedMedication.class,
+                    () -> PrescribedMedicationRepository.diagnosisToMedicationsMap),
+            new TrackedMap("PrescriptionRepository.PRESCRIPTION_MAP", Prescription.class,
+                    () -> PrescriptionRepository.PRESCRIPTION_MAP),
+            new TrackedMap("TreatmentRepository.diagnosisToTreatmentPlansMap", Treatment.class,
+                    () -> TreatmentRepository.diagnosisToTreatmentPlansMap),
+            new TrackedMap("MedicineRepository.MEDICINES", Medicine.class, () -> MedicineRepository.MEDICINES),
+            new TrackedMap("LocationRepository.LOCATIONS", Location.class, () -> LocationRepository.LOCATIONS),
+            new TrackedMap("WaitlistRepository.WAITLIST_ENTRIES", WaitlistEntry.class,
+                    () -> WaitlistRepository.WAITLIST_ENTRIES));
+
+    private HeapFootprint() {
+    }
+
+    /**
+     * Takes a snapshot of the footprint of every repository and appends it to the history file.
+     *
+     * @return the snapshot
+     */
+    public static Snapshot record() {
+        Snapshot snapshot = take();
+        List<String> lines = new ArrayList<>();
+        String takenAt = snapshot.takenAt().toString();
+        lines.add(String.join(",", takenAt, "heap", "used", "0", String.valueOf(snapshot.heapUsedBytes())));
+        for (RepositoryFootprint repository : snapshot.repositories()) {
+            lines.add(String.join(",", takenAt, "repository", repository.name(),
+                    String.valueOf(repository.entries()), String.valueOf(repository.estimatedBytes())));
+        }
+        for (ClassFootprint footprint : snapshot.classes()) {
+            lines.add(String.join(",", takenAt, "class", footprint.className(),
+                    String.valueOf(footprint.instances()), String.valueOf(footprint.estimatedBytes())));
+        }
+        Repository.appendCSVAsync(HISTORY_FILE, HISTORY_HEADER, lines)
+                .thenAccept(PersistenceExecutor::reportFailure);
+        return snapshot;
+    }
+
+    /**
+     * Takes a snapshot of the footprint of every repository without recording it.
+     *
+     * @return the snapshot
+     */
+    public static Snapshot take() {
+        List<RepositoryFootprint> repositories = new ArrayList<>();
+        Map<String, double[]> classes = new HashMap<>();
+        for (TrackedMap tracked : TRACKED) {
+            RepositoryFootprint footprint = null;
+            // the UI thread may change a map while it is walked; the walk is short, so try again
+            for (int attempt = 0; attempt < 3 && footprint == null; attempt++) {
+                try {
+                    footprint = measure(tracked, classes);
+                } catch (ConcurrentModificationException e) {
+                    footprint = null;
+                }
+            }
+            if (footprint == null) {
+                System.out.println("Warning: could not measure " + tracked.name() + " while it was changing.");
+            } else {
+                repositories.add(footprint);
+            }
+        }
+
+        List<ClassFootprint> classFootprints = new ArrayList<>();
+        for (Map.Entry<String, double[]> entry : classes.entrySet()) {
+            classFootprints.add(new ClassFootprint(entry.getKey(), Math.round(entry.getValue()[0]),
+                    Math.round(entry.getValue()[1])));
+        }
+        classFootprints.sort((a, b) -> Long.compare(b.estimatedBytes(), a.estimatedBytes()));
+        return new Snapshot(LocalDateTime.now(), ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                repositories, classFootprints);
+    }
+
+    private static RepositoryFootprint measure(TrackedMap tracked, Map<String, double[]> classes) {
+        Map<String, ?> map = tracked.map().get();
+        ObjectSizeEstimator estimator = new ObjectSizeEstimator(
+                object -> object.getClass() != tracked.type() && RECORD_TYPES.contains(object.getClass()));
+        long container = estimator.addContainer(map);
+        int entries = map.size();
+        int stride = Math.max(1, entries / Math.max(1, SAMPLE_SIZE));
+        long sampled = 0;
+        int index = 0;
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            if (index++ % stride == 0) {
+                estimator.add(entry.getKey());
+                estimator.add(entry.getValue());
+                sampled++;
+            }
+        }
+
+        // everything but the map itself was sampled, so scale it up to all entries
+        double scale = sampled == 0 ? 0 : (double) entries / sampled;
+        Map<String, double[]> measured = new HashMap<>();
+        for (Map.Entry<String, long[]> total : estimator.getTotals().entrySet()) {
+            long bytes = total.getValue()[1];
+            double scaled = total.getKey().equals(STRUCTURE) ? container + (bytes - container) * scale : bytes * scale;
+            measured.put(total.getKey(), new double[]{total.getValue()[0] * scale, scaled});
+        }
+        double estimated = 0;
+        for (Map.Entry<String, double[]> total : measured.entrySet()) {
+            double[] sum = classes.computeIfAbsent(total.getKey(), key -> new double[2]);
+            sum[0] += total.getValue()[0];
+            sum[1] += total.getValue()[1];
+            estimated += total.getValue()[1];
+        }
+        return new RepositoryFootprint(tracked.name(), entries, sampled, Math.round(estimated));
+    }
+
+    /**
+     * Reads the snapshots recorded so far from the history file, oldest first.
+     *
+     * @return the recorded snapshots, empty if there are none
+     */
+    public static List<Snapshot> getHistory() {
+        PersistenceExecutor.awaitIdle(10_000);
+        Map<String, Snapshot> snapshots = new LinkedHashMap<>();
+        File file = new File(HISTORY_FILE);
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length != 5 || fields[0].equals("takenAt")) {
+                    continue;
+                }
+                try {
+                    Snapshot snapshot = snapshots.computeIfAbsent(fields[0], takenAt -> new Snapshot(
+                            LocalDateTime.parse(takenAt), 0, new ArrayList<>(), new ArrayList<>()));
+                    long count = Long.parseLong(fields[3]);
+                    long bytes = Long.parseLong(fields[4]);
+                    switch (fields[1]) {
+                        case "heap" -> snapshots.put(fields[0], new Snapshot(snapshot.takenAt(), bytes,
+                                snapshot.repositories(), snapshot.classes()));
+                        case "repository" -> snapshot.repositories().add(
+                                new RepositoryFootprint(fields[2], count, 0, bytes));
+                        case "class" -> snapshot.classes().add(new ClassFootprint(fields[2], count, bytes));
+                        default -> System.out.println("Warning: unknown heap footprint row: " + line);
+                    }
+                } catch (RuntimeException e) {
+                    System.out.println("Error parsing heap footprint history: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading heap footprint history: " + e.getMessage());
+        }
+        return new ArrayList<>(snapshots.values());
+    }
+}
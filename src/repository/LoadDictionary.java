@@ -0,0 +1,71 @@
+package repository;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the values that repeat across CSV rows, such as doctor
+ * IDs, roles, genders, locations and dates. Every row otherwise gets its own copy
+ * of each value from String.split and LocalDateTime.parse; looking them up here
+ * while loading lets all records share one instance, and saves parsing dates
+ * that were seen before.
+ *
+ * A dictionary lives for one call of {@link Repository#loadRepository(Repository)},
+ * or for all the repositories loaded together by
+ * {@link Repository#loadRepositories(Repository...)}, so an ID read in one file
+ * is the same instance as the UID of the user it refers to. It is released once
+ * the load is over, so reloads do not keep it alive. It stops growing at
+ * -Dhms.loadDictionary.maxEntries (1048576) values of each kind, and can be
+ * turned off with -Dhms.loadDictionary=false.
+ */
+final class LoadDictionary {
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("hms.loadDictionary", "true"));
+    private static final int MAX_ENTRIES = Integer.getInteger("hms.loadDictionary.maxEntries", 1 << 20);
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    // key value = the text the date was parsed from
+    private final ConcurrentHashMap<String, LocalDateTime> dateTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the canonical instance of a string.
+     *
+     * @param value the string read from a row
+     * @return an equal string shared by every row that has it, or the value itself if the dictionary is full
+     */
+    String string(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = strings.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (strings.size() >= MAX_ENTRIES) {
+            return value;
+        }
+        canonical = strings.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    /**
+     * Parses a date and time, returning the instance parsed before from the same text.
+     *
+     * @param text the date and time in ISO format
+     * @return the date and time
+     * @throws java.time.format.DateTimeParseException if the text is not a date and time
+     */
+    LocalDateTime dateTime(String text) {
+        LocalDateTime dateTime = dateTimes.get(text);
+        if (dateTime != null) {
+            return dateTime;
+        }
+        dateTime = LocalDateTime.parse(text);
+        if (dateTimes.size() < MAX_ENTRIES) {
+            LocalDateTime previous = dateTimes.putIfAbsent(text, dateTime);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return dateTime;
+    }
+}
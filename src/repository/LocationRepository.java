@@ -0,0 +1,327 @@
+package repository;
+
+import model.Appointment;
+import model.Location;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository class for the location registry, including loading and saving it to
+ * a CSV file. Each key is a location ID and the value is the location's name and
+ * capacity. Appointments refer to their location by ID; a location typed as free
+ * text that is not in the registry yet is registered with a capacity of one room
+ * the first time it is seen.
+ */
+public class LocationRepository extends Repository {
+    /**
+     * Directory for storing the location CSV file.
+     */
+    private static final String folder = "data";
+    private static final String fileName = "locations.csv";
+    private static final String header = "Location ID,Name,Capacity";
+    private static boolean isRepoLoaded = false;
+    /**
+     * Incremented every time the registry is (re)loaded or a capacity changes, so
+     * the room occupancy built from it can tell that it is out of date.
+     */
+    private static volatile int loadGeneration = 0;
+    /**
+     * Set when the registry has changes that are not on disk yet.
+     */
+    private static volatile boolean changed = false;
+
+    // Static data collection for locations (key: locationID)
+    public static ConcurrentHashMap<String, Location> LOCATIONS = new ConcurrentHashMap<>();
+    // key value = normalised name, value = locationID
+    private static final Map<String, String> IDS_BY_NAME = new ConcurrentHashMap<>();
+    // Guarded by the class lock
+    private static int nextLocationNumber = 0;
+
+    /**
+     * Specific loading logic for the location registry from CSV.
+     *
+     * @return boolean indicating success or failure of the load operation
+     */
+    @Override
+    public boolean loadFromCSV() {
+        try {
+            synchronized (LocationRepository.class) {
+                LOCATIONS.clear();
+                IDS_BY_NAME.clear();
+                nextLocationNumber = 0;
+                loadLocationsFromCSV(fileName);
+                changed = false;
+                loadGeneration++;
+            }
+            setRepoLoaded(true);
+            return true;
+        } catch (Exception e) {
+            System.out.println("Error loading location repository: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves the location registry to the CSV file.
+     *
+     * @return true if the save operation is successful
+     */
+    public static boolean saveAlltoCSV() {
+        changed = false;
+        SaveResult result = saveCSV(getFilePath(), locationsToCSVLines());
+        if (!result.isSuccess()) {
+            changed = true;
+            System.out.println("Error saving locations to CSV: " + result.getErrorMessage());
+        }
+        return result.isSuccess();
+    }
+
+    /**
+     * Saves the location registry in the background if locations were registered
+     * since the last save. Called before the appointment records are saved, so an
+     * appointment is not written before the location it refers to.
+     */
+    public static void saveIfChangedAsync() {
+        if (changed) {
+            changed = false;
+            saveCSVAsync(getFilePath(), locationsToCSVLines()).thenAccept(PersistenceExecutor::reportFailure);
+        }
+    }
+
+    /**
+     * Gets the number of times the registry has been loaded from disk or had a capacity changed.
+     *
+     * @return the current load generation
+     */
+    public static int getLoadGeneration() {
+        return loadGeneration;
+    }
+
+    /**
+     * Gets a location by ID.
+     *
+     * @param locationID the ID of the location
+     * @return the location, or null if there is none with this ID
+     */
+    public static Location findLocation(String locationID) {
+        return locationID == null ? null : LOCATIONS.get(locationID);
+    }
+
+    /**
+     * Gets a location by name, ignoring case and extra spaces.
+     *
+     * @param name the name of the location
+     * @return the location, or null if there is none with this name
+     */
+    public static Location findLocationByName(String name) {
+        String key = normaliseName(name);
+        return key == null ? null : findLocation(IDS_BY_NAME.get(key));
+    }
+
+    /**
+     * Gets every registered location.
+     *
+     * @return the locations ordered by ID
+     */
+    public static List<Location> getLocations() {
+        List<Location> locations = new ArrayList<>(LOCATIONS.values());
+        locations.sort(Comparator.comparing(Location::getLocationID));
+        return locations;
+    }
+
+    /**
+     * Registers a new location, or returns the existing one if a location with this
+     * name is already registered.
+     *
+     * @param name     the name of the location
+     * @param capacity the number of rooms at the location
+     * @return the registered location, or null if the name is blank
+     */
+    public static synchronized Location addLocation(String name, int capacity) {
+        Location existing = findLocationByName(name);
+        if (existing != null || normaliseName(name) == null) {
+            return existing;
+        }
+        return register(nextLocationID(), name, capacity);
+    }
+
+    /**
+     * Changes the number of rooms at a location.
+     *
+     * @param locationID the ID of the location
+     * @param capacity   the new number of rooms, at least 1
+     * @return true if the location exists
+     */
+    public static synchronized boolean setCapacity(String locationID, int capacity) {
+        Location location = findLocation(locationID);
+        if (location == null) {
+            return false;
+        }
+        LOCATIONS.put(locationID, location.withCapacity(capacity));
+        changed = true;
+        loadGeneration++;
+        return true;
+    }
+
+    /**
+     * Gets the ID of an appointment's location, assigning it first if the appointment
+     * only has a location name: a known ID is kept, otherwise the name is looked up
+     * and registered with one room if it is new. From then on the appointment shows
+     * the registered name, so differently typed names end up identical.
+     *
+     * @param appointment the appointment
+     * @return the location ID, or null if the appointment has no location
+     */
+    public static String resolveLocationID(Appointment appointment) {
+        String locationID = appointment.getLocationID();
+        if (findLocation(locationID) != null) {
+            return locationID;
+        }
+        // the ID is not registered, so this is the name as entered
+        String name = appointment.getLocation();
+        if (normaliseName(name) == null) {
+            return null;
+        }
+        Location location = findLocationByName(name);
+        if (location == null) {
+            synchronized (LocationRepository.class) {
+                location = findLocationByName(name);
+                if (location == null) {
+                    // keep an ID read from the appointment file if the registry lost it
+                    location = register(locationID != null && !LOCATIONS.containsKey(locationID)
+                            ? locationID : nextLocationID(), name, 1);
+                }
+            }
+        }
+        appointment.setLocationID(location.getLocationID());
+        if (!location.getName().equals(name)) {
+            AppointmentColumnStore.slotChanged(appointment);
+        }
+        return location.getLocationID();
+    }
+
+    private static Location register(String locationID, String name, int capacity) {
+        Location location = new Location(locationID, name.trim().replaceAll("\\s+", " ").replace(",", " "), capacity);
+        LOCATIONS.put(locationID, location);
+        IDS_BY_NAME.put(normaliseName(location.getName()), locationID);
+        if (locationID.matches("L\\d+")) {
+            nextLocationNumber = Math.max(nextLocationNumber, Integer.parseInt(locationID.substring(1)) + 1);
+        }
+        changed = true;
+        return location;
+    }
+
+    private static String nextLocationID() {
+        String id = String.format("L%03d", nextLocationNumber);
+        while (LOCATIONS.containsKey(id)) {
+            id = String.format("L%03d", ++nextLocationNumber);
+        }
+        return id;
+    }
+
+    /**
+     * Makes locations typed in different ways ("Level 2 - Clinic", "level 2  - clinic ") compare equal.
+     *
+     * @param name the location name
+     * @return the name in the form locations are compared in, or null if it is blank
+     */
+    public static String normaliseName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return name.trim().replaceAll("\\s+", " ").replace(",", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Renders the registry as CSV rows, header first.
+     *
+     * @return the rows of the file
+     */
+    private static List<String> locationsToCSVLines() {
+        List<String> lines = new ArrayList<>(LOCATIONS.size() + 1);
+        lines.add(header);
+        for (Location location : getLocations()) {
+            lines.add(String.join(",",
+                    location.getLocationID(),
+                    location.getName(),
+                    String.valueOf(location.getCapacity())));
+        }
+        return lines;
+    }
+
+    /**
+     * Loads locations from the specified CSV file, creating an empty file if not found.
+     *
+     * @param fileName the name of the CSV file to load from
+     */
+    private static void loadLocationsFromCSV(String fileName) {
+        String filePath = "./src/repository/" + folder + "/" + fileName;
+
+        // Ensure the directory exists
+        File directory = new File("./src/repository/" + folder);
+        if (!directory.exists()) {
+            boolean dirsCreated = directory.mkdirs(); // Create the directory if it doesn't exist
+            if (!dirsCreated) {
+                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
+                return; // Exit if directory creation fails
+            }
+        }
+
+        File file = new File(filePath);
+
+        if (!file.exists()) {
+            try {
+                boolean fileCreated = file.createNewFile(); // Create an empty file if it doesn't exist
+                if (fileCreated) {
+                    System.out.println("Created empty file: " + filePath);
+                }
+            } catch (IOException e) {
+                System.out.println("Error creating file: " + e.getMessage());
+            }
+            return; // No data to load, as the file was just created
+        }
+
+        try (BufferedReader reader = openCSV(filePath)) {
+            String line;
+            boolean isFirstLine = true; // To skip the header row
+            while ((line = reader.readLine()) != null) {
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    register(fields[0], fields[1], Integer.parseInt(fields[2].trim()));
+                    countRow(true);
+                } catch (Exception e) {
+                    parseFailed(e.getMessage());
+                    countRow(false);
+                    System.out.println("Error parsing location data: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading location data: " + e.getMessage());
+        }
+    }
+
+    private static String getFilePath() {
+        return "./src/repository/" + folder + "/" + fileName;
+    }
+
+    /**
+     * Sets the repository load status.
+     *
+     * @param isRepoLoaded true to set the repository as loaded, false otherwise
+     */
+    public static void setRepoLoaded(boolean isRepoLoaded) {
+        LocationRepository.isRepoLoaded = isRepoLoaded;
+    }
+}
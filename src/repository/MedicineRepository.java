@@ -3,8 +3,10 @@ package repository;
 import model.Medicine;
 
 import java.io.*;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import enums.ReplenishStatus;
 
@@ -56,6 +58,15 @@ public class MedicineRepository extends Repository {
         saveMedicinesToCSV(fileName, MEDICINES);
     }
 
+    /**
+     * Save all Medicine records to the CSV file in the background
+     *
+     * @return a future completed once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> saveAllMedicinesToCSVAsync() {
+        return saveCSVAsync("./src/repository/" + folder + "/" + fileName, medicinesToCSVLines(MEDICINES));
+    }
+
     /**
      * Saves the provided map of Medicine records to the specified CSV file.
      *
@@ -65,18 +76,27 @@ public class MedicineRepository extends Repository {
     private static void saveMedicinesToCSV(String fileName, HashMap<String, Medicine> medicinesMap) {
         String filePath = "./src/repository/" + folder + "/" + fileName;
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            writer.write(getCsvHeader());
-            writer.newLine();
-            for (Medicine medicine : medicinesMap.values()) {
-                writer.write(medicineToCSV(medicine));
-                writer.newLine();
-            }
-//            System.out.println("Medicines successfully saved to " + fileName);
-        } catch (IOException e) {
-            System.out.println("Error saving medicine data: " + e.getMessage());
+        SaveResult result = saveCSV(filePath, medicinesToCSVLines(medicinesMap));
+        if (!result.isSuccess()) {
+            System.out.println("Error saving medicine data: " + result.getErrorMessage());
         }
     }
+
+    /**
+     * Renders the provided map of Medicine records as CSV rows, header first.
+     *
+     * @param medicinesMap the map of Medicine objects to render
+     * @return the rows of the file
+     */
+    private static List<String> medicinesToCSVLines(HashMap<String, Medicine> medicinesMap) {
+        List<String> lines = new ArrayList<>(medicinesMap.size() + 1);
+        lines.add(getCsvHeader());
+        for (Medicine medicine : medicinesMap.values()) {
+            lines.add(medicineToCSV(medicine));
+        }
+        return lines;
+    }
+
     private static String getCsvHeader() {
         return "Medicine ID,Name,Manufacturer,Expiry Date,Stock,Low Level Stock,Replenishment Stock,Status,Request Date,Approved Date";
     }
@@ -138,7 +158,7 @@ public class MedicineRepository extends Repository {
         }
 
         // Read the data from the CSV file
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openCSV(filePath)) {
             String line;
             boolean isFirstLine = true; // To skip the header row
             while ((line = reader.readLine()) != null) {
@@ -147,6 +167,7 @@ public class MedicineRepository extends Repository {
                     continue; // Skip the header row
                 }
                 Medicine medicine = csvToMedicine(line);
+                countRow(medicine != null);
                 if (medicine != null) {
                     medicinesMap.put(medicine.getMedicineID(), medicine);
                 }
@@ -169,16 +190,17 @@ public class MedicineRepository extends Repository {
             return new Medicine(
                     fields[0], // medicineID
                     fields[1], // name
-                    fields[2], // manufacturer
-                    LocalDateTime.parse(fields[3]), // expiryDate
+                    canonical(fields[2]), // manufacturer
+                    canonicalDateTime(fields[3]), // expiryDate
                     Integer.parseInt(fields[4]), // inventoryStock
                     Integer.parseInt(fields[5]), // lowStockLevel
                     Integer.parseInt(fields[6]), // lowStockLevel
                     safeValueOf(fields[7]), // replenish status
-                    LocalDateTime.parse(fields[8]), // replenishRequestDate;
-                    LocalDateTime.parse(fields[9]) // approvedDate
+                    canonicalDateTime(fields[8]), // replenishRequestDate;
+                    canonicalDateTime(fields[9]) // approvedDate
             );
         } catch (Exception e) {
+            parseFailed(e.getMessage());
             System.out.println("Error parsing medicine data: " + e.getMessage());
         }
         return null;
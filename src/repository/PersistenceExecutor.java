@@ -0,0 +1,211 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background writer for repository files.
+ * A single daemon thread takes write jobs from a queue, so files are written in
+ * the order they were saved and the interactive thread never waits on disk I/O.
+ * A save for a file that is already queued but not yet started replaces that
+ * job's snapshot, so repeated saves of the same file collapse into one write.
+ * Appends to the same file that are still queued are merged into one append in
+ * the same way. The queue therefore holds at most one rewrite and one append per
+ * file, and memory is bounded by the latest snapshot of each file rather than by
+ * the number of saves. A queued append holds at most
+ * {@code -Dhms.persistence.maxAppendRows} rows: a caller whose rows would take it
+ * past that waits until the writer starts on it, so appenders slow down to the
+ * speed of the disk instead of growing the queued rows without limit.
+ */
+public class PersistenceExecutor {
+    /**
+     * Maximum number of distinct pending file writes, configurable with -Dhms.persistence.queue.
+     * Pending writes are merged per file, so this only has to exceed twice the number of files.
+     */
+    private static final int QUEUE_CAPACITY = Integer.getInteger("hms.persistence.queue", 64);
+    /**
+     * Maximum number of rows a queued append collects from merged appends,
+     * configurable with -Dhms.persistence.maxAppendRows.
+     */
+    private static final int MAX_APPEND_ROWS = Integer.getInteger("hms.persistence.maxAppendRows", 10_000);
+
+    private static final BlockingQueue<WriteJob> QUEUE = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // key value = file path of a job that is queued but not yet started (prefixed for appends)
+    private static final Map<String, WriteJob> PENDING = new HashMap<>();
+    private static final String APPEND_PREFIX = "append:";
+    // number of jobs submitted but not yet written
+    private static final AtomicInteger OUTSTANDING = new AtomicInteger();
+    private static final Thread WRITER = new Thread(PersistenceExecutor::drain, "hms-persistence-writer");
+
+    static {
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> awaitIdle(10_000), "hms-persistence-flush"));
+    }
+
+    /**
+     * A queued write of one file snapshot, or of rows to append to a file.
+     */
+    private static final class WriteJob {
+        private final String filePath;
+        private List<String> lines;
+        // null for a full rewrite; for an append, the header written if the file is still empty
+        private final String appendHeader;
+        private final CompletableFuture<SaveResult> future = new CompletableFuture<>();
+
+        private WriteJob(String filePath, List<String> lines, String appendHeader) {
+            this.filePath = filePath;
+            this.lines = lines;
+            this.appendHeader = appendHeader;
+        }
+
+        private String pendingKey() {
+            return appendHeader == null ? filePath : APPEND_PREFIX + filePath;
+        }
+    }
+
+    /**
+     * Queues a snapshot of a file's rows to be written in the background.
+     *
+     * @param filePath the file to write
+     * @param lines    the complete contents of the file, one row per element
+     * @return a future completed with the result once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> submit(String filePath, List<String> lines) {
+        WriteJob job;
+        synchronized (PENDING) {
+            WriteJob pending = PENDING.get(filePath);
+            if (pending != null) {
+                pending.lines = lines; // the newer snapshot supersedes the queued one
+                return pending.future;
+            }
+            job = new WriteJob(filePath, lines, null);
+            PENDING.put(filePath, job);
+            OUTSTANDING.incrementAndGet();
+        }
+        return enqueue(job);
+    }
+
+    /**
+     * Queues rows to be appended to the end of a file in the background. The header
+     * is written first if the file does not exist yet or is empty. If the append
+     * already queued for the file is full, this waits until the writer starts on it,
+     * except on the writer thread itself, which never waits for itself.
+     *
+     * @param filePath the file to append to
+     * @param header   the header row of the file
+     * @param lines    the rows to append
+     * @return a future completed with the result once the rows are on disk
+     */
+    public static CompletableFuture<SaveResult> submitAppend(String filePath, String header, List<String> lines) {
+        WriteJob job;
+        synchronized (PENDING) {
+            WriteJob pending = PENDING.get(APPEND_PREFIX + filePath);
+            while (pending != null && pending.lines.size() + lines.size() > MAX_APPEND_ROWS
+                    && Thread.currentThread() != WRITER) {
+                try {
+                    PENDING.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return CompletableFuture.completedFuture(
+                            SaveResult.failure(filePath, "Interrupted while queueing save", 0));
+                }
+                pending = PENDING.get(APPEND_PREFIX + filePath);
+            }
+            if (pending != null) {
+                // only this class holds the list of a queued append, until the writer takes it
+                pending.lines.addAll(lines);
+                return pending.future;
+            }
+            job = new WriteJob(filePath, new ArrayList<>(lines), header);
+            PENDING.put(job.pendingKey(), job);
+            OUTSTANDING.incrementAndGet();
+        }
+        return enqueue(job);
+    }
+
+    private static CompletableFuture<SaveResult> enqueue(WriteJob job) {
+        try {
+            QUEUE.put(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (PENDING) {
+                PENDING.remove(job.pendingKey(), job);
+            }
+            OUTSTANDING.decrementAndGet();
+            job.future.complete(SaveResult.failure(job.filePath, "Interrupted while queueing save", 0));
+        }
+        return job.future;
+    }
+
+    /**
+     * Waits until every queued write has finished, or the timeout expires.
+     *
+     * @param timeoutMillis the maximum time to wait, in milliseconds
+     * @return true if the queue drained in time
+     */
+    public static boolean awaitIdle(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (OUTSTANDING.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prints a warning if a background save failed, so the user learns that their
+     * change is not yet durable.
+     *
+     * @param result the result of the save
+     */
+    public static void reportFailure(SaveResult result) {
+        if (!result.isSuccess()) {
+            System.out.println("Warning: changes could not be saved to disk. " + result.getErrorMessage());
+        }
+    }
+
+    /**
+     * Writer thread loop: takes one job at a time and writes its latest snapshot.
+     */
+    private static void drain() {
+        while (true) {
+            WriteJob job;
+            try {
+                job = QUEUE.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<String> lines;
+            synchronized (PENDING) {
+                PENDING.remove(job.pendingKey(), job);
+                lines = job.lines;
+                // wakes appenders waiting for this append to leave the queue
+                PENDING.notifyAll();
+            }
+            SaveResult result;
+            try {
+                result = job.appendHeader == null
+                        ? Repository.writeCSV(job.filePath, lines)
+                        : Repository.appendCSV(job.filePath, job.appendHeader, lines);
+            } catch (RuntimeException e) {
+                result = SaveResult.failure(job.filePath, e.toString(), 0);
+            }
+            OUTSTANDING.decrementAndGet();
+            job.future.complete(result);
+        }
+    }
+}
@@ -6,8 +6,8 @@ import model.PrescribedMedication;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class PrescribedMedicationRepository extends Repository {
     private static final String folder = "data";
@@ -45,6 +45,16 @@ public class PrescribedMedicationRepository extends Repository {
 		return true;
     }
 
+    /**
+     * Saves all prescribed medication records to the CSV file in the background.
+     *
+     * @return a future completed once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> saveAlltoCSVAsync() {
+        return saveCSVAsync("./src/repository/" + folder + "/" + fileName,
+                medicationsToCSVLines(diagnosisToMedicationsMap));
+    }
+
     
     /**
      * Saves the provided prescribed medication records to the specified CSV file.
@@ -55,33 +65,26 @@ public class PrescribedMedicationRepository extends Repository {
     public static void saveMedicationsToCSV(String fileName, HashMap<String, ArrayList<PrescribedMedication>> diagnosisToMedicationsMap) {
         String filePath = "./src/repository/" + folder + "/" + fileName;
 
-        // Ensure the directory exists
-        File directory = new File("./src/repository/" + folder);
-        if (!directory.exists()) {
-            boolean dirsCreated = directory.mkdirs();  // Create the directory if it doesn't exist
-            if (!dirsCreated) {
-                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
-                return; // Exit if directory creation fails
-            }
+        SaveResult result = saveCSV(filePath, medicationsToCSVLines(diagnosisToMedicationsMap));
+        if (!result.isSuccess()) {
+            System.out.println("Error saving medications to CSV: " + result.getErrorMessage());
         }
+    }
 
-        // Use a Set to track existing medication IDs to prevent duplicates
-        Set<String> existingMedicationIDs = new HashSet<>();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            // Iterate over all prescribed medications in the map
-
-            for (String diagnosisID : diagnosisToMedicationsMap.keySet()) {
-                for (PrescribedMedication medication : diagnosisToMedicationsMap.get(diagnosisID)) {
-
-                    // Write the medication to the file
-                    writer.write(medicationToCSV(diagnosisID, medication));
-                    writer.newLine();
-                }
+    /**
+     * Renders the prescribed medication records as CSV rows.
+     *
+     * @param diagnosisToMedicationsMap the map of prescribed medications to render
+     * @return the rows of the file
+     */
+    private static List<String> medicationsToCSVLines(HashMap<String, ArrayList<PrescribedMedication>> diagnosisToMedicationsMap) {
+        List<String> lines = new ArrayList<>();
+        for (String diagnosisID : diagnosisToMedicationsMap.keySet()) {
+            for (PrescribedMedication medication : diagnosisToMedicationsMap.get(diagnosisID)) {
+                lines.add(medicationToCSV(diagnosisID, medication));
             }
-//        System.out.println("Medications successfully saved to CSV.");
-        } catch (IOException e) {
-            System.out.println("Error saving medications to CSV: " + e.getMessage());
         }
+        return lines;
     }
 
 
@@ -141,11 +144,12 @@ public class PrescribedMedicationRepository extends Repository {
             return;  // No data to load, as the file was just created
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openCSV(filePath)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 PrescribedMedication medication = csvToMedication(line);
                 String diagnosisID = getDiagnosisIDFromCSV(line);
+                countRow(medication != null && diagnosisID != null);
                 if (medication != null && diagnosisID != null) {
                     addMedication(diagnosisID, medication);
                 }
@@ -212,6 +216,7 @@ public class PrescribedMedicationRepository extends Repository {
 
             return new PrescribedMedication(prescribedMedID,diagnosisID,medicineID, medicineQuantity, periodDays, prescriptionStatus, dosage);
         } catch (Exception e) {
+            parseFailed(e.getMessage());
             System.out.println("Error parsing medication data: " + e.getMessage());
         }
         return null;
@@ -8,14 +8,13 @@ package repository;
 import model.Prescription;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Prescription Repository reads, loads,stores  and updates data for
@@ -61,6 +60,15 @@ public class PrescriptionRepository extends Repository {
 		return true;
     }
 
+    /**
+     * Saves all prescriptions to the CSV file in the background.
+     *
+     * @return a future completed once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> saveAlltoCSVAsync() {
+        return saveCSVAsync("./src/repository/" + folder + "/" + fileName, prescriptionsToCSVLines(PRESCRIPTION_MAP));
+    }
+
     /**
      * Saves the provided prescription records to the specified CSV file.
      *
@@ -70,28 +78,29 @@ public class PrescriptionRepository extends Repository {
     public static void savePrescriptionsToCSV(String fileName, HashMap<String, Prescription> prescriptionMap) {
         String filePath = "./src/repository/" + folder + "/" + fileName;
 
-        // Ensure the directory exists
-        File directory = new File("./src/repository/" + folder);
-        if (!directory.exists()) {
-            boolean dirsCreated = directory.mkdirs(); // Create the directory if it doesn't exist
-            if (!dirsCreated) {
-                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
-                return; // Exit if directory creation fails
-            }
+        SaveResult result = saveCSV(filePath, prescriptionsToCSVLines(prescriptionMap));
+        if (result.isSuccess()) {
+            System.out.println("Prescriptions successfully saved to " + fileName);
+        } else {
+            System.out.println("Error saving prescriptions to CSV: " + result.getErrorMessage());
         }
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (String diagnosisID : prescriptionMap.keySet()) {
-                Prescription prescription = prescriptionMap.get(diagnosisID);
-                if (prescription != null) {
-                    writer.write(prescriptionToCSV(diagnosisID, prescription)); // Assuming prescriptionToCSV() formats the prescription correctly
-                    writer.newLine();
-                }
+    /**
+     * Renders the prescriptions as CSV rows.
+     *
+     * @param prescriptionMap the map of prescriptions to render
+     * @return the rows of the file
+     */
+    private static List<String> prescriptionsToCSVLines(HashMap<String, Prescription> prescriptionMap) {
+        List<String> lines = new ArrayList<>(prescriptionMap.size());
+        for (String diagnosisID : prescriptionMap.keySet()) {
+            Prescription prescription = prescriptionMap.get(diagnosisID);
+            if (prescription != null) {
+                lines.add(prescriptionToCSV(diagnosisID, prescription));
             }
-            System.out.println("Prescriptions successfully saved to " + fileName);
-        } catch (IOException e) {
-            System.out.println("Error saving prescriptions to CSV: " + e.getMessage());
         }
+        return lines;
     }
 
     /**
@@ -145,11 +154,12 @@ public class PrescriptionRepository extends Repository {
             }
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openCSV(filePath)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 Prescription prescription = csvToPrescription(line);
                 String diagnosisID = getDiagnosisIDFromCSV(line);
+                countRow(prescription != null && diagnosisID != null);
                 if (prescription != null && diagnosisID != null) {
                     diagnosisPrescriptionMap.put(diagnosisID, prescription);
                 }
@@ -187,6 +197,7 @@ public class PrescriptionRepository extends Repository {
                     PrescribedMedicationRepository.diagnosisToMedicationsMap.getOrDefault(fields[0], new ArrayList<>())
             );
         } catch (Exception e) {
+            parseFailed(e.getMessage());
             System.out.println("Error parsing prescription data: " + e.getMessage());
         }
         return null;
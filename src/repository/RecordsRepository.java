@@ -11,15 +11,17 @@ import enums.RecordStatus;
 import model.*;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import enums.AppointmentStatus;
 
@@ -35,14 +37,32 @@ public class RecordsRepository extends Repository {
     private static final String medicalFileName = "medical_records.csv";
     private static final String appointmentFileName = "appointment_records.csv";
     private static final String paymentFileName = "payment_records.csv";
+    /**
+     * Append-only segment holding appointments retired from APPOINTMENT_RECORDS.
+     * It is never loaded at startup.
+     */
+    private static final String appointmentArchiveFileName = "appointment_records_archive.csv";
+    /**
+     * The next numeric ID above every record that has left the live maps, per ID
+     * prefix, so a new record never reuses the ID of an archived one.
+     */
+    private static final String retiredIDsFileName = "retired_record_ids.csv";
+    private static final String retiredIDsHeader = "Prefix,Next ID";
     private static Boolean isRepoLoaded = false;
+    /**
+     * Incremented every time the records are (re)loaded from disk, so caches built
+     * from the record objects can tell that the objects have been replaced.
+     */
+    private static volatile int loadGeneration = 0;
     // Static data collections for different record types
     // key value = doctorID
 
     // key value = recordID
     public static HashMap<String, MedicalRecord> MEDICAL_RECORDS = new HashMap<>();
-    public static HashMap<String, Appointment> APPOINTMENT_RECORDS = new HashMap<>();
+    public static ConcurrentHashMap<String, Appointment> APPOINTMENT_RECORDS = new ConcurrentHashMap<>();
     public static HashMap<String, PaymentRecord> PAYMENT_RECORDS = new HashMap<>();
+    // key value = ID prefix, e.g. "A-"
+    private static final ConcurrentHashMap<String, Integer> RETIRED_ID_HIGH_WATER = new ConcurrentHashMap<>();
 
     /**
      * Loads all record types from their respective CSV files and sets the
@@ -55,7 +75,11 @@ public class RecordsRepository extends Repository {
         try {
             loadRecordsFromCSV(medicalFileName, MEDICAL_RECORDS, MedicalRecord.class);
             loadRecordsFromCSV(appointmentFileName, APPOINTMENT_RECORDS, Appointment.class);
+            // locations first seen in the appointment file were registered while loading
+            LocationRepository.saveIfChangedAsync();
             loadRecordsFromCSV(paymentFileName, PAYMENT_RECORDS, PaymentRecord.class);
+            loadRetiredIDs();
+            markRecordsReloaded();
             setRepoLoaded(true);
             return true;
         } catch (Exception e) {
@@ -71,9 +95,132 @@ public class RecordsRepository extends Repository {
     public static void saveAllRecordFiles() {
         saveRecordsToCSV(medicalFileName, MEDICAL_RECORDS);
         saveRecordsToCSV(appointmentFileName, APPOINTMENT_RECORDS);
+        LocationRepository.saveIfChangedAsync();
         saveRecordsToCSV(paymentFileName, PAYMENT_RECORDS);
     }
 
+    /**
+     * Saves all record types (medical, appointment, and payment) to their
+     * respective CSV files in the background.
+     *
+     * @return a future completed once all three files are on disk
+     */
+    public static CompletableFuture<SaveResult> saveAllRecordFilesAsync() {
+        List<String> appointmentLines = recordsToCSVLines(appointmentFileName, APPOINTMENT_RECORDS);
+        LocationRepository.saveIfChangedAsync();
+        return combineSaves(List.of(
+                saveCSVAsync(getFilePath(medicalFileName), recordsToCSVLines(medicalFileName, MEDICAL_RECORDS)),
+                saveCSVAsync(getFilePath(appointmentFileName), appointmentLines),
+                saveCSVAsync(getFilePath(paymentFileName), recordsToCSVLines(paymentFileName, PAYMENT_RECORDS))));
+    }
+
+    /**
+     * Saves only the appointment records file in the background.
+     *
+     * @return a future completed once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> saveAppointmentRecordsAsync() {
+        List<String> lines = recordsToCSVLines(appointmentFileName, APPOINTMENT_RECORDS);
+        LocationRepository.saveIfChangedAsync();
+        return saveCSVAsync(getFilePath(appointmentFileName), lines);
+    }
+
+    /**
+     * Appends appointments to the archive segment in the background, in the same
+     * format as the appointment records file. The caller removes them from
+     * APPOINTMENT_RECORDS once the rows are on disk.
+     *
+     * @param appointments the appointments to archive
+     * @return a future completed once the rows are on disk
+     */
+    public static CompletableFuture<SaveResult> archiveAppointmentsAsync(Collection<Appointment> appointments) {
+        List<String> lines = new ArrayList<>(appointments.size());
+        for (Appointment appointment : appointments) {
+            lines.add(recordToCSV(appointment));
+            retireID(appointment.getRecordID());
+        }
+        return combineSaves(List.of(
+                appendCSVAsync(getFilePath(appointmentArchiveFileName), getCsvHeader(appointmentFileName), lines),
+                saveCSVAsync(getFilePath(retiredIDsFileName), retiredIDsToCSVLines())));
+    }
+
+    /**
+     * Gets the next numeric ID above every archived record with an ID prefix.
+     *
+     * @param prefix the ID prefix, e.g. "A-"
+     * @return the lowest numeric ID that is free of archived records, or 0 if none were archived
+     */
+    public static int getRetiredIDHighWater(String prefix) {
+        return RETIRED_ID_HIGH_WATER.getOrDefault(prefix, 0);
+    }
+
+    /**
+     * Raises the high-water mark of a record ID's prefix above the ID.
+     */
+    private static void retireID(String recordID) {
+        int split = recordID.lastIndexOf('-') + 1;
+        try {
+            RETIRED_ID_HIGH_WATER.merge(recordID.substring(0, split),
+                    Integer.parseInt(recordID.substring(split)) + 1, Math::max);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid ID format: " + recordID);
+        }
+    }
+
+    private static List<String> retiredIDsToCSVLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(retiredIDsHeader);
+        RETIRED_ID_HIGH_WATER.forEach((prefix, nextID) -> lines.add(prefix + "," + nextID));
+        return lines;
+    }
+
+    /**
+     * Loads the high-water marks of archived record IDs. The first time, before the
+     * file exists, they are taken from the IDs in the appointment archive, which is
+     * otherwise never read.
+     */
+    private static void loadRetiredIDs() {
+        RETIRED_ID_HIGH_WATER.clear();
+        File file = new File(getFilePath(retiredIDsFileName));
+        if (file.exists()) {
+            try (BufferedReader reader = openCSV(file.getPath())) {
+                String line = reader.readLine(); // header
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(",");
+                    try {
+                        RETIRED_ID_HIGH_WATER.merge(fields[0], Integer.parseInt(fields[1]), Math::max);
+                        countRow(true);
+                    } catch (RuntimeException e) {
+                        parseFailed(e.getMessage());
+                        countRow(false);
+                        System.out.println("Error parsing retired record ID data: " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error reading file: " + e.getMessage());
+            }
+            return;
+        }
+
+        File archive = new File(getFilePath(appointmentArchiveFileName));
+        if (!archive.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(archive))) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                int end = line.indexOf(',');
+                if (end > 0) {
+                    retireID(line.substring(0, end));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return;
+        }
+        saveCSVAsync(file.getPath(), retiredIDsToCSVLines()).thenAccept(PersistenceExecutor::reportFailure);
+    }
+
     /**
      * Returns the CSV header based on the file name.
      *
@@ -84,7 +231,7 @@ public class RecordsRepository extends Repository {
         if (Objects.equals(fileName, medicalFileName)) {
             return "Record ID,Full Name,Phone Number,Email,Created Date,Updated Date,Record status,Patient ID,Doctor ID,Blood Type";
         } else if (Objects.equals(fileName, appointmentFileName)) {
-            return "Record ID,Created Date,Updated Date,Record status,Appointment Outcome Record ID, Patient ID,Doctor ID,Appointment Time, Location, Appointment Status";
+            return "Record ID,Created Date,Updated Date,Record status,Appointment Outcome Record ID, Patient ID,Doctor ID,Appointment Time, Location, Appointment Status, Slot Length, Location ID";
         }
         return "Record ID,Created Date,Updated Date,Record Status,Patient ID,Payment Status,Payment Amount";
     }
@@ -97,32 +244,42 @@ public class RecordsRepository extends Repository {
      * @param <T>                a type parameter extending Records
      */
     private static <T extends Records> void saveRecordsToCSV(String fileName,
-                                                             HashMap<String, T> recordsMapRecordID) {
-        String filePath = "./src/repository/" + folder + "/" + fileName;
-
-        // Ensure the directory exists
-        File directory = new File("./src/repository/" + folder);
-        if (!directory.exists()) {
-            boolean dirsCreated = directory.mkdirs(); // Create the directory if it doesn't exist
-            if (!dirsCreated) {
-                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
-                return; // Exit if directory creation fails
-            }
+                                                             Map<String, T> recordsMapRecordID) {
+        SaveResult result = saveCSV(getFilePath(fileName), recordsToCSVLines(fileName, recordsMapRecordID));
+        if (result.isSuccess()) {
+            System.out.println("Records successfully saved to " + fileName);
+        } else {
+            System.out.println("Error saving record data: " + result.getErrorMessage());
         }
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            writer.write(getCsvHeader(fileName)); // Assuming getCsvHeader() provides a valid header
-            writer.newLine();
-            for (T record : recordsMapRecordID.values()) {
-                writer.write(recordToCSV(record)); // Assuming recordToCSV() formats the record correctly
-                writer.newLine();
-            }
-            System.out.println("Records successfully saved to " + fileName);
-        } catch (IOException e) {
-            System.out.println("Error saving record data: " + e.getMessage());
+    /**
+     * Renders a specific record map as CSV rows, header first.
+     *
+     * @param fileName           the name of the file the rows are for
+     * @param recordsMapRecordID the map of records to render
+     * @param <T>                a type parameter extending Records
+     * @return the rows of the file
+     */
+    private static <T extends Records> List<String> recordsToCSVLines(String fileName,
+                                                                      Map<String, T> recordsMapRecordID) {
+        List<String> lines = new ArrayList<>(recordsMapRecordID.size() + 1);
+        lines.add(getCsvHeader(fileName));
+        for (T record : recordsMapRecordID.values()) {
+            lines.add(recordToCSV(record));
         }
+        return lines;
     }
 
+    /**
+     * Returns the path of a file in the records data folder.
+     *
+     * @param fileName the name of the file
+     * @return the file path
+     */
+    private static String getFilePath(String fileName) {
+        return "./src/repository/" + folder + "/" + fileName;
+    }
 
     /**
      * Converts a record object to a CSV-formatted string.
@@ -154,7 +311,9 @@ public class RecordsRepository extends Repository {
                     appRecord.getDoctorID(),
                     appRecord.getAppointmentTime().toString(),
                     appRecord.getLocation(),
-                    appRecord.getAppointmentStatus().toString());
+                    appRecord.getAppointmentStatus().toString(),
+                    String.valueOf(appRecord.getSlotLengthMinutes()),
+                    LocationRepository.resolveLocationID(appRecord));
         } else if (record instanceof PaymentRecord payRecord) {
             return String.join(",",
                     payRecord.getRecordID(),
@@ -179,7 +338,7 @@ public class RecordsRepository extends Repository {
      * @param <T>                a type parameter extending Records
      */
     private static <T extends Records> void loadRecordsFromCSV(String fileName,
-                                                               HashMap<String, T> recordsMapRecordID,
+                                                               Map<String, T> recordsMapRecordID,
                                                                Class<T> type) {
         String filePath = "./src/repository/" + folder + "/" + fileName;
 
@@ -209,7 +368,7 @@ public class RecordsRepository extends Repository {
             return; // No data to load, as the file was just created
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openCSV(filePath)) {
             String line;
             boolean isFirstLine = true; // To skip the header row
 
@@ -219,6 +378,7 @@ public class RecordsRepository extends Repository {
                     continue; // Skip the header row
                 }
                 T record = csvToRecord(line, type);
+                countRow(record != null);
                 if (record != null) {
                     recordsMapRecordID.put(record.getRecordID(), record);
                 }
@@ -249,12 +409,12 @@ public class RecordsRepository extends Repository {
                         fields[1], // patient name
                         fields[2], // patient phone number
                         fields[3], // patient email
-                        LocalDateTime.parse(fields[4]), // createdDate
-                        LocalDateTime.parse(fields[5]), // updatedDate
+                        canonicalDateTime(fields[4]), // createdDate
+                        canonicalDateTime(fields[5]), // updatedDate
                         RecordStatus.toEnumRecordStatusType(fields[6]), // recordStatus //ACTIVE
-                        fields[7], // patientID
-                        fields[8], // doctorID
-                        fields[9], // bloodType
+                        canonical(fields[7]), // patientID
+                        canonical(fields[8]), // doctorID
+                        canonical(fields[9]), // bloodType
                         DiagnosisRepository.patientDiagnosisRecords.getOrDefault(fields[7], new ArrayList<>())));
             } else if (type == Appointment.class) {
                 ArrayList<AppointmentOutcomeRecord> outcomeRecords = AppointmentOutcomeRecordRepository.patientOutcomeRecords
@@ -268,32 +428,41 @@ public class RecordsRepository extends Repository {
                         }
                     }
                 }
-                return type.cast(new Appointment(
+                Appointment appointment = new Appointment(
                         fields[0], // recordID (MRID)
-                        LocalDateTime.parse(fields[1]), // createdDate
-                        LocalDateTime.parse(fields[2]), // updatedDate
+                        canonicalDateTime(fields[1]), // createdDate
+                        canonicalDateTime(fields[2]), // updatedDate
                         RecordStatus.toEnumRecordStatusType(fields[3]), // recordStatus
-                        fields[4], // appointmentOutcomeRecordID
-                        fields[5], // patientID
-                        fields[6], // doctorID
-                        LocalDateTime.parse(fields[7]), // appointmentTime
-                        fields[8],
+                        fields[4].equals("null") ? "null" : fields[4], // appointmentOutcomeRecordID
+                        canonical(fields[5]), // patientID
+                        canonical(fields[6]), // doctorID
+                        canonicalDateTime(fields[7]), // appointmentTime
+                        canonical(fields[8]), // location
                         AppointmentStatus.toEnumAppointmentStatus(fields[9]), // appointmentStatus
-                        matchingRecord // appointmentOutcome, look up for appointment outcome ID
-                )); // doctorID
+                        matchingRecord, // appointmentOutcome, look up for appointment outcome ID
+                        // files written before slot lengths were recorded have no 11th column
+                        fields.length > 10 ? Integer.parseInt(fields[10]) : Appointment.DEFAULT_SLOT_LENGTH_MINUTES
+                );
+                // files written before the location registry existed have no 12th column
+                if (fields.length > 11 && !fields[11].equals("null")) {
+                    appointment.setLocationID(canonical(fields[11]));
+                }
+                LocationRepository.resolveLocationID(appointment);
+                return type.cast(appointment);
 
             } else if (type == PaymentRecord.class) {
                 return type.cast(new PaymentRecord(
                         fields[0], // recordID
-                        LocalDateTime.parse(fields[1]), // createdDate
-                        LocalDateTime.parse(fields[2]), // updatedDate
+                        canonicalDateTime(fields[1]), // createdDate
+                        canonicalDateTime(fields[2]), // updatedDate
                         RecordStatus.toEnumRecordStatusType(fields[3]), // recordStatus
-                        fields[4], // patientID
+                        canonical(fields[4]), // patientID
                         PaymentStatus.toEnumRecordStatusType(fields[5]), // recordStatus
                         Double.parseDouble(fields[6]) // paymentAmount
                 ));
             }
         } catch (Exception e) {
+            parseFailed(e.getMessage());
             System.out.println("Error parsing record data: " + e.getMessage());
         }
 
@@ -310,6 +479,23 @@ public class RecordsRepository extends Repository {
         return isRepoLoaded;
     }
 
+    /**
+     * Gets the number of times the records have been loaded from disk.
+     *
+     * @return the current load generation
+     */
+    public static int getLoadGeneration() {
+        return loadGeneration;
+    }
+
+    /**
+     * Starts a new load generation. Call this after the record maps have been filled
+     * or replaced wholesale, so caches built from the previous objects are rebuilt.
+     */
+    public static synchronized void markRecordsReloaded() {
+        loadGeneration++;
+    }
+
     /**
      * Sets the repository load status.
      *
@@ -0,0 +1,178 @@
+package repository;
+
+import model.Reminder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository class for the reminder outbox, a CSV file that due reminders are
+ * appended to for whatever delivers them (e-mail, SMS) to pick up. Rows are only
+ * ever appended. On load, the reminders already written for appointments that
+ * have not happened yet are remembered, so a restart does not write them again.
+ */
+public class ReminderOutboxRepository extends Repository {
+    /**
+     * Directory for storing the outbox CSV file.
+     */
+    private static final String folder = "data";
+    private static final String fileName = "reminder_outbox.csv";
+    private static final String header = "Appointment ID,Patient ID,Doctor ID,Appointment Time,Location,Minutes Before,Written At";
+    private static boolean isRepoLoaded = false;
+
+    // Keys of the reminders already in the outbox for upcoming appointments (see Reminder.getKey)
+    private static final Set<String> WRITTEN_KEYS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Specific loading logic for the reminder outbox from CSV.
+     *
+     * @return boolean indicating success or failure of the load operation
+     */
+    @Override
+    public boolean loadFromCSV() {
+        try {
+            WRITTEN_KEYS.clear();
+            loadOutboxFromCSV(fileName);
+            setRepoLoaded(true);
+            return true;
+        } catch (Exception e) {
+            System.out.println("Error loading reminder outbox: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Marks reminders as written before they are appended, so they are not
+     * scheduled again while the append is in progress.
+     *
+     * @param reminders the reminders about to be appended
+     */
+    public static void markWritten(Collection<Reminder> reminders) {
+        for (Reminder reminder : reminders) {
+            WRITTEN_KEYS.add(reminder.getKey());
+        }
+    }
+
+    /**
+     * Appends reminders to the outbox in the background. The reminders should have
+     * been marked with {@link #markWritten(Collection)}; if the append fails they are
+     * no longer marked as written, so they can be written again.
+     *
+     * @param reminders the reminders that are due
+     * @return a future completed once the rows are on disk
+     */
+    public static CompletableFuture<SaveResult> appendAsync(Collection<Reminder> reminders) {
+        List<String> lines = new ArrayList<>(reminders.size());
+        String writtenAt = LocalDateTime.now().toString();
+        for (Reminder reminder : reminders) {
+            lines.add(String.join(",",
+                    reminder.getAppointmentID(),
+                    reminder.getPatientID(),
+                    reminder.getDoctorID(),
+                    reminder.getAppointmentTime().toString(),
+                    String.valueOf(reminder.getLocation()).replace(",", " "),
+                    String.valueOf(reminder.getMinutesBefore()),
+                    writtenAt));
+        }
+        return appendCSVAsync(getFilePath(), header, lines).thenApply(result -> {
+            if (!result.isSuccess()) {
+                for (Reminder reminder : reminders) {
+                    WRITTEN_KEYS.remove(reminder.getKey());
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Checks whether a reminder is already in the outbox.
+     *
+     * @param reminder the reminder
+     * @return true if it was written before
+     */
+    public static boolean isWritten(Reminder reminder) {
+        return WRITTEN_KEYS.contains(reminder.getKey());
+    }
+
+    /**
+     * Remembers the reminders in the outbox file that belong to appointments that
+     * are still ahead, creating an empty file if not found.
+     *
+     * @param fileName the name of the CSV file to load from
+     */
+    private static void loadOutboxFromCSV(String fileName) {
+        String filePath = "./src/repository/" + folder + "/" + fileName;
+
+        // Ensure the directory exists
+        File directory = new File("./src/repository/" + folder);
+        if (!directory.exists()) {
+            boolean dirsCreated = directory.mkdirs(); // Create the directory if it doesn't exist
+            if (!dirsCreated) {
+                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
+                return; // Exit if directory creation fails
+            }
+        }
+
+        File file = new File(filePath);
+
+        if (!file.exists()) {
+            try {
+                boolean fileCreated = file.createNewFile(); // Create an empty file if it doesn't exist
+                if (fileCreated) {
+                    System.out.println("Created empty file: " + filePath);
+                }
+            } catch (IOException e) {
+                System.out.println("Error creating file: " + e.getMessage());
+            }
+            return; // No data to load, as the file was just created
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try (BufferedReader reader = openCSV(filePath)) {
+            String line;
+            boolean isFirstLine = true; // To skip the header row
+            while ((line = reader.readLine()) != null) {
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    LocalDateTime appointmentTime = LocalDateTime.parse(fields[3]);
+                    if (appointmentTime.isAfter(now)) {
+                        WRITTEN_KEYS.add(new Reminder(fields[0], fields[1], fields[2], appointmentTime, fields[4],
+                                Integer.parseInt(fields[5])).getKey());
+                    }
+                    countRow(true);
+                } catch (Exception e) {
+                    parseFailed(e.getMessage());
+                    countRow(false);
+                    System.out.println("Error parsing reminder outbox data: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading reminder outbox: " + e.getMessage());
+        }
+    }
+
+    private static String getFilePath() {
+        return "./src/repository/" + folder + "/" + fileName;
+    }
+
+    /**
+     * Sets the repository load status.
+     *
+     * @param isRepoLoaded true to set the repository as loaded, false otherwise
+     */
+    public static void setRepoLoaded(boolean isRepoLoaded) {
+        ReminderOutboxRepository.isRepoLoaded = isRepoLoaded;
+    }
+}
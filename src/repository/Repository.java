@@ -4,6 +4,24 @@
  * from a CSV file, checking the load status, and clearing repository data.
  */
 package repository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import utility.Metrics;
+import utility.SlowOperationLog;
+
 /**
  * Abstract Repository class where all repositories inherit from
  */
@@ -13,6 +31,16 @@ public abstract class Repository {
      */
     private static boolean isRepoLoad = false;
 
+    /**
+     * The report of the load running on this thread, which the CSV readers and parsers add to.
+     */
+    private static final ThreadLocal<RepositoryLoadReport> LOADING = new ThreadLocal<>();
+
+    /**
+     * Canonical values shared by the rows of the repositories being loaded, null outside a load.
+     */
+    private static volatile LoadDictionary dictionary;
+
     /**
      * Static method to load the repository data.
      * Calls the subclass-specific `loadData` implementation.
@@ -24,10 +52,148 @@ public abstract class Repository {
         if (repository == null) {
             throw new IllegalArgumentException("Repository instance cannot be null.");
         }
-        isRepoLoad = repository.loadFromCSV();
+        // Background saves must reach disk before the files are read back
+        PersistenceExecutor.awaitIdle(10_000);
+        String name = repository.getClass().getSimpleName();
+        RepositoryLoadReport report = new RepositoryLoadReport(name);
+        RepositoryLoadEvent event = new RepositoryLoadEvent();
+        event.begin();
+        long heapBefore = StartupReport.usedHeap();
+        long start = System.nanoTime();
+        LOADING.set(report);
+        boolean openedDictionary = openLoadDictionary();
+        try {
+            isRepoLoad = repository.loadFromCSV();
+        } finally {
+            LOADING.remove();
+            if (openedDictionary) {
+                releaseLoadDictionary();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long heapAfter = StartupReport.usedHeap();
+        report.finished(isRepoLoad, elapsed, heapAfter - heapBefore, StartupReport.MEASURE_AFTER_GC);
+        StartupReport.add(report);
+        Metrics.recordLoad(name, start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.repository = name;
+            event.rowsParsed = report.getRowsParsed();
+            event.parseFailures = report.getRowsRejected();
+            event.success = isRepoLoad;
+            event.commit();
+        }
         return isRepoLoad;
     }
 
+    /**
+     * Loads several repositories in order, sharing one {@link LoadDictionary} between
+     * them, so a value that appears in several files, such as the ID of a user, is
+     * one instance. The dictionary is released when the last repository has loaded.
+     *
+     * @param repositories the repositories to load, in the order they must be loaded
+     * @return true if every repository loaded successfully
+     */
+    public static boolean loadRepositories(Repository... repositories) {
+        boolean openedDictionary = openLoadDictionary();
+        try {
+            boolean loaded = true;
+            for (Repository repository : repositories) {
+                loaded &= loadRepository(repository);
+            }
+            return loaded;
+        } finally {
+            if (openedDictionary) {
+                releaseLoadDictionary();
+            }
+        }
+    }
+
+    /**
+     * Opens a CSV file for {@link #loadFromCSV()}. Lines read through the returned
+     * reader are counted in the startup report, and rejected rows are reported with
+     * their line number.
+     *
+     * @param filePath the file to read
+     * @return a reader over the file
+     * @throws IOException if the file cannot be opened
+     */
+    protected static BufferedReader openCSV(String filePath) throws IOException {
+        return new CSVReader(filePath, LOADING.get());
+    }
+
+    /**
+     * Counts a row read by {@link #loadFromCSV()} in the startup report.
+     *
+     * @param parsed whether the row was turned into a record, false if it was skipped
+     */
+    protected static void countRow(boolean parsed) {
+        RepositoryLoadReport report = LOADING.get();
+        if (report != null) {
+            report.countRow(parsed);
+        }
+    }
+
+    /**
+     * Notes why the row being read could not be parsed, for the startup report.
+     * The reason is reported if the row is then counted as skipped.
+     *
+     * @param reason why the row could not be parsed
+     */
+    protected static void parseFailed(String reason) {
+        RepositoryLoadReport report = LOADING.get();
+        if (report != null) {
+            report.parseFailed(reason);
+        }
+    }
+
+    /**
+     * Gets the instance of a value read from a CSV row that every row with the same
+     * value shares, for values that repeat across many rows such as IDs, roles and
+     * locations. See {@link LoadDictionary}.
+     *
+     * @param value the value read from the row
+     * @return an equal, shared value
+     */
+    protected static String canonical(String value) {
+        LoadDictionary current = dictionary;
+        return current == null ? value : current.string(value);
+    }
+
+    /**
+     * Parses a date and time read from a CSV row, sharing the instance with every
+     * other row that has the same one.
+     *
+     * @param text the date and time in ISO format
+     * @return the date and time
+     * @throws java.time.format.DateTimeParseException if the text is not a date and time
+     */
+    protected static LocalDateTime canonicalDateTime(String text) {
+        LoadDictionary current = dictionary;
+        return current == null ? LocalDateTime.parse(text) : current.dateTime(text);
+    }
+
+    /**
+     * Starts a dictionary for the load about to run, unless one is already open.
+     *
+     * @return true if this call opened the dictionary and must release it
+     */
+    private static synchronized boolean openLoadDictionary() {
+        if (!LoadDictionary.ENABLED || dictionary != null) {
+            return false;
+        }
+        dictionary = new LoadDictionary();
+        return true;
+    }
+
+    /**
+     * Drops the canonical values collected while loading. The loaded records keep
+     * sharing them; only the dictionary itself is freed.
+     */
+    private static synchronized void releaseLoadDictionary() {
+        dictionary = null;
+    }
+
     /**
      * Checks if the repository is loaded.
      *
@@ -45,4 +211,184 @@ public abstract class Repository {
      */
     public abstract boolean loadFromCSV();
 
+    /**
+     * Saves the rows of a CSV file and waits until they are on disk.
+     * The write goes through the {@link PersistenceExecutor} queue so that it is
+     * ordered after any asynchronous save of the same file that is still pending.
+     *
+     * @param filePath the file to write
+     * @param lines    the complete contents of the file, one row per element
+     * @return the result of the write
+     */
+    protected static SaveResult saveCSV(String filePath, List<String> lines) {
+        long start = System.nanoTime();
+        SaveResult result = PersistenceExecutor.submit(filePath, lines).join();
+        SlowOperationLog.persisted(start, result.getRowsWritten());
+        return result;
+    }
+
+    /**
+     * Saves the rows of a CSV file in the background.
+     * The rows must already be rendered, so the caller's maps can keep changing
+     * while the write is in progress.
+     *
+     * @param filePath the file to write
+     * @param lines    the complete contents of the file, one row per element
+     * @return a future completed with the result once the file is on disk
+     */
+    protected static CompletableFuture<SaveResult> saveCSVAsync(String filePath, List<String> lines) {
+        long start = System.nanoTime();
+        CompletableFuture<SaveResult> save = PersistenceExecutor.submit(filePath, lines);
+        SlowOperationLog.persisted(start, lines.size());
+        return save;
+    }
+
+    /**
+     * Appends rows to the end of a CSV file in the background, for files that only
+     * ever grow, such as archives. Appends are ordered with every other save.
+     *
+     * @param filePath the file to append to
+     * @param header   the header row, written first if the file is new or empty
+     * @param lines    the rows to append
+     * @return a future completed with the result once the rows are on disk
+     */
+    protected static CompletableFuture<SaveResult> appendCSVAsync(String filePath, String header, List<String> lines) {
+        long start = System.nanoTime();
+        CompletableFuture<SaveResult> append = PersistenceExecutor.submitAppend(filePath, header, lines);
+        SlowOperationLog.persisted(start, lines.size());
+        return append;
+    }
+
+    /**
+     * Combines the saves of several files into one future that completes when all of them have.
+     *
+     * @param saves the pending saves
+     * @return a future completed with the combined result
+     */
+    protected static CompletableFuture<SaveResult> combineSaves(List<CompletableFuture<SaveResult>> saves) {
+        return CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> SaveResult.combine(saves.stream().map(CompletableFuture::join).toList()));
+    }
+
+    /**
+     * Writes the rows of a CSV file on the calling thread, creating the directory if needed.
+     * Only the persistence writer thread should call this directly.
+     *
+     * @param filePath the file to write
+     * @param lines    the complete contents of the file, one row per element
+     * @return the result of the write
+     */
+    static SaveResult writeCSV(String filePath, List<String> lines) {
+        return writeLines(filePath, null, lines, false);
+    }
+
+    /**
+     * Appends rows to a CSV file on the calling thread, writing the header first if the
+     * file is new or empty. Only the persistence writer thread should call this directly.
+     *
+     * @param filePath the file to append to
+     * @param header   the header row of the file
+     * @param lines    the rows to append
+     * @return the result of the write
+     */
+    static SaveResult appendCSV(String filePath, String header, List<String> lines) {
+        File file = new File(filePath);
+        return writeLines(filePath, file.length() == 0 ? header : null, lines, true);
+    }
+
+    private static SaveResult writeLines(String filePath, String header, List<String> lines, boolean append) {
+        RepositorySaveEvent event = new RepositorySaveEvent();
+        event.begin();
+        SaveResult result = writeFile(filePath, header, lines, append);
+        String fileName = new File(filePath).getName();
+        Metrics.recordSave(fileName, result.isSuccess(), result.getRowsWritten(), result.getBytesWritten(),
+                result.getElapsedNanos());
+        SlowOperationLog.save(fileName, append, result.getRowsWritten(), result.getElapsedNanos());
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = fileName;
+            event.append = append;
+            event.rows = result.getRowsWritten();
+            event.bytes = result.getBytesWritten();
+            event.success = result.isSuccess();
+            event.error = result.getErrorMessage();
+            event.commit();
+        }
+        return result;
+    }
+
+    private static SaveResult writeFile(String filePath, String header, List<String> lines, boolean append) {
+        long start = System.nanoTime();
+        File directory = new File(filePath).getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            return SaveResult.failure(filePath, "Failed to create directory: " + directory.getAbsolutePath(),
+                    System.nanoTime() - start);
+        }
+
+        long bytes;
+        try (ByteCountingStream out = new ByteCountingStream(new FileOutputStream(filePath, append));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset()))) {
+            if (header != null) {
+                writer.write(header);
+                writer.newLine();
+            }
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            bytes = out.count;
+        } catch (IOException e) {
+            return SaveResult.failure(filePath, e.getMessage(), System.nanoTime() - start);
+        }
+        return SaveResult.success(filePath, lines.size() + (header != null ? 1 : 0), bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Output stream that counts the encoded bytes written to a file.
+     */
+    private static final class ByteCountingStream extends FilterOutputStream {
+        private long count;
+
+        private ByteCountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Reader of a CSV file that reports the lines it reads to the load in progress.
+     */
+    private static final class CSVReader extends BufferedReader {
+        private final RepositoryLoadReport report;
+
+        private CSVReader(String filePath, RepositoryLoadReport report) throws IOException {
+            super(new FileReader(filePath));
+            this.report = report;
+            if (report != null) {
+                File file = new File(filePath);
+                report.openedFile(file.getName(), file.length());
+            }
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            String line = super.readLine();
+            if (line != null && report != null) {
+                report.readLine();
+            }
+            return line;
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package repository;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for the load of a repository from its CSV files.
+ * Emitted by {@link Repository#loadRepository(Repository)}; see hms.jfc.
+ */
+@Name("hms.RepositoryLoad")
+@Label("Repository Load")
+@Category({"HMS", "Persistence"})
+@Description("Load of a repository from its CSV files")
+@StackTrace(false)
+final class RepositoryLoadEvent extends jdk.jfr.Event {
+    @Label("Repository")
+    String repository;
+
+    @Label("Rows Parsed")
+    long rowsParsed;
+
+    @Label("Parse Failures")
+    @Description("Rows that could not be turned into a record and were skipped")
+    long parseFailures;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,165 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Accounting of one repository load: how long it took, how many CSV rows were
+ * read, parsed and rejected, how much was read from disk and how much heap the
+ * loaded data takes. Collected by {@link Repository#loadRepository(Repository)}
+ * and gathered into the {@link StartupReport}.
+ */
+public class RepositoryLoadReport {
+    private static final int MAX_REJECTED_ROWS = Integer.getInteger("hms.startupReport.maxRejectedRows", 100);
+
+    /**
+     * A CSV row that could not be turned into a record and was skipped.
+     *
+     * @param file   the name of the file
+     * @param line   the line number in the file, starting at 1
+     * @param reason why the row was skipped
+     */
+    public record RejectedRow(String file, long line, String reason) {
+    }
+
+    private final String repository;
+    private final List<String> files = new ArrayList<>();
+    private final List<RejectedRow> rejectedRows = new ArrayList<>();
+    private boolean success;
+    private long elapsedNanos;
+    private long rowsRead;
+    private long rowsParsed;
+    private long rowsRejected;
+    private long bytesRead;
+    private long heapBytes;
+    private boolean heapMeasuredAfterGC;
+
+    // the file being read and the reason the current row failed to parse, while loading
+    private String currentFile;
+    private long currentLine;
+    private String pendingReason;
+
+    RepositoryLoadReport(String repository) {
+        this.repository = repository;
+    }
+
+    void openedFile(String fileName, long length) {
+        files.add(fileName);
+        currentFile = fileName;
+        currentLine = 0;
+        bytesRead += length;
+    }
+
+    void readLine() {
+        currentLine++;
+        rowsRead++;
+        pendingReason = null;
+    }
+
+    void parseFailed(String reason) {
+        pendingReason = reason;
+    }
+
+    void countRow(boolean parsed) {
+        if (parsed) {
+            rowsParsed++;
+            return;
+        }
+        rowsRejected++;
+        if (rejectedRows.size() < MAX_REJECTED_ROWS) {
+            rejectedRows.add(new RejectedRow(currentFile, currentLine,
+                    pendingReason != null ? pendingReason : "Row did not contain a valid record"));
+        }
+        pendingReason = null;
+    }
+
+    void finished(boolean success, long elapsedNanos, long heapBytes, boolean heapMeasuredAfterGC) {
+        this.success = success;
+        this.elapsedNanos = elapsedNanos;
+        this.heapBytes = heapBytes;
+        this.heapMeasuredAfterGC = heapMeasuredAfterGC;
+        currentFile = null;
+    }
+
+    /**
+     * @return the simple class name of the repository
+     */
+    public String getRepository() {
+        return repository;
+    }
+
+    /**
+     * @return the names of the files read, in the order they were opened
+     */
+    public List<String> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * @return whether loadFromCSV reported success
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * @return the time the load took, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the number of lines read, including header rows
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * @return the number of rows turned into records
+     */
+    public long getRowsParsed() {
+        return rowsParsed;
+    }
+
+    /**
+     * @return the number of rows skipped because they could not be parsed
+     */
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    /**
+     * Gets the rejected rows with their reasons. Only the first rows are kept, see
+     * -Dhms.startupReport.maxRejectedRows; {@link #getRowsRejected()} counts all of them.
+     *
+     * @return the rejected rows
+     */
+    public List<RejectedRow> getRejectedRows() {
+        return Collections.unmodifiableList(rejectedRows);
+    }
+
+    /**
+     * @return the size of the files read, in bytes
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the growth of the used heap over the load, in bytes
+     */
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    /**
+     * @return whether the heap was collected before measuring, so {@link #getHeapBytes()}
+     *         is what the loaded data retains rather than everything allocated while loading
+     */
+    public boolean isHeapMeasuredAfterGC() {
+        return heapMeasuredAfterGC;
+    }
+}
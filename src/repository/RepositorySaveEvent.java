@@ -0,0 +1,39 @@
+package repository;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for a write of a repository CSV file, on the
+ * persistence writer thread. See hms.jfc.
+ */
+@Name("hms.RepositorySave")
+@Label("Repository Save")
+@Category({"HMS", "Persistence"})
+@Description("Write of a repository CSV file")
+@StackTrace(false)
+final class RepositorySaveEvent extends jdk.jfr.Event {
+    @Label("File")
+    String file;
+
+    @Label("Append")
+    @Description("Whether rows were appended rather than the whole file rewritten")
+    boolean append;
+
+    @Label("Rows Written")
+    long rows;
+
+    @Label("Bytes Written")
+    @DataAmount(DataAmount.BYTES)
+    long bytes;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Error")
+    String error;
+}
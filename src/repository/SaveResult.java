@@ -0,0 +1,155 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of writing one or more repository files to disk.
+ * Returned by the synchronous write helpers and carried by the futures of the
+ * asynchronous save methods, so callers can tell whether their changes are durable.
+ */
+public class SaveResult {
+    private final List<String> fileNames;
+    private final boolean success;
+    private final int rowsWritten;
+    private final long bytesWritten;
+    private final long elapsedNanos;
+    private final String errorMessage;
+
+    /**
+     * Constructs a SaveResult with the specified details.
+     *
+     * @param fileNames    the files that were written
+     * @param success      whether every file was written
+     * @param rowsWritten  the number of CSV rows written, including headers
+     * @param bytesWritten the number of bytes written
+     * @param elapsedNanos the time spent writing, in nanoseconds
+     * @param errorMessage the reason for the failure, or null on success
+     */
+    private SaveResult(List<String> fileNames, boolean success, int rowsWritten, long bytesWritten,
+                       long elapsedNanos, String errorMessage) {
+        this.fileNames = Collections.unmodifiableList(fileNames);
+        this.success = success;
+        this.rowsWritten = rowsWritten;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Creates a result for a file that was written successfully.
+     *
+     * @param fileName     the file that was written
+     * @param rowsWritten  the number of CSV rows written
+     * @param bytesWritten the number of bytes written
+     * @param elapsedNanos the time spent writing, in nanoseconds
+     * @return the result
+     */
+    public static SaveResult success(String fileName, int rowsWritten, long bytesWritten, long elapsedNanos) {
+        return new SaveResult(List.of(fileName), true, rowsWritten, bytesWritten, elapsedNanos, null);
+    }
+
+    /**
+     * Creates a result for a file that could not be written.
+     *
+     * @param fileName     the file that failed
+     * @param errorMessage the reason for the failure
+     * @param elapsedNanos the time spent before the failure, in nanoseconds
+     * @return the result
+     */
+    public static SaveResult failure(String fileName, String errorMessage, long elapsedNanos) {
+        return new SaveResult(List.of(fileName), false, 0, 0, elapsedNanos, errorMessage);
+    }
+
+    /**
+     * Combines the results of several files saved together into one result that
+     * succeeds only if all of them succeeded.
+     *
+     * @param results the results to combine
+     * @return the combined result
+     */
+    public static SaveResult combine(List<SaveResult> results) {
+        List<String> fileNames = new ArrayList<>();
+        boolean success = true;
+        int rows = 0;
+        long bytes = 0;
+        long elapsed = 0;
+        StringBuilder errors = new StringBuilder();
+        for (SaveResult result : results) {
+            fileNames.addAll(result.fileNames);
+            success &= result.success;
+            rows += result.rowsWritten;
+            bytes += result.bytesWritten;
+            elapsed += result.elapsedNanos;
+            if (!result.success) {
+                if (!errors.isEmpty()) {
+                    errors.append("; ");
+                }
+                errors.append(result.errorMessage);
+            }
+        }
+        return new SaveResult(fileNames, success, rows, bytes, elapsed, success ? null : errors.toString());
+    }
+
+    /**
+     * Gets the names of the files covered by this result.
+     *
+     * @return the file names
+     */
+    public List<String> getFileNames() {
+        return fileNames;
+    }
+
+    /**
+     * Checks whether every file was written.
+     *
+     * @return true if the save succeeded
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Gets the number of CSV rows written, including headers.
+     *
+     * @return the number of rows written
+     */
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Gets the number of bytes written.
+     *
+     * @return the number of bytes written
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Gets the time spent writing.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the reason the save failed.
+     *
+     * @return the error message, or null if the save succeeded
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return success
+                ? String.format("Saved %s (%d rows, %d bytes)", fileNames, rowsWritten, bytesWritten)
+                : String.format("Failed to save %s: %s", fileNames, errorMessage);
+    }
+}
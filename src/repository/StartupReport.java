@@ -0,0 +1,168 @@
+package repository;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Report of where startup time goes: the {@link RepositoryLoadReport} of the last
+ * load of every repository, in the order they were loaded. Written as JSON to
+ * ./startup-report.json (or -Dhms.startupReport.file) once the system has loaded,
+ * and shown in the administrator menu.
+ *
+ * The heap each load adds is measured from the used heap before and after it.
+ * By default the figures include garbage left by parsing and can even be
+ * negative. Run with -Dhms.startupReport.gc=true to collect garbage before each
+ * measurement, so only what the loaded data retains is counted; the collections
+ * are not part of the load times, but make startup noticeably slower.
+ */
+public final class StartupReport {
+    private static final String FILE = System.getProperty("hms.startupReport.file", "startup-report.json");
+    static final boolean MEASURE_AFTER_GC = Boolean.parseBoolean(System.getProperty("hms.startupReport.gc", "false"));
+
+    // key value = repository class name
+    private static final Map<String, RepositoryLoadReport> LOADS = new LinkedHashMap<>();
+
+    private StartupReport() {
+    }
+
+    static synchronized void add(RepositoryLoadReport report) {
+        LOADS.remove(report.getRepository());
+        LOADS.put(report.getRepository(), report);
+    }
+
+    /**
+     * Gets the report of the last load of every repository, in the order they were loaded.
+     *
+     * @return the load reports
+     */
+    public static synchronized List<RepositoryLoadReport> getLoads() {
+        return new ArrayList<>(LOADS.values());
+    }
+
+    /**
+     * Gets the heap currently in use, collecting garbage first if -Dhms.startupReport.gc=true.
+     *
+     * @return the used heap, in bytes
+     */
+    static long usedHeap() {
+        if (MEASURE_AFTER_GC) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Writes the report to the startup report file.
+     *
+     * @return true if the file was written, false otherwise
+     */
+    public static boolean writeFile() {
+        try {
+            Files.writeString(Paths.get(FILE), toJson(), StandardCharsets.UTF_8);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error writing startup report: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return the path of the startup report file
+     */
+    public static Path getFile() {
+        return Paths.get(FILE).toAbsolutePath();
+    }
+
+    /**
+     * Renders the report as JSON.
+     *
+     * @return the JSON text
+     */
+    public static String toJson() {
+        List<RepositoryLoadReport> loads = getLoads();
+        long totalNanos = 0;
+        for (RepositoryLoadReport load : loads) {
+            totalNanos += load.getElapsedNanos();
+        }
+
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n");
+        json.append("  \"generatedAt\": ").append(quote(LocalDateTime.now().toString())).append(",\n");
+        json.append("  \"totalElapsedMillis\": ").append(millis(totalNanos)).append(",\n");
+        json.append("  \"heapUsedBytes\": ")
+                .append(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed()).append(",\n");
+        json.append("  \"heapMeasuredAfterGC\": ").append(MEASURE_AFTER_GC).append(",\n");
+        json.append("  \"repositories\": [");
+        for (int i = 0; i < loads.size(); i++) {
+            RepositoryLoadReport load = loads.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\n");
+            json.append("      \"repository\": ").append(quote(load.getRepository())).append(",\n");
+            json.append("      \"success\": ").append(load.isSuccess()).append(",\n");
+            json.append("      \"elapsedMillis\": ").append(millis(load.getElapsedNanos())).append(",\n");
+            json.append("      \"files\": [");
+            for (int f = 0; f < load.getFiles().size(); f++) {
+                json.append(f == 0 ? "" : ", ").append(quote(load.getFiles().get(f)));
+            }
+            json.append("],\n");
+            json.append("      \"rowsRead\": ").append(load.getRowsRead()).append(",\n");
+            json.append("      \"rowsParsed\": ").append(load.getRowsParsed()).append(",\n");
+            json.append("      \"rowsRejected\": ").append(load.getRowsRejected()).append(",\n");
+            json.append("      \"bytesRead\": ").append(load.getBytesRead()).append(",\n");
+            json.append("      \"heapBytes\": ").append(load.getHeapBytes()).append(",\n");
+            json.append("      \"rejectedRows\": [");
+            List<RepositoryLoadReport.RejectedRow> rejected = load.getRejectedRows();
+            for (int r = 0; r < rejected.size(); r++) {
+                RepositoryLoadReport.RejectedRow row = rejected.get(r);
+                json.append(r == 0 ? "\n" : ",\n");
+                json.append("        {\"file\": ").append(quote(row.file()))
+                        .append(", \"line\": ").append(row.line())
+                        .append(", \"reason\": ").append(quote(row.reason())).append('}');
+            }
+            json.append(rejected.isEmpty() ? "]\n" : "\n      ]\n");
+            json.append("    }");
+        }
+        json.append(loads.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -3,14 +3,14 @@ package repository;
 import model.Treatment;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository class for managing Treatment data, including loading and saving
@@ -55,31 +55,29 @@ public class TreatmentRepository extends Repository {
                                                HashMap<String, Treatment> diagnosisTreatmentPlansMap) {
         String filePath = "./src/repository/" + folder + "/" + fileName;
 
-        // Ensure the directory exists
-        File directory = new File("./src/repository/" + folder);
-        if (!directory.exists()) {
-            boolean dirsCreated = directory.mkdirs(); // Create the directory if it doesn't exist
-            if (!dirsCreated) {
-                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
-                return; // Exit if directory creation fails
-            }
+        SaveResult result = saveCSV(filePath, treatmentPlansToCSVLines(diagnosisTreatmentPlansMap));
+        if (!result.isSuccess()) {
+            System.out.println("Error saving treatment plans to CSV: " + result.getErrorMessage());
         }
+    }
 
+    /**
+     * Renders the treatment plans as CSV rows, writing each treatment once.
+     *
+     * @param diagnosisTreatmentPlansMap the map of treatment plans to render
+     * @return the rows of the file
+     */
+    private static List<String> treatmentPlansToCSVLines(HashMap<String, Treatment> diagnosisTreatmentPlansMap) {
+        List<String> lines = new ArrayList<>();
         // Use a HashSet to track unique treatments
         HashSet<Treatment> uniqueTreatments = new HashSet<>();
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (String diagnosisID : diagnosisTreatmentPlansMap.keySet()) {
-                Treatment treatmentPlan = diagnosisTreatmentPlansMap.get(diagnosisID);
-                if (treatmentPlan != null && uniqueTreatments.add(treatmentPlan)) {
-                    // Add the treatment to the HashSet and write it to the file if unique
-                    writer.write(treatmentPlanToCSV(diagnosisID, treatmentPlan));
-                    writer.newLine();
-                }
+        for (String diagnosisID : diagnosisTreatmentPlansMap.keySet()) {
+            Treatment treatmentPlan = diagnosisTreatmentPlansMap.get(diagnosisID);
+            if (treatmentPlan != null && uniqueTreatments.add(treatmentPlan)) {
+                lines.add(treatmentPlanToCSV(diagnosisID, treatmentPlan));
             }
-        } catch (IOException e) {
-            System.out.println("Error saving treatment plans to CSV: " + e.getMessage());
         }
+        return lines;
     }
 
     /**
@@ -92,6 +90,16 @@ public class TreatmentRepository extends Repository {
         return true;
     }
 
+    /**
+     * Saves all treatment plans to the CSV file in the background.
+     *
+     * @return a future completed once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> saveAlltoCSVAsync() {
+        return saveCSVAsync("./src/repository/" + folder + "/" + fileName,
+                treatmentPlansToCSVLines(diagnosisToTreatmentPlansMap));
+    }
+
     /**
      * Converts a Treatment object to a CSV-formatted string.
      *
@@ -144,11 +152,12 @@ public class TreatmentRepository extends Repository {
             }
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openCSV(filePath)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 Treatment treatmentPlan = csvToTreatmentPlan(line);
                 String diagnosisID = getDiagnosisIDFromCSV(line);
+                countRow(diagnosisID != null);
                 if (diagnosisID != null) {
                     diagnosisTreatmentPlansMap.put(diagnosisID, treatmentPlan);
                 }
@@ -184,6 +193,7 @@ public class TreatmentRepository extends Repository {
                     fields[2].replace("\"", "") // Treatment description
             );
         } catch (Exception e) {
+            parseFailed(e.getMessage());
             System.out.println("Error parsing treatment plan data: " + e.getMessage());
         }
         return null;
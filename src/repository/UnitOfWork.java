@@ -0,0 +1,289 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import model.AppointmentOutcomeRecord;
+import model.Diagnosis;
+import model.PaymentRecord;
+import model.PrescribedMedication;
+import model.Prescription;
+
+/**
+ * Unit of work spanning several repositories.
+ * Changes are buffered as apply/undo pairs and nothing touches the in-memory
+ * repositories until {@link #commit()}. Commit applies every change in order while
+ * holding a single lock; if any change fails, the ones already applied are undone in
+ * reverse order so the repositories are left exactly as they were. Only after every
+ * change has been applied are the affected CSV files written, each one once, however
+ * many changes touched it.
+ * Applying the changes and writing the files are separate phases: {@link #apply()}
+ * changes the repositories and only starts the writes, so a caller that must not
+ * wait on the disk, such as a doctor's calendar mailbox, can wait for the files
+ * elsewhere. The files are not written atomically with the changes: if a write
+ * fails the changes stay applied in memory, because later changes may already
+ * depend on them, and they are written again by the next save of that file.
+ */
+public class UnitOfWork {
+    /**
+     * Lock shared by all units of work so that two commits never interleave.
+     */
+    private static final Object COMMIT_LOCK = new Object();
+
+    /**
+     * The repository files a change can mark as dirty, in the order they are written on commit.
+     */
+    public enum PersistTarget {
+        PRESCRIBED_MEDICATIONS,
+        PRESCRIPTIONS,
+        DIAGNOSES,
+        APPOINTMENT_OUTCOMES,
+        RECORDS,
+        MEDICINES,
+        USERS;
+
+        /**
+         * Starts writing the repository file(s) behind this target. The rows are taken
+         * when this is called, so the file reflects the repositories at that moment.
+         *
+         * @return a future completed with the result once the file(s) are on disk
+         */
+        private CompletableFuture<SaveResult> save() {
+            return switch (this) {
+                case PRESCRIBED_MEDICATIONS -> PrescribedMedicationRepository.saveAlltoCSVAsync();
+                case PRESCRIPTIONS -> PrescriptionRepository.saveAlltoCSVAsync();
+                case DIAGNOSES -> DiagnosisRepository.saveAlltoCSVAsync();
+                case APPOINTMENT_OUTCOMES -> AppointmentOutcomeRecordRepository.saveAppointmentOutcomeRecordRepositoryAsync();
+                case RECORDS -> RecordsRepository.saveAllRecordFilesAsync();
+                case MEDICINES -> MedicineRepository.saveAllMedicinesToCSVAsync();
+                case USERS -> UserRepository.saveAllPersonnelFilesAsync();
+            };
+        }
+    }
+
+    /**
+     * A single buffered change and the action that reverses it.
+     */
+    private record Change(Runnable apply, Runnable undo, PersistTarget target) {
+    }
+
+    private final List<Change> changes = new ArrayList<>();
+    private boolean committed = false;
+    private boolean applied = false;
+
+    /**
+     * Buffers a change to be applied on commit.
+     *
+     * @param apply  applies the change to the in-memory repositories; may throw to abort the commit
+     * @param undo   reverses the change if a later change fails
+     * @param target the repository file the change makes dirty
+     * @return this unit of work, for chaining
+     */
+    public UnitOfWork register(Runnable apply, Runnable undo, PersistTarget target) {
+        if (committed) {
+            throw new IllegalStateException("Unit of work has already been committed.");
+        }
+        changes.add(new Change(apply, undo, target));
+        return this;
+    }
+
+    /**
+     * Buffers a property update. The previous value is captured when the change is
+     * applied and restored if the commit is rolled back.
+     *
+     * @param getter reads the current value
+     * @param setter writes a value
+     * @param value  the new value
+     * @param target the repository file the change makes dirty
+     * @param <T>    the type of the property
+     * @return this unit of work, for chaining
+     */
+    public <T> UnitOfWork set(Supplier<T> getter, Consumer<T> setter, T value, PersistTarget target) {
+        List<T> previous = new ArrayList<>(1);
+        return register(() -> {
+            previous.add(getter.get());
+            setter.accept(value);
+        }, () -> setter.accept(previous.get(0)), target);
+    }
+
+    /**
+     * Buffers adding a prescribed medication under a diagnosis.
+     *
+     * @param diagnosisID the diagnosis the medication belongs to
+     * @param medication  the medication to add
+     * @return this unit of work, for chaining
+     */
+    public UnitOfWork addPrescribedMedication(String diagnosisID, PrescribedMedication medication) {
+        return register(() -> PrescribedMedicationRepository.addMedication(diagnosisID, medication),
+                () -> removeFromList(PrescribedMedicationRepository.diagnosisToMedicationsMap.get(diagnosisID),
+                        medication, () -> PrescribedMedicationRepository.diagnosisToMedicationsMap.remove(diagnosisID)),
+                PersistTarget.PRESCRIBED_MEDICATIONS);
+    }
+
+    /**
+     * Buffers adding a prescription, keyed by its diagnosis ID.
+     *
+     * @param prescription the prescription to add
+     * @return this unit of work, for chaining
+     */
+    public UnitOfWork addPrescription(Prescription prescription) {
+        List<Prescription> previous = new ArrayList<>(1);
+        return register(() -> previous.add(
+                        PrescriptionRepository.PRESCRIPTION_MAP.put(prescription.getDiagnosisID(), prescription)),
+                () -> restore(PrescriptionRepository.PRESCRIPTION_MAP, prescription.getDiagnosisID(), previous.get(0)),
+                PersistTarget.PRESCRIPTIONS);
+    }
+
+    /**
+     * Buffers adding a diagnosis under the given key.
+     *
+     * @param key       the key the diagnosis is stored under
+     * @param diagnosis the diagnosis to add
+     * @return this unit of work, for chaining
+     */
+    public UnitOfWork addDiagnosis(String key, Diagnosis diagnosis) {
+        return register(() -> DiagnosisRepository.addDiagnosis(key, diagnosis),
+                () -> removeFromList(DiagnosisRepository.patientDiagnosisRecords.get(key), diagnosis,
+                        () -> DiagnosisRepository.patientDiagnosisRecords.remove(key)),
+                PersistTarget.DIAGNOSES);
+    }
+
+    /**
+     * Buffers adding an appointment outcome record for a patient.
+     *
+     * @param patientID the patient the outcome record belongs to
+     * @param record    the outcome record to add
+     * @return this unit of work, for chaining
+     */
+    public UnitOfWork addAppointmentOutcomeRecord(String patientID, AppointmentOutcomeRecord record) {
+        return register(() -> AppointmentOutcomeRecordRepository.addAppointmentOutcomeRecordIntoHashMapValue(patientID, record),
+                () -> removeFromList(AppointmentOutcomeRecordRepository.patientOutcomeRecords.get(patientID), record,
+                        () -> AppointmentOutcomeRecordRepository.patientOutcomeRecords.remove(patientID)),
+                PersistTarget.APPOINTMENT_OUTCOMES);
+    }
+
+    /**
+     * Buffers adding a payment record under the given key.
+     *
+     * @param key    the key the payment record is stored under
+     * @param record the payment record to add
+     * @return this unit of work, for chaining
+     */
+    public UnitOfWork addPaymentRecord(String key, PaymentRecord record) {
+        List<PaymentRecord> previous = new ArrayList<>(1);
+        return register(() -> previous.add(RecordsRepository.PAYMENT_RECORDS.put(key, record)),
+                () -> restore(RecordsRepository.PAYMENT_RECORDS, key, previous.get(0)),
+                PersistTarget.RECORDS);
+    }
+
+    /**
+     * Marks a repository file as dirty without changing anything in memory, for changes
+     * that were made to objects already held by the repository.
+     *
+     * @param target the repository file to write on commit
+     * @return this unit of work, for chaining
+     */
+    public UnitOfWork touch(PersistTarget target) {
+        return register(() -> { }, () -> { }, target);
+    }
+
+    /**
+     * Applies every buffered change and then writes each dirty repository file once.
+     * If any change throws, the changes already applied are undone in reverse order
+     * and nothing is written. If a file cannot be written the changes stay applied in
+     * memory, a warning is printed and they are written again by the next save.
+     *
+     * @return true if the changes were applied and persisted; false if the unit of work was rolled back
+     *         or a file could not be written
+     */
+    public boolean commit() {
+        return apply().join();
+    }
+
+    /**
+     * Applies every buffered change and starts writing each dirty repository file once,
+     * without waiting for the files. If any change throws, the changes already applied
+     * are undone in reverse order and nothing is written. If a file cannot be written
+     * the changes stay applied in memory, a warning is printed and they are written
+     * again by the next save; {@link #isApplied()} tells the two failures apart.
+     *
+     * @return a future completed with true once the changes are applied and persisted, or with false if
+     *         the unit of work was rolled back or a file could not be written
+     */
+    public CompletableFuture<Boolean> apply() {
+        if (committed) {
+            throw new IllegalStateException("Unit of work has already been committed.");
+        }
+        committed = true;
+
+        EnumSet<PersistTarget> dirty = EnumSet.noneOf(PersistTarget.class);
+        List<CompletableFuture<SaveResult>> saves = new ArrayList<>();
+        synchronized (COMMIT_LOCK) {
+            int applied = 0;
+            try {
+                for (Change change : changes) {
+                    change.apply().run();
+                    dirty.add(change.target());
+                    applied++;
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Error committing changes, rolling back: " + e.getMessage());
+                for (int i = applied - 1; i >= 0; i--) {
+                    changes.get(i).undo().run();
+                }
+                return CompletableFuture.completedFuture(false);
+            }
+            this.applied = true;
+
+            // EnumSet iterates in declaration order, so files are always written in the same order
+            for (PersistTarget target : dirty) {
+                saves.add(target.save());
+            }
+        }
+        // waited on outside the lock, the rows were already taken while it was held
+        return Repository.combineSaves(saves).thenApply(result -> {
+            PersistenceExecutor.reportFailure(result);
+            return result.isSuccess();
+        });
+    }
+
+    /**
+     * Tells whether the changes were applied to the in-memory repositories, whether or
+     * not their files could be written.
+     *
+     * @return true if the unit of work was committed without being rolled back
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    /**
+     * Removes an element by identity from a repository list, dropping the list's key
+     * when it becomes empty.
+     */
+    private static <T> void removeFromList(List<T> list, T element, Runnable removeKey) {
+        if (list == null) {
+            return;
+        }
+        list.removeIf(existing -> existing == element);
+        if (list.isEmpty()) {
+            removeKey.run();
+        }
+    }
+
+    /**
+     * Puts back the value a key held before a change, or removes the key if it was absent.
+     */
+    private static <T> void restore(Map<String, T> map, String key, T previous) {
+        if (previous == null) {
+            map.remove(key);
+        } else {
+            map.put(key, previous);
+        }
+    }
+}
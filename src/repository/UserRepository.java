@@ -2,14 +2,14 @@
 package repository;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import model.*;
 /**
@@ -45,6 +45,21 @@ public class UserRepository extends Repository {
         savePersonnelToCSV(adminsFileName, ADMINS);
     }
 
+    /**
+     * Saves all personnel records to their respective CSV files in the background.
+     * The rows are captured before this method returns, so later changes are not
+     * mixed into this save.
+     *
+     * @return a future completed once all four files are on disk
+     */
+    public static CompletableFuture<SaveResult> saveAllPersonnelFilesAsync() {
+        return combineSaves(List.of(
+                saveCSVAsync(getFilePath(doctorsFileName), personnelToCSVLines(doctorsFileName, DOCTORS)),
+                saveCSVAsync(getFilePath(patientsFileName), personnelToCSVLines(patientsFileName, PATIENTS)),
+                saveCSVAsync(getFilePath(pharmacistsFileName), personnelToCSVLines(pharmacistsFileName, PHARMACISTS)),
+                saveCSVAsync(getFilePath(adminsFileName), personnelToCSVLines(adminsFileName, ADMINS))));
+    }
+
     /**
      * Loads all personnel records from their respective CSV files and sets the repository as loaded.
      *
@@ -73,18 +88,37 @@ public class UserRepository extends Repository {
      * @param <T>          a type parameter extending User
      */
     private static <T extends User> void savePersonnelToCSV(String fileName, HashMap<String, T> personnelMap) {
-        String filePath = "./src/repository/" + folder + "/" + fileName;
+        SaveResult result = saveCSV(getFilePath(fileName), personnelToCSVLines(fileName, personnelMap));
+        if (!result.isSuccess()) {
+            System.out.println("Error saving personnel data: " + result.getErrorMessage());
+        }
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            writer.write(getCsvHeader(fileName));
-            writer.newLine();
-            for (T personnel : personnelMap.values()) {
-                writer.write(personnelToCSV(personnel));
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            System.out.println("Error saving personnel data: " + e.getMessage());
+    /**
+     * Renders a personnel map as CSV rows, header first.
+     *
+     * @param fileName     the name of the file the rows are for
+     * @param personnelMap the map of personnel records to render
+     * @param <T>          a type parameter extending User
+     * @return the rows of the file
+     */
+    private static <T extends User> List<String> personnelToCSVLines(String fileName, HashMap<String, T> personnelMap) {
+        List<String> lines = new ArrayList<>(personnelMap.size() + 1);
+        lines.add(getCsvHeader(fileName));
+        for (T personnel : personnelMap.values()) {
+            lines.add(personnelToCSV(personnel));
         }
+        return lines;
+    }
+
+    /**
+     * Returns the path of a file in the personnel data folder.
+     *
+     * @param fileName the name of the file
+     * @return the file path
+     */
+    private static String getFilePath(String fileName) {
+        return "./src/repository/" + folder + "/" + fileName;
     }
 
     /**
@@ -181,7 +215,7 @@ public class UserRepository extends Repository {
             }
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        try (BufferedReader reader = openCSV(filePath)) {
             String line;
             boolean isFirstLine = true; // To skip the header row
 
@@ -192,6 +226,7 @@ public class UserRepository extends Repository {
                 }
 
                 T personnel = csvToPersonnel(line, type);
+                countRow(personnel != null);
                 if (personnel != null) {
                     personnelMap.put(personnel.getUID(), personnel);
                 } else {
@@ -218,59 +253,60 @@ public class UserRepository extends Repository {
         try {
             if (type == Doctor.class) {
                 return type.cast(new Doctor(
-                        fields[0], // UID
+                        canonical(fields[0]), // UID
                         fields[1], // fullName
                         fields[2], // username
                         fields[3], // email
                         fields[4], // phoneNo
                         fields[5], // passwordHash
-                        LocalDateTime.parse(fields[6]), // DoB (LocalDateTime)
-                        fields[7], // gender
-                        fields[8], // role (e.g., Doctor)
-                        LocalDateTime.parse(fields[9]) // dateJoin (LocalDateTime)
+                        canonicalDateTime(fields[6]), // DoB (LocalDateTime)
+                        canonical(fields[7]), // gender
+                        canonical(fields[8]), // role (e.g., Doctor)
+                        canonicalDateTime(fields[9]) // dateJoin (LocalDateTime)
                 ));
             } else if (type == Patient.class) {
                 return type.cast(new Patient(
-                        fields[0], // UID
+                        canonical(fields[0]), // UID
                         fields[1], // fullName
                         fields[2], // username
                         fields[3], // email
                         fields[4], // phoneNo
                         fields[5], // passwordHash
-                        LocalDateTime.parse(fields[6]), // DoB (LocalDateTime)
-                        fields[7], // gender
-                        fields[8], // role (e.g., Patient)
-                        fields[9], // allergies
-                        LocalDateTime.parse(fields[10]) // dateOfAdmission (LocalDateTime)
+                        canonicalDateTime(fields[6]), // DoB (LocalDateTime)
+                        canonical(fields[7]), // gender
+                        canonical(fields[8]), // role (e.g., Patient)
+                        canonical(fields[9]), // allergies
+                        canonicalDateTime(fields[10]) // dateOfAdmission (LocalDateTime)
                 ));
             } else if (type == Pharmacist.class) {
                 return type.cast(new Pharmacist(
-                        fields[0], // UID
+                        canonical(fields[0]), // UID
                         fields[1], // fullName
                         fields[2], // username
                         fields[3], // email
                         fields[4], // phoneNo
                         fields[5], // passwordHash
-                        LocalDateTime.parse(fields[6]), // DoB (LocalDateTime)
-                        fields[7], // gender
-                        fields[8], // role (e.g., Pharmacist)
-                        LocalDateTime.parse(fields[9]) // dateOfEmployment (LocalDateTime)
+                        canonicalDateTime(fields[6]), // DoB (LocalDateTime)
+                        canonical(fields[7]), // gender
+                        canonical(fields[8]), // role (e.g., Pharmacist)
+                        canonicalDateTime(fields[9]) // dateOfEmployment (LocalDateTime)
                 ));
             } else if (type == Administrator.class) {
                 return type.cast(new Administrator(
-                        fields[0], // UID
+                        canonical(fields[0]), // UID
                         fields[1], // fullName
                         fields[2], // username
                         fields[3], // email
                         fields[4], // phoneNo
                         fields[5], // passwordHash
-                        LocalDateTime.parse(fields[6]), // DoB (LocalDateTime)
-                        fields[7], // gender
-                        fields[8], // role (e.g., Administrator)
-                        LocalDateTime.parse(fields[9]) // dateOfCreation (LocalDateTime)
+                        canonicalDateTime(fields[6]), // DoB (LocalDateTime)
+                        canonical(fields[7]), // gender
+                        canonical(fields[8]), // role (e.g., Administrator)
+                        canonicalDateTime(fields[9]) // dateOfCreation (LocalDateTime)
                 ));
             }
         } catch (Exception e) {
+            parseFailed(e.getMessage());
             System.out.println("Error parsing personnel data: " + e.getMessage());
         }
 
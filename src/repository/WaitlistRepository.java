@@ -0,0 +1,205 @@
+package repository;
+
+import enums.WaitlistUrgency;
+import model.WaitlistEntry;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository class for managing waitlist entries, including loading and saving
+ * them to a CSV file. Each key is a waitlist ID and the value is the patient's
+ * request to be given the next slot that frees up with a doctor on a given day.
+ */
+public class WaitlistRepository extends Repository {
+    /**
+     * Directory for storing the waitlist CSV file.
+     */
+    private static final String folder = "data";
+    private static final String fileName = "waitlist.csv";
+    private static final String header = "Waitlist ID,Patient ID,Doctor ID,Preferred Date,Urgency,Requested At";
+    private static boolean isRepoLoaded = false;
+    /**
+     * Incremented every time the waitlist is (re)loaded from disk, so the queues
+     * built from the entries can tell that they have been replaced.
+     */
+    private static volatile int loadGeneration = 0;
+
+    // Static data collection for waitlist entries (key: waitlistID)
+    public static ConcurrentHashMap<String, WaitlistEntry> WAITLIST_ENTRIES = new ConcurrentHashMap<>();
+
+    /**
+     * Specific loading logic for the waitlist from CSV.
+     *
+     * @return boolean indicating success or failure of the load operation
+     */
+    @Override
+    public boolean loadFromCSV() {
+        try {
+            WAITLIST_ENTRIES.clear();
+            loadWaitlistFromCSV(fileName, WAITLIST_ENTRIES);
+            loadGeneration++;
+            setRepoLoaded(true);
+            return true;
+        } catch (Exception e) {
+            System.out.println("Error loading waitlist repository: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves all waitlist entries to the CSV file.
+     *
+     * @return true if the save operation is successful
+     */
+    public static boolean saveAlltoCSV() {
+        SaveResult result = saveCSV(getFilePath(), waitlistToCSVLines(WAITLIST_ENTRIES));
+        if (!result.isSuccess()) {
+            System.out.println("Error saving waitlist to CSV: " + result.getErrorMessage());
+        }
+        return result.isSuccess();
+    }
+
+    /**
+     * Saves all waitlist entries to the CSV file in the background.
+     *
+     * @return a future completed once the file is on disk
+     */
+    public static CompletableFuture<SaveResult> saveAlltoCSVAsync() {
+        return saveCSVAsync(getFilePath(), waitlistToCSVLines(WAITLIST_ENTRIES));
+    }
+
+    /**
+     * Gets the number of times the waitlist has been loaded from disk.
+     *
+     * @return the current load generation
+     */
+    public static int getLoadGeneration() {
+        return loadGeneration;
+    }
+
+    /**
+     * Renders the waitlist entries as CSV rows, header first.
+     *
+     * @param entries the entries to render
+     * @return the rows of the file
+     */
+    private static List<String> waitlistToCSVLines(Map<String, WaitlistEntry> entries) {
+        List<String> lines = new ArrayList<>(entries.size() + 1);
+        lines.add(header);
+        for (WaitlistEntry entry : entries.values()) {
+            lines.add(String.join(",",
+                    entry.getWaitlistID(),
+                    entry.getPatientID(),
+                    entry.getDoctorID(),
+                    entry.getPreferredDate().toString(),
+                    entry.getUrgency().toString(),
+                    entry.getRequestedAt().toString()));
+        }
+        return lines;
+    }
+
+    /**
+     * Loads waitlist entries from the specified CSV file, creating an empty file
+     * if not found.
+     *
+     * @param fileName the name of the CSV file to load from
+     * @param entries  the map to store the loaded entries
+     */
+    private static void loadWaitlistFromCSV(String fileName, Map<String, WaitlistEntry> entries) {
+        String filePath = "./src/repository/" + folder + "/" + fileName;
+
+        // Ensure the directory exists
+        File directory = new File("./src/repository/" + folder);
+        if (!directory.exists()) {
+            boolean dirsCreated = directory.mkdirs(); // Create the directory if it doesn't exist
+            if (!dirsCreated) {
+                System.out.println("Error: Failed to create directory: " + directory.getAbsolutePath());
+                return; // Exit if directory creation fails
+            }
+        }
+
+        File file = new File(filePath);
+
+        if (!file.exists()) {
+            try {
+                boolean fileCreated = file.createNewFile(); // Create an empty file if it doesn't exist
+                if (fileCreated) {
+                    System.out.println("Created empty file: " + filePath);
+                }
+            } catch (IOException e) {
+                System.out.println("Error creating file: " + e.getMessage());
+            }
+            return; // No data to load, as the file was just created
+        }
+
+        try (BufferedReader reader = openCSV(filePath)) {
+            String line;
+            boolean isFirstLine = true; // To skip the header row
+            while ((line = reader.readLine()) != null) {
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
+                WaitlistEntry entry = csvToWaitlistEntry(line);
+                countRow(entry != null);
+                if (entry != null) {
+                    entries.put(entry.getWaitlistID(), entry);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading waitlist data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts a CSV-formatted string to a WaitlistEntry object.
+     *
+     * @param csv the CSV string representing the entry
+     * @return a WaitlistEntry object, or null if parsing fails
+     */
+    private static WaitlistEntry csvToWaitlistEntry(String csv) {
+        String[] fields = csv.split(",");
+        try {
+            WaitlistUrgency urgency = WaitlistUrgency.toEnumWaitlistUrgency(fields[4]);
+            if (urgency == null) {
+                System.out.println("Error parsing waitlist data: unknown urgency " + fields[4]);
+                parseFailed("unknown urgency " + fields[4]);
+                return null;
+            }
+            return new WaitlistEntry(
+                    fields[0], // waitlistID
+                    fields[1], // patientID
+                    fields[2], // doctorID
+                    LocalDate.parse(fields[3]), // preferred date
+                    urgency,
+                    LocalDateTime.parse(fields[5]) // requested at
+            );
+        } catch (Exception e) {
+            System.out.println("Error parsing waitlist data: " + e.getMessage());
+            parseFailed(e.getMessage());
+        }
+        return null;
+    }
+
+    private static String getFilePath() {
+        return "./src/repository/" + folder + "/" + fileName;
+    }
+
+    /**
+     * Sets the repository load status.
+     *
+     * @param isRepoLoaded true to set the repository as loaded, false otherwise
+     */
+    public static void setRepoLoaded(boolean isRepoLoaded) {
+        WaitlistRepository.isRepoLoaded = isRepoLoaded;
+    }
+}
@@ -0,0 +1,223 @@
+package utility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Balanced interval tree over half-open time ranges [start, end).
+ * Intervals are ordered by start and then by a key that identifies them, and every
+ * node also stores the largest end in its subtree, so an overlap with any stored
+ * interval can be found in O(log n). The tree is an AVL tree; it is not thread-safe.
+ *
+ * @param <T> the type of the value attached to each interval
+ */
+public class IntervalTree<T> {
+    private Node<T> root;
+    private int size;
+
+    private static final class Node<T> {
+        private final long start;
+        private final String key;
+        private long end;
+        private T value;
+        private long maxEnd;
+        private int height = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(long start, long end, String key, T value) {
+            this.start = start;
+            this.end = end;
+            this.key = key;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    /**
+     * Adds an interval, or replaces the end and value of the interval with the same
+     * start and key.
+     *
+     * @param start the start of the interval, inclusive
+     * @param end   the end of the interval, exclusive
+     * @param key   the key that tells intervals with the same start apart
+     * @param value the value attached to the interval
+     */
+    public void insert(long start, long end, String key, T value) {
+        root = insert(root, start, end, key, value);
+    }
+
+    /**
+     * Removes the interval with the given start and key.
+     *
+     * @param start the start of the interval
+     * @param key   the key of the interval
+     */
+    public void remove(long start, String key) {
+        root = remove(root, start, key);
+    }
+
+    /**
+     * Finds one stored interval that overlaps [start, end).
+     *
+     * @param start the start of the range, inclusive
+     * @param end   the end of the range, exclusive
+     * @return the value of an overlapping interval, or null if there is none
+     */
+    public T findAnyOverlap(long start, long end) {
+        Node<T> node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) {
+                return node.value;
+            }
+            // if the left subtree reaches past start but holds no overlap, nothing to the right can overlap either
+            node = node.left != null && node.left.maxEnd > start ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Finds every stored interval that overlaps [start, end).
+     *
+     * @param start the start of the range, inclusive
+     * @param end   the end of the range, exclusive
+     * @return the values of the overlapping intervals, ordered by start
+     */
+    public List<T> findOverlaps(long start, long end) {
+        List<T> overlaps = new ArrayList<>();
+        collectOverlaps(root, start, end, overlaps);
+        return overlaps;
+    }
+
+    /**
+     * Gets the number of intervals in the tree.
+     *
+     * @return the number of intervals
+     */
+    public int size() {
+        return size;
+    }
+
+    private void collectOverlaps(Node<T> node, long start, long end, List<T> overlaps) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collectOverlaps(node.left, start, end, overlaps);
+        if (node.start < end) {
+            if (start < node.end) {
+                overlaps.add(node.value);
+            }
+            collectOverlaps(node.right, start, end, overlaps);
+        }
+    }
+
+    private Node<T> insert(Node<T> node, long start, long end, String key, T value) {
+        if (node == null) {
+            size++;
+            return new Node<>(start, end, key, value);
+        }
+        int cmp = compare(start, key, node);
+        if (cmp < 0) {
+            node.left = insert(node.left, start, end, key, value);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, start, end, key, value);
+        } else {
+            node.end = end;
+            node.value = value;
+        }
+        return balance(node);
+    }
+
+    private Node<T> remove(Node<T> node, long start, String key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, key, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, key);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, key);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node<T> removeMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(long start, String key, Node<?> node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : key.compareTo(node.key);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static <T> Node<T> balance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
@@ -0,0 +1,514 @@
+package utility;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of the application's metrics: counters and latency histograms, kept
+ * in memory and written to a file in the Prometheus text format for a local
+ * agent to scrape (for example the node_exporter textfile collector).
+ * The file is ./metrics/hms.prom unless -Dhms.metrics.file says otherwise, and
+ * is rewritten every -Dhms.metrics.intervalSeconds (15 by default) once
+ * {@link #start()} is called.
+ *
+ * Recording never allocates: counters are {@link LongAdder}s and histograms have
+ * a fixed array of log-linear buckets, like HdrHistogram, with 16 buckets per
+ * power of two, so quantiles are within about 6% of the true value.
+ * Metrics are looked up by name once and then kept: each timed operation holds its
+ * {@link Timer} in a static field, and arguments passed to it as primitives are
+ * only boxed when the call was slow enough to be logged.
+ */
+public final class Metrics {
+    private static final String FILE = System.getProperty("hms.metrics.file", "metrics/hms.prom");
+    private static final int INTERVAL_SECONDS = Integer.getInteger("hms.metrics.intervalSeconds", 15);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    // key value = metric name, sorted so the file is in a stable order
+    private static final Map<String, Family> FAMILIES = new ConcurrentSkipListMap<>();
+    // key value = "Class.method"
+    private static final Map<String, Timer> CALLS = new ConcurrentHashMap<>();
+    // key value = repository class or file name
+    private static final Map<String, Timer> LOADS = new ConcurrentHashMap<>();
+    private static final Map<String, FileWrites> SAVES = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hms-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    private Metrics() {
+    }
+
+    /**
+     * A count that only goes up.
+     */
+    public static final class Counter {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long amount) {
+            count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * A distribution of non-negative values, such as latencies in nanoseconds.
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        /**
+         * Records one value; negative values are recorded as zero.
+         *
+         * @param value the value
+         */
+        public void record(long value) {
+            long clamped = Math.max(0, value);
+            buckets.incrementAndGet(bucketOf(clamped));
+            count.increment();
+            sum.add(clamped);
+            max.accumulate(clamped);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Gets a quantile of the recorded values, as the upper end of the bucket it falls in.
+         *
+         * @param quantile the quantile, between 0 and 1
+         * @return the value, or 0 if nothing was recorded
+         */
+        public long getQuantile(double quantile) {
+            long total = getCount();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += buckets.get(bucket);
+                if (seen >= rank) {
+                    return Math.min(upperBound(bucket), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        private static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int mantissa = (int) (value >>> (exponent - SUB_BITS));
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+            return ((mantissa + 1) << (exponent - SUB_BITS)) - 1;
+        }
+    }
+
+    /**
+     * Latencies and count of an operation, and the records it scanned. A timed
+     * operation keeps its timer in a static field, reads {@link System#nanoTime()}
+     * when it starts and calls one of the record methods when it returns; a call that
+     * throws is not recorded.
+     */
+    public static final class Timer {
+        private final String name;
+        private final Histogram latency;
+        private final Counter scanned;
+        private final long slowNanos;
+
+        private Timer(String name, Histogram latency, Counter scanned) {
+            this.name = name;
+            this.latency = latency;
+            this.scanned = scanned;
+            this.slowNanos = name != null ? SlowOperationLog.thresholdNanos(name) : Long.MAX_VALUE;
+        }
+
+        /**
+         * Records one call that started at the given time.
+         *
+         * @param startNanos the {@link System#nanoTime()} when the call started
+         */
+        public void record(long startNanos) {
+            long elapsed = System.nanoTime() - startNanos;
+            latency.record(elapsed);
+            if (elapsed >= slowNanos) {
+                SlowOperationLog.call(name, startNanos, elapsed, slowNanos, 0);
+            }
+        }
+
+        /**
+         * Records one call and the number of records it looked at.
+         *
+         * @param startNanos the {@link System#nanoTime()} when the call started
+         * @param records    the number of records scanned
+         */
+        public void record(long startNanos, long records) {
+            record(startNanos, records, null, null, null);
+        }
+
+        /**
+         * Records one call, the number of records it looked at and its arguments. The
+         * arguments are only looked at if the call was slow, see {@link SlowOperationLog}.
+         *
+         * @param startNanos the {@link System#nanoTime()} when the call started
+         * @param records    the number of records scanned
+         * @param argument   the argument of the call
+         */
+        public void record(long startNanos, long records, Object argument) {
+            record(startNanos, records, argument, null, null);
+        }
+
+        /**
+         * Records one call, the number of records it looked at and its arguments.
+         *
+         * @param startNanos the {@link System#nanoTime()} when the call started
+         * @param records    the number of records scanned
+         * @param first      the first argument of the call
+         * @param second     the second argument of the call
+         */
+        public void record(long startNanos, long records, Object first, Object second) {
+            record(startNanos, records, first, second, null);
+        }
+
+        /**
+         * Records one call, the number of records it looked at and its arguments.
+         *
+         * @param startNanos the {@link System#nanoTime()} when the call started
+         * @param records    the number of records scanned
+         * @param first      the first argument of the call
+         * @param second     the second argument of the call
+         * @param third      the third argument of the call
+         */
+        public void record(long startNanos, long records, Object first, Object second, Object third) {
+            long elapsed = System.nanoTime() - startNanos;
+            latency.record(elapsed);
+            scanned.add(records);
+            if (elapsed >= slowNanos) {
+                SlowOperationLog.call(name, startNanos, elapsed, slowNanos, records, first, second, third);
+            }
+        }
+
+        /**
+         * Records one call whose second argument is a number, without boxing it
+         * unless the call was slow.
+         *
+         * @param startNanos the {@link System#nanoTime()} when the call started
+         * @param records    the number of records scanned
+         * @param first      the first argument of the call
+         * @param second     the second argument of the call
+         */
+        public void record(long startNanos, long records, Object first, long second) {
+            long elapsed = System.nanoTime() - startNanos;
+            latency.record(elapsed);
+            scanned.add(records);
+            if (elapsed >= slowNanos) {
+                SlowOperationLog.call(name, startNanos, elapsed, slowNanos, records, first, second, null);
+            }
+        }
+
+        /**
+         * Records one call whose first argument is a number, without boxing it
+         * unless the call was slow.
+         *
+         * @param startNanos the {@link System#nanoTime()} when the call started
+         * @param records    the number of records scanned
+         * @param first      the first argument of the call
+         * @param second     the second argument of the call
+         */
+        public void record(long startNanos, long records, long first, Object second) {
+            long elapsed = System.nanoTime() - startNanos;
+            latency.record(elapsed);
+            scanned.add(records);
+            if (elapsed >= slowNanos) {
+                SlowOperationLog.call(name, startNanos, elapsed, slowNanos, records, first, second, null);
+            }
+        }
+
+        /**
+         * Records one call whose first argument is a number, without boxing it
+         * unless the call was slow.
+         *
+         * @param startNanos the {@link System#nanoTime()} when the call started
+         * @param records    the number of records scanned
+         * @param first      the first argument of the call
+         * @param second     the second argument of the call
+         * @param third      the third argument of the call
+         */
+        public void record(long startNanos, long records, long first, Object second, Object third) {
+            long elapsed = System.nanoTime() - startNanos;
+            latency.record(elapsed);
+            scanned.add(records);
+            if (elapsed >= slowNanos) {
+                SlowOperationLog.call(name, startNanos, elapsed, slowNanos, records, first, second, third);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        public long getScanned() {
+            return scanned.get();
+        }
+    }
+
+    /**
+     * Latency, size and failures of the writes of one file.
+     */
+    private record FileWrites(Histogram latency, Counter bytes, Counter rows, Counter failures) {
+    }
+
+    /**
+     * Gets the timer of a controller method, to be kept in a static field of the controller.
+     *
+     * @param method the class and method name, for example "AppointmentController.bookAppointmentSlot"
+     * @return the timer
+     */
+    public static Timer call(String method) {
+        Timer timer = CALLS.get(method);
+        return timer != null ? timer : CALLS.computeIfAbsent(method, key -> {
+            String labels = label("method", key);
+            return new Timer(key,
+                    histogram("hms_controller_call_seconds", "Latency of controller calls.", labels),
+                    counter("hms_controller_records_scanned_total",
+                            "Records looked at by controller calls that scan a repository.", labels));
+        });
+    }
+
+    /**
+     * Records the load of a repository from its CSV files.
+     *
+     * @param repository the repository class name
+     * @param startNanos the {@link System#nanoTime()} when the load started
+     */
+    public static void recordLoad(String repository, long startNanos) {
+        Timer timer = LOADS.get(repository);
+        if (timer == null) {
+            timer = LOADS.computeIfAbsent(repository, key -> new Timer(null,
+                    histogram("hms_repository_load_seconds", "Time to load a repository from its CSV files.",
+                            label("repository", key)),
+                    new Counter()));
+        }
+        timer.record(startNanos);
+    }
+
+    /**
+     * Records a write of a repository file.
+     *
+     * @param fileName     the name of the file
+     * @param success      whether the write succeeded
+     * @param rows         the number of rows written
+     * @param bytes        the number of bytes written
+     * @param elapsedNanos the time the write took
+     */
+    public static void recordSave(String fileName, boolean success, long rows, long bytes, long elapsedNanos) {
+        FileWrites writes = SAVES.get(fileName);
+        if (writes == null) {
+            writes = SAVES.computeIfAbsent(fileName, key -> {
+                String labels = label("file", key);
+                return new FileWrites(
+                        histogram("hms_repository_save_seconds", "Time to write a repository file.", labels),
+                        counter("hms_repository_bytes_written_total", "Bytes written to repository files.",
+                                labels),
+                        counter("hms_repository_rows_written_total", "Rows written to repository files.", labels),
+                        counter("hms_repository_save_failures_total", "Failed writes of repository files.",
+                                labels));
+            });
+        }
+        writes.latency().record(elapsedNanos);
+        writes.bytes().add(bytes);
+        writes.rows().add(rows);
+        if (!success) {
+            writes.failures().increment();
+        }
+    }
+
+    /**
+     * Gets or creates a counter.
+     *
+     * @param name   the metric name, ending in _total
+     * @param help   what the metric counts
+     * @param labels the labels in Prometheus syntax, for example method="login", or empty
+     * @return the counter
+     */
+    public static Counter counter(String name, String help, String labels) {
+        return (Counter) family(name, help, "counter").series.computeIfAbsent(labels, key -> new Counter());
+    }
+
+    /**
+     * Gets or creates a histogram of durations in nanoseconds, written in seconds.
+     *
+     * @param name   the metric name, ending in _seconds
+     * @param help   what the metric measures
+     * @param labels the labels in Prometheus syntax, or empty
+     * @return the histogram
+     */
+    public static Histogram histogram(String name, String help, String labels) {
+        return (Histogram) family(name, help, "summary").series.computeIfAbsent(labels, key -> new Histogram());
+    }
+
+    /**
+     * Formats one label in Prometheus syntax, escaping the value.
+     *
+     * @param name  the label name
+     * @param value the label value
+     * @return the label, for example method="login"
+     */
+    public static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    /**
+     * Starts writing the metrics file periodically. Calling it again has no effect.
+     */
+    public static void start() {
+        if (STARTED.compareAndSet(false, true)) {
+            WRITER.scheduleAtFixedRate(() -> {
+                try {
+                    writeSnapshot(Paths.get(FILE));
+                } catch (IOException | RuntimeException e) {
+                    // keep the writer running, the next snapshot may succeed
+                    System.out.println("Error writing metrics: " + e.getMessage());
+                }
+            }, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Writes the current value of every metric to a file. The file is replaced in
+     * one step, so a scraper never reads half a snapshot.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeSnapshot(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temporary, toPrometheusText(), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format. Histograms are
+     * written as summaries of everything recorded since startup, in seconds.
+     *
+     * @return the text
+     */
+    public static String toPrometheusText() {
+        StringBuilder text = new StringBuilder(16 * 1024);
+        for (Map.Entry<String, Family> entry : FAMILIES.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            text.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> series : family.series.entrySet()) {
+                String labels = series.getKey();
+                if (series.getValue() instanceof Counter counter) {
+                    text.append(name).append(braces(labels)).append(' ').append(counter.get()).append('\n');
+                    continue;
+                }
+                Histogram histogram = (Histogram) series.getValue();
+                String prefix = labels.isEmpty() ? "" : labels + ",";
+                for (double quantile : QUANTILES) {
+                    text.append(name).append('{').append(prefix).append("quantile=\"").append(quantile).append("\"} ")
+                            .append(seconds(histogram.getQuantile(quantile))).append('\n');
+                }
+                text.append(name).append("_sum").append(braces(labels)).append(' ')
+                        .append(seconds(histogram.getSum())).append('\n');
+                text.append(name).append("_count").append(braces(labels)).append(' ')
+                        .append(histogram.getCount()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * The metrics of one name: its help text, type and one value per set of labels.
+     */
+    private static final class Family {
+        private final String help;
+        private final String type;
+        // key value = labels, sorted so the file is in a stable order
+        private final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        private Family(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static Family family(String name, String help, String type) {
+        Family family = FAMILIES.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
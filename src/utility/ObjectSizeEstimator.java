@@ -0,0 +1,289 @@
+package utility;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Estimates how much heap a graph of objects takes, from the object layout of the
+ * running JVM (header size, compressed references, 8-byte alignment) rather than
+ * by measuring it. Application objects are walked field by field with reflection;
+ * the JDK's strings, dates, boxes, collections and maps, whose fields cannot be
+ * read, are sized from what they are known to allocate.
+ *
+ * The size of each object is credited to the nearest application object that
+ * reaches it, so a String field counts towards the Patient that holds it, and the
+ * totals per application class are kept. Objects are only counted once per
+ * estimator, and the walk does not enter objects for which the stop predicate
+ * holds, so a reference to a record owned by another repository costs only the
+ * reference itself. Enum constants and classes are shared and never counted.
+ * The estimator is not thread-safe.
+ */
+public class ObjectSizeEstimator {
+    private static final boolean COMPRESSED_OOPS = compressedOops();
+    /** Size of a reference field or array element. */
+    public static final int REFERENCE_SIZE = COMPRESSED_OOPS ? 4 : 8;
+    /** Size of the header of an object. */
+    public static final int OBJECT_HEADER = COMPRESSED_OOPS ? 12 : 16;
+    /** Size of the header of an array, including its length. */
+    public static final int ARRAY_HEADER = COMPRESSED_OOPS ? 16 : 20;
+
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += fieldSize(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
+    private static final ClassValue<Field[]> REFERENCE_FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()
+                            && field.trySetAccessible()) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    private final Predicate<Object> stopAt;
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    // key value = class name, or "(structure)" for JDK objects not held by an application object
+    private final Map<String, long[]> totals = new HashMap<>();
+    private long bytes;
+
+    /**
+     * Constructs an estimator.
+     *
+     * @param stopAt holds for objects that are not to be counted or entered, other than the roots
+     */
+    public ObjectSizeEstimator(Predicate<Object> stopAt) {
+        this.stopAt = stopAt;
+    }
+
+    /**
+     * Adds an object and everything it reaches that has not been counted yet.
+     * The root is counted even if the stop predicate holds for it.
+     *
+     * @param root the object
+     * @return the bytes added by this call
+     */
+    public long add(Object root) {
+        long before = bytes;
+        Deque<Object[]> pending = new ArrayDeque<>();
+        pending.push(new Object[]{root, null});
+        while (!pending.isEmpty()) {
+            Object[] next = pending.pop();
+            Object object = next[0];
+            if (object == null || object instanceof Enum<?> || object instanceof Class<?>
+                    || (object != root && stopAt.test(object)) || !visited.add(object)) {
+                continue;
+            }
+            String owner = isApplicationClass(object.getClass()) ? object.getClass().getSimpleName()
+                    : next[1] != null ? (String) next[1] : "(structure)";
+            List<Object> children = new ArrayList<>();
+            long size = sizeOf(object, children);
+            bytes += size;
+            long[] total = totals.computeIfAbsent(owner, key -> new long[2]);
+            total[1] += size;
+            if (isApplicationClass(object.getClass())) {
+                total[0]++;
+            }
+            for (Object child : children) {
+                pending.push(new Object[]{child, owner});
+            }
+        }
+        return bytes - before;
+    }
+
+    /**
+     * Adds the size of a collection or map itself, without the objects it holds.
+     *
+     * @param container the collection or map
+     * @return the bytes added
+     */
+    public long addContainer(Object container) {
+        if (!visited.add(container)) {
+            return 0;
+        }
+        long size = sizeOf(container, new ArrayList<>());
+        bytes += size;
+        totals.computeIfAbsent("(structure)", key -> new long[2])[1] += size;
+        return size;
+    }
+
+    /**
+     * @return the bytes counted so far
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets what was counted per application class: instances and bytes, including
+     * the JDK objects each one holds. JDK objects held by no application object are
+     * under "(structure)".
+     *
+     * @return instances and bytes, by simple class name
+     */
+    public Map<String, long[]> getTotals() {
+        return totals;
+    }
+
+    private static boolean isApplicationClass(Class<?> type) {
+        return type.getClassLoader() != null && !type.isArray();
+    }
+
+    private static long sizeOf(Object object, List<Object> children) {
+        Class<?> type = object.getClass();
+        if (type.isArray()) {
+            Class<?> component = type.getComponentType();
+            int length = Array.getLength(object);
+            if (!component.isPrimitive()) {
+                for (Object element : (Object[]) object) {
+                    children.add(element);
+                }
+            }
+            return arraySize(component, length);
+        }
+        if (object instanceof String string) {
+            boolean latin1 = string.chars().allMatch(c -> c < 256);
+            return SHALLOW_SIZES.get(String.class) + align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2));
+        }
+        if (object instanceof LocalDateTime dateTime) {
+            children.add(dateTime.toLocalDate());
+            children.add(dateTime.toLocalTime());
+            return SHALLOW_SIZES.get(type);
+        }
+        if (object instanceof AtomicReference<?> reference) {
+            children.add(reference.get());
+            return SHALLOW_SIZES.get(type);
+        }
+        if (object instanceof Map<?, ?> map && !isApplicationClass(type)) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                children.add(entry.getKey());
+                children.add(entry.getValue());
+            }
+            return mapSize(map);
+        }
+        if (object instanceof Collection<?> collection && !isApplicationClass(type)) {
+            children.addAll(collection);
+            return collectionSize(collection);
+        }
+        if (isApplicationClass(type)) {
+            for (Field field : REFERENCE_FIELDS.get(type)) {
+                try {
+                    children.add(field.get(object));
+                } catch (IllegalAccessException e) {
+                    // not readable, only the reference is counted
+                }
+            }
+        }
+        // other JDK objects (boxes, dates, atomics) are counted without what they reference
+        return SHALLOW_SIZES.get(type);
+    }
+
+    private static long mapSize(Map<?, ?> map) {
+        int size = map.size();
+        long table = align(ARRAY_HEADER + (long) tableLength(size) * REFERENCE_SIZE);
+        if (map instanceof TreeMap<?, ?>) {
+            return SHALLOW_SIZES.get(TreeMap.class) + size * align(OBJECT_HEADER + 5L * REFERENCE_SIZE + 1);
+        }
+        if (map instanceof LinkedHashMap<?, ?>) {
+            return SHALLOW_SIZES.get(LinkedHashMap.class) + table
+                    + size * align(OBJECT_HEADER + 4 + 5L * REFERENCE_SIZE);
+        }
+        if (map instanceof ConcurrentHashMap<?, ?>) {
+            return SHALLOW_SIZES.get(ConcurrentHashMap.class) + table
+                    + size * align(OBJECT_HEADER + 4 + 3L * REFERENCE_SIZE);
+        }
+        // HashMap and anything else hashed: a table and one node per entry
+        return SHALLOW_SIZES.get(HashMap.class) + table + size * align(OBJECT_HEADER + 4 + 3L * REFERENCE_SIZE);
+    }
+
+    private static long collectionSize(Collection<?> collection) {
+        int size = collection.size();
+        if (collection instanceof LinkedList<?>) {
+            return SHALLOW_SIZES.get(LinkedList.class) + size * align(OBJECT_HEADER + 3L * REFERENCE_SIZE);
+        }
+        if (collection instanceof Set<?>) {
+            // HashSet and friends are a map with a shared dummy value
+            return align(OBJECT_HEADER + REFERENCE_SIZE) + SHALLOW_SIZES.get(HashMap.class)
+                    + align(ARRAY_HEADER + (long) tableLength(size) * REFERENCE_SIZE)
+                    + size * align(OBJECT_HEADER + 4 + 3L * REFERENCE_SIZE);
+        }
+        // ArrayList and other array-backed collections, assuming no spare capacity
+        return SHALLOW_SIZES.get(ArrayList.class) + align(ARRAY_HEADER + (long) size * REFERENCE_SIZE);
+    }
+
+    private static int tableLength(int size) {
+        int needed = (int) Math.ceil(size / 0.75);
+        return needed <= 16 ? 16 : Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static long arraySize(Class<?> component, int length) {
+        return align(ARRAY_HEADER + (long) length * fieldSize(component));
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_SIZE;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static boolean compressedOops() {
+        try {
+            return Boolean.parseBoolean(ManagementFactory
+                    .getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class)
+                    .getVMOption("UseCompressedOops").getValue());
+        } catch (RuntimeException e) {
+            // not HotSpot; compressed references are the default below 32 GB of heap
+            return Runtime.getRuntime().maxMemory() < 32L * 1024 * 1024 * 1024;
+        }
+    }
+}
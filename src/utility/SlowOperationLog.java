@@ -0,0 +1,366 @@
+package utility;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Log of controller calls and repository saves that took longer than their
+ * threshold, so a boundary action that felt slow can be explained afterwards.
+ * Each entry has the operation, a summary of its arguments, the rows it scanned
+ * and wrote, how its time split between looking up records and persisting them,
+ * and the stack of the caller. Entries are written as one JSON object per line to
+ * ./slow-operations.log (or -Dhms.slowOps.file).
+ *
+ * The threshold is -Dhms.slowOps.thresholdMillis (200) for every operation, or
+ * -Dhms.slowOps.thresholdMillis.&lt;operation&gt; for one of them, for example
+ * -Dhms.slowOps.thresholdMillis.AppointmentController.cancelAppointment=50 or
+ * -Dhms.slowOps.thresholdMillis.Repository.save=100. A negative threshold turns
+ * the log off.
+ *
+ * A call under its threshold costs one comparison. A slow call is summarised on
+ * its own thread and put in a fixed ring buffer without locking; a background
+ * thread formats and writes the entries. If the writer falls a whole buffer
+ * (-Dhms.slowOps.bufferSize, 1024) behind, the oldest entries are dropped and
+ * counted in hms_slow_operations_dropped_total.
+ */
+public final class SlowOperationLog {
+    private static final String FILE = System.getProperty("hms.slowOps.file", "slow-operations.log");
+    private static final long DEFAULT_THRESHOLD_MILLIS = Long.getLong("hms.slowOps.thresholdMillis", 200);
+    private static final int STACK_DEPTH = Integer.getInteger("hms.slowOps.stackDepth", 12);
+    private static final int FLUSH_MILLIS = Integer.getInteger("hms.slowOps.flushMillis", 1000);
+    private static final int MAX_ARGUMENT_LENGTH = 60;
+    private static final String SAVE_OPERATION = "Repository.save";
+
+    private static final int CAPACITY = Integer.highestOneBit(
+            Math.max(2, Integer.getInteger("hms.slowOps.bufferSize", 1024) * 2 - 1));
+    private static final int MASK = CAPACITY - 1;
+    private static final AtomicReferenceArray<Entry> SLOTS = new AtomicReferenceArray<>(CAPACITY);
+    // sequence + 1 of the entry last published in each slot, 0 if none
+    private static final AtomicLongArray PUBLISHED = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong CLAIMED = new AtomicLong();
+    // only read and written by the writer thread
+    private static long consumed;
+
+    // key value = operation name
+    private static final Map<String, Long> THRESHOLDS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<PersistLog> PERSISTS = ThreadLocal.withInitial(PersistLog::new);
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    private static final ClassValue<Method> ID_GETTERS = new ClassValue<>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            for (String name : new String[]{"getRecordID", "getUID", "getWaitlistID", "getMedicineID"}) {
+                try {
+                    Method getter = type.getMethod(name);
+                    if (getter.getReturnType() == String.class && !Modifier.isStatic(getter.getModifiers())) {
+                        return getter;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // try the next name
+                }
+            }
+            return null;
+        }
+    };
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hms-slow-ops");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    private SlowOperationLog() {
+    }
+
+    /**
+     * One slow operation.
+     *
+     * @param at             when the operation finished
+     * @param thread         the name of the thread that ran it
+     * @param operation      the operation, for example "AppointmentController.cancelAppointment"
+     * @param elapsedNanos   the time it took
+     * @param thresholdNanos the threshold it went over
+     * @param persistNanos   the part of the time spent handing rows to the persistence writer and
+     *                       waiting for synchronous saves to reach disk
+     * @param persists       the number of saves
+     * @param rowsScanned    the records looked at
+     * @param rowsWritten    the rows saved
+     * @param arguments      a summary of each argument
+     * @param stack          the caller's stack, innermost first
+     */
+    public record Entry(LocalDateTime at, String thread, String operation, long elapsedNanos, long thresholdNanos,
+                        long persistNanos, int persists, long rowsScanned, long rowsWritten, List<String> arguments,
+                        List<String> stack) {
+        /**
+         * @return the rest of the time: finding and changing records, and rendering the rows to save
+         */
+        public long lookupNanos() {
+            return Math.max(0, elapsedNanos - persistNanos);
+        }
+    }
+
+    /**
+     * Gets the threshold of an operation.
+     *
+     * @param operation the operation name
+     * @return the threshold in nanoseconds, {@link Long#MAX_VALUE} if the operation is never logged
+     */
+    public static long thresholdNanos(String operation) {
+        return THRESHOLDS.computeIfAbsent(operation, key -> {
+            long millis = Long.getLong("hms.slowOps.thresholdMillis." + key, DEFAULT_THRESHOLD_MILLIS);
+            return millis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(millis);
+        });
+    }
+
+    /**
+     * Notes a save made by the current thread, so a slow operation that made it can
+     * tell how much of its time went to saving.
+     *
+     * @param startNanos the {@link System#nanoTime()} when the save started
+     * @param rows       the number of rows saved
+     */
+    public static void persisted(long startNanos, long rows) {
+        PERSISTS.get().add(startNanos, System.nanoTime() - startNanos, rows);
+    }
+
+    /**
+     * Logs a controller call that went over its threshold. Called by {@link Metrics.Timer}.
+     *
+     * @param operation      the class and method name
+     * @param startNanos     the {@link System#nanoTime()} when the call started
+     * @param elapsedNanos   the time the call took
+     * @param thresholdNanos the threshold of the call
+     * @param rowsScanned    the records the call looked at
+     * @param arguments      the arguments to summarise, null for those not given
+     */
+    static void call(String operation, long startNanos, long elapsedNanos, long thresholdNanos, long rowsScanned,
+                     Object... arguments) {
+        long[] persisted = PERSISTS.get().since(startNanos, startNanos + elapsedNanos);
+        String[] summaries = new String[arguments.length];
+        int count = 0;
+        for (Object argument : arguments) {
+            if (argument != null) {
+                summaries[count++] = summarise(argument);
+            }
+        }
+        List<String> stack = STACK_WALKER.walk(frames -> frames
+                .dropWhile(frame -> frame.getClassName().startsWith("utility.Metrics")
+                        || frame.getClassName().equals(SlowOperationLog.class.getName()))
+                .limit(STACK_DEPTH)
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .toList());
+        offer(new Entry(LocalDateTime.now(), Thread.currentThread().getName(), operation, elapsedNanos,
+                thresholdNanos, persisted[0], (int) persisted[2], rowsScanned, persisted[1],
+                List.of(Arrays.copyOf(summaries, count)), stack));
+    }
+
+    /**
+     * Logs a write of a repository file if it went over the Repository.save threshold.
+     *
+     * @param fileName     the name of the file
+     * @param append       whether rows were appended rather than the file rewritten
+     * @param rows         the rows written
+     * @param elapsedNanos the time the write took
+     */
+    public static void save(String fileName, boolean append, long rows, long elapsedNanos) {
+        long threshold = thresholdNanos(SAVE_OPERATION);
+        if (elapsedNanos < threshold) {
+            return;
+        }
+        offer(new Entry(LocalDateTime.now(), Thread.currentThread().getName(), SAVE_OPERATION, elapsedNanos,
+                threshold, elapsedNanos, 1, 0, rows, List.of(fileName, append ? "append" : "rewrite"), List.of()));
+    }
+
+    private static void offer(Entry entry) {
+        long sequence = CLAIMED.getAndIncrement();
+        int slot = (int) (sequence & MASK);
+        SLOTS.set(slot, entry);
+        PUBLISHED.set(slot, sequence + 1);
+        Metrics.counter("hms_slow_operations_total", "Operations that went over their slow-operation threshold.",
+                Metrics.label("operation", entry.operation())).increment();
+        if (STARTED.compareAndSet(false, true)) {
+            WRITER.scheduleWithFixedDelay(SlowOperationLog::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(SlowOperationLog::flush, "hms-slow-ops-flush"));
+        }
+    }
+
+    /**
+     * Writes the entries logged so far to the log file.
+     */
+    public static synchronized void flush() {
+        StringBuilder text = new StringBuilder();
+        long dropped = 0;
+        long claimed = CLAIMED.get();
+        if (claimed - consumed > CAPACITY) {
+            dropped += claimed - CAPACITY - consumed;
+            consumed = claimed - CAPACITY;
+        }
+        while (consumed < claimed) {
+            int slot = (int) (consumed & MASK);
+            long published = PUBLISHED.get(slot) - 1;
+            if (published < consumed) {
+                // claimed but not published yet; pick it up on the next flush
+                break;
+            }
+            Entry entry = SLOTS.get(slot);
+            if (published > consumed || PUBLISHED.get(slot) - 1 != consumed) {
+                // overwritten by a producer that went a whole buffer ahead
+                dropped++;
+            } else {
+                appendJson(text, entry);
+            }
+            consumed++;
+        }
+        if (dropped > 0) {
+            Metrics.counter("hms_slow_operations_dropped_total",
+                    "Slow-operation log entries dropped because the writer fell behind.", "").add(dropped);
+        }
+        if (text.length() == 0) {
+            return;
+        }
+        try {
+            Path file = Paths.get(FILE);
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Files.writeString(file, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("Error writing slow operation log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the path of the slow operation log
+     */
+    public static Path getFile() {
+        return Paths.get(FILE).toAbsolutePath();
+    }
+
+    private static String summarise(Object argument) {
+        String summary;
+        if (argument instanceof String || argument instanceof Number || argument instanceof Boolean
+                || argument instanceof Enum<?> || argument instanceof Temporal) {
+            summary = argument.toString();
+        } else if (argument instanceof Collection<?> collection) {
+            summary = argument.getClass().getSimpleName() + "(size=" + collection.size() + ")";
+        } else if (argument instanceof Map<?, ?> map) {
+            summary = argument.getClass().getSimpleName() + "(size=" + map.size() + ")";
+        } else {
+            summary = argument.getClass().getSimpleName();
+            Method getter = ID_GETTERS.get(argument.getClass());
+            if (getter != null) {
+                try {
+                    summary += "(" + getter.invoke(argument) + ")";
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // the class name alone will do
+                }
+            }
+        }
+        return summary.length() > MAX_ARGUMENT_LENGTH ? summary.substring(0, MAX_ARGUMENT_LENGTH) + "..." : summary;
+    }
+
+    private static void appendJson(StringBuilder text, Entry entry) {
+        text.append("{\"at\": ").append(quote(entry.at().toString()))
+                .append(", \"thread\": ").append(quote(entry.thread()))
+                .append(", \"operation\": ").append(quote(entry.operation()))
+                .append(", \"elapsedMillis\": ").append(millis(entry.elapsedNanos()))
+                .append(", \"thresholdMillis\": ").append(millis(entry.thresholdNanos()))
+                .append(", \"lookupMillis\": ").append(millis(entry.lookupNanos()))
+                .append(", \"persistMillis\": ").append(millis(entry.persistNanos()))
+                .append(", \"persists\": ").append(entry.persists())
+                .append(", \"rowsScanned\": ").append(entry.rowsScanned())
+                .append(", \"rowsWritten\": ").append(entry.rowsWritten())
+                .append(", \"arguments\": ");
+        appendArray(text, entry.arguments());
+        text.append(", \"stack\": ");
+        appendArray(text, entry.stack());
+        text.append("}\n");
+    }
+
+    private static void appendArray(StringBuilder text, List<String> values) {
+        text.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            text.append(i == 0 ? "" : ", ").append(quote(values.get(i)));
+        }
+        text.append(']');
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * The last saves made by one thread, kept in a small ring so a slow operation
+     * can add up the ones that happened while it ran.
+     */
+    private static final class PersistLog {
+        private static final int SIZE = 32;
+        private final long[] starts = new long[SIZE];
+        private final long[] durations = new long[SIZE];
+        private final long[] rows = new long[SIZE];
+        private int next;
+
+        private void add(long startNanos, long durationNanos, long rowCount) {
+            starts[next] = startNanos;
+            durations[next] = durationNanos;
+            rows[next] = rowCount;
+            next = (next + 1) % SIZE;
+        }
+
+        // {persist nanos, rows, saves} of the saves that started and ended inside the window
+        private long[] since(long fromNanos, long toNanos) {
+            long[] total = new long[3];
+            for (int i = 0; i < SIZE; i++) {
+                if (durations[i] > 0 && starts[i] - fromNanos >= 0 && toNanos - (starts[i] + durations[i]) >= 0) {
+                    total[0] += durations[i];
+                    total[1] += rows[i];
+                    total[2]++;
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package utility;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for a large number of timers with a fixed resolution.
+ * Time is counted in ticks of a fixed length. The wheel has five levels of 64
+ * slots; a slot on level n covers 64^n ticks, so the wheel spans 64^5 ticks (about
+ * 34 years with one-second ticks). A timer is put in the slot of the lowest level
+ * that reaches its deadline, and is moved one level down each time the time
+ * reaches the start of its slot, so scheduling and cancelling are O(1) and
+ * advancing one tick costs O(1) plus the timers that fire or move.
+ * Each slot is a doubly linked list, so a cancelled timer is unlinked at once.
+ * The wheel is not thread-safe.
+ *
+ * @param <T> the type of the value attached to each timer
+ */
+public class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private final long tickMillis;
+    // one sentinel per slot, the list of a slot starts at sentinel.next
+    private final Timer<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * A scheduled timer, returned so it can be cancelled.
+     *
+     * @param <T> the type of the value attached to the timer
+     */
+    public static final class Timer<T> {
+        private final long deadlineTick;
+        private final T value;
+        private Timer<T> previous;
+        private Timer<T> next;
+
+        private Timer(long deadlineTick, T value) {
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+        }
+
+        /**
+         * Gets the value attached to the timer.
+         *
+         * @return the value
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * Checks whether the timer is still waiting to fire.
+         *
+         * @return true if the timer has neither fired nor been cancelled
+         */
+        public boolean isPending() {
+            return previous != null;
+        }
+    }
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis the length of one tick in milliseconds
+     * @param nowMillis  the current time in milliseconds since the epoch
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+        this.slots = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer<T> sentinel = new Timer<>(0, null);
+                sentinel.previous = sentinel;
+                sentinel.next = sentinel;
+                slots[level][slot] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Schedules a timer. A deadline in the past, or in the tick the wheel last
+     * advanced to, fires on the next advance to a later tick.
+     *
+     * @param deadlineMillis the time the timer fires, in milliseconds since the epoch
+     * @param value          the value handed back when the timer fires
+     * @return the timer
+     */
+    public Timer<T> schedule(long deadlineMillis, T value) {
+        Timer<T> timer = new Timer<>(Math.max(currentTick, Math.floorDiv(deadlineMillis, tickMillis)), value);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a timer.
+     *
+     * @param timer the timer to cancel
+     * @return true if the timer was still pending
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || !timer.isPending()) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the time forward and hands every timer whose deadline has been reached
+     * to the consumer, in deadline order (timers in the same tick in no particular order).
+     *
+     * @param nowMillis the current time in milliseconds since the epoch
+     * @param expired   receives the value of each timer that fires
+     */
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        if (size == 0 && targetTick > currentTick) {
+            currentTick = targetTick;
+        }
+        while (currentTick <= targetTick) {
+            int index = (int) (currentTick & MASK);
+            if (index == 0) {
+                // entering a new slot on the levels above: move its timers down
+                for (int level = 1; level < LEVELS; level++) {
+                    int slot = (int) ((currentTick >>> (BITS * level)) & MASK);
+                    cascade(slots[level][slot]);
+                    if (slot != 0) {
+                        break;
+                    }
+                }
+            }
+            Timer<T> sentinel = slots[0][index];
+            while (sentinel.next != sentinel) {
+                Timer<T> timer = sentinel.next;
+                unlink(timer);
+                size--;
+                expired.accept(timer.value);
+            }
+            currentTick++;
+            if (size == 0 && targetTick > currentTick) {
+                currentTick = targetTick;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of pending timers.
+     *
+     * @return the number of timers that have neither fired nor been cancelled
+     */
+    public int size() {
+        return size;
+    }
+
+    private void cascade(Timer<T> sentinel) {
+        Timer<T> timer = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.previous = sentinel;
+        while (timer != sentinel) {
+            Timer<T> next = timer.next;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        long deadline = delta < SPAN ? timer.deadlineTick : currentTick + SPAN - 1;
+        delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        Timer<T> sentinel = slots[level][(int) ((deadline >>> (BITS * level)) & MASK)];
+        timer.previous = sentinel.previous;
+        timer.next = sentinel;
+        sentinel.previous.next = timer;
+        sentinel.previous = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+    }
+}
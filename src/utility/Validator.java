@@ -3,6 +3,7 @@ package utility;
 import java.util.InputMismatchException;
 import java.util.Scanner;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
@@ -245,6 +246,26 @@ public class Validator {
         }
     }
 
+    /**
+     * Reads a time of day input from the user in HH:mm format and returns a
+     * LocalTime object.
+     * Continues to prompt until a valid time is entered.
+     *
+     * @param prompt The prompt message to display to the user.
+     * @return LocalTime object representing the entered time.
+     */
+    public static LocalTime readTime(String prompt) {
+        while (true) {
+            System.out.println(prompt);
+            String userInput = sc.nextLine().trim();
+            try {
+                return LocalTime.parse(userInput, DateTimeFormatter.ofPattern("HH:mm"));
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid time format. Please enter the time in HH:mm format.");
+            }
+        }
+    }
+
     /**
      * Checks if the provided email matches a valid email format.
      *